@@ -0,0 +1,41 @@
+package dk.alexandra.fresco.framework;
+
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+
+/**
+ * A native protocol which draws from or adds to state of the resource pool, where the order in
+ * which this happens must be the same for all parties. Examples are drawing preprocessed material
+ * such as multiplication triples, and recording opened values for a later MAC check.
+ * <p>
+ * Evaluation strategies which evaluate the protocols of a round concurrently call
+ * {@link #reserve(int, ResourcePool)} on the protocols of the round in protocol order before any of
+ * them are evaluated, and {@link #commit(int, ResourcePool)} in protocol order after all of them
+ * have been evaluated. Strategies which evaluate the protocols one by one do not call these
+ * methods, in which case the protocol should access the resource pool directly when evaluated.
+ * </p>
+ *
+ * @param <OutputT> The output type produced
+ * @param <ResourcePoolT> The resource pool type
+ */
+public interface OrderedNativeProtocol<OutputT, ResourcePoolT extends ResourcePool>
+    extends NativeProtocol<OutputT, ResourcePoolT> {
+
+  /**
+   * Draws whatever the protocol needs from the resource pool in the given round. Called before
+   * the round is evaluated.
+   *
+   * @param round Number of the round about to be evaluated
+   * @param resourcePool the resource pool to draw from
+   */
+  void reserve(int round, ResourcePoolT resourcePool);
+
+  /**
+   * Adds whatever the protocol recorded in the given round to the resource pool. Called after the
+   * round has been evaluated.
+   *
+   * @param round Number of the round just evaluated
+   * @param resourcePool the resource pool to add to
+   */
+  void commit(int round, ResourcePoolT resourcePool);
+
+}
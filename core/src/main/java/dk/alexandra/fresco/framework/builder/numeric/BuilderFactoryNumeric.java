@@ -51,6 +51,10 @@ public interface BuilderFactoryNumeric extends BuilderFactory<ProtocolBuilderNum
   default PreprocessedValues createPreprocessedValues(ProtocolBuilderNumeric builder) {
     return new DefaultPreprocessedValues(builder);
   }
+
+  default VectorizedNumeric createVectorizedNumeric(ProtocolBuilderNumeric builder) {
+    return new DefaultVectorizedNumeric(builder);
+  }
   
   default RealNumeric createRealNumeric(ProtocolBuilderNumeric builder) {
     return new FixedNumeric(builder);
@@ -0,0 +1,51 @@
+package dk.alexandra.fresco.framework.builder.numeric;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Default way of computing on lists of values, which applies the {@link Numeric} operations to
+ * each element in parallel.
+ */
+public class DefaultVectorizedNumeric implements VectorizedNumeric {
+
+  private final ProtocolBuilderNumeric builder;
+
+  public DefaultVectorizedNumeric(ProtocolBuilderNumeric builder) {
+    this.builder = builder;
+  }
+
+  @Override
+  public DRes<List<DRes<SInt>>> mult(List<DRes<SInt>> left, List<DRes<SInt>> right) {
+    if (left.size() != right.size()) {
+      throw new IllegalArgumentException("Lists must be same size");
+    }
+    return builder.par(par -> {
+      List<DRes<SInt>> products = new ArrayList<>(left.size());
+      for (int i = 0; i < left.size(); i++) {
+        products.add(par.numeric().mult(left.get(i), right.get(i)));
+      }
+      return () -> products;
+    });
+  }
+
+  @Override
+  public DRes<List<BigInteger>> open(List<DRes<SInt>> secretShares) {
+    return builder.par(par -> {
+      List<DRes<BigInteger>> opened = new ArrayList<>(secretShares.size());
+      for (DRes<SInt> secretShare : secretShares) {
+        opened.add(par.numeric().open(secretShare));
+      }
+      return () -> {
+        List<BigInteger> values = new ArrayList<>(opened.size());
+        for (DRes<BigInteger> value : opened) {
+          values.add(value.out());
+        }
+        return values;
+      };
+    });
+  }
+}
@@ -22,6 +22,7 @@ public class ProtocolBuilderNumeric extends ProtocolBuilderImpl<ProtocolBuilderN
   private Collections collections;
   private AdvancedNumeric advancedNumeric;
   private PreprocessedValues preprocessedValues;
+  private VectorizedNumeric vectorizedNumeric;
   private Debug debug;
   private RealNumeric realNumeric;
   private AdvancedRealNumeric advancedRealNumeric;
@@ -116,6 +117,19 @@ public class ProtocolBuilderNumeric extends ProtocolBuilderImpl<ProtocolBuilderN
     return preprocessedValues;
   }
 
+  /**
+   * Creates a {@link VectorizedNumeric} computation directory for this instance - i.e. this
+   * intended producer. Contains element-wise versions of the basic operations on whole lists.
+   *
+   * @return The vectorized numeric computation directory.
+   */
+  public VectorizedNumeric vectorizedNumeric() {
+    if (vectorizedNumeric == null) {
+      vectorizedNumeric = factory.createVectorizedNumeric(this);
+    }
+    return vectorizedNumeric;
+  }
+
   /**
    * Creates a {@link Debug} computation directory for this instance - i.e. this intended producer.
    * Contains debugging protocols for use during application development. <b>WARNING: Do not use in
@@ -0,0 +1,36 @@
+package dk.alexandra.fresco.framework.builder.numeric;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.ComputationDirectory;
+import dk.alexandra.fresco.framework.value.SInt;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Element-wise versions of the basic operations of {@link Numeric} on whole lists of values.
+ * <p>
+ * The default implementation simply applies the {@link Numeric} operations in parallel. Protocol
+ * suites are encouraged to override it with native protocols that handle a whole list at once,
+ * which avoids the overhead of creating a protocol, and sending a message, per element.
+ * </p>
+ */
+public interface VectorizedNumeric extends ComputationDirectory {
+
+  /**
+   * Multiplies two lists of secret values element-wise.
+   *
+   * @param left the left factors
+   * @param right the right factors, of the same size as the left factors
+   * @return the products
+   */
+  DRes<List<DRes<SInt>>> mult(List<DRes<SInt>> left, List<DRes<SInt>> right);
+
+  /**
+   * Opens a list of secret values to all parties.
+   *
+   * @param secretShares the values to open
+   * @return the opened values
+   */
+  DRes<List<BigInteger>> open(List<DRes<SInt>> secretShares);
+
+}
@@ -0,0 +1,343 @@
+package dk.alexandra.fresco.framework.network;
+
+import dk.alexandra.fresco.logging.PerformanceLogger;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Network decorator compressing large messages.
+ * <p>
+ * Messages of at least a given size are compressed using {@link Deflater} at its fastest level,
+ * which works well for the long runs of zero bytes found in e.g. fixed length serialized field
+ * elements or bits stored one per byte. Messages which are not compressed are passed to the
+ * underlying network as they are. A compressed message is sent as an empty message followed by a
+ * frame holding the length of the original message and the compressed data. An empty message is
+ * sent the same way without compression. Hence the decorator must be used by all parties.
+ * </p>
+ * <p>
+ * Whether compression pays off depends on the link. For each opposing party the decorator measures
+ * the bytes saved and the time spent compressing over a window of messages. If the time saved on
+ * the wire, computed from a configured bandwidth, is less than the time spent compressing,
+ * compression to that party is bypassed for a number of messages before it is tried again. The
+ * bandwidth is given explicitly rather than measured, since the time spent waiting for messages
+ * also includes the time the other parties spend computing.
+ * </p>
+ */
+public class CompressingNetwork implements CloseableNetwork, PerformanceLogger {
+
+  public static final String COMPRESSION_RAW_BYTES = "Amount of bytes sent before compression";
+  public static final String COMPRESSION_SENT_BYTES = "Amount of bytes sent after compression";
+  public static final String COMPRESSION_NANOS = "Time spent compressing in nanoseconds";
+  public static final String COMPRESSION_BYPASSED = "Amount of messages sent bypassing compression";
+
+  public static final int DEFAULT_MIN_SIZE = 512;
+  public static final long DEFAULT_BANDWIDTH = 100L * 1000 * 1000 / 8;
+  public static final int DEFAULT_WINDOW = 16;
+  public static final int DEFAULT_BYPASS = 256;
+  public static final int DEFAULT_MAX_MESSAGE_SIZE = 1 << 28;
+  private static final byte RAW = 0;
+  private static final byte DEFLATED = 1;
+  private static final int DEFLATED_HEADER_BYTES = 1 + Integer.BYTES;
+  private static final byte[] MARKER = new byte[0];
+
+  private static final Logger logger = LoggerFactory.getLogger(CompressingNetwork.class);
+
+  private final Network network;
+  private final int minSize;
+  private final long bandwidth;
+  private final int window;
+  private final int bypass;
+  private final int maxMessageSize;
+  private final List<Link> links;
+
+  /**
+   * Creates a new compressing network using default parameters.
+   *
+   * @param network the network to compress the messages of
+   */
+  public CompressingNetwork(Network network) {
+    this(network, DEFAULT_MIN_SIZE, DEFAULT_BANDWIDTH, DEFAULT_WINDOW, DEFAULT_BYPASS);
+  }
+
+  /**
+   * Creates a new compressing network accepting messages of up to
+   * {@link #DEFAULT_MAX_MESSAGE_SIZE} bytes.
+   *
+   * @param network the network to compress the messages of
+   * @param minSize the size in bytes of the smallest message to compress
+   * @param bandwidth the bandwidth of the links in bytes per second
+   * @param window the number of compressed messages to evaluate the effect of compression over
+   * @param bypass the number of messages to send uncompressed when compression does not pay off
+   */
+  public CompressingNetwork(Network network, int minSize, long bandwidth, int window,
+      int bypass) {
+    this(network, minSize, bandwidth, window, bypass, DEFAULT_MAX_MESSAGE_SIZE);
+  }
+
+  /**
+   * Creates a new compressing network.
+   *
+   * @param network the network to compress the messages of
+   * @param minSize the size in bytes of the smallest message to compress
+   * @param bandwidth the bandwidth of the links in bytes per second
+   * @param window the number of compressed messages to evaluate the effect of compression over
+   * @param bypass the number of messages to send uncompressed when compression does not pay off
+   * @param maxMessageSize the size in bytes of the largest compressed message to accept
+   */
+  public CompressingNetwork(Network network, int minSize, long bandwidth, int window,
+      int bypass, int maxMessageSize) {
+    if (bandwidth < 1 || window < 1 || bypass < 0 || maxMessageSize < 0) {
+      throw new IllegalArgumentException("Bandwidth and window must be positive and bypass and "
+          + "maximum message size must be non-negative, but were " + bandwidth + ", " + window
+          + ", " + bypass + ", " + maxMessageSize);
+    }
+    this.network = network;
+    this.minSize = minSize;
+    this.bandwidth = bandwidth;
+    this.window = window;
+    this.bypass = bypass;
+    this.maxMessageSize = maxMessageSize;
+    this.links = new ArrayList<>(network.getNoOfParties() + 1);
+    for (int i = 0; i <= network.getNoOfParties(); i++) {
+      links.add(new Link(i));
+    }
+  }
+
+  @Override
+  public void send(int partyId, byte[] data) {
+    links.get(partyId).send(data);
+  }
+
+  @Override
+  public byte[] receive(int partyId) {
+    return links.get(partyId).receive();
+  }
+
+  @Override
+  public int getNoOfParties() {
+    return network.getNoOfParties();
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (Link link : links) {
+      link.end();
+    }
+    if (network instanceof Closeable) {
+      ((Closeable) network).close();
+    }
+  }
+
+  @Override
+  public void reset() {
+    for (Link link : links) {
+      link.resetStats();
+    }
+  }
+
+  @Override
+  public Map<String, Long> getLoggedValues() {
+    long rawBytes = 0;
+    long sentBytes = 0;
+    long nanos = 0;
+    long bypassed = 0;
+    for (Link link : links) {
+      synchronized (link) {
+        rawBytes += link.rawBytes;
+        sentBytes += link.sentBytes;
+        nanos += link.totalNanos;
+        bypassed += link.bypassed;
+      }
+    }
+    Map<String, Long> values = new HashMap<>();
+    values.put(COMPRESSION_RAW_BYTES, rawBytes);
+    values.put(COMPRESSION_SENT_BYTES, sentBytes);
+    values.put(COMPRESSION_NANOS, nanos);
+    values.put(COMPRESSION_BYPASSED, bypassed);
+    return values;
+  }
+
+  /**
+   * The compression state for a single opposing party. Sending is guarded by the link itself and
+   * receiving by a separate lock, so a thread waiting for a message does not block sending.
+   */
+  private class Link {
+
+    private final int partyId;
+    private final Deflater deflater;
+    private final Inflater inflater;
+    private final Object receiveLock;
+    private byte[] buffer;
+    private int samples;
+    private long windowSaved;
+    private long windowNanos;
+    private int bypassRemaining;
+    private long rawBytes;
+    private long sentBytes;
+    private long totalNanos;
+    private long bypassed;
+
+    private Link(int partyId) {
+      this.partyId = partyId;
+      this.deflater = new Deflater(Deflater.BEST_SPEED);
+      this.inflater = new Inflater();
+      this.receiveLock = new Object();
+      this.buffer = new byte[0];
+    }
+
+    private synchronized void send(byte[] data) {
+      rawBytes += data.length;
+      byte[] frame = data.length < minSize ? null : compress(data);
+      if (frame == null && data.length > 0) {
+        network.send(partyId, data);
+        sentBytes += data.length;
+      } else {
+        if (frame == null) {
+          frame = new byte[] {RAW};
+        }
+        network.send(partyId, MARKER);
+        network.send(partyId, frame);
+        sentBytes += frame.length;
+      }
+    }
+
+    /**
+     * Compresses a message unless compression is bypassed.
+     *
+     * @return the compressed frame, or null if the message should be sent as it is
+     */
+    private byte[] compress(byte[] data) {
+      if (bypassRemaining > 0) {
+        bypassRemaining--;
+        bypassed++;
+        return null;
+      }
+      long start = System.nanoTime();
+      int length = deflate(data);
+      long nanos = System.nanoTime() - start;
+      totalNanos += nanos;
+      byte[] frame = null;
+      if (length >= 0) {
+        buffer[0] = DEFLATED;
+        ByteBuffer.wrap(buffer, 1, Integer.BYTES).putInt(data.length);
+        frame = Arrays.copyOf(buffer, DEFLATED_HEADER_BYTES + length);
+      }
+      record(frame == null ? 0 : data.length - frame.length, nanos);
+      return frame;
+    }
+
+    /**
+     * Compresses the data into the buffer after room for the frame header.
+     *
+     * @return the length of the compressed data, or -1 if the frame would not be smaller than the
+     *     data
+     */
+    private int deflate(byte[] data) {
+      int limit = data.length - DEFLATED_HEADER_BYTES - 1;
+      if (limit <= 0) {
+        return -1;
+      }
+      if (buffer.length < data.length) {
+        buffer = new byte[data.length];
+      }
+      deflater.reset();
+      deflater.setInput(data);
+      deflater.finish();
+      int length = 0;
+      while (!deflater.finished() && length < limit) {
+        length += deflater.deflate(buffer, DEFLATED_HEADER_BYTES + length, limit - length);
+      }
+      return deflater.finished() ? length : -1;
+    }
+
+    /**
+     * Records the effect of compressing a message and decides whether compression should be
+     * bypassed when a window is complete.
+     */
+    private void record(long saved, long nanos) {
+      samples++;
+      windowSaved += saved;
+      windowNanos += nanos;
+      if (samples == window) {
+        double savedNanos = 1e9 * windowSaved / bandwidth;
+        if (savedNanos <= windowNanos) {
+          logger.debug("Compression to P{} does not pay off, saved {} bytes in {} ns",
+              partyId, windowSaved, windowNanos);
+          bypassRemaining = bypass;
+        }
+        samples = 0;
+        windowSaved = 0;
+        windowNanos = 0;
+      }
+    }
+
+    private byte[] receive() {
+      synchronized (receiveLock) {
+        byte[] message = network.receive(partyId);
+        if (message.length > 0) {
+          return message;
+        }
+        return decompress(network.receive(partyId));
+      }
+    }
+
+    private byte[] decompress(byte[] frame) {
+      if (frame.length == 1 && frame[0] == RAW) {
+        return MARKER;
+      } else if (frame.length < DEFLATED_HEADER_BYTES || frame[0] != DEFLATED) {
+        throw new IllegalStateException("Malformed message received from P" + partyId);
+      }
+      int size = ByteBuffer.wrap(frame, 1, Integer.BYTES).getInt();
+      if (size < 0 || size > maxMessageSize) {
+        throw new IllegalStateException("Message of " + size + " bytes received from P" + partyId
+            + " exceeds the maximum of " + maxMessageSize + " bytes");
+      }
+      byte[] data = new byte[size];
+      inflater.reset();
+      inflater.setInput(frame, DEFLATED_HEADER_BYTES, frame.length - DEFLATED_HEADER_BYTES);
+      try {
+        int length = 0;
+        while (!inflater.finished() && length < data.length) {
+          int inflated = inflater.inflate(data, length, data.length - length);
+          if (inflated == 0 && inflater.needsInput()) {
+            break;
+          }
+          length += inflated;
+        }
+        if (length != data.length) {
+          throw new IllegalStateException("Truncated message received from P" + partyId);
+        }
+      } catch (DataFormatException e) {
+        throw new IllegalStateException("Malformed message received from P" + partyId, e);
+      }
+      return data;
+    }
+
+    private synchronized void resetStats() {
+      rawBytes = 0;
+      sentBytes = 0;
+      totalNanos = 0;
+      bypassed = 0;
+    }
+
+    private void end() {
+      synchronized (this) {
+        deflater.end();
+      }
+      synchronized (receiveLock) {
+        inflater.end();
+      }
+    }
+  }
+}
@@ -0,0 +1,283 @@
+package dk.alexandra.fresco.framework.network;
+
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multiplexes a number of independent logical channels over a single network.
+ * <p>
+ * Each channel is exposed as a {@link CloseableNetwork} with its own receive queues, so e.g.
+ * preprocessing, MAC checks and the application can communicate concurrently over one set of
+ * connections. Messages are sent in runs of consecutive messages of the same channel. Each run is
+ * preceded by a two byte header message holding the channel and the number of messages in the
+ * run, so the messages themselves are passed to the underlying network as they are.
+ * </p>
+ * <p>
+ * No extra threads are used. On the receiving side, whichever channel needs a message from a party
+ * reads the next run from the underlying network and dispatches messages meant for other channels
+ * to their queues. On the sending side, messages are queued per channel and handed to the
+ * underlying network by whichever thread is currently sending to the party. That thread drains the
+ * queues in round robin order, sending at most {@link #MAX_RUN_LENGTH} messages of a channel
+ * before moving on to the next channel with queued messages. Hence a channel sending many messages
+ * while another thread is sending cannot starve the other channels.
+ * </p>
+ * <p>
+ * Closing a channel only closes the underlying network once all channels are closed.
+ * </p>
+ */
+public class MultiplexedNetwork implements Closeable {
+
+  public static final int MAX_CHANNELS = 256;
+  public static final int MAX_RUN_LENGTH = 255;
+
+  private final CloseableNetwork network;
+  private final int noOfChannels;
+  private final List<Link> links;
+  private final List<Channel> channels;
+  private final AtomicInteger openChannels;
+
+  /**
+   * Creates a new multiplexed network. All parties must use the same number of channels.
+   *
+   * @param network the underlying network
+   * @param noOfChannels the number of channels
+   */
+  public MultiplexedNetwork(CloseableNetwork network, int noOfChannels) {
+    if (noOfChannels < 1 || noOfChannels > MAX_CHANNELS) {
+      throw new IllegalArgumentException(
+          "Number of channels must be between 1 and " + MAX_CHANNELS + ", but was " + noOfChannels);
+    }
+    this.network = network;
+    this.noOfChannels = noOfChannels;
+    this.links = new ArrayList<>(network.getNoOfParties() + 1);
+    for (int i = 0; i <= network.getNoOfParties(); i++) {
+      links.add(new Link(i));
+    }
+    this.channels = new ArrayList<>(noOfChannels);
+    for (int i = 0; i < noOfChannels; i++) {
+      channels.add(new Channel(i));
+    }
+    this.openChannels = new AtomicInteger(noOfChannels);
+  }
+
+  /**
+   * Gets a channel of this network.
+   *
+   * @param channel the index of the channel, starting from 0
+   * @return the channel
+   */
+  public CloseableNetwork getChannel(int channel) {
+    if (channel < 0 || channel >= noOfChannels) {
+      throw new IllegalArgumentException(
+          "Channel " + channel + " not in range 0 ... " + (noOfChannels - 1));
+    }
+    return channels.get(channel);
+  }
+
+  public int getNoOfChannels() {
+    return noOfChannels;
+  }
+
+  /**
+   * Closes all channels and the underlying network.
+   */
+  @Override
+  public void close() throws IOException {
+    for (Channel channel : channels) {
+      channel.closed.set(true);
+    }
+    if (openChannels.getAndSet(0) > 0) {
+      network.close();
+    }
+  }
+
+  /**
+   * The queues and locks used for communicating with a single party.
+   */
+  private class Link {
+
+    private final int partyId;
+    private final List<Queue<byte[]>> outgoing;
+    private final ReentrantLock sendLock;
+    private final byte[][] run;
+    private int next;
+    private final List<Queue<byte[]>> incoming;
+    private final ReentrantLock receiveLock;
+    private final Condition arrived;
+    private boolean reading;
+
+    private Link(int partyId) {
+      this.partyId = partyId;
+      this.outgoing = new ArrayList<>(noOfChannels);
+      this.incoming = new ArrayList<>(noOfChannels);
+      for (int i = 0; i < noOfChannels; i++) {
+        outgoing.add(new ConcurrentLinkedQueue<>());
+        incoming.add(new ArrayDeque<>());
+      }
+      this.sendLock = new ReentrantLock();
+      this.run = new byte[MAX_RUN_LENGTH][];
+      this.receiveLock = new ReentrantLock();
+      this.arrived = receiveLock.newCondition();
+    }
+
+    private void send(int channel, byte[] data) {
+      outgoing.get(channel).add(data);
+      // If another thread is sending to the party it will also send this message. The check after
+      // releasing the lock makes sure no message is left behind.
+      while (hasOutgoing() && sendLock.tryLock()) {
+        try {
+          while (sendNextRun()) {
+            // Keep draining until all queues are empty
+          }
+        } finally {
+          sendLock.unlock();
+        }
+      }
+    }
+
+    private boolean hasOutgoing() {
+      for (Queue<byte[]> queue : outgoing) {
+        if (!queue.isEmpty()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Sends a run of queued messages from the next channel with queued messages, visiting the
+     * channels in round robin order.
+     *
+     * @return false if no channel had queued messages
+     */
+    private boolean sendNextRun() {
+      for (int i = 0; i < noOfChannels; i++) {
+        int channel = (next + i) % noOfChannels;
+        Queue<byte[]> queue = outgoing.get(channel);
+        byte[] first = queue.poll();
+        if (first != null) {
+          next = (channel + 1) % noOfChannels;
+          int length = 1;
+          run[0] = first;
+          while (length < MAX_RUN_LENGTH && (run[length] = queue.poll()) != null) {
+            length++;
+          }
+          network.send(partyId, new byte[] {(byte) channel, (byte) length});
+          for (int j = 0; j < length; j++) {
+            network.send(partyId, run[j]);
+            run[j] = null;
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private byte[] receive(int channel) {
+      receiveLock.lock();
+      try {
+        Queue<byte[]> queue = incoming.get(channel);
+        while (queue.isEmpty()) {
+          if (reading) {
+            ExceptionConverter.safe(() -> {
+              arrived.await();
+              return null;
+            }, "Receive interrupted");
+          } else {
+            readRun();
+          }
+        }
+        return queue.poll();
+      } finally {
+        receiveLock.unlock();
+      }
+    }
+
+    /**
+     * Reads the next run of messages from the underlying network and dispatches them to their
+     * channel. The lock is released while reading, so other channels can use their queued messages
+     * meanwhile.
+     */
+    private void readRun() {
+      reading = true;
+      receiveLock.unlock();
+      int channel = -1;
+      List<byte[]> messages = null;
+      try {
+        byte[] header = network.receive(partyId);
+        if (header.length != 2 || (header[0] & 0xFF) >= noOfChannels || header[1] == 0) {
+          throw new IllegalStateException("Received message from P" + partyId
+              + " without a valid channel");
+        }
+        channel = header[0] & 0xFF;
+        int length = header[1] & 0xFF;
+        messages = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+          messages.add(network.receive(partyId));
+        }
+      } finally {
+        receiveLock.lock();
+        reading = false;
+        arrived.signalAll();
+      }
+      incoming.get(channel).addAll(messages);
+    }
+  }
+
+  /**
+   * A single logical channel.
+   */
+  private class Channel implements CloseableNetwork {
+
+    private final int index;
+    private final AtomicBoolean closed;
+
+    private Channel(int index) {
+      this.index = index;
+      this.closed = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      getLink(partyId).send(index, data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      return getLink(partyId).receive(index);
+    }
+
+    private Link getLink(int partyId) {
+      if (closed.get()) {
+        throw new IllegalStateException("Channel " + index + " is closed");
+      }
+      if (!(0 < partyId && partyId < getNoOfParties() + 1)) {
+        throw new IllegalArgumentException(
+            "Party id " + partyId + " not in range 1 ... " + getNoOfParties());
+      }
+      return links.get(partyId);
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return network.getNoOfParties();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed.getAndSet(true) && openChannels.decrementAndGet() == 0) {
+        network.close();
+      }
+    }
+  }
+}
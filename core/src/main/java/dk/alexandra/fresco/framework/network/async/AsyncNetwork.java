@@ -1,30 +1,25 @@
 package dk.alexandra.fresco.framework.network.async;
 
-import dk.alexandra.fresco.framework.Party;
 import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
 import dk.alexandra.fresco.framework.network.CloseableNetwork;
 import dk.alexandra.fresco.framework.util.ExceptionConverter;
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.SocketAddress;
 import java.nio.ByteBuffer;
-import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -36,19 +31,26 @@ import org.slf4j.LoggerFactory;
  * Implements non-blocking sends and blocking receives. Uses two threads per opposing party, one for
  * sending and one for receiving messages.
  * </p>
+ * <p>
+ * Messages are framed by a four byte length header. Sending uses gathering writes, so messages are
+ * not copied before being handed to the channel, and by default messages queued for the same party
+ * are coalesced into a single write. Receiving reads into a reusable buffer which may hold several
+ * messages at once.
+ * </p>
  */
 public class AsyncNetwork implements CloseableNetwork {
 
-  private static final int PARTY_ID_BYTES = 1;
+  private static final int RECEIVE_BUFFER_SIZE = 1 << 16;
+  private static final int MAX_COALESCED_MESSAGES = 64;
   public static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofMinutes(1);
   private static final Logger logger = LoggerFactory.getLogger(AsyncNetwork.class);
 
-  private ServerSocketChannel server;
   private final Map<Integer, SocketChannel> channelMap;
   private final Map<Integer, BlockingQueue<byte[]>> outQueues;
   private final Map<Integer, BlockingQueue<byte[]>> inQueues;
   private final NetworkConfiguration conf;
   private final AtomicBoolean alive;
+  private final boolean coalesce;
   private ExecutorService communicationService;
   private final Map<Integer, Future<Object>> sendFutures;
   private final Map<Integer, Future<Object>> receiveFutures;
@@ -73,7 +75,21 @@ public class AsyncNetwork implements CloseableNetwork {
    * @param timeout the time to wait until timeout
    */
   public AsyncNetwork(NetworkConfiguration conf, Duration timeout) {
+    this(conf, timeout, true);
+  }
+
+  /**
+   * Creates a network with the given configuration and a timeout of <code>timeout</code> in
+   * milliseconds. Calling the constructor will automatically trigger an attempt to connect to the
+   * other parties. If this fails a {@link RuntimeException} is thrown.
+   *
+   * @param conf The network configuration
+   * @param timeout the time to wait until timeout
+   * @param coalesce if true, messages queued for the same party are sent with a single write
+   */
+  public AsyncNetwork(NetworkConfiguration conf, Duration timeout, boolean coalesce) {
     this.conf = conf;
+    this.coalesce = coalesce;
     this.outQueues = new HashMap<>(conf.noOfParties());
     this.inQueues = new HashMap<>(conf.noOfParties());
     this.channelMap = new HashMap<>(conf.noOfParties() - 1);
@@ -101,109 +117,7 @@ public class AsyncNetwork implements CloseableNetwork {
    * @param timeout duration to wait until timeout
    */
   private void connectNetwork(NetworkConfiguration conf, Duration timeout) {
-    ExecutorService es = Executors.newFixedThreadPool(2);
-    CompletionService<Map<Integer, SocketChannel>> cs = new ExecutorCompletionService<>(es);
-    cs.submit(() -> {
-      return connectClient();
-    });
-    cs.submit(() -> {
-      bindServer();
-      return connectServer();
-    });
-    try {
-      for (int i = 0; i < 2; i++) {
-        Future<Map<Integer, SocketChannel>> f = cs.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
-        if (f == null) {
-          throw new TimeoutException("Timed out");
-        } else {
-          this.channelMap.putAll(f.get());
-        }
-      }
-    } catch (InterruptedException e) {
-      teardown();
-      throw new RuntimeException("Interrupted while connecting network", e);
-    } catch (ExecutionException e) {
-      teardown();
-      throw new RuntimeException("Failed to connect network", e.getCause());
-    } catch (TimeoutException e) {
-      teardown();
-      throw new RuntimeException("Timed out connecting network", e);
-    } finally {
-      es.shutdownNow();
-    }
-  }
-
-  /**
-   * Makes connections to the opposing parties with higher id's.
-   *
-   * @throws InterruptedException thrown if interrupted while waiting to do a connection attempt
-   */
-  private Map<Integer, SocketChannel> connectClient() throws InterruptedException {
-    Map<Integer, SocketChannel> channelMap = new HashMap<>(conf.noOfParties() - conf.getMyId());
-    for (int i = conf.getMyId() + 1; i <= conf.noOfParties(); i++) {
-      Party p = conf.getParty(i);
-      SocketAddress addr = new InetSocketAddress(p.getHostname(), p.getPort());
-      boolean connectionMade = false;
-      int attempts = 0;
-      while (!connectionMade) {
-        try {
-          SocketChannel channel = SocketChannel.open();
-          channel.connect(addr);
-          channel.configureBlocking(true);
-          this.channelMap.put(i, channel);
-          ByteBuffer b = ByteBuffer.allocate(PARTY_ID_BYTES);
-          b.put((byte) conf.getMyId());
-          b.position(0);
-          while (b.hasRemaining()) {
-            channel.write(b);
-          }
-          connectionMade = true;
-          channelMap.put(i, channel);
-          logger.info("P{} connected to {}", conf.getMyId(), p);
-        } catch (IOException e) {
-          Thread.sleep(1 << ++attempts);
-        }
-      }
-    }
-    return channelMap;
-  }
-
-  /**
-   * Binds the server to the port of this party.
-   */
-  private void bindServer() {
-    SocketAddress sock = new InetSocketAddress(conf.getMe().getPort());
-    try {
-      this.server = ServerSocketChannel.open();
-      this.server.bind(sock);
-      logger.info("P{} bound at {}", conf.getMyId(), sock);
-    } catch (IOException e) {
-      throw new RuntimeException("Failed to bind to " + sock, e);
-    }
-  }
-
-  /**
-   * Listens for connections from the opposing parties with lower id's.
-   *
-   * @throws IOException thrown if an {@link IOException} occurs while listening.
-   */
-  private Map<Integer, SocketChannel> connectServer() throws IOException {
-    Map<Integer, SocketChannel> channelMap = new HashMap<>(conf.getMyId() - 1);
-    for (int i = 1; i < conf.getMyId(); i++) {
-      SocketChannel channel = server.accept();
-      channel.configureBlocking(true);
-      ByteBuffer buf = ByteBuffer.allocate(PARTY_ID_BYTES);
-      while (buf.hasRemaining()) {
-        channel.read(buf);
-      }
-      buf.position(0);
-      final int id = buf.get();
-      this.channelMap.put(id, channel);
-      logger.info("P{} accepted connection from {}", conf.getMyId(), conf.getParty(id));
-      channelMap.put(id, channel);
-    }
-    server.close();
-    return channelMap;
+    this.channelMap.putAll(new NetworkConnector(conf).connect(timeout));
   }
 
   /**
@@ -225,66 +139,119 @@ public class AsyncNetwork implements CloseableNetwork {
   }
 
   /**
-   * Implements the receiver receiving a single message and starting a new receiver.
+   * Implements the receiver receiving messages from a single opposing party.
+   * <p>
+   * Data is read from the channel into a reusable direct buffer holding as many messages as are
+   * available, so a single read may deliver several small messages. Messages larger than the
+   * buffer are read directly into the array handed to the caller.
+   * </p>
    */
   private class Receiver implements Callable<Object> {
 
     private final SocketChannel channel;
     private final BlockingQueue<byte[]> queue;
+    private final ByteBuffer buffer;
 
     public Receiver(SocketChannel channel, BlockingQueue<byte[]> queue) {
       this.channel = channel;
       this.queue = queue;
+      this.buffer = ByteBuffer.allocateDirect(RECEIVE_BUFFER_SIZE);
+      this.buffer.flip();
     }
 
     @Override
     public Object call() throws IOException, InterruptedException {
-      while (alive.get()) {
-        ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES);
-        while (buf.hasRemaining()) {
-          channel.read(buf);
+      do {
+        fill(Integer.BYTES);
+        int nextMessageSize = buffer.getInt();
+        byte[] data = new byte[nextMessageSize];
+        int buffered = Math.min(nextMessageSize, buffer.remaining());
+        buffer.get(data, 0, buffered);
+        if (buffered < nextMessageSize) {
+          ByteBuffer rest = ByteBuffer.wrap(data, buffered, nextMessageSize - buffered);
+          while (rest.hasRemaining()) {
+            channel.read(rest);
+          }
         }
-        buf.flip();
-        int nextMessageSize = buf.getInt();
-        buf = ByteBuffer.allocate(nextMessageSize);
-        while (buf.remaining() > 0) {
-          channel.read(buf);
+        queue.add(data);
+      } while (alive.get());
+      return null;
+    }
+
+    /**
+     * Reads from the channel until at least the given number of bytes are buffered.
+     *
+     * @param bytes the number of bytes needed
+     */
+    private void fill(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        buffer.compact();
+        while (buffer.position() < bytes) {
+          channel.read(buffer);
         }
-        queue.add(buf.array());
+        buffer.flip();
       }
-      return null;
     }
 
   }
 
   /**
-   * Implements the sender sending a single message and starting a new sender.
+   * Implements the sender sending messages to a single opposing party.
+   * <p>
+   * Each message is written with a gathering write of a reusable direct header buffer and the
+   * message itself, so the message is not copied into an intermediate buffer. When coalescing is
+   * enabled, all messages queued at the time of writing are sent with a single gathering write.
+   * </p>
    */
   private class Sender implements Callable<Object> {
 
     private final SocketChannel channel;
     private final BlockingQueue<byte[]> queue;
+    private final List<byte[]> messages;
+    private final ByteBuffer headers;
+    private final ByteBuffer[] buffers;
 
     public Sender(SocketChannel channel, BlockingQueue<byte[]> queue) {
       this.channel = channel;
       this.queue = queue;
+      int maxMessages = coalesce ? MAX_COALESCED_MESSAGES : 1;
+      this.messages = new ArrayList<>(maxMessages);
+      this.headers = ByteBuffer.allocateDirect(maxMessages * Integer.BYTES);
+      this.buffers = new ByteBuffer[2 * maxMessages];
     }
 
     @Override
     public Object call() throws IOException, InterruptedException {
       while (!queue.isEmpty() || alive.get()) {
-        byte[] data = queue.take();
-        ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + data.length);
-        buf.putInt(data.length);
-        buf.put(data);
-        buf.position(0);
-        while (buf.hasRemaining()) {
-          channel.write(buf);
+        messages.add(queue.take());
+        if (coalesce) {
+          queue.drainTo(messages, MAX_COALESCED_MESSAGES - 1);
         }
+        write();
+        messages.clear();
       }
       return null;
     }
 
+    private void write() throws IOException {
+      int count = messages.size();
+      long remaining = 0;
+      for (int i = 0; i < count; i++) {
+        byte[] data = messages.get(i);
+        remaining += Integer.BYTES + data.length;
+        int offset = i * Integer.BYTES;
+        headers.putInt(offset, data.length);
+        headers.limit(offset + Integer.BYTES).position(offset);
+        buffers[2 * i] = headers.slice();
+        buffers[2 * i + 1] = ByteBuffer.wrap(data);
+        headers.clear();
+      }
+      while (remaining > 0) {
+        remaining -= channel.write(buffers, 0, 2 * count);
+      }
+      Arrays.fill(buffers, 0, 2 * count, null);
+    }
+
   }
 
   @Override
@@ -345,6 +312,7 @@ public class AsyncNetwork implements CloseableNetwork {
       ExceptionConverter.safe(() -> {
         closeThreads();
         closeChannels();
+        awaitThreads();
         logger.info("P{}: Network closed", conf.getMyId());
         return null;
       }, "Unable to properly close the network.");
@@ -360,9 +328,6 @@ public class AsyncNetwork implements CloseableNetwork {
    * @throws IOException if closing the channels triggers an IOException
    */
   private void closeChannels() throws IOException {
-    if (this.server != null) {
-      this.server.close();
-    }
     for (SocketChannel channel : this.channelMap.values()) {
       channel.close();
     }
@@ -408,6 +373,20 @@ public class AsyncNetwork implements CloseableNetwork {
     }
   }
 
+  /**
+   * Waits for the threads used for sending/receiving messages to terminate, such that any use of
+   * the network after closing it fails instead of blocking. Note: this should only be called after
+   * {@link #closeThreads()} and {@link #closeChannels()}.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  private void awaitThreads() throws InterruptedException {
+    if (communicationService != null
+        && !communicationService.awaitTermination(1, TimeUnit.MINUTES)) {
+      logger.warn("P{}: Communication threads did not terminate", conf.getMyId());
+    }
+  }
+
   /**
    * Closes the network down and releases held resources.
    */
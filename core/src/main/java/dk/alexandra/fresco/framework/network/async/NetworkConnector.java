@@ -0,0 +1,185 @@
+package dk.alexandra.fresco.framework.network.async;
+
+import dk.alexandra.fresco.framework.Party;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fully connects a network of parties using blocking socket channels.
+ * <p>
+ * Each party connects to the parties with higher ids and accepts connections from the parties with
+ * lower ids. On connecting, a party identifies itself by sending its id as a single byte.
+ * </p>
+ */
+class NetworkConnector {
+
+  private static final int PARTY_ID_BYTES = 1;
+  private static final Logger logger = LoggerFactory.getLogger(NetworkConnector.class);
+
+  private final NetworkConfiguration conf;
+  private final Map<Integer, SocketChannel> channelMap;
+  private ServerSocketChannel server;
+
+  /**
+   * Creates a new connector for the given configuration.
+   *
+   * @param conf the configuration defining the network to connect
+   */
+  NetworkConnector(NetworkConfiguration conf) {
+    this.conf = conf;
+    this.channelMap = new ConcurrentHashMap<>(conf.noOfParties());
+  }
+
+  /**
+   * Fully connects the network.
+   * <p>
+   * Connects a channel to each external party (i.e., parties other than this party). If this fails
+   * all channels opened so far are closed and a {@link RuntimeException} is thrown.
+   * </p>
+   *
+   * @param timeout duration to wait until timeout
+   * @return the channels to the external parties indexed by party id
+   */
+  Map<Integer, SocketChannel> connect(Duration timeout) {
+    ExecutorService es = Executors.newFixedThreadPool(2);
+    CompletionService<Map<Integer, SocketChannel>> cs = new ExecutorCompletionService<>(es);
+    cs.submit(() -> {
+      return connectClient();
+    });
+    cs.submit(() -> {
+      bindServer();
+      return connectServer();
+    });
+    Map<Integer, SocketChannel> channels = new HashMap<>(conf.noOfParties() - 1);
+    try {
+      for (int i = 0; i < 2; i++) {
+        Future<Map<Integer, SocketChannel>> f = cs.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (f == null) {
+          throw new TimeoutException("Timed out");
+        } else {
+          channels.putAll(f.get());
+        }
+      }
+    } catch (InterruptedException e) {
+      close();
+      throw new RuntimeException("Interrupted while connecting network", e);
+    } catch (ExecutionException e) {
+      close();
+      throw new RuntimeException("Failed to connect network", e.getCause());
+    } catch (TimeoutException e) {
+      close();
+      throw new RuntimeException("Timed out connecting network", e);
+    } finally {
+      es.shutdownNow();
+    }
+    return channels;
+  }
+
+  /**
+   * Makes connections to the opposing parties with higher id's.
+   *
+   * @throws InterruptedException thrown if interrupted while waiting to do a connection attempt
+   */
+  private Map<Integer, SocketChannel> connectClient() throws InterruptedException {
+    Map<Integer, SocketChannel> channelMap = new HashMap<>(conf.noOfParties() - conf.getMyId());
+    for (int i = conf.getMyId() + 1; i <= conf.noOfParties(); i++) {
+      Party p = conf.getParty(i);
+      SocketAddress addr = new InetSocketAddress(p.getHostname(), p.getPort());
+      boolean connectionMade = false;
+      int attempts = 0;
+      while (!connectionMade) {
+        try {
+          SocketChannel channel = SocketChannel.open();
+          channel.connect(addr);
+          channel.configureBlocking(true);
+          this.channelMap.put(i, channel);
+          ByteBuffer b = ByteBuffer.allocate(PARTY_ID_BYTES);
+          b.put((byte) conf.getMyId());
+          b.position(0);
+          while (b.hasRemaining()) {
+            channel.write(b);
+          }
+          connectionMade = true;
+          channelMap.put(i, channel);
+          logger.info("P{} connected to {}", conf.getMyId(), p);
+        } catch (IOException e) {
+          Thread.sleep(1 << ++attempts);
+        }
+      }
+    }
+    return channelMap;
+  }
+
+  /**
+   * Binds the server to the port of this party.
+   */
+  private void bindServer() {
+    SocketAddress sock = new InetSocketAddress(conf.getMe().getPort());
+    try {
+      this.server = ServerSocketChannel.open();
+      this.server.bind(sock);
+      logger.info("P{} bound at {}", conf.getMyId(), sock);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to bind to " + sock, e);
+    }
+  }
+
+  /**
+   * Listens for connections from the opposing parties with lower id's.
+   *
+   * @throws IOException thrown if an {@link IOException} occurs while listening.
+   */
+  private Map<Integer, SocketChannel> connectServer() throws IOException {
+    Map<Integer, SocketChannel> channelMap = new HashMap<>(conf.getMyId() - 1);
+    for (int i = 1; i < conf.getMyId(); i++) {
+      SocketChannel channel = server.accept();
+      channel.configureBlocking(true);
+      ByteBuffer buf = ByteBuffer.allocate(PARTY_ID_BYTES);
+      while (buf.hasRemaining()) {
+        channel.read(buf);
+      }
+      buf.position(0);
+      final int id = buf.get();
+      this.channelMap.put(id, channel);
+      logger.info("P{} accepted connection from {}", conf.getMyId(), conf.getParty(id));
+      channelMap.put(id, channel);
+    }
+    server.close();
+    return channelMap;
+  }
+
+  /**
+   * Closes the server and all channels opened by this connector.
+   */
+  void close() {
+    try {
+      if (this.server != null) {
+        this.server.close();
+      }
+      for (SocketChannel channel : this.channelMap.values()) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      logger.warn("P{} failed to close channels", conf.getMyId(), e);
+    }
+  }
+}
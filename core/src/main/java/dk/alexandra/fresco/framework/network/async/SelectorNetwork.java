@@ -0,0 +1,436 @@
+package dk.alexandra.fresco.framework.network.async;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A network implementation multiplexing the connections to all opposing parties on a single
+ * thread.
+ * <p>
+ * Implements non-blocking sends and blocking receives like {@link AsyncNetwork}, but instead of
+ * using two threads per opposing party all channels are non-blocking and served by a single event
+ * loop using a {@link Selector}. This keeps the number of threads constant in the number of
+ * parties, which matters for networks with many parties or when running many networks in the same
+ * JVM.
+ * </p>
+ * <p>
+ * Messages are framed by a four byte length header, i.e., the wire format is the same as the one
+ * of {@link AsyncNetwork}. Messages queued for the same party are sent with a single gathering
+ * write, and incoming data is read into a reusable buffer which may hold several messages at once.
+ * </p>
+ */
+public class SelectorNetwork implements CloseableNetwork {
+
+  public static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofMinutes(1);
+  private static final int RECEIVE_BUFFER_SIZE = 1 << 16;
+  private static final int MAX_GATHERED_MESSAGES = 64;
+  private static final byte[] CLOSED = new byte[0];
+  private static final Logger logger = LoggerFactory.getLogger(SelectorNetwork.class);
+
+  private final NetworkConfiguration conf;
+  private final Map<Integer, BlockingQueue<byte[]>> inQueues;
+  private final Map<Integer, Peer> peers;
+  private final Queue<Peer> pendingWrites;
+  private final AtomicBoolean alive;
+  private Selector selector;
+  private ExecutorService eventLoopService;
+  private Future<Object> eventLoop;
+
+  /**
+   * Creates a network with the given configuration and a default timeout of
+   * {@link #DEFAULT_CONNECTION_TIMEOUT}. Calling the constructor will automatically trigger an
+   * attempt to connect to the other parties. If this fails a {@link RuntimeException} is thrown.
+   *
+   * @param conf the network configuration
+   */
+  public SelectorNetwork(NetworkConfiguration conf) {
+    this(conf, DEFAULT_CONNECTION_TIMEOUT);
+  }
+
+  /**
+   * Creates a network with the given configuration and a timeout of <code>timeout</code> in
+   * milliseconds. Calling the constructor will automatically trigger an attempt to connect to the
+   * other parties. If this fails a {@link RuntimeException} is thrown.
+   *
+   * @param conf The network configuration
+   * @param timeout the time to wait until timeout
+   */
+  public SelectorNetwork(NetworkConfiguration conf, Duration timeout) {
+    this.conf = conf;
+    this.inQueues = new HashMap<>(conf.noOfParties());
+    this.peers = new HashMap<>(conf.noOfParties() - 1);
+    this.pendingWrites = new ConcurrentLinkedQueue<>();
+    this.alive = new AtomicBoolean(true);
+    for (int i = 1; i < conf.noOfParties() + 1; i++) {
+      inQueues.put(i, new LinkedBlockingQueue<>());
+    }
+    if (conf.noOfParties() > 1) {
+      Map<Integer, SocketChannel> channels = new NetworkConnector(conf).connect(timeout);
+      startEventLoop(channels);
+    }
+    logger.info("P{} successfully connected network", conf.getMyId());
+  }
+
+  /**
+   * Registers the channels with a selector and starts the event loop serving them.
+   *
+   * @param channels the connected channels indexed by party id
+   */
+  private void startEventLoop(Map<Integer, SocketChannel> channels) {
+    try {
+      this.selector = Selector.open();
+      for (Entry<Integer, SocketChannel> entry : channels.entrySet()) {
+        int id = entry.getKey();
+        SocketChannel channel = entry.getValue();
+        channel.configureBlocking(false);
+        Peer peer = new Peer(id, channel, inQueues.get(id));
+        peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+        peers.put(id, peer);
+      }
+    } catch (IOException e) {
+      closeChannels(channels);
+      throw new RuntimeException("Failed to register channels", e);
+    }
+    this.eventLoopService = Executors.newSingleThreadExecutor();
+    this.eventLoop = eventLoopService.submit(new EventLoop());
+  }
+
+  /**
+   * The event loop reading and writing the channels of all opposing parties.
+   * <p>
+   * The loop runs until the network is closed and all queued messages are sent. Failures on the
+   * connection to a single party only affect that party.
+   * </p>
+   */
+  private class EventLoop implements Callable<Object> {
+
+    @Override
+    public Object call() throws IOException {
+      try {
+        while (alive.get() || hasPendingWrites()) {
+          selector.select();
+          Peer pending;
+          while ((pending = pendingWrites.poll()) != null) {
+            if (pending.key.isValid()) {
+              pending.key.interestOps(pending.key.interestOps() | SelectionKey.OP_WRITE);
+            }
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Peer peer = (Peer) key.attachment();
+            try {
+              if (key.isReadable()) {
+                peer.read();
+              }
+              if (key.isValid() && key.isWritable()) {
+                peer.write();
+              }
+            } catch (IOException e) {
+              peer.fail(e);
+            }
+          }
+        }
+        return null;
+      } finally {
+        for (Peer peer : peers.values()) {
+          peer.inQueue.add(CLOSED);
+        }
+      }
+    }
+
+    private boolean hasPendingWrites() {
+      for (Peer peer : peers.values()) {
+        if (peer.failure == null && (peer.remaining > 0 || !peer.outQueue.isEmpty())) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The state of the connection to a single opposing party. Apart from the queues and the failure
+   * this is only accessed by the event loop.
+   */
+  private class Peer {
+
+    private final int id;
+    private final SocketChannel channel;
+    private final BlockingQueue<byte[]> inQueue;
+    private final Queue<byte[]> outQueue;
+    private final AtomicBoolean writeScheduled;
+    private final ByteBuffer[] headers;
+    private final ByteBuffer[] buffers;
+    private final ByteBuffer buffer;
+    private SelectionKey key;
+    private int count;
+    private long remaining;
+    private byte[] message;
+    private ByteBuffer messageBuffer;
+    private volatile IOException failure;
+
+    private Peer(int id, SocketChannel channel, BlockingQueue<byte[]> inQueue) {
+      this.id = id;
+      this.channel = channel;
+      this.inQueue = inQueue;
+      this.outQueue = new ConcurrentLinkedQueue<>();
+      this.writeScheduled = new AtomicBoolean(false);
+      ByteBuffer headerBuffer = ByteBuffer.allocateDirect(MAX_GATHERED_MESSAGES * Integer.BYTES);
+      this.headers = new ByteBuffer[MAX_GATHERED_MESSAGES];
+      for (int i = 0; i < MAX_GATHERED_MESSAGES; i++) {
+        headerBuffer.limit((i + 1) * Integer.BYTES).position(i * Integer.BYTES);
+        headers[i] = headerBuffer.slice();
+      }
+      this.buffers = new ByteBuffer[2 * MAX_GATHERED_MESSAGES];
+      this.buffer = ByteBuffer.allocateDirect(RECEIVE_BUFFER_SIZE);
+    }
+
+    /**
+     * Queues a message and makes sure the event loop will write it. The selector is only woken up
+     * if no write is already scheduled for this party.
+     */
+    private void send(byte[] data) {
+      outQueue.add(data);
+      if (writeScheduled.compareAndSet(false, true)) {
+        pendingWrites.add(this);
+        selector.wakeup();
+      }
+    }
+
+    /**
+     * Reads whatever data is available and queues all complete messages. Messages too large for
+     * the receive buffer are read directly into the array handed to the caller.
+     */
+    private void read() throws IOException {
+      if (message != null) {
+        if (channel.read(messageBuffer) < 0) {
+          endOfStream();
+          return;
+        }
+        if (messageBuffer.hasRemaining()) {
+          return;
+        }
+        inQueue.add(message);
+        message = null;
+        messageBuffer = null;
+      }
+      if (channel.read(buffer) < 0) {
+        endOfStream();
+        return;
+      }
+      buffer.flip();
+      while (buffer.remaining() >= Integer.BYTES) {
+        int size = buffer.getInt(buffer.position());
+        int available = buffer.remaining() - Integer.BYTES;
+        if (available >= size) {
+          buffer.position(buffer.position() + Integer.BYTES);
+          byte[] data = new byte[size];
+          buffer.get(data);
+          inQueue.add(data);
+        } else if (size > buffer.capacity() - Integer.BYTES) {
+          buffer.position(buffer.position() + Integer.BYTES);
+          message = new byte[size];
+          buffer.get(message, 0, available);
+          messageBuffer = ByteBuffer.wrap(message, available, size - available);
+          break;
+        } else {
+          break;
+        }
+      }
+      buffer.compact();
+    }
+
+    /**
+     * Writes as many of the queued messages as the channel accepts. Once all messages are written
+     * the party stops listening for the channel becoming writable.
+     */
+    private void write() throws IOException {
+      while (remaining > 0 || gather()) {
+        remaining -= channel.write(buffers, 0, 2 * count);
+        if (remaining > 0) {
+          return;
+        }
+        Arrays.fill(buffers, 0, 2 * count, null);
+        count = 0;
+      }
+      // Keep OP_READ as it is, since it is cleared at the end of the stream
+      int ops = key.interestOps() & ~SelectionKey.OP_WRITE;
+      key.interestOps(ops);
+      writeScheduled.set(false);
+      if (!outQueue.isEmpty() && writeScheduled.compareAndSet(false, true)) {
+        key.interestOps(ops | SelectionKey.OP_WRITE);
+      }
+    }
+
+    /**
+     * Prepares a gathering write of the messages currently queued.
+     *
+     * @return true if any messages were queued
+     */
+    private boolean gather() {
+      byte[] data;
+      while (count < MAX_GATHERED_MESSAGES && (data = outQueue.poll()) != null) {
+        ByteBuffer header = headers[count];
+        header.clear();
+        header.putInt(0, data.length);
+        buffers[2 * count] = header;
+        buffers[2 * count + 1] = ByteBuffer.wrap(data);
+        remaining += Integer.BYTES + data.length;
+        count++;
+      }
+      return count > 0;
+    }
+
+    private void endOfStream() {
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+      inQueue.add(CLOSED);
+    }
+
+    private void fail(IOException e) {
+      logger.warn("P{} lost connection to P{}", conf.getMyId(), id, e);
+      failure = e;
+      key.cancel();
+      inQueue.add(CLOSED);
+    }
+  }
+
+  @Override
+  public void send(int partyId, byte[] data) {
+    inRange(partyId);
+    if (partyId == conf.getMyId()) {
+      inQueues.get(partyId).add(data);
+      return;
+    }
+    checkRunning();
+    Peer peer = peers.get(partyId);
+    if (peer.failure != null) {
+      throw new RuntimeException("Unable to send to P" + partyId, peer.failure);
+    }
+    peer.send(data);
+  }
+
+  @Override
+  public byte[] receive(int partyId) {
+    inRange(partyId);
+    BlockingQueue<byte[]> queue = inQueues.get(partyId);
+    byte[] data = ExceptionConverter.safe(() -> queue.take(), "Receive interrupted");
+    if (data == CLOSED) {
+      // Leave the marker for any subsequent receives
+      queue.add(CLOSED);
+      Peer peer = peers.get(partyId);
+      throw new RuntimeException("Connection to P" + partyId + " closed, unable to receive",
+          peer.failure != null ? peer.failure : eventLoopFailure());
+    }
+    return data;
+  }
+
+  /**
+   * Throws an exception if the event loop is no longer running.
+   */
+  private void checkRunning() {
+    if (eventLoop.isDone()) {
+      throw new RuntimeException("Network not running, unable to send", eventLoopFailure());
+    }
+  }
+
+  /**
+   * Gets the exception terminating the event loop if any.
+   */
+  private Exception eventLoopFailure() {
+    if (eventLoop != null && eventLoop.isDone()) {
+      try {
+        eventLoop.get();
+      } catch (InterruptedException | ExecutionException e) {
+        return e;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check if a party ID is in the range of known parties.
+   *
+   * @param partyId an ID for a party
+   */
+  private void inRange(int partyId) {
+    if (!(0 < partyId && partyId < getNoOfParties() + 1)) {
+      throw new IllegalArgumentException(
+          "Party id " + partyId + " not in range 1 ... " + getNoOfParties());
+    }
+  }
+
+  private void closeChannels(Map<Integer, SocketChannel> channels) {
+    for (SocketChannel channel : channels.values()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.warn("P{}: Failed to close channel", conf.getMyId(), e);
+      }
+    }
+  }
+
+  /**
+   * Closes the network down and releases held resources. Messages queued before closing are sent
+   * before the connections are closed.
+   */
+  @Override
+  public void close() {
+    if (!alive.getAndSet(false)) {
+      logger.info("P{}: Network already closed", conf.getMyId());
+      return;
+    }
+    if (conf.noOfParties() > 1) {
+      selector.wakeup();
+      try {
+        eventLoop.get();
+      } catch (ExecutionException e) {
+        logger.warn("A failed event loop detected during close", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("Interrupted while waiting for queued messages to be sent", e);
+      }
+      eventLoopService.shutdownNow();
+      Map<Integer, SocketChannel> channels = new HashMap<>(peers.size());
+      for (Peer peer : peers.values()) {
+        channels.put(peer.id, peer.channel);
+      }
+      closeChannels(channels);
+      ExceptionConverter.safe(() -> {
+        selector.close();
+        return null;
+      }, "Unable to properly close the network.");
+    }
+    logger.info("P{}: Network closed", conf.getMyId());
+  }
+
+  @Override
+  public int getNoOfParties() {
+    return this.conf.noOfParties();
+  }
+}
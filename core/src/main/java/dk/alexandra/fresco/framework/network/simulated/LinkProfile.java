@@ -0,0 +1,82 @@
+package dk.alexandra.fresco.framework.network.simulated;
+
+import java.time.Duration;
+
+/**
+ * The characteristics of a simulated one-way link between two parties.
+ */
+public class LinkProfile {
+
+  public static final long UNLIMITED_BANDWIDTH = Long.MAX_VALUE;
+
+  private final Duration latency;
+  private final long bandwidth;
+  private final Duration jitter;
+
+  /**
+   * Creates a new link profile.
+   *
+   * @param latency the one-way latency of the link
+   * @param bandwidth the bandwidth of the link in bytes per second
+   * @param jitter the maximum random delay added to the latency of each message
+   */
+  public LinkProfile(Duration latency, long bandwidth, Duration jitter) {
+    if (latency.isNegative() || jitter.isNegative() || bandwidth < 1) {
+      throw new IllegalArgumentException("Latency and jitter must be non-negative and bandwidth "
+          + "must be positive, but were " + latency + ", " + jitter + ", " + bandwidth);
+    }
+    this.latency = latency;
+    this.bandwidth = bandwidth;
+    this.jitter = jitter;
+  }
+
+  /**
+   * Creates a new link profile without jitter.
+   *
+   * @param latency the one-way latency of the link
+   * @param bandwidth the bandwidth of the link in bytes per second
+   */
+  public LinkProfile(Duration latency, long bandwidth) {
+    this(latency, bandwidth, Duration.ZERO);
+  }
+
+  /**
+   * Creates a link profile without any latency or bandwidth limit.
+   *
+   * @return the link profile
+   */
+  public static LinkProfile unlimited() {
+    return new LinkProfile(Duration.ZERO, UNLIMITED_BANDWIDTH);
+  }
+
+  public Duration getLatency() {
+    return latency;
+  }
+
+  public long getBandwidth() {
+    return bandwidth;
+  }
+
+  public Duration getJitter() {
+    return jitter;
+  }
+
+  /**
+   * Computes the time in nanoseconds it takes to put a message of a given size on the link.
+   *
+   * @param bytes the size of the message
+   * @return the transmission time in nanoseconds
+   */
+  long transmissionNanos(int bytes) {
+    if (bandwidth == UNLIMITED_BANDWIDTH) {
+      return 0;
+    }
+    return (long) (1e9 * bytes / bandwidth);
+  }
+
+  @Override
+  public String toString() {
+    return "LinkProfile [latency=" + latency + ", bandwidth=" + bandwidth + ", jitter=" + jitter
+        + "]";
+  }
+}
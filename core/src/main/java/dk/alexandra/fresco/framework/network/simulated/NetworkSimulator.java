@@ -0,0 +1,183 @@
+package dk.alexandra.fresco.framework.network.simulated;
+
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a network connecting a number of parties within a single JVM.
+ * <p>
+ * The parties are connected by in-memory queues, where each one-way link has a
+ * {@link LinkProfile} giving its latency, bandwidth and jitter. Links may be asymmetric. A message
+ * is delivered once it has been put on the link, which is busy while transmitting earlier messages,
+ * and has travelled the latency of the link plus a random jitter. Messages on a link are always
+ * delivered in the order they were sent. The jitter is drawn from a random generator seeded per
+ * link, so the delays are reproducible.
+ * </p>
+ * <p>
+ * No threads are used. Instead a receiving party waits until the delivery time of the message.
+ * The network of each party is obtained using {@link #getNetwork(int)}, e.g. as the network
+ * supplier of a test thread configuration.
+ * </p>
+ */
+public class NetworkSimulator {
+
+  private final int noOfParties;
+  private final Link[][] links;
+
+  /**
+   * Creates a new simulator where all links have the same profile.
+   *
+   * @param noOfParties the number of parties
+   * @param profile the profile of all links
+   * @param seed the seed of the random jitter
+   */
+  public NetworkSimulator(int noOfParties, LinkProfile profile, long seed) {
+    this.noOfParties = noOfParties;
+    this.links = new Link[noOfParties + 1][noOfParties + 1];
+    for (int from = 1; from <= noOfParties; from++) {
+      for (int to = 1; to <= noOfParties; to++) {
+        LinkProfile linkProfile = from == to ? LinkProfile.unlimited() : profile;
+        links[from][to] = new Link(linkProfile, new Random(seed * 31 * 31 + from * 31 + to));
+      }
+    }
+  }
+
+  /**
+   * Sets the profile of the link from one party to another. The link in the other direction is
+   * not changed. This should be done before any messages are sent.
+   *
+   * @param from the sending party
+   * @param to the receiving party
+   * @param profile the profile of the link
+   */
+  public void setLink(int from, int to, LinkProfile profile) {
+    inRange(from);
+    inRange(to);
+    links[from][to].setProfile(profile);
+  }
+
+  /**
+   * Gets the network of a party.
+   *
+   * @param myId the id of the party
+   * @return a network sending and receiving messages of the party
+   */
+  public CloseableNetwork getNetwork(int myId) {
+    inRange(myId);
+    return new SimulatedNetwork(myId);
+  }
+
+  public int getNoOfParties() {
+    return noOfParties;
+  }
+
+  private void inRange(int partyId) {
+    if (!(0 < partyId && partyId < noOfParties + 1)) {
+      throw new IllegalArgumentException(
+          "Party id " + partyId + " not in range 1 ... " + noOfParties);
+    }
+  }
+
+  /**
+   * A message together with the time it is delivered.
+   */
+  private static class Message {
+
+    private final byte[] data;
+    private final long deliveryTime;
+
+    private Message(byte[] data, long deliveryTime) {
+      this.data = data;
+      this.deliveryTime = deliveryTime;
+    }
+  }
+
+  /**
+   * A one-way link between two parties.
+   */
+  private static class Link {
+
+    private final BlockingQueue<Message> queue;
+    private final Random random;
+    private LinkProfile profile;
+    private long busyUntil;
+    private long lastDelivery;
+
+    private Link(LinkProfile profile, Random random) {
+      this.queue = new LinkedBlockingQueue<>();
+      this.random = random;
+      this.profile = profile;
+      this.busyUntil = Long.MIN_VALUE;
+      this.lastDelivery = Long.MIN_VALUE;
+    }
+
+    private synchronized void setProfile(LinkProfile profile) {
+      this.profile = profile;
+    }
+
+    private synchronized void send(byte[] data) {
+      long now = System.nanoTime();
+      busyUntil = Math.max(now, busyUntil) + profile.transmissionNanos(data.length);
+      long jitter = (long) (random.nextDouble() * profile.getJitter().toNanos());
+      long arrival = busyUntil + profile.getLatency().toNanos() + jitter;
+      lastDelivery = Math.max(arrival, lastDelivery);
+      queue.add(new Message(data, lastDelivery));
+    }
+
+    private byte[] receive() throws InterruptedException {
+      Message message = queue.take();
+      long remaining = message.deliveryTime - System.nanoTime();
+      while (remaining > 0) {
+        TimeUnit.NANOSECONDS.sleep(remaining);
+        remaining = message.deliveryTime - System.nanoTime();
+      }
+      return message.data;
+    }
+  }
+
+  /**
+   * The network of a single party.
+   */
+  private class SimulatedNetwork implements CloseableNetwork {
+
+    private final int myId;
+    private volatile boolean closed;
+
+    private SimulatedNetwork(int myId) {
+      this.myId = myId;
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      checkOpen(partyId);
+      links[myId][partyId].send(data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      checkOpen(partyId);
+      return ExceptionConverter.safe(() -> links[partyId][myId].receive(), "Receive interrupted");
+    }
+
+    private void checkOpen(int partyId) {
+      inRange(partyId);
+      if (closed) {
+        throw new IllegalStateException("P" + myId + ": Network is closed");
+      }
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return noOfParties;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -9,6 +9,8 @@ import dk.alexandra.fresco.framework.builder.ProtocolBuilder;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.suite.ProtocolSuite;
+import java.io.Closeable;
+import java.io.IOException;
 import java.time.Duration;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -103,12 +105,28 @@ public class SecureComputationEngineImpl
     }
   }
 
+  /**
+   * Shuts down the engine. The protocol suite and the evaluator are closed as well if they are
+   * {@link Closeable}, e.g., to stop threads and networks they use in the background.
+   */
   @Override
   public synchronized void shutdownSCE() {
     if (this.setup) {
       this.executorService.shutdown();
     }
     this.setup = false;
+    close(protocolSuite);
+    close(evaluator);
+  }
+
+  private void close(Object resource) {
+    if (resource instanceof Closeable) {
+      try {
+        ((Closeable) resource).close();
+      } catch (IOException e) {
+        logger.warn("Failed to close " + resource, e);
+      }
+    }
   }
 
 }
@@ -0,0 +1,144 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.network.Network;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batch size controller adjusting the batch size to the observed cost of evaluating batches.
+ * <p>
+ * The controller aims at a given target latency per batch. After every <i>interval</i> batches it
+ * doubles the batch size if all batches of the interval were full and evaluated well within the
+ * target latency, and halves it if a batch took more than twice the target latency, sent more than
+ * a given number of bytes or if the heap is close to full. On high latency links a batch is
+ * dominated by the round trips, so the batch size grows until local computation becomes
+ * significant. Computations that cannot fill their batches never grow the batch size.
+ * </p>
+ * <p>
+ * Since all parties must use the same batch size, the parties exchange their proposed batch
+ * sizes at the end of each interval and all continue with the smallest proposal.
+ * </p>
+ */
+public class AdaptiveBatchSizeController implements BatchSizeController {
+
+  public static final int DEFAULT_MIN_BATCH_SIZE = 256;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1 << 17;
+  public static final int DEFAULT_INITIAL_BATCH_SIZE = 4096;
+  public static final Duration DEFAULT_TARGET_LATENCY = Duration.ofMillis(200);
+  public static final long DEFAULT_MAX_BYTES_PER_BATCH = 64L * 1024 * 1024;
+  public static final int DEFAULT_INTERVAL = 8;
+  private static final double MAX_HEAP_USAGE = 0.8;
+
+  private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchSizeController.class);
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long targetNanos;
+  private final long maxBytesPerBatch;
+  private final int interval;
+  private int batchSize;
+  private int batches;
+  private boolean allFull;
+  private long maxNanos;
+  private long maxBytes;
+
+  /**
+   * Creates a new controller with default parameters.
+   */
+  public AdaptiveBatchSizeController() {
+    this(DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE, DEFAULT_INITIAL_BATCH_SIZE,
+        DEFAULT_TARGET_LATENCY, DEFAULT_MAX_BYTES_PER_BATCH, DEFAULT_INTERVAL);
+  }
+
+  /**
+   * Creates a new controller. All parties must use the same parameters.
+   *
+   * @param minBatchSize the smallest batch size to use
+   * @param maxBatchSize the largest batch size to use
+   * @param initialBatchSize the batch size of the first batches
+   * @param targetLatency the target wall time for evaluating a batch
+   * @param maxBytesPerBatch the number of bytes sent in a batch above which the batch size is
+   *     decreased
+   * @param interval the number of batches between each adjustment of the batch size
+   */
+  public AdaptiveBatchSizeController(int minBatchSize, int maxBatchSize, int initialBatchSize,
+      Duration targetLatency, long maxBytesPerBatch, int interval) {
+    if (minBatchSize < 1 || minBatchSize > initialBatchSize || initialBatchSize > maxBatchSize) {
+      throw new IllegalArgumentException("Batch sizes must satisfy 0 < min <= initial <= max, "
+          + "but were " + minBatchSize + ", " + initialBatchSize + ", " + maxBatchSize);
+    }
+    if (interval < 1) {
+      throw new IllegalArgumentException("Interval must be positive, but was " + interval);
+    }
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.targetNanos = targetLatency.toNanos();
+    this.maxBytesPerBatch = maxBytesPerBatch;
+    this.interval = interval;
+    this.batchSize = initialBatchSize;
+    resetInterval();
+  }
+
+  @Override
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public void finishedBatch(int protocols, long elapsedNanos, long bytesSent, Network network) {
+    batches++;
+    allFull &= protocols >= batchSize;
+    maxNanos = Math.max(maxNanos, elapsedNanos);
+    maxBytes = Math.max(maxBytes, bytesSent);
+    if (batches % interval == 0) {
+      int proposal = propose();
+      int agreed = network.getNoOfParties() > 1 ? agree(proposal, network) : proposal;
+      if (agreed != batchSize) {
+        logger.debug("Changing batch size from " + batchSize + " to " + agreed);
+      }
+      batchSize = agreed;
+      resetInterval();
+    }
+  }
+
+  /**
+   * Computes the batch size this party proposes based on the batches of the current interval.
+   */
+  private int propose() {
+    if (maxNanos > 2 * targetNanos || maxBytes > maxBytesPerBatch || isMemoryPressured()) {
+      return Math.max(minBatchSize, batchSize / 2);
+    } else if (allFull && maxNanos < targetNanos) {
+      return (int) Math.min(maxBatchSize, 2L * batchSize);
+    } else {
+      return batchSize;
+    }
+  }
+
+  /**
+   * Exchanges proposals with all parties and returns the smallest one.
+   */
+  private int agree(int proposal, Network network) {
+    network.sendToAll(ByteBuffer.allocate(Integer.BYTES).putInt(proposal).array());
+    List<byte[]> proposals = network.receiveFromAll();
+    int agreed = proposal;
+    for (byte[] other : proposals) {
+      agreed = Math.min(agreed, ByteBuffer.wrap(other).getInt());
+    }
+    return agreed;
+  }
+
+  private boolean isMemoryPressured() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = runtime.totalMemory() - runtime.freeMemory();
+    return used > MAX_HEAP_USAGE * runtime.maxMemory();
+  }
+
+  private void resetInterval() {
+    allFull = true;
+    maxNanos = 0;
+    maxBytes = 0;
+  }
+}
@@ -0,0 +1,130 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates protocols on a background thread using a separate network, while the main evaluation
+ * continues. <p>Protocols are evaluated one at a time in the order they are submitted. As long as
+ * all parties submit the same protocols in the same order, this keeps the parties in sync on the
+ * separate network. This is used to run MAC checks concurrently with the application.</p>
+ * <p>Closing the evaluator waits for the scheduled protocols, stops the background thread and
+ * closes the separate network if it is {@link Closeable}. Protocols scheduled after closing are
+ * evaluated on a new thread and network.</p>
+ *
+ * @param <ResourcePoolT> The resource pool type to use
+ */
+public class BackgroundProtocolEvaluator<ResourcePoolT extends ResourcePool>
+    implements Closeable {
+
+  private static final long CLOSE_TIMEOUT_MINUTES = 1;
+  private static final Logger logger = LoggerFactory.getLogger(BackgroundProtocolEvaluator.class);
+
+  private final ProtocolEvaluator<ResourcePoolT> evaluator;
+  private final Supplier<Network> networkSupplier;
+  private ExecutorService executor;
+  private Network network;
+
+  /**
+   * Creates a new background evaluator.
+   *
+   * @param evaluator the evaluator to run protocols with
+   * @param networkSupplier supplier for the separate network. This is only called from the
+   *     background thread, when the first protocol is evaluated after creating or closing the
+   *     evaluator.
+   */
+  public BackgroundProtocolEvaluator(ProtocolEvaluator<ResourcePoolT> evaluator,
+      Supplier<Network> networkSupplier) {
+    this.evaluator = evaluator;
+    this.networkSupplier = networkSupplier;
+  }
+
+  /**
+   * Schedules the protocols of a producer for evaluation on the background thread.
+   *
+   * @param protocolProducer the protocols to evaluate
+   * @param resourcePool the resource pool to evaluate with. This must not be modified by the main
+   *     evaluation while the protocols are evaluated.
+   * @return a future which completes when the protocols are evaluated
+   */
+  public synchronized Future<?> eval(ProtocolProducer protocolProducer,
+      ResourcePoolT resourcePool) {
+    if (executor == null) {
+      executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Background-evaluator");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return executor.submit(() -> {
+      if (network == null) {
+        network = networkSupplier.get();
+      }
+      evaluator.eval(protocolProducer, resourcePool, network);
+    });
+  }
+
+  /**
+   * Waits for the scheduled evaluations to complete, then stops the background thread and closes
+   * the separate network.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        logger.warn("Background evaluation did not terminate, interrupting it");
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+    }
+    executor = null;
+    Network closing = network;
+    network = null;
+    if (closing instanceof Closeable) {
+      ((Closeable) closing).close();
+    }
+  }
+
+  /**
+   * Waits for a number of evaluations to complete, removing them from the queue. <p>If an
+   * evaluation failed, the exception it threw is rethrown here.</p>
+   *
+   * @param pending the evaluations to wait for
+   */
+  public static void awaitAll(Queue<Future<?>> pending) {
+    while (!pending.isEmpty()) {
+      try {
+        pending.remove().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for background evaluation", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new RuntimeException("Background evaluation failed", cause);
+      }
+    }
+  }
+
+}
@@ -19,4 +19,15 @@ public interface BatchEvaluationStrategy<ResourcePoolT extends ResourcePool> {
   void processBatch(
       ProtocolCollection<ResourcePoolT> protocols, ResourcePoolT resourcePool,
       NetworkBatchDecorator network);
+
+  /**
+   * Tells whether this strategy evaluates the native protocols of a batch concurrently. Such a
+   * strategy must only be used with protocol suites which support it, see
+   * {@link dk.alexandra.fresco.suite.ProtocolSuite#supportsConcurrentEvaluation()}.
+   *
+   * @return true if the protocols of a batch are evaluated concurrently, false by default
+   */
+  default boolean isConcurrent() {
+    return false;
+  }
 }
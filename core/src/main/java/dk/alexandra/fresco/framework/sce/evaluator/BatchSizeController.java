@@ -0,0 +1,33 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.network.Network;
+
+/**
+ * Decides the maximum number of native protocols in each batch evaluated by a
+ * {@link BatchedProtocolEvaluator}.
+ * <p>
+ * Since the batches of all parties must contain the same native protocols, implementations must
+ * make sure that all parties use the same batch size at all times.
+ * </p>
+ */
+public interface BatchSizeController {
+
+  /**
+   * Gets the maximum number of native protocols to use for the next batch.
+   *
+   * @return the batch size
+   */
+  int getBatchSize();
+
+  /**
+   * Called by the evaluator after each batch has been evaluated, letting the controller adjust the
+   * batch size. The network is quiescent at this point and may be used to coordinate with the other
+   * parties.
+   *
+   * @param protocols the number of native protocols in the batch
+   * @param elapsedNanos the wall time spent evaluating the batch
+   * @param bytesSent the number of bytes sent while evaluating the batch
+   * @param network the network
+   */
+  void finishedBatch(int protocols, long elapsedNanos, long bytesSent, Network network);
+}
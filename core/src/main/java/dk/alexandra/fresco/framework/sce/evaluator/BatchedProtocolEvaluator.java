@@ -5,6 +5,8 @@ import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.suite.ProtocolSuite;
+import java.io.Closeable;
+import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,18 +14,23 @@ import org.slf4j.LoggerFactory;
  * Protocol evaluator implementation which works by evaluating native protocols in batches of a
  * certain batch size. How each batch is evaluated is up to the given batch evaluation strategy.
  * Each batch is required to contain only functionally independent native protocols.
+ * <p>
+ * A strategy evaluating the protocols of a batch concurrently can only be used with a protocol
+ * suite supporting concurrent evaluation. Closing the evaluator closes the strategy if it is
+ * {@link Closeable}, e.g., to stop the worker threads of a {@link ParallelBatchedStrategy}.
+ * </p>
  *
  * @param <ResourcePoolT> The resource pool type to use
  */
 public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
-    implements ProtocolEvaluator<ResourcePoolT> {
+    implements ProtocolEvaluator<ResourcePoolT>, Closeable {
 
   private Logger logger = LoggerFactory.getLogger(BatchedProtocolEvaluator.class);
   private static final int MAX_EMPTY_BATCHES_IN_A_ROW = 10;
 
   private final BatchEvaluationStrategy<ResourcePoolT> batchEvaluator;
   private final ProtocolSuite<ResourcePoolT, ?> protocolSuite;
-  private final int maxBatchSize;
+  private final BatchSizeController batchSizeController;
 
   public BatchedProtocolEvaluator(
       BatchEvaluationStrategy<ResourcePoolT> batchEvaluator,
@@ -34,8 +41,28 @@ public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
   public BatchedProtocolEvaluator(
       BatchEvaluationStrategy<ResourcePoolT> batchEvaluator,
       ProtocolSuite<ResourcePoolT, ?> protocolSuite, int maxBatchSize) {
+    this(batchEvaluator, protocolSuite, new FixedBatchSizeController(maxBatchSize));
+  }
+
+  /**
+   * Creates an evaluator where the size of each batch is decided by a controller, e.g., an
+   * {@link AdaptiveBatchSizeController}.
+   *
+   * @param batchEvaluator the strategy used to evaluate each batch
+   * @param protocolSuite the protocol suite
+   * @param batchSizeController the controller deciding the batch sizes
+   * @throws IllegalArgumentException if the strategy evaluates protocols concurrently, but the
+   *     protocol suite does not support it
+   */
+  public BatchedProtocolEvaluator(
+      BatchEvaluationStrategy<ResourcePoolT> batchEvaluator,
+      ProtocolSuite<ResourcePoolT, ?> protocolSuite, BatchSizeController batchSizeController) {
+    if (batchEvaluator.isConcurrent() && !protocolSuite.supportsConcurrentEvaluation()) {
+      throw new IllegalArgumentException(
+          protocolSuite.getClass().getSimpleName() + " does not support concurrent evaluation");
+    }
     this.batchEvaluator = batchEvaluator;
-    this.maxBatchSize = maxBatchSize;
+    this.batchSizeController = batchSizeController;
     this.protocolSuite = protocolSuite;
   }
 
@@ -50,12 +77,16 @@ public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
     ProtocolSuite.RoundSynchronization<ResourcePoolT> roundSynchronization =
         protocolSuite.createRoundSynchronization();
     do {
-      ProtocolCollectionList<ResourcePoolT> protocols = new ProtocolCollectionList<>(maxBatchSize);
+      ProtocolCollectionList<ResourcePoolT> protocols =
+          new ProtocolCollectionList<>(batchSizeController.getBatchSize());
       protocolProducer.getNextProtocols(protocols);
       int size = protocols.size();
 
       roundSynchronization.beforeBatch(protocols, resourcePool, network);
+      long bytesBefore = networkBatchDecorator.getBytesSent();
+      long then = System.nanoTime();
       batchEvaluator.processBatch(protocols, resourcePool, networkBatchDecorator);
+      long elapsed = System.nanoTime() - then;
       logger.trace("Done evaluating batch: " + batch++ + " with " + size + " native protocols");
       if (size == 0) {
         logger.debug("Batch " + batch + " is empty");
@@ -63,12 +94,21 @@ public class BatchedProtocolEvaluator<ResourcePoolT extends ResourcePool>
       totalProtocols += size;
       totalBatches += 1;
       roundSynchronization.finishedBatch(size, resourcePool, network);
+      batchSizeController.finishedBatch(size, elapsed,
+          networkBatchDecorator.getBytesSent() - bytesBefore, network);
     } while (protocolProducer.hasNextProtocols());
 
     roundSynchronization.finishedEval(resourcePool, network);
     return new EvaluationStatistics(totalProtocols, totalBatches);
   }
 
+  @Override
+  public void close() throws IOException {
+    if (batchEvaluator instanceof Closeable) {
+      ((Closeable) batchEvaluator).close();
+    }
+  }
+
   private NetworkBatchDecorator createSceNetwork(ResourcePool resourcePool, Network network) {
     return new NetworkBatchDecorator(resourcePool.getNoOfParties(), network);
   }
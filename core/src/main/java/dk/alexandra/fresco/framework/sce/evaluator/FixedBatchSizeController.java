@@ -0,0 +1,25 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.network.Network;
+
+/**
+ * Batch size controller using the same batch size for all batches.
+ */
+public class FixedBatchSizeController implements BatchSizeController {
+
+  private final int batchSize;
+
+  public FixedBatchSizeController(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public void finishedBatch(int protocols, long elapsedNanos, long bytesSent, Network network) {
+    // The batch size never changes
+  }
+}
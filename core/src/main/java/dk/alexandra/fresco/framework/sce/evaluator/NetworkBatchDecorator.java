@@ -1,10 +1,8 @@
 package dk.alexandra.fresco.framework.sce.evaluator;
 
 import dk.alexandra.fresco.framework.network.Network;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Default network for the evaluators, this interface bridges the raw network4
@@ -12,35 +10,46 @@ import java.util.Map;
  * communication on the network batched and hence throttled so evaluators behave nice
  * on the network.
  * <br/>
+ * Each message in a batch is prefixed by its length encoded as a varint, i.e., seven bits per
+ * byte with the high bit set on all but the last byte. Messages shorter than 128 bytes therefore
+ * carry a single byte of framing, while larger messages are supported up to
+ * {@link Integer#MAX_VALUE} bytes.
+ * <br/>
+ * The output buffers are allocated once per party and reused across flushes, so sending a batch
+ * only costs a single copy of the collected bytes when handing them to the underlying network.
+ * <br/>
  * It is important to call flush to empty all buffers after sending and before receiving data
  */
 public class NetworkBatchDecorator implements Network {
 
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+  private static final int MAX_VARINT_BYTES = 5;
+
   private int noOfParties;
   private final Network network;
-  private Map<Integer, ByteArrayOutputStream> output;
-  private Map<Integer, ByteArrayInputStream> input;
+  private final ByteBuffer[] output;
+  private final ByteBuffer[] input;
+  private long bytesSent;
 
   public NetworkBatchDecorator(int noOfParties, Network network) {
     this.noOfParties = noOfParties;
     this.network = network;
-    this.output = new HashMap<>();
-    this.input = new HashMap<>();
+    this.output = new ByteBuffer[noOfParties + 1];
+    this.input = new ByteBuffer[noOfParties + 1];
   }
 
   @Override
   public byte[] receive(int id) {
-    ByteArrayInputStream byteInputStream = input.get(id);
-    if (byteInputStream == null) {
+    ByteBuffer byteInput = input[id];
+    if (byteInput == null) {
       byte[] partyData = network.receive(id);
-      byteInputStream = new ByteArrayInputStream(partyData);
-      input.put(id, byteInputStream);
+      byteInput = ByteBuffer.wrap(partyData);
+      input[id] = byteInput;
     }
-
-    int count = byteInputStream.read();
-    byte[] bytes = new byte[count];
-    byteInputStream.read(bytes, 0, count);
-    return bytes;
+    int count = readLength(byteInput);
+    int position = byteInput.position();
+    byteInput.position(position + count);
+    return Arrays.copyOfRange(byteInput.array(), position, position + count);
   }
 
   @Override
@@ -50,14 +59,9 @@ public class NetworkBatchDecorator implements Network {
 
   @Override
   public void send(int id, byte[] data) {
-    ByteArrayOutputStream buffer = this.output
-        .computeIfAbsent(id, (i) -> new ByteArrayOutputStream());
-    if (data.length > Byte.MAX_VALUE) {
-      throw new IllegalStateException(
-          "Current implementation only supports small packages, data.length=" + data.length);
-    }
-    buffer.write(data.length);
-    buffer.write(data, 0, data.length);
+    ByteBuffer buffer = ensureCapacity(id, MAX_VARINT_BYTES + data.length);
+    writeLength(buffer, data.length);
+    buffer.put(data);
   }
 
   /**
@@ -65,13 +69,69 @@ public class NetworkBatchDecorator implements Network {
    */
   public void flush() {
     for (int i = 1; i <= noOfParties; i++) {
-      if (output.containsKey(i)) {
-        ByteArrayOutputStream byteArrayOutputStream = output.get(i);
-        byte[] data = byteArrayOutputStream.toByteArray();
-        network.send(i, data);
+      ByteBuffer buffer = output[i];
+      if (buffer != null && buffer.position() > 0) {
+        network.send(i, Arrays.copyOf(buffer.array(), buffer.position()));
+        bytesSent += buffer.position();
+        buffer.clear();
       }
-      output.remove(i);
     }
-    input.clear();
+    Arrays.fill(input, null);
+  }
+
+  /**
+   * Gets the total number of bytes flushed to the underlying network, including framing.
+   *
+   * @return the number of bytes sent
+   */
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  /**
+   * Gets the output buffer of a given party making sure it can hold a given number of additional
+   * bytes. The buffer is grown by (at least) doubling its capacity when needed.
+   *
+   * @param id the id of the party
+   * @param additional the number of bytes to be written
+   * @return the buffer for the party
+   */
+  private ByteBuffer ensureCapacity(int id, int additional) {
+    ByteBuffer buffer = output[id];
+    if (buffer == null) {
+      buffer = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE, additional));
+      output[id] = buffer;
+    } else if (buffer.remaining() < additional) {
+      int required = buffer.position() + additional;
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2));
+      buffer.flip();
+      grown.put(buffer);
+      buffer = grown;
+      output[id] = buffer;
+    }
+    return buffer;
+  }
+
+  private static void writeLength(ByteBuffer buffer, int length) {
+    while ((length & ~0x7F) != 0) {
+      buffer.put((byte) ((length & 0x7F) | 0x80));
+      length >>>= 7;
+    }
+    buffer.put((byte) length);
+  }
+
+  private static int readLength(ByteBuffer buffer) {
+    int length = 0;
+    int shift = 0;
+    byte current;
+    do {
+      if (shift >= 7 * MAX_VARINT_BYTES) {
+        throw new IllegalStateException("Malformed length prefix in batched message");
+      }
+      current = buffer.get();
+      length |= (current & 0x7F) << shift;
+      shift += 7;
+    } while ((current & 0x80) != 0);
+    return length;
   }
 }
@@ -0,0 +1,329 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.NativeProtocol.EvaluationStatus;
+import dk.alexandra.fresco.framework.OrderedNativeProtocol;
+import dk.alexandra.fresco.framework.ProtocolCollection;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batched evaluation strategy which evaluates the rounds of a batch on a pool of worker threads.
+ * <p>
+ * The protocols of a batch are split into a fixed number of consecutive partitions, which are
+ * evaluated concurrently round by round. Each partition sends and receives through its own
+ * {@link NetworkBatchDecorator}, so no buffers are shared between the worker threads. After a round
+ * the messages of the partitions are forwarded to the actual network in partition order, hence
+ * the messages for each party are still sent in protocol order. On the receiving side the data of
+ * each party is split per partition before it is handed to the protocols of the partition.
+ * </p>
+ * <p>
+ * Native protocols of a batch access the resource pool concurrently. Protocols which draw
+ * preprocessed material or record state in the resource pool, where the order must be the same for
+ * all parties, must implement {@link OrderedNativeProtocol}. Before a round is evaluated the
+ * strategy lets these protocols reserve what they need in protocol order, and after the round it
+ * lets them commit what they recorded in protocol order, so all parties consume and record the
+ * same things for the same protocols. Other protocols must only read the resource pool. Hence the
+ * strategy can only be used with protocol suites which declare that they support this, see
+ * {@link dk.alexandra.fresco.suite.ProtocolSuite#supportsConcurrentEvaluation()}.
+ * </p>
+ * <p>
+ * Note that the partitioning must be identical for all parties, so all parties must use the same
+ * number of partitions.
+ * </p>
+ * <p>
+ * A strategy created with the default constructor owns its worker threads, which are stopped when
+ * the strategy is closed. An executor given by the caller is left for the caller to shut down.
+ * </p>
+ */
+public class ParallelBatchedStrategy<ResourcePoolT extends ResourcePool>
+    implements BatchEvaluationStrategy<ResourcePoolT>, Closeable {
+
+  public static final int DEFAULT_PARTITIONS = 4;
+  private static final byte[] EMPTY = new byte[0];
+  private static final AtomicInteger threadCounter = new AtomicInteger(1);
+  private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+  private final ExecutorService executor;
+  private final int partitions;
+  private final boolean ownsExecutor;
+
+  /**
+   * Creates a new strategy using {@link #DEFAULT_PARTITIONS} partitions on a cached pool of daemon
+   * threads owned by the strategy. The threads are stopped when the strategy is closed.
+   */
+  public ParallelBatchedStrategy() {
+    this(Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "ParallelBatched-" + threadCounter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }), DEFAULT_PARTITIONS, true);
+  }
+
+  /**
+   * Creates a new strategy.
+   * <p>
+   * Protocols block while waiting for data from the other parties, so the executor must be able to
+   * run all partitions of a round at the same time. In particular a shared pool with fewer threads,
+   * such as the common fork join pool, may deadlock when several parties run in the same process.
+   * </p>
+   *
+   * <p>
+   * The executor is not shut down when the strategy is closed.
+   * </p>
+   *
+   * @param executor the executor to evaluate the partitions on
+   * @param partitions the number of partitions to split a batch into
+   */
+  public ParallelBatchedStrategy(ExecutorService executor, int partitions) {
+    this(executor, partitions, false);
+  }
+
+  private ParallelBatchedStrategy(ExecutorService executor, int partitions,
+      boolean ownsExecutor) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
+    }
+    this.executor = executor;
+    this.partitions = partitions;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  @Override
+  public boolean isConcurrent() {
+    return true;
+  }
+
+  /**
+   * Stops the worker threads if the executor is owned by the strategy, waiting for a round being
+   * evaluated to finish.
+   */
+  @Override
+  public void close() {
+    if (!ownsExecutor) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void processBatch(
+      ProtocolCollection<ResourcePoolT> protocols, ResourcePoolT resourcePool,
+      NetworkBatchDecorator networkBatchDecorator) {
+    int size = protocols.size();
+    if (size == 0) {
+      return;
+    }
+    int noOfParties = networkBatchDecorator.getNoOfParties();
+    RoundInput input = new RoundInput(networkBatchDecorator, Math.min(partitions, size));
+    List<Partition> partitionList = split(protocols, input);
+    int round = 0;
+    boolean pending = true;
+    while (pending) {
+      evaluateCurrentRound(partitionList, resourcePool, round);
+      input.clear();
+      for (int i = 1; i <= noOfParties; i++) {
+        forward(partitionList, i, networkBatchDecorator);
+      }
+      networkBatchDecorator.flush();
+      pending = false;
+      for (Partition partition : partitionList) {
+        pending |= !partition.protocols.isEmpty();
+      }
+      round++;
+    }
+  }
+
+  private List<Partition> split(ProtocolCollection<ResourcePoolT> protocols, RoundInput input) {
+    int size = protocols.size();
+    int count = input.partitions;
+    List<Partition> partitionList = new ArrayList<>(count);
+    Iterator<NativeProtocol<?, ResourcePoolT>> iterator = protocols.iterator();
+    for (int i = 0; i < count; i++) {
+      Partition partition = new Partition(i, input);
+      int partitionSize = size / count + (i < size % count ? 1 : 0);
+      for (int j = 0; j < partitionSize; j++) {
+        partition.protocols.add(iterator.next());
+      }
+      partitionList.add(partition);
+    }
+    return partitionList;
+  }
+
+  private void evaluateCurrentRound(List<Partition> partitionList, ResourcePoolT resourcePool,
+      int round) {
+    for (Partition partition : partitionList) {
+      partition.reserve(round, resourcePool);
+    }
+    List<Callable<Object>> tasks = new ArrayList<>(partitionList.size());
+    for (Partition partition : partitionList) {
+      if (!partition.protocols.isEmpty()) {
+        tasks.add(() -> {
+          partition.evaluateRound(round, resourcePool);
+          return null;
+        });
+      }
+    }
+    try {
+      for (Future<Object> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while evaluating round " + round, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException("Failed to evaluate round " + round, e.getCause());
+    }
+    for (Partition partition : partitionList) {
+      partition.commit(round, resourcePool);
+    }
+  }
+
+  /**
+   * Forwards the data of all partitions for a given party in partition order. If any partition has
+   * data for the party all partitions send, using an empty message if they have no data, such that
+   * the receiver can split the data per partition.
+   */
+  private void forward(List<Partition> partitionList, int partyId, Network network) {
+    boolean hasData = false;
+    for (Partition partition : partitionList) {
+      hasData |= partition.output[partyId] != null;
+    }
+    if (hasData) {
+      for (Partition partition : partitionList) {
+        byte[] data = partition.output[partyId];
+        network.send(partyId, data == null ? EMPTY : data);
+        partition.output[partyId] = null;
+      }
+    }
+  }
+
+  /**
+   * Holds the data received in the current round, split per partition.
+   */
+  private static class RoundInput {
+
+    private final Network network;
+    private final int partitions;
+    private final byte[][][] received;
+
+    private RoundInput(Network network, int partitions) {
+      this.network = network;
+      this.partitions = partitions;
+      this.received = new byte[network.getNoOfParties() + 1][][];
+    }
+
+    private byte[] receive(int partyId, int partition) {
+      synchronized (this) {
+        if (received[partyId] == null) {
+          byte[][] split = new byte[partitions][];
+          for (int i = 0; i < partitions; i++) {
+            split[i] = network.receive(partyId);
+          }
+          received[partyId] = split;
+        }
+        return received[partyId][partition];
+      }
+    }
+
+    private void clear() {
+      for (int i = 0; i < received.length; i++) {
+        received[i] = null;
+      }
+    }
+  }
+
+  /**
+   * A consecutive part of a batch together with the network the part is evaluated with.
+   */
+  private class Partition implements Network {
+
+    private final int index;
+    private final RoundInput input;
+    private final List<NativeProtocol<?, ResourcePoolT>> protocols;
+    private final List<NativeProtocol<?, ResourcePoolT>> remaining;
+    private final NetworkBatchDecorator network;
+    private final byte[][] output;
+
+    private Partition(int index, RoundInput input) {
+      this.index = index;
+      this.input = input;
+      this.protocols = new ArrayList<>();
+      this.remaining = new ArrayList<>();
+      this.network = new NetworkBatchDecorator(input.network.getNoOfParties(), this);
+      this.output = new byte[input.network.getNoOfParties() + 1][];
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reserve(int round, ResourcePoolT resourcePool) {
+      for (NativeProtocol<?, ResourcePoolT> protocol : protocols) {
+        if (protocol instanceof OrderedNativeProtocol) {
+          ((OrderedNativeProtocol<?, ResourcePoolT>) protocol).reserve(round, resourcePool);
+        }
+      }
+    }
+
+    private void evaluateRound(int round, ResourcePoolT resourcePool) {
+      for (NativeProtocol<?, ResourcePoolT> protocol : protocols) {
+        EvaluationStatus status = protocol.evaluate(round, resourcePool, network);
+        if (status.equals(EvaluationStatus.HAS_MORE_ROUNDS)) {
+          remaining.add(protocol);
+        }
+      }
+      network.flush();
+    }
+
+    /**
+     * Commits the protocols evaluated in the round, including those which finished, and keeps the
+     * protocols which have more rounds.
+     */
+    @SuppressWarnings("unchecked")
+    private void commit(int round, ResourcePoolT resourcePool) {
+      for (NativeProtocol<?, ResourcePoolT> protocol : protocols) {
+        if (protocol instanceof OrderedNativeProtocol) {
+          ((OrderedNativeProtocol<?, ResourcePoolT>) protocol).commit(round, resourcePool);
+        }
+      }
+      protocols.clear();
+      protocols.addAll(remaining);
+      remaining.clear();
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      output[partyId] = data;
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      return input.receive(partyId, index);
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return input.network.getNoOfParties();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.NativeProtocol.EvaluationStatus;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolProducer;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Protocol evaluator which overlaps local computation with network communication.
+ * <p>
+ * Since all native protocols of a batch are functionally independent, a batch can be split into a
+ * number of <i>lanes</i> which are evaluated in an interleaved fashion: the evaluator runs the
+ * current round of the first lane and flushes its messages, then runs the current round of the
+ * second lane while the messages of the first lane are in flight, and so forth. When the evaluator
+ * returns to the first lane its messages for the next round will typically already have arrived.
+ * </p>
+ * <p>
+ * Each lane has its own {@link NetworkBatchDecorator}, so the messages of different lanes are
+ * never mixed. Since all parties split the batch identically and flush lanes in the same order, the
+ * messages from a given party arrive in exactly the order they are consumed. The evaluator does not
+ * pipeline across batches, since the protocol producer is only allowed to produce protocols
+ * depending on previous batches once these have been evaluated.
+ * </p>
+ * <p>
+ * The evaluator is most effective with a network with non-blocking sends, such as
+ * {@link dk.alexandra.fresco.framework.network.async.AsyncNetwork}.
+ * </p>
+ *
+ * @param <ResourcePoolT> The resource pool type to use
+ */
+public class PipelinedProtocolEvaluator<ResourcePoolT extends ResourcePool>
+    implements ProtocolEvaluator<ResourcePoolT> {
+
+  public static final int DEFAULT_MAX_BATCH_SIZE = 4096;
+  public static final int DEFAULT_LANES = 4;
+  public static final int DEFAULT_MIN_LANE_SIZE = 64;
+
+  private static final Logger logger = LoggerFactory.getLogger(PipelinedProtocolEvaluator.class);
+
+  private final ProtocolSuite<ResourcePoolT, ?> protocolSuite;
+  private final int maxBatchSize;
+  private final int lanes;
+  private final int minLaneSize;
+
+  /**
+   * Creates a new pipelined evaluator with the default batch size, number of lanes and minimum
+   * lane size.
+   *
+   * @param protocolSuite the protocol suite
+   */
+  public PipelinedProtocolEvaluator(ProtocolSuite<ResourcePoolT, ?> protocolSuite) {
+    this(protocolSuite, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LANES, DEFAULT_MIN_LANE_SIZE);
+  }
+
+  /**
+   * Creates a new pipelined evaluator.
+   *
+   * @param protocolSuite the protocol suite
+   * @param maxBatchSize the maximum number of native protocols in a batch
+   * @param lanes the maximum number of lanes to split a batch into
+   * @param minLaneSize the minimum number of native protocols in a lane, batches smaller than
+   *     twice this size are evaluated in a single lane
+   */
+  public PipelinedProtocolEvaluator(ProtocolSuite<ResourcePoolT, ?> protocolSuite,
+      int maxBatchSize, int lanes, int minLaneSize) {
+    if (maxBatchSize < 1 || lanes < 1 || minLaneSize < 1) {
+      throw new IllegalArgumentException(
+          "Batch size, lanes and lane size must be positive, but were " + maxBatchSize + ", "
+              + lanes + " and " + minLaneSize);
+    }
+    this.protocolSuite = protocolSuite;
+    this.maxBatchSize = maxBatchSize;
+    this.lanes = lanes;
+    this.minLaneSize = minLaneSize;
+  }
+
+  @Override
+  public EvaluationStatistics eval(ProtocolProducer protocolProducer, ResourcePoolT resourcePool,
+      Network network) {
+    int batch = 0;
+    int totalProtocols = 0;
+    int totalBatches = 0;
+
+    List<Lane<ResourcePoolT>> laneList = new ArrayList<>(lanes);
+    for (int i = 0; i < lanes; i++) {
+      laneList.add(new Lane<>(new NetworkBatchDecorator(resourcePool.getNoOfParties(), network)));
+    }
+    ProtocolSuite.RoundSynchronization<ResourcePoolT> roundSynchronization =
+        protocolSuite.createRoundSynchronization();
+    do {
+      ProtocolCollectionList<ResourcePoolT> protocols = new ProtocolCollectionList<>(maxBatchSize);
+      protocolProducer.getNextProtocols(protocols);
+      int size = protocols.size();
+
+      roundSynchronization.beforeBatch(protocols, resourcePool, network);
+      int activeLanes = split(protocols, laneList);
+      evaluateLanes(laneList, activeLanes, resourcePool);
+      logger.trace("Done evaluating batch: " + batch++ + " with " + size
+          + " native protocols in " + activeLanes + " lanes");
+      if (size == 0) {
+        logger.debug("Batch " + batch + " is empty");
+      }
+      totalProtocols += size;
+      totalBatches += 1;
+      roundSynchronization.finishedBatch(size, resourcePool, network);
+    } while (protocolProducer.hasNextProtocols());
+
+    roundSynchronization.finishedEval(resourcePool, network);
+    return new EvaluationStatistics(totalProtocols, totalBatches);
+  }
+
+  /**
+   * Distributes the protocols of a batch into consecutive chunks, one per lane. The split only
+   * depends on the size of the batch, hence it is identical for all parties.
+   *
+   * @return the number of lanes in use
+   */
+  private int split(ProtocolCollectionList<ResourcePoolT> protocols,
+      List<Lane<ResourcePoolT>> laneList) {
+    int size = protocols.size();
+    int activeLanes = Math.max(1, Math.min(lanes, size / minLaneSize));
+    int laneSize = size / activeLanes;
+    int remainder = size % activeLanes;
+    Iterator<NativeProtocol<?, ResourcePoolT>> iterator = protocols.iterator();
+    for (int i = 0; i < activeLanes; i++) {
+      List<NativeProtocol<?, ResourcePoolT>> laneProtocols = laneList.get(i).protocols;
+      int count = laneSize + (i < remainder ? 1 : 0);
+      for (int j = 0; j < count; j++) {
+        laneProtocols.add(iterator.next());
+      }
+    }
+    return activeLanes;
+  }
+
+  /**
+   * Evaluates the lanes round by round, flushing each lane right after its round has been
+   * evaluated such that its messages are in flight while the following lanes are evaluated.
+   */
+  private void evaluateLanes(List<Lane<ResourcePoolT>> laneList, int activeLanes,
+      ResourcePoolT resourcePool) {
+    int round = 0;
+    boolean pending = true;
+    while (pending) {
+      pending = false;
+      for (int i = 0; i < activeLanes; i++) {
+        Lane<ResourcePoolT> lane = laneList.get(i);
+        if (!lane.protocols.isEmpty()) {
+          lane.evaluateRound(round, resourcePool);
+          lane.network.flush();
+          pending |= !lane.protocols.isEmpty();
+        }
+      }
+      round++;
+    }
+  }
+
+  /**
+   * A part of a batch together with the network used to evaluate it.
+   */
+  private static class Lane<ResourcePoolT extends ResourcePool> {
+
+    private final NetworkBatchDecorator network;
+    private final List<NativeProtocol<?, ResourcePoolT>> protocols;
+
+    private Lane(NetworkBatchDecorator network) {
+      this.network = network;
+      this.protocols = new ArrayList<>();
+    }
+
+    private void evaluateRound(int round, ResourcePoolT resourcePool) {
+      List<NativeProtocol<?, ResourcePoolT>> remaining = new ArrayList<>(protocols.size());
+      for (NativeProtocol<?, ResourcePoolT> protocol : protocols) {
+        EvaluationStatus status = protocol.evaluate(round, resourcePool, network);
+        if (status.equals(EvaluationStatus.HAS_MORE_ROUNDS)) {
+          remaining.add(protocol);
+        }
+      }
+      protocols.clear();
+      protocols.addAll(remaining);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package dk.alexandra.fresco.framework.util;
+
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Correlation robust hash based on AES with a fixed, public key. <p>For 128 bit inputs this is the
+ * construction <i>H(i, x) = &pi;(&sigma;(x) &oplus; i) &oplus; &sigma;(x)</i> of Guo et al.
+ * ("Efficient and Secure Multiparty Computation from Fixed-Key Block Ciphers"), where
+ * <i>&pi;</i> is AES under the fixed key and <i>&sigma;(x<sub>L</sub> || x<sub>R</sub>) =
+ * (x<sub>L</sub> &oplus; x<sub>R</sub>) || x<sub>L</sub></i> is a linear orthomorphism. Longer
+ * inputs are split into blocks, shorter outputs are truncated and longer outputs are made of
+ * several blocks, and each block of output is the XOR of the hash of each input block, tweaked by
+ * the index of the input as well as the indices of the output and input blocks.</p>
+ *
+ * <p>All blocks of a call are encrypted with a single call to the cipher, which lets the JVM use
+ * the AES instructions of the processor when available. This makes the hash much faster than
+ * computing a SHA-256 digest per input.</p>
+ */
+public class AesCorrelationRobustHash implements CorrelationRobustHash {
+
+  private static final int BLOCK_SIZE = 16;
+  private static final int HALF_BLOCK_SIZE = BLOCK_SIZE / 2;
+  private final Cipher cipher;
+
+  /**
+   * Creates a new hash using a key of all zeroes. The key is public, so any fixed key can be used,
+   * but the parties must agree on it.
+   */
+  public AesCorrelationRobustHash() {
+    this(new byte[BLOCK_SIZE]);
+  }
+
+  /**
+   * Creates a new hash using a given fixed key.
+   *
+   * @param key an AES-128 key, i.e., 16 bytes
+   */
+  public AesCorrelationRobustHash(byte[] key) {
+    if (key.length != BLOCK_SIZE) {
+      throw new IllegalArgumentException(
+          "Key must be exactly " + BLOCK_SIZE + " bytes, but was " + key.length + " bytes");
+    }
+    this.cipher = ExceptionConverter.safe(
+        () -> Cipher.getInstance("AES/ECB/NoPadding"),
+        "General exception in creating the cipher");
+    ExceptionConverter.safe(() -> {
+      cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"));
+      return null;
+    }, "Could not initialize the cipher");
+  }
+
+  @Override
+  public synchronized byte[] hash(byte[] inputs, int inputLength, int outputLength) {
+    if (inputLength <= 0 || inputs.length % inputLength != 0 || outputLength < 0) {
+      throw new IllegalArgumentException("Invalid lengths: " + inputs.length + " bytes of input, "
+          + inputLength + " bytes per input, " + outputLength + " bytes per output");
+    }
+    int count = inputs.length / inputLength;
+    int inputBlocks = (inputLength + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    int outputBlocks = (outputLength + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    byte[] sigmas = computeSigmas(inputs, count, inputLength, inputBlocks);
+    // Lay out sigma(x_b) XOR tweak(i, k, b) for all inputs i, output blocks k and input blocks b
+    byte[] blocks = new byte[count * outputBlocks * inputBlocks * BLOCK_SIZE];
+    int offset = 0;
+    for (int i = 0; i < count; i++) {
+      for (int k = 0; k < outputBlocks; k++) {
+        for (int b = 0; b < inputBlocks; b++) {
+          System.arraycopy(sigmas, (i * inputBlocks + b) * BLOCK_SIZE, blocks, offset, BLOCK_SIZE);
+          xorTweak(blocks, offset, i, k, b);
+          offset += BLOCK_SIZE;
+        }
+      }
+    }
+    byte[] encrypted = new byte[blocks.length];
+    ExceptionConverter.safe(() -> cipher.doFinal(blocks, 0, blocks.length, encrypted, 0),
+        "Could not encrypt blocks");
+    // Output block (i, k) is the XOR over b of pi(sigma(x_b) XOR tweak) XOR sigma(x_b)
+    byte[] outputs = new byte[count * outputLength];
+    byte[] block = new byte[BLOCK_SIZE];
+    offset = 0;
+    for (int i = 0; i < count; i++) {
+      for (int k = 0; k < outputBlocks; k++) {
+        Arrays.fill(block, (byte) 0);
+        for (int b = 0; b < inputBlocks; b++) {
+          int sigmaOffset = (i * inputBlocks + b) * BLOCK_SIZE;
+          for (int j = 0; j < BLOCK_SIZE; j++) {
+            block[j] ^= encrypted[offset + j] ^ sigmas[sigmaOffset + j];
+          }
+          offset += BLOCK_SIZE;
+        }
+        int length = Math.min(BLOCK_SIZE, outputLength - k * BLOCK_SIZE);
+        System.arraycopy(block, 0, outputs, i * outputLength + k * BLOCK_SIZE, length);
+      }
+    }
+    return outputs;
+  }
+
+  /**
+   * Splits the inputs into zero-padded blocks and applies sigma to each block.
+   */
+  private static byte[] computeSigmas(byte[] inputs, int count, int inputLength,
+      int inputBlocks) {
+    byte[] sigmas = new byte[count * inputBlocks * BLOCK_SIZE];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(inputs, i * inputLength, sigmas, i * inputBlocks * BLOCK_SIZE,
+          inputLength);
+    }
+    for (int offset = 0; offset < sigmas.length; offset += BLOCK_SIZE) {
+      for (int j = 0; j < HALF_BLOCK_SIZE; j++) {
+        byte left = sigmas[offset + j];
+        byte right = sigmas[offset + HALF_BLOCK_SIZE + j];
+        sigmas[offset + j] = (byte) (left ^ right);
+        sigmas[offset + HALF_BLOCK_SIZE + j] = left;
+      }
+    }
+    return sigmas;
+  }
+
+  private static void xorTweak(byte[] block, int offset, long index, int outputBlock,
+      int inputBlock) {
+    for (int j = 0; j < Long.BYTES; j++) {
+      block[offset + j] ^= (byte) (index >>> (Byte.SIZE * (Long.BYTES - 1 - j)));
+    }
+    for (int j = 0; j < Integer.BYTES; j++) {
+      int shift = Byte.SIZE * (Integer.BYTES - 1 - j);
+      block[offset + Long.BYTES + j] ^= (byte) (outputBlock >>> shift);
+      block[offset + Long.BYTES + Integer.BYTES + j] ^= (byte) (inputBlock >>> shift);
+    }
+  }
+}
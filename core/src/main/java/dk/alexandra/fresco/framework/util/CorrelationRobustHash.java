@@ -0,0 +1,21 @@
+package dk.alexandra.fresco.framework.util;
+
+/**
+ * A tweakable correlation robust hash function, as used in OT extension to break the correlation
+ * between the extended OTs. <p>Inputs are hashed in bulk, and each input is tweaked by its index
+ * in the bulk, such that equal inputs at different indices give independent outputs.</p>
+ */
+public interface CorrelationRobustHash {
+
+  /**
+   * Hashes a number of inputs of equal length.
+   *
+   * @param inputs the inputs concatenated. The length must be a multiple of {@code inputLength}
+   * @param inputLength the length in bytes of each input
+   * @param outputLength the length in bytes of each output
+   * @return the outputs concatenated, where the output of the i'th input is the hash of the input
+   *     tweaked by i
+   */
+  byte[] hash(byte[] inputs, int inputLength, int outputLength);
+
+}
@@ -0,0 +1,172 @@
+package dk.alexandra.fresco.framework.util;
+
+import dk.alexandra.fresco.logging.PerformanceLogger;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded queue filled ahead of time by a dedicated background producer thread.
+ * <p>
+ * When the queue is full the producer pauses until the queue has been drained to a low watermark,
+ * so consumers only block when production cannot keep up. Failures of the producer are reported to
+ * the consumer on the next {@link #take()} that cannot be served from the queue.
+ * </p>
+ *
+ * @param <T> the type of the produced elements
+ */
+public class PrefetchingQueue<T> implements PerformanceLogger, Closeable {
+
+  public static final String QUEUE_DEPTH = "_QUEUE_DEPTH";
+  public static final String PRODUCED = "_PRODUCED";
+  public static final String PRODUCTION_NANOS = "_PRODUCTION_NANOS";
+  public static final String PRODUCED_PER_SECOND = "_PRODUCED_PER_SECOND";
+  public static final String WAIT_NANOS = "_WAIT_NANOS";
+
+  private static final Logger logger = LoggerFactory.getLogger(PrefetchingQueue.class);
+
+  private final String name;
+  private final Supplier<T> producer;
+  private final BlockingQueue<T> queue;
+  private final int lowWatermark;
+  private final Thread thread;
+  private volatile boolean closed;
+  private volatile RuntimeException failure;
+  private long produced;
+  private long productionNanos;
+  private long waitNanos;
+
+  /**
+   * Creates a new queue. Production does not begin before {@link #start()} is called.
+   *
+   * @param name the name of the produced material, used as prefix of the logged values
+   * @param producer produces the next element. Called from the producer thread only
+   * @param lowWatermark the queue size at which the producer resumes production
+   * @param highWatermark the capacity of the queue
+   */
+  public PrefetchingQueue(String name, Supplier<T> producer, int lowWatermark,
+      int highWatermark) {
+    if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+      throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high, but were "
+          + lowWatermark + " and " + highWatermark);
+    }
+    this.name = name;
+    this.producer = producer;
+    this.queue = new ArrayBlockingQueue<>(highWatermark);
+    this.lowWatermark = lowWatermark;
+    this.thread = new Thread(this::produce, name + "-producer");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Starts the producer thread.
+   */
+  public void start() {
+    thread.start();
+  }
+
+  /**
+   * Takes the next element, waiting for it to be produced if the queue is empty.
+   *
+   * @return the next element
+   * @throws IllegalStateException if the queue is empty and the producer has failed or is closed
+   */
+  public T take() {
+    T next = queue.poll();
+    if (next == null) {
+      long start = System.nanoTime();
+      while (next == null) {
+        if (failure != null) {
+          throw new IllegalStateException("Production of " + name + " failed", failure);
+        }
+        if (closed) {
+          throw new IllegalStateException("Production of " + name + " has been stopped");
+        }
+        next = ExceptionConverter.safe(() -> queue.poll(100, TimeUnit.MILLISECONDS),
+            "Interrupted while waiting for " + name);
+      }
+      synchronized (this) {
+        waitNanos += System.nanoTime() - start;
+      }
+    }
+    if (queue.size() <= lowWatermark) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Stops the producer. Elements already produced can still be taken.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    thread.interrupt();
+  }
+
+  @Override
+  public synchronized void reset() {
+    produced = 0;
+    productionNanos = 0;
+    waitNanos = 0;
+  }
+
+  @Override
+  public Map<String, Long> getLoggedValues() {
+    long produced;
+    long productionNanos;
+    long waitNanos;
+    synchronized (this) {
+      produced = this.produced;
+      productionNanos = this.productionNanos;
+      waitNanos = this.waitNanos;
+    }
+    Map<String, Long> values = new HashMap<>();
+    values.put(name + QUEUE_DEPTH, (long) queue.size());
+    values.put(name + PRODUCED, produced);
+    values.put(name + PRODUCTION_NANOS, productionNanos);
+    values.put(name + PRODUCED_PER_SECOND,
+        productionNanos == 0 ? 0 : produced * TimeUnit.SECONDS.toNanos(1) / productionNanos);
+    values.put(name + WAIT_NANOS, waitNanos);
+    return values;
+  }
+
+  private void produce() {
+    try {
+      while (!closed) {
+        awaitLowWatermark();
+        while (!closed && queue.remainingCapacity() > 0) {
+          long start = System.nanoTime();
+          T next = producer.get();
+          long nanos = System.nanoTime() - start;
+          synchronized (this) {
+            produced++;
+            productionNanos += nanos;
+          }
+          queue.put(next);
+        }
+      }
+    } catch (InterruptedException e) {
+      logger.debug("Producer of {} interrupted", name);
+    } catch (RuntimeException e) {
+      if (!closed) {
+        logger.error("Producer of " + name + " failed", e);
+        failure = e;
+      }
+    }
+  }
+
+  private synchronized void awaitLowWatermark() throws InterruptedException {
+    while (!closed && queue.size() > lowWatermark) {
+      wait();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package dk.alexandra.fresco.framework.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Correlation robust hash computing a SHA-256 digest per input. <p>The hash of the i'th input
+ * <i>x</i> is SHA-256(i || x), where i is encoded as four bytes. Outputs longer than a digest
+ * consist of several digests, where the k'th digest for k &gt; 0 also includes k encoded as four
+ * bytes after the input.</p>
+ */
+public class Sha256CorrelationRobustHash implements CorrelationRobustHash {
+
+  private final MessageDigest digest;
+
+  /**
+   * Creates a new hash.
+   */
+  public Sha256CorrelationRobustHash() {
+    this.digest = ExceptionConverter.safe(() -> MessageDigest.getInstance("SHA-256"),
+        "Configuration error, SHA-256 is needed for the correlation robust hash");
+  }
+
+  @Override
+  public synchronized byte[] hash(byte[] inputs, int inputLength, int outputLength) {
+    if (inputLength <= 0 || inputs.length % inputLength != 0 || outputLength < 0) {
+      throw new IllegalArgumentException("Invalid lengths: " + inputs.length + " bytes of input, "
+          + inputLength + " bytes per input, " + outputLength + " bytes per output");
+    }
+    int count = inputs.length / inputLength;
+    int digestLength = digest.getDigestLength();
+    byte[] outputs = new byte[count * outputLength];
+    ByteBuffer intBuffer = ByteBuffer.allocate(Integer.BYTES);
+    for (int i = 0; i < count; i++) {
+      for (int k = 0; k * digestLength < outputLength; k++) {
+        intBuffer.clear();
+        digest.update(intBuffer.putInt(i).array());
+        digest.update(inputs, i * inputLength, inputLength);
+        if (k > 0) {
+          intBuffer.clear();
+          digest.update(intBuffer.putInt(k).array());
+        }
+        byte[] hash = digest.digest();
+        int length = Math.min(digestLength, outputLength - k * digestLength);
+        System.arraycopy(hash, 0, outputs, i * outputLength + k * digestLength, length);
+      }
+    }
+    return outputs;
+  }
+}
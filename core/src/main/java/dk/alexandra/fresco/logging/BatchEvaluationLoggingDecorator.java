@@ -4,11 +4,13 @@ import dk.alexandra.fresco.framework.ProtocolCollection;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchEvaluationStrategy;
 import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 public class BatchEvaluationLoggingDecorator<ResourcePoolT extends ResourcePool>
-    implements BatchEvaluationStrategy<ResourcePoolT>, PerformanceLogger {
+    implements BatchEvaluationStrategy<ResourcePoolT>, PerformanceLogger, Closeable {
   
   public static final String BATCH_COUNTER = "AMOUNT_OF_BATCHES";
   public static final String BATCH_NATIVE_PROTOCOLS = "TOTAL_AMOUNT";
@@ -42,6 +44,18 @@ public class BatchEvaluationLoggingDecorator<ResourcePoolT extends ResourcePool>
     delegate.processBatch(protocols, resourcePool, network);
   }
 
+  @Override
+  public boolean isConcurrent() {
+    return delegate.isConcurrent();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (delegate instanceof Closeable) {
+      ((Closeable) delegate).close();
+    }
+  }
+
   @Override
   public void reset() {
     counter = 0;
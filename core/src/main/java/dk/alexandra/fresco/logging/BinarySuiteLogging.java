@@ -9,6 +9,8 @@ import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
 import dk.alexandra.fresco.logging.binary.BinaryComparisonLoggingDecorator;
 import dk.alexandra.fresco.logging.binary.BinaryLoggingDecorator;
 import dk.alexandra.fresco.suite.ProtocolSuiteBinary;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -17,7 +19,7 @@ import java.util.Map;
  * @param <ResourcePoolT> the resource pool of the original decorated suite.
  */
 public class BinarySuiteLogging<ResourcePoolT extends ResourcePool>
-    implements ProtocolSuiteBinary<ResourcePoolT>, PerformanceLogger {
+    implements ProtocolSuiteBinary<ResourcePoolT>, PerformanceLogger, Closeable {
 
   private final ProtocolSuiteBinary<ResourcePoolT> delegateSuite;
   private final PerformanceLoggerCountingAggregate aggregate;
@@ -63,6 +65,18 @@ public class BinarySuiteLogging<ResourcePoolT extends ResourcePool>
     return delegateSuite.createRoundSynchronization();
   }
 
+  @Override
+  public boolean supportsConcurrentEvaluation() {
+    return delegateSuite.supportsConcurrentEvaluation();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (delegateSuite instanceof Closeable) {
+      ((Closeable) delegateSuite).close();
+    }
+  }
+
   @Override
   public void reset() {
     aggregate.reset();
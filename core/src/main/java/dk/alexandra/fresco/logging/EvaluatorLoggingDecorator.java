@@ -5,6 +5,8 @@ import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.builder.ProtocolBuilder;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,7 +16,7 @@ public class EvaluatorLoggingDecorator<
     ResourcePoolT extends ResourcePool,
     Builder extends ProtocolBuilder
     >
-    implements ProtocolEvaluator<ResourcePoolT>, PerformanceLogger {
+    implements ProtocolEvaluator<ResourcePoolT>, PerformanceLogger, Closeable {
 
   public static final String SCE_RUNNINGTIMES = "Evaluation time for evaluator ";
 
@@ -49,4 +51,11 @@ public class EvaluatorLoggingDecorator<
     this.runtimeLogger.add(runningTime);
     return eval;
   }
+
+  @Override
+  public void close() throws IOException {
+    if (delegate instanceof Closeable) {
+      ((Closeable) delegate).close();
+    }
+  }
 }
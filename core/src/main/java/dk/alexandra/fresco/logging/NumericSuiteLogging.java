@@ -12,6 +12,8 @@ import dk.alexandra.fresco.lib.real.RealNumericContext;
 import dk.alexandra.fresco.logging.arithmetic.ComparisonLoggerDecorator;
 import dk.alexandra.fresco.logging.arithmetic.NumericLoggingDecorator;
 import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -20,7 +22,7 @@ import java.util.Map;
  * @param <ResourcePoolT> the resource pool of the original decorated suite.
  */
 public class NumericSuiteLogging<ResourcePoolT extends NumericResourcePool>
-    implements ProtocolSuiteNumeric<ResourcePoolT>, PerformanceLogger {
+    implements ProtocolSuiteNumeric<ResourcePoolT>, PerformanceLogger, Closeable {
 
   private final ProtocolSuiteNumeric<ResourcePoolT> delegateSuite;
   private final PerformanceLoggerCountingAggregate aggregate;
@@ -79,6 +81,18 @@ public class NumericSuiteLogging<ResourcePoolT extends NumericResourcePool>
     return delegateSuite.createRoundSynchronization();
   }
 
+  @Override
+  public boolean supportsConcurrentEvaluation() {
+    return delegateSuite.supportsConcurrentEvaluation();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (delegateSuite instanceof Closeable) {
+      ((Closeable) delegateSuite).close();
+    }
+  }
+
   @Override
   public void reset() {
     aggregate.reset();
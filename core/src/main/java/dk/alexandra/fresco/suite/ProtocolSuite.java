@@ -28,6 +28,19 @@ public interface ProtocolSuite<ResourcePoolT extends ResourcePool,
    */
   RoundSynchronization<ResourcePoolT> createRoundSynchronization();
 
+  /**
+   * Tells whether the native protocols of this suite may be evaluated concurrently, e.g., by the
+   * {@link dk.alexandra.fresco.framework.sce.evaluator.ParallelBatchedStrategy}. This requires
+   * that the protocols only read the resource pool and the suite, or that they draw and record any
+   * state which must be in the same order for all parties through
+   * {@link dk.alexandra.fresco.framework.OrderedNativeProtocol}.
+   *
+   * @return true if the native protocols may be evaluated concurrently, false by default
+   */
+  default boolean supportsConcurrentEvaluation() {
+    return false;
+  }
+
   interface RoundSynchronization<ResourcePoolT extends ResourcePool> {
 
     /**
@@ -60,4 +60,13 @@ public class DummyArithmeticProtocolSuite
       }
     };
   }
+
+  /**
+   * The native protocols of this suite only read the resource pool, so they may be evaluated
+   * concurrently.
+   */
+  @Override
+  public boolean supportsConcurrentEvaluation() {
+    return true;
+  }
 }
@@ -25,5 +25,13 @@ public class DummyBooleanProtocolSuite
     return new DummyBooleanBuilderFactory();
   }
 
+  /**
+   * The native protocols of this suite do not use the resource pool, so they may be evaluated
+   * concurrently.
+   */
+  @Override
+  public boolean supportsConcurrentEvaluation() {
+    return true;
+  }
 
 }
@@ -1,9 +1,11 @@
 package dk.alexandra.fresco.framework.network;
 
 import dk.alexandra.fresco.framework.sce.evaluator.NetworkBatchDecorator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -65,25 +67,45 @@ public class NetworkBatchDecoratorTest {
     Assert.assertArrayEquals(new byte[]{1, 123}, transmissions.get(3));
   }
 
-  @Test(expected = RuntimeException.class)
-  public void errorOnBigPackets() throws Exception {
-    networkBatchDecorator.sendToAll(
-        new byte[]{
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-            123, 123, 123, 123, 123, 123, 123, 123, 123, 123,
-        });
+  @Test
+  public void sendBigPackets() throws Exception {
+    byte[] big = new byte[300];
+    Arrays.fill(big, (byte) 123);
+    networkBatchDecorator.send(1, big);
+    networkBatchDecorator.send(1, new byte[]{42});
+    networkBatchDecorator.flush();
+    byte[] sent = transmissions.get(1);
+    Assert.assertEquals(2 + 300 + 1 + 1, sent.length);
+    Assert.assertEquals((byte) 0xAC, sent[0]);
+    Assert.assertEquals((byte) 0x02, sent[1]);
+    Assert.assertArrayEquals(big, networkBatchDecorator.receive(1));
+    Assert.assertArrayEquals(new byte[]{42}, networkBatchDecorator.receive(1));
+  }
+
+  @Test
+  public void sendVeryBigPackets() throws Exception {
+    byte[] big = new byte[1 << 20];
+    new Random(42).nextBytes(big);
+    networkBatchDecorator.send(2, big);
+    networkBatchDecorator.flush();
+    Assert.assertArrayEquals(big, networkBatchDecorator.receive(2));
+  }
+
+  @Test
+  public void reuseBuffersAfterFlush() throws Exception {
+    networkBatchDecorator.send(1, new byte[]{1, 2, 3});
+    networkBatchDecorator.flush();
+    Assert.assertArrayEquals(new byte[]{3, 1, 2, 3}, transmissions.get(1));
+    networkBatchDecorator.send(1, new byte[]{4});
+    networkBatchDecorator.flush();
+    Assert.assertArrayEquals(new byte[]{1, 4}, transmissions.get(1));
+    Assert.assertEquals(6, networkBatchDecorator.getBytesSent());
+  }
 
+  @Test(expected = IllegalStateException.class)
+  public void errorOnMalformedLength() throws Exception {
+    transmissions.put(1, new byte[]{-1, -1, -1, -1, -1, -1});
+    networkBatchDecorator.receive(1);
   }
 
   private class DummyNetwork implements Network {
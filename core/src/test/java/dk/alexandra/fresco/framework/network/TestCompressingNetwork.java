@@ -0,0 +1,160 @@
+package dk.alexandra.fresco.framework.network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.async.AsyncNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestCompressingNetwork {
+
+  private static byte[] sparse(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i += 32) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+
+  private static byte[] random(int length) {
+    byte[] data = new byte[length];
+    new Random(length).nextBytes(data);
+    return data;
+  }
+
+  private static void assertRoundTrip(CompressingNetwork network, byte[] data) {
+    network.send(1, data.clone());
+    assertArrayEquals(data, network.receive(1));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    CompressingNetwork network = new CompressingNetwork(new LoopbackNetwork(), 16, 1, 4, 4);
+    assertRoundTrip(network, new byte[0]);
+    assertRoundTrip(network, new byte[] {1, 2, 3});
+    assertRoundTrip(network, sparse(1 << 20));
+    assertRoundTrip(network, random(4096));
+    assertRoundTrip(network, new byte[16]);
+  }
+
+  @Test
+  public void testCompressesSparseMessages() {
+    CompressingNetwork network = new CompressingNetwork(new LoopbackNetwork(), 16, 1, 4, 4);
+    for (int i = 0; i < 10; i++) {
+      assertRoundTrip(network, sparse(10000));
+    }
+    Map<String, Long> values = network.getLoggedValues();
+    assertEquals(100000L, (long) values.get(CompressingNetwork.COMPRESSION_RAW_BYTES));
+    assertTrue(values.get(CompressingNetwork.COMPRESSION_SENT_BYTES) < 100000L / 4);
+    assertEquals(0L, (long) values.get(CompressingNetwork.COMPRESSION_BYPASSED));
+  }
+
+  @Test
+  public void testBypassWhenNotPayingOff() {
+    // Random data does not compress, so compression is bypassed after each window of 2 messages
+    CompressingNetwork network =
+        new CompressingNetwork(new LoopbackNetwork(), 16, Long.MAX_VALUE, 2, 3);
+    for (int i = 0; i < 10; i++) {
+      assertRoundTrip(network, random(1000));
+    }
+    Map<String, Long> values = network.getLoggedValues();
+    assertEquals(6L, (long) values.get(CompressingNetwork.COMPRESSION_BYPASSED));
+    // Messages which are not compressed are sent as they are
+    assertEquals(10000L, (long) values.get(CompressingNetwork.COMPRESSION_SENT_BYTES));
+    network.reset();
+    assertEquals(0L, (long) network.getLoggedValues().get(
+        CompressingNetwork.COMPRESSION_RAW_BYTES));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMalformedMessage() {
+    LoopbackNetwork loopback = new LoopbackNetwork();
+    CompressingNetwork network = new CompressingNetwork(loopback);
+    loopback.send(1, new byte[0]);
+    loopback.send(1, new byte[] {7, 1, 2});
+    network.receive(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTruncatedMessage() {
+    LoopbackNetwork loopback = new LoopbackNetwork();
+    CompressingNetwork network = new CompressingNetwork(loopback, 16, 1, 4, 4);
+    network.send(1, sparse(10000));
+    byte[] marker = loopback.receive(1);
+    byte[] frame = loopback.receive(1);
+    byte[] truncated = new byte[frame.length / 2];
+    System.arraycopy(frame, 0, truncated, 0, truncated.length);
+    loopback.send(1, marker);
+    loopback.send(1, truncated);
+    network.receive(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalWindow() {
+    new CompressingNetwork(new LoopbackNetwork(), 16, 1, 0, 4);
+  }
+
+  @Test
+  public void testEvaluation() {
+    int noOfParties = 2;
+    BigInteger modulus = BigInteger.valueOf(1000000007);
+    Map<Integer, NetworkConfiguration> netConf =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    Map<Integer, TestThreadConfiguration<DummyArithmeticResourcePool, ProtocolBuilderNumeric>>
+        conf = new HashMap<>();
+    for (int playerId : netConf.keySet()) {
+      DummyArithmeticProtocolSuite ps = new DummyArithmeticProtocolSuite(modulus, 30, 4);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(ps,
+              new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), ps));
+      NetworkConfiguration partyNetConf = netConf.get(playerId);
+      conf.put(playerId, new TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, noOfParties, modulus),
+          () -> new CompressingNetwork(new AsyncNetwork(partyNetConf), 64, 1, 4, 4)));
+    }
+    TestThreadRunner.run(new BasicArithmeticTests.TestLotsMult<>(), conf);
+  }
+
+  /**
+   * Network of a single party delivering messages to itself.
+   */
+  private static class LoopbackNetwork implements Network {
+
+    private final Deque<byte[]> queue = new ArrayDeque<>();
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      queue.add(data);
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      return queue.poll();
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,263 @@
+package dk.alexandra.fresco.framework.network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.async.AsyncNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestMultiplexedNetwork {
+
+  private List<MultiplexedNetwork> networks = new ArrayList<>();
+
+  @After
+  public void tearDown() throws IOException {
+    for (MultiplexedNetwork network : networks) {
+      network.close();
+    }
+  }
+
+  private void createNetworks(int noOfParties, int noOfChannels) throws Exception {
+    Map<Integer, NetworkConfiguration> confs =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    ExecutorService es = Executors.newFixedThreadPool(noOfParties);
+    List<Future<AsyncNetwork>> futures = new ArrayList<>(noOfParties);
+    for (int i = 1; i <= noOfParties; i++) {
+      NetworkConfiguration conf = confs.get(i);
+      futures.add(es.submit(() -> new AsyncNetwork(conf)));
+    }
+    for (Future<AsyncNetwork> future : futures) {
+      networks.add(new MultiplexedNetwork(future.get(), noOfChannels));
+    }
+    es.shutdown();
+  }
+
+  @Test(timeout = 60000)
+  public void testReceiveOutOfOrder() throws Exception {
+    createNetworks(2, 3);
+    networks.get(0).getChannel(2).send(2, new byte[] {2});
+    networks.get(0).getChannel(1).send(2, new byte[] {1});
+    networks.get(0).getChannel(0).send(2, new byte[] {0});
+    networks.get(0).getChannel(0).send(2, new byte[] {3});
+    assertArrayEquals(new byte[] {0}, networks.get(1).getChannel(0).receive(1));
+    assertArrayEquals(new byte[] {1}, networks.get(1).getChannel(1).receive(1));
+    assertArrayEquals(new byte[] {3}, networks.get(1).getChannel(0).receive(1));
+    assertArrayEquals(new byte[] {2}, networks.get(1).getChannel(2).receive(1));
+  }
+
+  @Test(timeout = 60000)
+  public void testSelfSend() throws Exception {
+    createNetworks(1, 2);
+    networks.get(0).getChannel(1).send(1, new byte[] {1});
+    networks.get(0).getChannel(0).send(1, new byte[] {});
+    assertArrayEquals(new byte[] {}, networks.get(0).getChannel(0).receive(1));
+    assertArrayEquals(new byte[] {1}, networks.get(0).getChannel(1).receive(1));
+  }
+
+  @Test(timeout = 60000)
+  public void testConcurrentChannels() throws Exception {
+    int noOfParties = 3;
+    int noOfChannels = 4;
+    int rounds = 500;
+    createNetworks(noOfParties, noOfChannels);
+    ExecutorService es = Executors.newFixedThreadPool(noOfParties * noOfChannels);
+    List<Future<?>> futures = new ArrayList<>();
+    for (MultiplexedNetwork network : networks) {
+      for (int c = 0; c < noOfChannels; c++) {
+        Network channel = network.getChannel(c);
+        int index = c;
+        futures.add(es.submit(() -> {
+          for (int r = 0; r < rounds; r++) {
+            channel.sendToAll(ByteBuffer.allocate(8).putInt(index).putInt(r).array());
+            for (byte[] received : channel.receiveFromAll()) {
+              ByteBuffer buffer = ByteBuffer.wrap(received);
+              assertEquals(index, buffer.getInt());
+              assertEquals(r, buffer.getInt());
+            }
+          }
+        }));
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    es.shutdown();
+  }
+
+  @Test(timeout = 60000)
+  public void testCloseChannels() throws Exception {
+    createNetworks(2, 2);
+    networks.get(1).getChannel(0).close();
+    networks.get(0).getChannel(1).send(2, new byte[] {1});
+    assertArrayEquals(new byte[] {1}, networks.get(1).getChannel(1).receive(1));
+    networks.get(1).getChannel(1).close();
+  }
+
+  /**
+   * Queues many messages on one channel and a single message on another while a different thread
+   * is sending, and checks that the sending thread does not send all messages of the busy channel
+   * before the message of the other channel.
+   */
+  @Test(timeout = 60000)
+  public void testFairDraining() throws Exception {
+    BlockingNetwork network = new BlockingNetwork();
+    MultiplexedNetwork multiplexed = new MultiplexedNetwork(network, 2);
+    ExecutorService es = Executors.newSingleThreadExecutor();
+    Future<?> first = es.submit(() -> multiplexed.getChannel(0).send(2, new byte[] {0}));
+    network.sending.await();
+    int busy = MultiplexedNetwork.MAX_RUN_LENGTH + 10;
+    for (int i = 0; i < busy; i++) {
+      multiplexed.getChannel(0).send(2, new byte[] {0});
+    }
+    multiplexed.getChannel(1).send(2, new byte[] {1});
+    network.release.countDown();
+    first.get();
+    es.shutdown();
+    List<byte[]> headers = new ArrayList<>();
+    for (int i = 0; i < network.sent.size(); i += 1 + (network.sent.get(i)[1] & 0xFF)) {
+      headers.add(network.sent.get(i));
+    }
+    assertEquals(4, headers.size());
+    assertArrayEquals(new byte[] {0, 1}, headers.get(0));
+    assertArrayEquals(new byte[] {1, 1}, headers.get(1));
+    assertArrayEquals(new byte[] {0, (byte) MultiplexedNetwork.MAX_RUN_LENGTH}, headers.get(2));
+    assertArrayEquals(new byte[] {0, 10}, headers.get(3));
+  }
+
+  @Test(expected = IllegalStateException.class, timeout = 60000)
+  public void testSendOnClosedChannel() throws Exception {
+    createNetworks(1, 2);
+    networks.get(0).getChannel(0).close();
+    networks.get(0).getChannel(0).send(1, new byte[] {1});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalChannel() throws Exception {
+    createNetworks(1, 2);
+    networks.get(0).getChannel(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManyChannels() throws Exception {
+    createNetworks(1, MultiplexedNetwork.MAX_CHANNELS + 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalPartyId() throws Exception {
+    createNetworks(1, 1);
+    networks.get(0).getChannel(0).receive(2);
+  }
+
+  /**
+   * Evaluates a computation on one channel while another channel is used concurrently by a
+   * different thread.
+   */
+  @Test(timeout = 60000)
+  public void testEvaluationWithConcurrentChannel() throws Exception {
+    int noOfParties = 2;
+    BigInteger modulus = BigInteger.valueOf(1000000007);
+    Map<Integer, NetworkConfiguration> netConf =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    Map<Integer, TestThreadConfiguration<DummyArithmeticResourcePool, ProtocolBuilderNumeric>>
+        conf = new HashMap<>();
+    ExecutorService es = Executors.newFixedThreadPool(noOfParties);
+    List<Future<List<Integer>>> background = new ArrayList<>();
+    for (int playerId : netConf.keySet()) {
+      DummyArithmeticProtocolSuite ps = new DummyArithmeticProtocolSuite(modulus, 30, 4);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(ps,
+              new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), ps));
+      NetworkConfiguration partyNetConf = netConf.get(playerId);
+      conf.put(playerId, new TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, noOfParties, modulus),
+          () -> {
+            MultiplexedNetwork network = new MultiplexedNetwork(new AsyncNetwork(partyNetConf), 2);
+            CloseableNetwork channel = network.getChannel(1);
+            synchronized (background) {
+              background.add(es.submit(() -> {
+                List<Integer> received = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                  channel.sendToAll(new byte[] {(byte) i});
+                  received.addAll(channel.receiveFromAll().stream().map(b -> (int) b[0])
+                      .collect(Collectors.toList()));
+                }
+                channel.close();
+                return received;
+              }));
+            }
+            return network.getChannel(0);
+          }));
+    }
+    TestThreadRunner.run(new BasicArithmeticTests.TestLotsMult<>(), conf);
+    for (Future<List<Integer>> future : background) {
+      List<Integer> received = future.get();
+      for (int i = 0; i < 1000; i++) {
+        assertEquals((byte) i, (int) received.get(noOfParties * i));
+      }
+    }
+    es.shutdown();
+  }
+
+  /**
+   * Records the messages sent, blocking the first send until released.
+   */
+  private static class BlockingNetwork implements CloseableNetwork {
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<byte[]> sent = new ArrayList<>();
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      sent.add(data);
+      if (sent.size() == 1) {
+        sending.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return 2;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
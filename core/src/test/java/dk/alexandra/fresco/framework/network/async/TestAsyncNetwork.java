@@ -23,6 +23,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import javax.net.ServerSocketFactory;
@@ -220,6 +221,41 @@ public class TestAsyncNetwork {
     sendMultipleToSingleReceiver(2, 10000);
   }
 
+  /**
+   * Sends messages of varying sizes, some larger than the receive buffer, from one party to
+   * another and checks that they are received in order.
+   *
+   * @param coalesce whether the networks should coalesce queued messages
+   */
+  private void sendMixedSizes(boolean coalesce) {
+    List<NetworkConfiguration> confs = getNetConfs(2);
+    networks = createNetworks(confs, c -> new AsyncNetwork(c, Duration.ofMinutes(1), coalesce));
+    int[] sizes = {0, 1, 3, 4, 5, 100, 65535, 65536, 65537, 200000, 7, 1 << 20, 2};
+    Random r = new Random(42);
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      for (int size : sizes) {
+        byte[] data = new byte[size];
+        r.nextBytes(data);
+        messages.add(data);
+        networks.get(1).send(2, data.clone());
+      }
+    }
+    for (byte[] message : messages) {
+      assertArrayEquals(message, networks.get(2).receive(1));
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendMixedSizesCoalesced() {
+    sendMixedSizes(true);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendMixedSizesNotCoalesced() {
+    sendMixedSizes(false);
+  }
+
   // TESTING FOR FAILURE
 
   @SuppressWarnings("unchecked")
@@ -405,12 +441,17 @@ public class TestAsyncNetwork {
   }
 
   private Map<Integer, CloseableNetwork> createNetworks(List<NetworkConfiguration> confs) {
+    return createNetworks(confs, AsyncNetwork::new);
+  }
+
+  private Map<Integer, CloseableNetwork> createNetworks(List<NetworkConfiguration> confs,
+      Function<NetworkConfiguration, AsyncNetwork> factory) {
     int numParties = confs.get(0).noOfParties();
     ForkJoinPool forkJoinPool = new ForkJoinPool(numParties);
     Map<Integer, CloseableNetwork> netMap = new HashMap<>(numParties);
     try {
       List<AsyncNetwork> netList = forkJoinPool.submit(
-          () -> confs.parallelStream().map(c -> new AsyncNetwork(c)).collect(Collectors.toList()))
+          () -> confs.parallelStream().map(factory).collect(Collectors.toList()))
           .get();
       IntStream.range(1, numParties + 1).forEach(i -> netMap.put(i, netList.get(i - 1)));
     } catch (InterruptedException | ExecutionException e) {
@@ -0,0 +1,314 @@
+package dk.alexandra.fresco.framework.network.async;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSelectorNetwork {
+
+  private static final int TWO_MINUTE_TIMEOUT_MILLIS = 120000;
+  private Map<Integer, CloseableNetwork> networks;
+
+  @Before
+  public void setup() {
+    networks = new HashMap<>();
+  }
+
+  @After
+  public void tearDown() {
+    closeNetworks(networks);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testConnectOneParty() {
+    networks = createNetworks(1);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testConnectMultipleParties() {
+    networks = createNetworks(7);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testClose() {
+    networks = createNetworks(3);
+    closeNetworks(networks);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSelfSendThreeParties() {
+    networks = createNetworks(3);
+    networks.keySet().stream().forEach(i -> networks.get(i).send(i, new byte[] {0x01}));
+    networks.keySet().stream().forEach(i -> networks.get(i).receive(i));
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendEmpty() {
+    circularSendSingleMessage(2, 0);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendByte() {
+    circularSendSingleMessage(3, 1);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendHugeAmount() {
+    circularSendSingleMessage(2, 104857600);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendManyParties() {
+    circularSendSingleMessage(10, 1024);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendAllToAll() {
+    int numParties = 5;
+    int numMessages = 2000;
+    networks = createNetworks(numParties);
+    ExecutorService es = Executors.newFixedThreadPool(numParties);
+    List<Future<?>> fs = new ArrayList<>(numParties);
+    for (int i = 1; i < numParties + 1; i++) {
+      final int id = i;
+      fs.add(es.submit(() -> {
+        for (int j = 0; j < numMessages; j++) {
+          networks.get(id).sendToAll(new byte[] {(byte) id, (byte) j});
+          List<byte[]> received = networks.get(id).receiveFromAll();
+          for (int k = 1; k < numParties + 1; k++) {
+            assertArrayEquals(new byte[] {(byte) k, (byte) j}, received.get(k - 1));
+          }
+        }
+      }));
+    }
+    awaitAll(fs);
+    es.shutdown();
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendMixedSizes() {
+    networks = createNetworks(2);
+    int[] sizes = {0, 1, 3, 4, 5, 100, 65531, 65532, 65533, 200000, 7, 1 << 20, 2};
+    Random r = new Random(42);
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      for (int size : sizes) {
+        byte[] data = new byte[size];
+        r.nextBytes(data);
+        messages.add(data);
+        networks.get(1).send(2, data.clone());
+      }
+    }
+    for (byte[] message : messages) {
+      assertArrayEquals(message, networks.get(2).receive(1));
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testQueuedMessagesSentOnClose() throws IOException {
+    networks = createNetworks(2);
+    for (int i = 0; i < 1000; i++) {
+      networks.get(1).send(2, new byte[1024]);
+    }
+    networks.get(1).close();
+    for (int i = 0; i < 1000; i++) {
+      assertArrayEquals(new byte[1024], networks.get(2).receive(1));
+    }
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS, expected = RuntimeException.class)
+  public void testSendAfterClose() {
+    networks = createNetworks(3);
+    closeNetworks(networks);
+    networks.get(1).send(2, new byte[] {});
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS, expected = RuntimeException.class)
+  public void testReceiveAfterClose() {
+    networks = createNetworks(3);
+    closeNetworks(networks);
+    networks.get(1).receive(2);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS, expected = RuntimeException.class)
+  public void testReceiveFromClosedParty() throws IOException {
+    networks = createNetworks(2);
+    networks.get(2).close();
+    networks.get(1).receive(2);
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendAndCloseAfterPartyClosed() throws IOException {
+    networks = createNetworks(2);
+    networks.get(2).close();
+    try {
+      networks.get(1).receive(2);
+      fail("Receive from closed party should fail");
+    } catch (RuntimeException e) {
+      // Expected, the end of the stream has now been seen
+    }
+    for (int i = 0; i < 10; i++) {
+      try {
+        networks.get(1).send(2, new byte[] {0x01});
+      } catch (RuntimeException e) {
+        // The connection may fail on write
+      }
+    }
+    networks.get(1).close();
+  }
+
+  @Test(expected = IllegalArgumentException.class, timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testSendToTooLargePartyId() {
+    networks = createNetworks(1);
+    networks.get(1).send(2, new byte[] {0x01});
+  }
+
+  @Test(expected = IllegalArgumentException.class, timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testReceiveFromNegativePartyId() {
+    networks = createNetworks(1);
+    networks.get(1).receive(-1);
+  }
+
+  @SuppressWarnings("resource")
+  @Test(expected = RuntimeException.class, timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testConnectTimeout() {
+    List<NetworkConfiguration> confs = getNetConfs(2);
+    new SelectorNetwork(confs.get(0), Duration.ofMillis(10));
+  }
+
+  @Test(timeout = TWO_MINUTE_TIMEOUT_MILLIS)
+  public void testEvaluation() {
+    int noOfParties = 3;
+    BigInteger modulus = BigInteger.valueOf(1000000007);
+    Map<Integer, NetworkConfiguration> netConf =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    Map<Integer, TestThreadConfiguration<DummyArithmeticResourcePool, ProtocolBuilderNumeric>>
+        conf = new HashMap<>();
+    for (int playerId : netConf.keySet()) {
+      DummyArithmeticProtocolSuite ps = new DummyArithmeticProtocolSuite(modulus, 30, 4);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(ps,
+              new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), ps));
+      NetworkConfiguration partyNetConf = netConf.get(playerId);
+      conf.put(playerId, new TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, noOfParties, modulus),
+          () -> new SelectorNetwork(partyNetConf)));
+    }
+    TestThreadRunner.run(new BasicArithmeticTests.TestLotsMult<>(), conf);
+  }
+
+  // HELPER METHODS
+
+  /**
+   * Each party sends a message of a given size to the next party, with the last party sending to
+   * the first party.
+   *
+   * @param numParties the number of parties
+   * @param messageSize the size of the message
+   */
+  private void circularSendSingleMessage(int numParties, int messageSize) {
+    networks = createNetworks(numParties);
+    ExecutorService es = Executors.newFixedThreadPool(numParties);
+    List<Future<?>> fs = new ArrayList<>(numParties);
+    for (int i = 1; i < numParties + 1; i++) {
+      final int id = i;
+      fs.add(es.submit(() -> {
+        byte[] data = new byte[messageSize];
+        byte[] expectedData = new byte[messageSize];
+        Arrays.fill(data, (byte) id);
+        Arrays.fill(expectedData, (byte) prevParty(id, numParties));
+        networks.get(id).send(nextParty(id, numParties), data);
+        byte[] receivedData = networks.get(id).receive(prevParty(id, numParties));
+        assertArrayEquals(expectedData, receivedData);
+      }));
+    }
+    awaitAll(fs);
+    es.shutdown();
+  }
+
+  private void awaitAll(List<Future<?>> fs) {
+    for (Future<?> future : fs) {
+      try {
+        future.get();
+      } catch (InterruptedException | ExecutionException e) {
+        e.printStackTrace();
+        fail("Test should not throw exception");
+      }
+    }
+  }
+
+  private Map<Integer, CloseableNetwork> createNetworks(int numParties) {
+    List<NetworkConfiguration> confs = getNetConfs(numParties);
+    ForkJoinPool forkJoinPool = new ForkJoinPool(numParties);
+    Map<Integer, CloseableNetwork> netMap = new HashMap<>(numParties);
+    try {
+      List<SelectorNetwork> netList = forkJoinPool.submit(
+          () -> confs.parallelStream().map(SelectorNetwork::new).collect(Collectors.toList()))
+          .get();
+      IntStream.range(1, numParties + 1).forEach(i -> netMap.put(i, netList.get(i - 1)));
+    } catch (InterruptedException | ExecutionException e) {
+      e.printStackTrace();
+      fail("Failed to setup networks.");
+    } finally {
+      forkJoinPool.shutdown();
+    }
+    return netMap;
+  }
+
+  private List<NetworkConfiguration> getNetConfs(int numParties) {
+    Map<Integer, NetworkConfiguration> confs =
+        TestConfiguration.getNetworkConfigurations(numParties);
+    return IntStream.range(1, numParties + 1).mapToObj(confs::get).collect(Collectors.toList());
+  }
+
+  private void closeNetworks(Map<Integer, CloseableNetwork> networks) {
+    networks.values().stream().forEach(t -> {
+      try {
+        t.close();
+      } catch (IOException e) {
+        fail("This should never happen");
+      }
+    });
+  }
+
+  private int nextParty(int myId, int numParties) {
+    return (myId == numParties) ? 1 : myId + 1;
+  }
+
+  private int prevParty(int myId, int numParties) {
+    return (myId == 1) ? numParties : myId - 1;
+  }
+}
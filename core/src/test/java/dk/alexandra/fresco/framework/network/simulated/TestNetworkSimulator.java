@@ -0,0 +1,144 @@
+package dk.alexandra.fresco.framework.network.simulated;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class TestNetworkSimulator {
+
+  private static long elapsedMillis(long start) {
+    return Duration.ofNanos(System.nanoTime() - start).toMillis();
+  }
+
+  @Test(timeout = 10000)
+  public void testSendReceive() {
+    NetworkSimulator simulator = new NetworkSimulator(3, LinkProfile.unlimited(), 0);
+    Network first = simulator.getNetwork(1);
+    Network third = simulator.getNetwork(3);
+    first.send(3, new byte[] {1});
+    first.send(3, new byte[] {2});
+    first.send(1, new byte[] {3});
+    assertArrayEquals(new byte[] {1}, third.receive(1));
+    assertArrayEquals(new byte[] {2}, third.receive(1));
+    assertArrayEquals(new byte[] {3}, first.receive(1));
+    assertEquals(3, first.getNoOfParties());
+  }
+
+  @Test(timeout = 10000)
+  public void testLatency() {
+    NetworkSimulator simulator =
+        new NetworkSimulator(2, new LinkProfile(Duration.ofMillis(100), 1L << 40), 0);
+    Network first = simulator.getNetwork(1);
+    Network second = simulator.getNetwork(2);
+    long start = System.nanoTime();
+    first.send(2, new byte[] {1});
+    second.receive(1);
+    second.send(1, new byte[] {2});
+    first.receive(2);
+    assertTrue(elapsedMillis(start) >= 200);
+  }
+
+  @Test(timeout = 10000)
+  public void testBandwidth() {
+    NetworkSimulator simulator =
+        new NetworkSimulator(2, new LinkProfile(Duration.ZERO, 1000 * 1000), 0);
+    Network first = simulator.getNetwork(1);
+    Network second = simulator.getNetwork(2);
+    long start = System.nanoTime();
+    // Two messages of 100kB at 1MB/s are delivered after 200ms
+    first.send(2, new byte[100 * 1000]);
+    first.send(2, new byte[100 * 1000]);
+    second.receive(1);
+    second.receive(1);
+    assertTrue(elapsedMillis(start) >= 200);
+  }
+
+  @Test(timeout = 10000)
+  public void testAsymmetricLinks() {
+    NetworkSimulator simulator = new NetworkSimulator(2, LinkProfile.unlimited(), 0);
+    simulator.setLink(1, 2,
+        new LinkProfile(Duration.ofMillis(200), LinkProfile.UNLIMITED_BANDWIDTH));
+    Network first = simulator.getNetwork(1);
+    Network second = simulator.getNetwork(2);
+    long start = System.nanoTime();
+    second.send(1, new byte[] {1});
+    first.receive(2);
+    assertTrue(elapsedMillis(start) < 200);
+    first.send(2, new byte[] {2});
+    second.receive(1);
+    assertTrue(elapsedMillis(start) >= 200);
+  }
+
+  @Test(timeout = 10000)
+  public void testJitterKeepsOrder() {
+    NetworkSimulator simulator = new NetworkSimulator(2,
+        new LinkProfile(Duration.ofMillis(1), LinkProfile.UNLIMITED_BANDWIDTH,
+            Duration.ofMillis(5)), 42);
+    Network first = simulator.getNetwork(1);
+    Network second = simulator.getNetwork(2);
+    for (int i = 0; i < 100; i++) {
+      first.send(2, new byte[] {(byte) i});
+    }
+    for (int i = 0; i < 100; i++) {
+      assertArrayEquals(new byte[] {(byte) i}, second.receive(1));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSendAfterClose() throws Exception {
+    NetworkSimulator simulator = new NetworkSimulator(2, LinkProfile.unlimited(), 0);
+    CloseableNetwork network = simulator.getNetwork(1);
+    network.close();
+    network.send(2, new byte[] {1});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalPartyId() {
+    new NetworkSimulator(2, LinkProfile.unlimited(), 0).getNetwork(3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalProfile() {
+    new LinkProfile(Duration.ofMillis(-1), 1);
+  }
+
+  @Test(timeout = 60000)
+  public void testEvaluation() {
+    int noOfParties = 3;
+    BigInteger modulus = BigInteger.valueOf(1000000007);
+    NetworkSimulator simulator = new NetworkSimulator(noOfParties,
+        new LinkProfile(Duration.ofMillis(1), 10 * 1000 * 1000, Duration.ofMillis(1)), 0);
+    Map<Integer, TestThreadConfiguration<DummyArithmeticResourcePool, ProtocolBuilderNumeric>>
+        conf = new HashMap<>();
+    for (int i = 1; i <= noOfParties; i++) {
+      int playerId = i;
+      DummyArithmeticProtocolSuite ps = new DummyArithmeticProtocolSuite(modulus, 30, 4);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(ps,
+              new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), ps));
+      conf.put(playerId, new TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, noOfParties, modulus),
+          () -> simulator.getNetwork(playerId)));
+    }
+    TestThreadRunner.run(new BasicArithmeticTests.TestLotsMult<>(), conf);
+  }
+}
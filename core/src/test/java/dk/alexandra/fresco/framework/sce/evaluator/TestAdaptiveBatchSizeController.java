@@ -0,0 +1,162 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import static org.junit.Assert.assertEquals;
+
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.async.AsyncNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class TestAdaptiveBatchSizeController {
+
+  private static final long FAST = Duration.ofMillis(1).toNanos();
+  private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+  private AdaptiveBatchSizeController createController() {
+    return new AdaptiveBatchSizeController(16, 256, 64, Duration.ofMillis(100), 1024, 2);
+  }
+
+  @Test
+  public void testGrowWhenFullAndFast() {
+    AdaptiveBatchSizeController controller = createController();
+    Network network = new ProposalNetwork(1);
+    controller.finishedBatch(64, FAST, 0, network);
+    assertEquals(64, controller.getBatchSize());
+    controller.finishedBatch(64, FAST, 0, network);
+    assertEquals(128, controller.getBatchSize());
+    controller.finishedBatch(128, FAST, 0, network);
+    controller.finishedBatch(128, FAST, 0, network);
+    assertEquals(256, controller.getBatchSize());
+    controller.finishedBatch(256, FAST, 0, network);
+    controller.finishedBatch(256, FAST, 0, network);
+    assertEquals(256, controller.getBatchSize());
+  }
+
+  @Test
+  public void testKeepWhenNotFull() {
+    AdaptiveBatchSizeController controller = createController();
+    Network network = new ProposalNetwork(1);
+    controller.finishedBatch(64, FAST, 0, network);
+    controller.finishedBatch(10, FAST, 0, network);
+    assertEquals(64, controller.getBatchSize());
+  }
+
+  @Test
+  public void testShrinkWhenSlow() {
+    AdaptiveBatchSizeController controller = createController();
+    Network network = new ProposalNetwork(1);
+    controller.finishedBatch(64, FAST, 0, network);
+    controller.finishedBatch(64, SLOW, 0, network);
+    assertEquals(32, controller.getBatchSize());
+    controller.finishedBatch(32, SLOW, 0, network);
+    controller.finishedBatch(32, SLOW, 0, network);
+    assertEquals(16, controller.getBatchSize());
+    controller.finishedBatch(16, SLOW, 0, network);
+    controller.finishedBatch(16, SLOW, 0, network);
+    assertEquals(16, controller.getBatchSize());
+  }
+
+  @Test
+  public void testShrinkWhenSendingTooMuch() {
+    AdaptiveBatchSizeController controller = createController();
+    Network network = new ProposalNetwork(1);
+    controller.finishedBatch(64, FAST, 2048, network);
+    controller.finishedBatch(64, FAST, 0, network);
+    assertEquals(32, controller.getBatchSize());
+  }
+
+  @Test
+  public void testAgreeOnSmallestProposal() {
+    AdaptiveBatchSizeController controller = createController();
+    ProposalNetwork network = new ProposalNetwork(3);
+    network.proposals.add(128);
+    network.proposals.add(32);
+    controller.finishedBatch(64, FAST, 0, network);
+    controller.finishedBatch(64, FAST, 0, network);
+    assertEquals(32, controller.getBatchSize());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalBatchSizes() {
+    new AdaptiveBatchSizeController(16, 32, 64, Duration.ofMillis(100), 1024, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalInterval() {
+    new AdaptiveBatchSizeController(16, 256, 64, Duration.ofMillis(100), 1024, 0);
+  }
+
+  @Test
+  public void testEvaluation() {
+    int noOfParties = 2;
+    BigInteger modulus = BigInteger.valueOf(1000000007);
+    Map<Integer, NetworkConfiguration> netConf =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    Map<Integer, TestThreadConfiguration<DummyArithmeticResourcePool, ProtocolBuilderNumeric>>
+        conf = new HashMap<>();
+    for (int playerId : netConf.keySet()) {
+      DummyArithmeticProtocolSuite ps = new DummyArithmeticProtocolSuite(modulus, 30, 4);
+      BatchedProtocolEvaluator<DummyArithmeticResourcePool> evaluator =
+          new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), ps,
+              new AdaptiveBatchSizeController(16, 1024, 16, Duration.ofMillis(100),
+                  1024 * 1024, 1));
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(ps, evaluator);
+      NetworkConfiguration partyNetConf = netConf.get(playerId);
+      conf.put(playerId, new TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, noOfParties, modulus),
+          () -> new AsyncNetwork(partyNetConf)));
+    }
+    TestThreadRunner.run(new BasicArithmeticTests.TestLotsMult<>(), conf);
+  }
+
+  /**
+   * Network for a single party, which receives its own proposals and the proposals of the other
+   * parties from a queue.
+   */
+  private static class ProposalNetwork implements Network {
+
+    private final int noOfParties;
+    private final Deque<Integer> proposals = new ArrayDeque<>();
+    private byte[] own;
+
+    private ProposalNetwork(int noOfParties) {
+      this.noOfParties = noOfParties;
+    }
+
+    @Override
+    public void send(int partyId, byte[] data) {
+      own = data;
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      if (partyId == 1) {
+        return own;
+      }
+      return ByteBuffer.allocate(Integer.BYTES).putInt(proposals.poll()).array();
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return noOfParties;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.ProtocolEvaluator.EvaluationStatistics;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TestBackgroundProtocolEvaluator {
+
+  @Test
+  public void testEvaluatesInOrderOnSingleNetwork() {
+    List<Integer> evaluated = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger networksCreated = new AtomicInteger();
+    ProtocolEvaluator<ResourcePool> evaluator = (producer, resourcePool, network) -> {
+      evaluated.add(resourcePool.getMyId());
+      return new EvaluationStatistics(0, 0);
+    };
+    BackgroundProtocolEvaluator<ResourcePool> background =
+        new BackgroundProtocolEvaluator<>(evaluator, () -> {
+          networksCreated.incrementAndGet();
+          return new Network() {
+            @Override
+            public void send(int partyId, byte[] data) {
+            }
+
+            @Override
+            public byte[] receive(int partyId) {
+              return null;
+            }
+
+            @Override
+            public int getNoOfParties() {
+              return 1;
+            }
+          };
+        });
+    Queue<Future<?>> pending = new ArrayDeque<>();
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      pending.add(background.eval(null, new ResourcePoolImpl(i, 10)));
+      expected.add(i);
+    }
+    BackgroundProtocolEvaluator.awaitAll(pending);
+    assertTrue(pending.isEmpty());
+    assertEquals(expected, evaluated);
+    assertEquals(1, networksCreated.get());
+  }
+
+  @Test(expected = MaliciousException.class)
+  public void testAwaitAllRethrows() {
+    ProtocolEvaluator<ResourcePool> evaluator = (producer, resourcePool, network) -> {
+      throw new MaliciousException("Check failed");
+    };
+    BackgroundProtocolEvaluator<ResourcePool> background =
+        new BackgroundProtocolEvaluator<>(evaluator, () -> null);
+    Queue<Future<?>> pending = new ArrayDeque<>();
+    pending.add(background.eval(null, new ResourcePoolImpl(1, 1)));
+    BackgroundProtocolEvaluator.awaitAll(pending);
+  }
+
+  @Test
+  public void testCloseWaitsAndClosesNetwork() throws IOException {
+    AtomicInteger evaluations = new AtomicInteger();
+    AtomicInteger networksClosed = new AtomicInteger();
+    ProtocolEvaluator<ResourcePool> evaluator = (producer, resourcePool, network) -> {
+      evaluations.incrementAndGet();
+      return new EvaluationStatistics(0, 0);
+    };
+    BackgroundProtocolEvaluator<ResourcePool> background =
+        new BackgroundProtocolEvaluator<>(evaluator, () -> new CloseableNetwork() {
+          @Override
+          public void send(int partyId, byte[] data) {
+          }
+
+          @Override
+          public byte[] receive(int partyId) {
+            return null;
+          }
+
+          @Override
+          public int getNoOfParties() {
+            return 1;
+          }
+
+          @Override
+          public void close() {
+            networksClosed.incrementAndGet();
+          }
+        });
+    for (int i = 0; i < 10; i++) {
+      background.eval(null, new ResourcePoolImpl(1, 1));
+    }
+    background.close();
+    assertEquals(10, evaluations.get());
+    assertEquals(1, networksClosed.get());
+    // Evaluating after closing uses a new network
+    Queue<Future<?>> pending = new ArrayDeque<>();
+    pending.add(background.eval(null, new ResourcePoolImpl(1, 1)));
+    BackgroundProtocolEvaluator.awaitAll(pending);
+    background.close();
+    background.close();
+    assertEquals(11, evaluations.get());
+    assertEquals(2, networksClosed.get());
+  }
+
+}
@@ -0,0 +1,119 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import dk.alexandra.fresco.framework.BuilderFactory;
+import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.builder.binary.ProtocolBuilderBinary;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
+import dk.alexandra.fresco.logging.BatchEvaluationLoggingDecorator;
+import dk.alexandra.fresco.suite.ProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.bool.DummyBooleanProtocolSuite;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TestParallelBatchedStrategy {
+
+  private final Network network = new Network() {
+    @Override
+    public void send(int partyId, byte[] data) {
+    }
+
+    @Override
+    public byte[] receive(int partyId) {
+      return null;
+    }
+
+    @Override
+    public int getNoOfParties() {
+      return 1;
+    }
+  };
+
+  private final ProtocolSuite<ResourcePoolImpl, ProtocolBuilderBinary> unsupportedSuite =
+      new ProtocolSuite<ResourcePoolImpl, ProtocolBuilderBinary>() {
+        @Override
+        public BuilderFactory<ProtocolBuilderBinary> init(ResourcePoolImpl resourcePool,
+            Network network) {
+          return null;
+        }
+
+        @Override
+        public RoundSynchronization<ResourcePoolImpl> createRoundSynchronization() {
+          return new DummyRoundSynchronization<>();
+        }
+      };
+
+  private void processBatch(BatchEvaluationStrategy<ResourcePoolImpl> strategy,
+      AtomicInteger evaluated) {
+    ProtocolCollectionList<ResourcePoolImpl> protocols = new ProtocolCollectionList<>(8);
+    for (int i = 0; i < 8; i++) {
+      protocols.addProtocol(new NativeProtocol<Void, ResourcePoolImpl>() {
+        @Override
+        public EvaluationStatus evaluate(int round, ResourcePoolImpl resourcePool,
+            Network network) {
+          evaluated.incrementAndGet();
+          return EvaluationStatus.IS_DONE;
+        }
+
+        @Override
+        public Void out() {
+          return null;
+        }
+      });
+    }
+    strategy.processBatch(protocols, new ResourcePoolImpl(1, 1),
+        new NetworkBatchDecorator(1, network));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsUnsupportedSuite() {
+    new BatchedProtocolEvaluator<>(new ParallelBatchedStrategy<>(), unsupportedSuite);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsUnsupportedSuiteWhenDecorated() {
+    new BatchedProtocolEvaluator<>(
+        new BatchEvaluationLoggingDecorator<>(new ParallelBatchedStrategy<>()), unsupportedSuite);
+  }
+
+  @Test
+  public void testAcceptsSequentialStrategyForUnsupportedSuite() {
+    new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), unsupportedSuite);
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void testCloseStopsOwnedThreads() throws IOException {
+    ParallelBatchedStrategy<ResourcePoolImpl> strategy = new ParallelBatchedStrategy<>();
+    BatchedProtocolEvaluator<ResourcePoolImpl> evaluator =
+        new BatchedProtocolEvaluator<>(strategy, new DummyBooleanProtocolSuite());
+    AtomicInteger evaluated = new AtomicInteger();
+    processBatch(strategy, evaluated);
+    assertEquals(8, evaluated.get());
+    evaluator.close();
+    processBatch(strategy, evaluated);
+  }
+
+  @Test
+  public void testCloseKeepsGivenExecutor() {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      ParallelBatchedStrategy<ResourcePoolImpl> strategy =
+          new ParallelBatchedStrategy<>(executor, 2);
+      AtomicInteger evaluated = new AtomicInteger();
+      processBatch(strategy, evaluated);
+      strategy.close();
+      assertFalse(executor.isShutdown());
+      processBatch(strategy, evaluated);
+      assertEquals(16, evaluated.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package dk.alexandra.fresco.framework.sce.evaluator;
+
+import dk.alexandra.fresco.framework.Application;
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThread;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadFactory;
+import dk.alexandra.fresco.framework.builder.numeric.Numeric;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.async.AsyncNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.lib.arithmetic.ParallelAndSequenceTests.TestSumAndProduct;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticProtocolSuite;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePool;
+import dk.alexandra.fresco.suite.dummy.arithmetic.DummyArithmeticResourcePoolImpl;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPipelinedProtocolEvaluator {
+
+  private static final BigInteger MODULUS = BigInteger.valueOf(1000000007);
+
+  private void runTest(
+      TestThreadFactory<DummyArithmeticResourcePool, ProtocolBuilderNumeric> f, int noOfParties,
+      int lanes, int minLaneSize) {
+    Map<Integer, NetworkConfiguration> netConf =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    Map<Integer, TestThreadConfiguration<DummyArithmeticResourcePool, ProtocolBuilderNumeric>>
+        conf = new HashMap<>();
+    for (int playerId : netConf.keySet()) {
+      DummyArithmeticProtocolSuite ps = new DummyArithmeticProtocolSuite(MODULUS, 30, 4);
+      PipelinedProtocolEvaluator<DummyArithmeticResourcePool> evaluator =
+          new PipelinedProtocolEvaluator<>(ps, 4096, lanes, minLaneSize);
+      SecureComputationEngine<DummyArithmeticResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(ps, evaluator);
+      NetworkConfiguration partyNetConf = netConf.get(playerId);
+      conf.put(playerId, new TestThreadConfiguration<>(sce,
+          () -> new DummyArithmeticResourcePoolImpl(playerId, noOfParties, MODULUS),
+          () -> new AsyncNetwork(partyNetConf)));
+    }
+    TestThreadRunner.run(f, conf);
+  }
+
+  @Test
+  public void testInputFromAll() {
+    runTest(new BasicArithmeticTests.TestInputFromAll<>(), 3, 4, 1);
+  }
+
+  @Test
+  public void testSumAndProduct() {
+    runTest(new TestSumAndProduct<>(), 2, 4, 2);
+  }
+
+  @Test
+  public void testManyInputsSingleLane() {
+    runTest(new TestManyInputs<>(), 3, 1, 64);
+  }
+
+  @Test
+  public void testManyInputsMultipleLanes() {
+    runTest(new TestManyInputs<>(), 3, 4, 64);
+  }
+
+  @Test
+  public void testManyInputsUnevenLanes() {
+    runTest(new TestManyInputs<>(), 2, 7, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalLanes() {
+    new PipelinedProtocolEvaluator<>(new DummyArithmeticProtocolSuite(MODULUS, 30, 4), 4096, 0, 1);
+  }
+
+  /**
+   * Closes a large number of values input by alternating parties, such that the batch is split
+   * over several lanes each sending messages to different parties.
+   */
+  private static class TestManyInputs<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    private static final int INPUTS = 3000;
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+        @Override
+        public void test() {
+          Application<List<BigInteger>, ProtocolBuilderNumeric> app = producer -> {
+            int noOfParties = producer.getBasicNumericContext().getNoOfParties();
+            return producer.par(par -> {
+              Numeric numeric = par.numeric();
+              List<DRes<SInt>> inputs = new ArrayList<>(INPUTS);
+              for (int i = 0; i < INPUTS; i++) {
+                inputs.add(numeric.input(BigInteger.valueOf(i), i % noOfParties + 1));
+              }
+              return () -> inputs;
+            }).par((par, inputs) -> {
+              Numeric numeric = par.numeric();
+              List<DRes<BigInteger>> opened =
+                  inputs.stream().map(numeric::open).collect(Collectors.toList());
+              return () -> opened.stream().map(DRes::out).collect(Collectors.toList());
+            });
+          };
+          List<BigInteger> output = runApplication(app);
+          Assert.assertEquals(INPUTS, output.size());
+          for (int i = 0; i < INPUTS; i++) {
+            Assert.assertEquals(BigInteger.valueOf(i), output.get(i));
+          }
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package dk.alexandra.fresco.framework.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestCorrelationRobustHash {
+
+  @Test
+  public void testAesDeterministic() {
+    testDeterministic(new AesCorrelationRobustHash(), new AesCorrelationRobustHash());
+  }
+
+  @Test
+  public void testSha256Deterministic() {
+    testDeterministic(new Sha256CorrelationRobustHash(), new Sha256CorrelationRobustHash());
+  }
+
+  @Test
+  public void testAesIndexTweak() {
+    testIndexTweak(new AesCorrelationRobustHash());
+  }
+
+  @Test
+  public void testSha256IndexTweak() {
+    testIndexTweak(new Sha256CorrelationRobustHash());
+  }
+
+  @Test
+  public void testAesBulkEqualsSingle() {
+    testBulkEqualsSingle(new AesCorrelationRobustHash(), 16, 32);
+    testBulkEqualsSingle(new AesCorrelationRobustHash(), 37, 5);
+  }
+
+  @Test
+  public void testSha256BulkEqualsSingle() {
+    testBulkEqualsSingle(new Sha256CorrelationRobustHash(), 16, 32);
+    testBulkEqualsSingle(new Sha256CorrelationRobustHash(), 37, 70);
+  }
+
+  @Test
+  public void testAesKey() {
+    byte[] key = new byte[16];
+    key[0] = 1;
+    byte[] input = new byte[16];
+    assertFalse(Arrays.equals(new AesCorrelationRobustHash().hash(input, 16, 16),
+        new AesCorrelationRobustHash(key).hash(input, 16, 16)));
+  }
+
+  @Test
+  public void testSha256MatchesDigest() throws NoSuchAlgorithmException {
+    byte[] inputs = randomBytes(3 * 16, 1);
+    byte[] outputs = new Sha256CorrelationRobustHash().hash(inputs, 16, 32);
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    for (int i = 0; i < 3; i++) {
+      ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 16);
+      buffer.putInt(i);
+      buffer.put(inputs, i * 16, 16);
+      assertArrayEquals(digest.digest(buffer.array()),
+          Arrays.copyOfRange(outputs, i * 32, (i + 1) * 32));
+    }
+  }
+
+  @Test
+  public void testEmptyInput() {
+    assertEquals(0, new AesCorrelationRobustHash().hash(new byte[0], 16, 32).length);
+    assertEquals(0, new Sha256CorrelationRobustHash().hash(new byte[0], 16, 32).length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAesInvalidKey() {
+    new AesCorrelationRobustHash(new byte[15]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAesInvalidInputLength() {
+    new AesCorrelationRobustHash().hash(new byte[20], 16, 16);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSha256InvalidInputLength() {
+    new Sha256CorrelationRobustHash().hash(new byte[16], 0, 16);
+  }
+
+  private static void testDeterministic(CorrelationRobustHash hash,
+      CorrelationRobustHash otherHash) {
+    byte[] inputs = randomBytes(100 * 16, 42);
+    byte[] outputs = hash.hash(inputs, 16, 32);
+    assertEquals(100 * 32, outputs.length);
+    assertArrayEquals(outputs, otherHash.hash(inputs, 16, 32));
+    assertArrayEquals(outputs, hash.hash(inputs, 16, 32));
+  }
+
+  private static void testIndexTweak(CorrelationRobustHash hash) {
+    byte[] inputs = new byte[2 * 16];
+    Arrays.fill(inputs, (byte) 7);
+    byte[] outputs = hash.hash(inputs, 16, 16);
+    assertFalse(Arrays.equals(Arrays.copyOfRange(outputs, 0, 16),
+        Arrays.copyOfRange(outputs, 16, 32)));
+  }
+
+  private static void testBulkEqualsSingle(CorrelationRobustHash hash, int inputLength,
+      int outputLength) {
+    byte[] inputs = randomBytes(10 * inputLength, 7);
+    byte[] outputs = hash.hash(inputs, inputLength, outputLength);
+    assertEquals(10 * outputLength, outputs.length);
+    // the first input of a bulk is tweaked by zero, just as a single input
+    byte[] single = hash.hash(Arrays.copyOf(inputs, inputLength), inputLength, outputLength);
+    assertArrayEquals(single, Arrays.copyOf(outputs, outputLength));
+    // a shorter output is a prefix of a longer output
+    byte[] shorter = hash.hash(inputs, inputLength, 3);
+    for (int i = 0; i < 10; i++) {
+      assertArrayEquals(Arrays.copyOfRange(outputs, i * outputLength, i * outputLength + 3),
+          Arrays.copyOfRange(shorter, i * 3, (i + 1) * 3));
+    }
+  }
+
+  private static byte[] randomBytes(int length, long seed) {
+    byte[] bytes = new byte[length];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+}
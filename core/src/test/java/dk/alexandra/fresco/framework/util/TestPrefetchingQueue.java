@@ -0,0 +1,60 @@
+package dk.alexandra.fresco.framework.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TestPrefetchingQueue {
+
+  private static long logged(PrefetchingQueue<?> queue, String key) {
+    return queue.getLoggedValues().get("TEST" + key);
+  }
+
+  @Test(timeout = 10000)
+  public void testWatermarks() throws Exception {
+    AtomicInteger produced = new AtomicInteger();
+    PrefetchingQueue<Integer> queue =
+        new PrefetchingQueue<>("TEST", produced::getAndIncrement, 2, 10);
+    queue.start();
+    while (logged(queue, PrefetchingQueue.QUEUE_DEPTH) < 10) {
+      Thread.sleep(10);
+    }
+    for (int i = 0; i < 7; i++) {
+      assertEquals(i, (int) queue.take());
+    }
+    Thread.sleep(100);
+    // Still above the low watermark, so nothing more is produced
+    assertEquals(10, produced.get());
+    queue.take();
+    while (logged(queue, PrefetchingQueue.QUEUE_DEPTH) < 10) {
+      Thread.sleep(10);
+    }
+    assertEquals(18, logged(queue, PrefetchingQueue.PRODUCED));
+    queue.reset();
+    assertEquals(0, logged(queue, PrefetchingQueue.PRODUCED));
+    queue.close();
+    assertEquals(8, (int) queue.take());
+  }
+
+  @Test(timeout = 10000, expected = IllegalStateException.class)
+  public void testProducerFailure() {
+    PrefetchingQueue<Integer> queue = new PrefetchingQueue<>("TEST", () -> {
+      throw new RuntimeException("Failed");
+    }, 1, 2);
+    queue.start();
+    queue.take();
+  }
+
+  @Test(timeout = 10000, expected = IllegalStateException.class)
+  public void testClosed() {
+    PrefetchingQueue<Integer> queue = new PrefetchingQueue<>("TEST", () -> 1, 1, 2);
+    queue.close();
+    queue.take();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalWatermarks() {
+    new PrefetchingQueue<>("TEST", () -> 1, 4, 4);
+  }
+}
@@ -620,6 +620,43 @@ public class BasicArithmeticTests {
     }
   }
 
+  /**
+   * Multiplies two lists element-wise and opens the products using the vectorized numeric builder.
+   */
+  public static class TestVectorizedMultAndOpen<ResourcePoolT extends ResourcePool>
+      extends TestThreadFactory<ResourcePoolT, ProtocolBuilderNumeric> {
+
+    @Override
+    public TestThread<ResourcePoolT, ProtocolBuilderNumeric> next() {
+      final int size = 100;
+      return new TestThread<ResourcePoolT, ProtocolBuilderNumeric>() {
+
+        @Override
+        public void test() {
+          Application<List<BigInteger>, ProtocolBuilderNumeric> app =
+              producer -> producer.par(par -> {
+                Numeric numeric = par.numeric();
+                List<DRes<SInt>> left = new ArrayList<>(size);
+                List<DRes<SInt>> right = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                  left.add(numeric.known(BigInteger.valueOf(i)));
+                  right.add(numeric.known(BigInteger.valueOf(3 * i + 1)));
+                }
+                return Pair.lazy(left, right);
+              }).seq((seq, pair) ->
+                  seq.vectorizedNumeric().mult(pair.getFirst(), pair.getSecond())
+              ).seq((seq, products) -> seq.vectorizedNumeric().open(products));
+          List<BigInteger> output = runApplication(app);
+
+          Assert.assertThat(output.size(), Is.is(size));
+          for (int i = 0; i < size; i++) {
+            Assert.assertEquals(BigInteger.valueOf(i * (3 * i + 1)), output.get(i));
+          }
+        }
+      };
+    }
+  }
+
   /**
    * Test a computation of doing a many multiplications and additions alternating between the two.
    * This should ensure batches with both types of protocols.
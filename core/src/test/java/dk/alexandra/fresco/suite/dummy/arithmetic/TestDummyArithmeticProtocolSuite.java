@@ -5,6 +5,7 @@ import static org.junit.Assert.assertThat;
 
 import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.builder.numeric.ExponentiationPipeTests;
+import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
 import dk.alexandra.fresco.framework.util.ModulusFinder;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.arithmetic.AdvancedNumericTests;
@@ -65,6 +66,27 @@ public class TestDummyArithmeticProtocolSuite extends AbstractDummyArithmeticTes
     runTest(new BasicArithmeticTests.TestInputFromAll<>(), new TestParameters().numParties(2));
   }
 
+  @Test
+  public void testInputFromAllParallelBatched() throws Exception {
+    runTest(new BasicArithmeticTests.TestInputFromAll<>(), new TestParameters()
+        .numParties(3)
+        .evaluationStrategy(EvaluationStrategy.PARALLEL_BATCHED));
+  }
+
+  @Test
+  public void testLotsMultParallelBatched() throws Exception {
+    runTest(new BasicArithmeticTests.TestLotsMult<>(), new TestParameters()
+        .numParties(2)
+        .evaluationStrategy(EvaluationStrategy.PARALLEL_BATCHED));
+  }
+
+  @Test
+  public void testCloseAndOpenListParallelBatched() throws Exception {
+    runTest(new CloseListTests.TestCloseAndOpenList<>(), new TestParameters()
+        .numParties(3)
+        .evaluationStrategy(EvaluationStrategy.PARALLEL_BATCHED));
+  }
+
   @Test
   public void test_OutputToTarget_Sequential() throws Exception {
     runTest(new BasicArithmeticTests.TestOutputToSingleParty<>(), new TestParameters()
@@ -89,6 +111,11 @@ public class TestDummyArithmeticProtocolSuite extends AbstractDummyArithmeticTes
     runTest(new BasicArithmeticTests.TestSimpleMultAndAdd<>(), new TestParameters());
   }
 
+  @Test
+  public void testVectorizedMultAndOpen() throws Exception {
+    runTest(new BasicArithmeticTests.TestVectorizedMultAndOpen<>(), new TestParameters());
+  }
+
   @Test
   public void testSumAndOutputSequential() throws Exception {
     runTest(new BasicArithmeticTests.TestSumAndMult<>(), new TestParameters());
@@ -2,9 +2,11 @@ package dk.alexandra.fresco.suite.spdz;
 
 import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.Collections;
 import dk.alexandra.fresco.framework.builder.numeric.Numeric;
 import dk.alexandra.fresco.framework.builder.numeric.PreprocessedValues;
 import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.VectorizedNumeric;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.lib.compare.MiscBigIntegerGenerators;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
@@ -13,15 +15,18 @@ import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzAddProtocolKnownLeft;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzInputProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzKnownSIntProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzMultListProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzMultProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzMultProtocolKnownLeft;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputSingleProtocol;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputToAllListProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputToAllProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzRandomProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocolKnownLeft;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocolKnownRight;
 import java.math.BigInteger;
+import java.util.List;
 
 /**
  * Basic native builder for the SPDZ protocol suite.
@@ -56,6 +61,11 @@ class SpdzBuilder implements BuilderFactoryNumeric {
     };
   }
 
+  @Override
+  public Collections createCollections(ProtocolBuilderNumeric protocolBuilder) {
+    return new SpdzCollections(this, protocolBuilder);
+  }
+
   @Override
   public Numeric createNumeric(ProtocolBuilderNumeric protocolBuilder) {
     return new Numeric() {
@@ -142,6 +152,21 @@ class SpdzBuilder implements BuilderFactoryNumeric {
     };
   }
 
+  @Override
+  public VectorizedNumeric createVectorizedNumeric(ProtocolBuilderNumeric protocolBuilder) {
+    return new VectorizedNumeric() {
+      @Override
+      public DRes<List<DRes<SInt>>> mult(List<DRes<SInt>> left, List<DRes<SInt>> right) {
+        return protocolBuilder.append(new SpdzMultListProtocol(left, right));
+      }
+
+      @Override
+      public DRes<List<BigInteger>> open(List<DRes<SInt>> secretShares) {
+        return protocolBuilder.append(new SpdzOutputToAllListProtocol(secretShares));
+      }
+    };
+  }
+
   @Override
   public MiscBigIntegerGenerators getBigIntegerHelper() {
     if (miscOIntGenerators == null) {
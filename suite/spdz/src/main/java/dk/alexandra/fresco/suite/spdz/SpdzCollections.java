@@ -0,0 +1,58 @@
+package dk.alexandra.fresco.suite.spdz;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
+import dk.alexandra.fresco.framework.builder.numeric.DefaultCollections;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.lib.collections.Matrix;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzInputListProtocol;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collections for the SPDZ protocol suite, which close lists and matrices using a single
+ * {@link SpdzInputListProtocol}, so only a single broadcast digest is sent per list or matrix.
+ */
+class SpdzCollections extends DefaultCollections {
+
+  private final ProtocolBuilderNumeric builder;
+
+  SpdzCollections(BuilderFactoryNumeric factoryNumeric, ProtocolBuilderNumeric builder) {
+    super(factoryNumeric, builder);
+    this.builder = builder;
+  }
+
+  @Override
+  public DRes<List<DRes<SInt>>> closeList(List<BigInteger> openList, int inputParty) {
+    return builder.append(new SpdzInputListProtocol(openList, inputParty));
+  }
+
+  @Override
+  public DRes<List<DRes<SInt>>> closeList(int numberOfInputs, int inputParty) {
+    return builder.append(new SpdzInputListProtocol(numberOfInputs, inputParty));
+  }
+
+  @Override
+  public DRes<Matrix<DRes<SInt>>> closeMatrix(Matrix<BigInteger> openMatrix, int inputParty) {
+    List<BigInteger> flattened = new ArrayList<>(openMatrix.getHeight() * openMatrix.getWidth());
+    for (List<BigInteger> row : openMatrix.getRows()) {
+      flattened.addAll(row);
+    }
+    DRes<List<DRes<SInt>>> closed = closeList(flattened, inputParty);
+    return () -> toMatrix(closed.out(), openMatrix.getHeight(), openMatrix.getWidth());
+  }
+
+  @Override
+  public DRes<Matrix<DRes<SInt>>> closeMatrix(int h, int w, int inputParty) {
+    DRes<List<DRes<SInt>>> closed = closeList(h * w, inputParty);
+    return () -> toMatrix(closed.out(), h, w);
+  }
+
+  private static Matrix<DRes<SInt>> toMatrix(List<DRes<SInt>> values, int height, int width) {
+    return new Matrix<>(height, width,
+        i -> new ArrayList<>(values.subList(i * width, (i + 1) * width)));
+  }
+
+}
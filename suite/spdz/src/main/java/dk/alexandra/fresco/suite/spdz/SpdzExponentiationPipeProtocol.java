@@ -4,6 +4,7 @@ import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzNativeProtocol;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -11,14 +12,20 @@ public class SpdzExponentiationPipeProtocol extends SpdzNativeProtocol<List<DRes
 
   private List<DRes<SInt>> result;
   private int pipeLength;
+  private SInt[] pipe;
 
   public SpdzExponentiationPipeProtocol(int pipeLength) {
     this.pipeLength = pipeLength;
   }
 
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    this.pipe = supplier.getNextExpPipe();
+  }
+
   @Override
   public EvaluationStatus evaluate(int round, SpdzResourcePool resourcePool, Network network) {
-    SInt[] pipe = resourcePool.getStore().getSupplier().getNextExpPipe();
+    drawMaterial(round, resourcePool);
     if (pipe.length < pipeLength + 1) {
       throw new IllegalStateException(
           "Preprocessed exponentiation pipe is not long enough."
@@ -2,18 +2,44 @@ package dk.alexandra.fresco.suite.spdz;
 
 import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BackgroundProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
 import dk.alexandra.fresco.lib.real.RealNumericContext;
 import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Supplier;
 
-public class SpdzProtocolSuite implements ProtocolSuiteNumeric<SpdzResourcePool> {
+public class SpdzProtocolSuite implements ProtocolSuiteNumeric<SpdzResourcePool>, Closeable {
 
   private final int maxBitLength;
   private final int fixedPointPrecision;
+  private final BackgroundProtocolEvaluator<SpdzResourcePool> backgroundEvaluator;
 
   public SpdzProtocolSuite(int maxBitLength, int fixedPointPrecision) {
     this.maxBitLength = maxBitLength;
     this.fixedPointPrecision = fixedPointPrecision;
+    this.backgroundEvaluator = null;
+  }
+
+  /**
+   * Creates a protocol suite which runs the periodic MAC checks in the background on a separate
+   * network, while evaluation continues. Only output protocols wait for these checks to pass.
+   *
+   * @param maxBitLength the maximum bit length of numbers
+   * @param fixedPointPrecision the precision used for fixed point numbers
+   * @param macCheckNetworkSupplier supplier for the network to run the background MAC checks on.
+   *     This must connect the same parties as the main network, but be separate from it.
+   */
+  public SpdzProtocolSuite(int maxBitLength, int fixedPointPrecision,
+      Supplier<Network> macCheckNetworkSupplier) {
+    this.maxBitLength = maxBitLength;
+    this.fixedPointPrecision = fixedPointPrecision;
+    this.backgroundEvaluator = new BackgroundProtocolEvaluator<>(
+        new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), this, 128),
+        macCheckNetworkSupplier);
   }
 
   public SpdzProtocolSuite(int maxBitLength) {
@@ -36,9 +62,33 @@ public class SpdzProtocolSuite implements ProtocolSuiteNumeric<SpdzResourcePool>
     return new RealNumericContext(fixedPointPrecision);
   }
 
+  BackgroundProtocolEvaluator<SpdzResourcePool> getBackgroundEvaluator() {
+    return backgroundEvaluator;
+  }
+
   @Override
   public RoundSynchronization<SpdzResourcePool> createRoundSynchronization() {
     return new SpdzRoundSynchronization(this);
   }
 
+  /**
+   * The native protocols of this suite draw preprocessed material and record opened values in
+   * protocol order, see {@link dk.alexandra.fresco.suite.spdz.gates.SpdzNativeProtocol}, so they
+   * may be evaluated concurrently.
+   */
+  @Override
+  public boolean supportsConcurrentEvaluation() {
+    return true;
+  }
+
+  /**
+   * Stops the background MAC checks, if any, and closes their network.
+   */
+  @Override
+  public void close() throws IOException {
+    if (backgroundEvaluator != null) {
+      backgroundEvaluator.close();
+    }
+  }
+
 }
@@ -3,14 +3,20 @@ package dk.alexandra.fresco.suite.spdz;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzNativeProtocol;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
 
 public class SpdzRandomBitProtocol extends SpdzNativeProtocol<SInt> {
 
   private SInt out;
 
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    this.out = supplier.getNextBit();
+  }
+
   @Override
   public EvaluationStatus evaluate(int round, SpdzResourcePool resourcePool, Network network) {
-    this.out = resourcePool.getStore().getSupplier().getNextBit();
+    drawMaterial(round, resourcePool);
     return EvaluationStatus.IS_DONE;
   }
 
@@ -3,6 +3,7 @@ package dk.alexandra.fresco.suite.spdz;
 import dk.alexandra.fresco.framework.ProtocolCollection;
 import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BackgroundProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchEvaluationStrategy;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
@@ -11,21 +12,41 @@ import dk.alexandra.fresco.suite.spdz.gates.SpdzMacCheckProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzOutputProtocol;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Future;
 
 /**
  * A default implementation of the round synchronization for spdz - mostly doing the MAC check if
  * needed.
+ * <p>
+ * If the protocol suite has a background evaluator, the periodic MAC checks are run in the
+ * background on the values opened so far, and only output protocols wait for them to pass.
+ * </p>
  */
 public class SpdzRoundSynchronization implements RoundSynchronization<SpdzResourcePool> {
 
-  private static final int macCheckThreshold = 100000;
+  private final int macCheckThreshold;
   private final SpdzProtocolSuite spdzProtocolSuite;
   private final SecureRandom secRand;
   private int gatesEvaluated = 0;
   private boolean doMacCheck = false;
+  private final Queue<Future<?>> backgroundMacChecks = new ArrayDeque<>();
 
   public SpdzRoundSynchronization(SpdzProtocolSuite spdzProtocolSuite) {
+    this(spdzProtocolSuite, 100000);
+  }
+
+  /**
+   * Creates a round synchronization which MAC checks the opened values whenever more than a given
+   * number of gates have been evaluated since the last check.
+   *
+   * @param spdzProtocolSuite the protocol suite
+   * @param macCheckThreshold the number of gates to evaluate between MAC checks
+   */
+  public SpdzRoundSynchronization(SpdzProtocolSuite spdzProtocolSuite, int macCheckThreshold) {
     this.spdzProtocolSuite = spdzProtocolSuite;
+    this.macCheckThreshold = macCheckThreshold;
     this.secRand = new SecureRandom();
   }
 
@@ -50,18 +71,57 @@ public class SpdzRoundSynchronization implements RoundSynchronization<SpdzResour
     }
   }
 
+  /**
+   * Starts a MAC check of the values opened so far in the background, or does it right away if the
+   * protocol suite has no background evaluator.
+   */
+  private void startMacCheck(SpdzResourcePool resourcePool, Network network) {
+    BackgroundProtocolEvaluator<SpdzResourcePool> backgroundEvaluator =
+        spdzProtocolSuite.getBackgroundEvaluator();
+    if (backgroundEvaluator == null) {
+      doMacCheck(resourcePool, network);
+      return;
+    }
+    SpdzStorage snapshot = resourcePool.getStore().takeSnapshot();
+    if (!snapshot.getOpenedValues().isEmpty()) {
+      // the check gets its own resource pool, so it does not share the message digest
+      SpdzResourcePool checkResourcePool = new SpdzResourcePoolImpl(resourcePool.getMyId(),
+          resourcePool.getNoOfParties(), snapshot);
+      SpdzBuilder spdzBuilder =
+          new SpdzBuilder(spdzProtocolSuite.createNumericContext(checkResourcePool),
+              spdzProtocolSuite.createRealNumericContext());
+      SpdzMacCheckProtocol macCheck = new SpdzMacCheckProtocol(secRand,
+          checkResourcePool.getMessageDigest(), snapshot, checkResourcePool.getModulus());
+      ProtocolBuilderNumeric sequential = spdzBuilder.createSequential();
+      macCheck.buildComputation(sequential);
+      backgroundMacChecks.add(backgroundEvaluator.eval(sequential.build(), checkResourcePool));
+    }
+  }
+
+  /**
+   * Waits for all MAC checks started in the background to pass, and then checks the remaining
+   * values.
+   */
+  private void finishMacChecks(SpdzResourcePool resourcePool, Network network) {
+    BackgroundProtocolEvaluator.awaitAll(backgroundMacChecks);
+    doMacCheck(resourcePool, network);
+  }
+
   @Override
   public void finishedEval(SpdzResourcePool resourcePool, Network network) {
-    doMacCheck(resourcePool, network);
+    finishMacChecks(resourcePool, network);
   }
 
   @Override
   public void finishedBatch(int gatesEvaluated, SpdzResourcePool resourcePool, Network network) {
     this.gatesEvaluated += gatesEvaluated;
-    if (this.gatesEvaluated > macCheckThreshold || doMacCheck) {
-      doMacCheck(resourcePool, network);
+    if (doMacCheck) {
+      finishMacChecks(resourcePool, network);
       doMacCheck = false;
       this.gatesEvaluated = 0;
+    } else if (this.gatesEvaluated > macCheckThreshold) {
+      startMacCheck(resourcePool, network);
+      this.gatesEvaluated = 0;
     }
   }
 
@@ -77,7 +137,7 @@ public class SpdzRoundSynchronization implements RoundSynchronization<SpdzResour
       }
     });
     if (doMacCheck) {
-      doMacCheck(resourcePool, network);
+      finishMacChecks(resourcePool, network);
     }
   }
 }
@@ -61,6 +61,10 @@ public class SpdzElement implements Serializable {
     return mac;
   }
 
+  public BigInteger getModulus() {
+    return mod;
+  }
+
   /**
    * Adds two SpdzElement.
    * @param e The element to add
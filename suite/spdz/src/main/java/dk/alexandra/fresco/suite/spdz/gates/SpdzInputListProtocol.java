@@ -0,0 +1,125 @@
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inputs a list of values from a single party, like {@link SpdzInputProtocol} does for a single
+ * value.
+ * <p>
+ * The inputter sends all masked values in a single message, and the parties validate the
+ * broadcast of all of them with a single digest, rather than one digest per value.
+ * </p>
+ */
+public class SpdzInputListProtocol extends SpdzNativeProtocol<List<DRes<SInt>>> {
+
+  private final List<BigInteger> inputs;
+  private final int numberOfInputs;
+  private final int inputter;
+  private List<SpdzInputMask> inputMasks;
+  private List<BigInteger> valuesMasked;
+  private byte[] digest;
+  private List<DRes<SInt>> out;
+
+  /**
+   * Creates a new protocol for the inputter.
+   *
+   * @param inputs the values to input
+   * @param inputter the id of the inputter, i.e. this party
+   */
+  public SpdzInputListProtocol(List<BigInteger> inputs, int inputter) {
+    this.inputs = inputs;
+    this.numberOfInputs = inputs.size();
+    this.inputter = inputter;
+  }
+
+  /**
+   * Creates a new protocol for the parties receiving the input.
+   *
+   * @param numberOfInputs the number of values the inputter inputs
+   * @param inputter the id of the inputter
+   */
+  public SpdzInputListProtocol(int numberOfInputs, int inputter) {
+    this.inputs = null;
+    this.numberOfInputs = numberOfInputs;
+    this.inputter = inputter;
+  }
+
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    if (round == 0 && numberOfInputs > 0) {
+      inputMasks = new ArrayList<>(numberOfInputs);
+      for (int i = 0; i < numberOfInputs; i++) {
+        inputMasks.add(supplier.getNextInputMask(inputter));
+      }
+    }
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
+      Network network) {
+    int myId = spdzResourcePool.getMyId();
+    BigInteger modulus = spdzResourcePool.getModulus();
+    SpdzStorage storage = spdzResourcePool.getStore();
+    ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
+    if (numberOfInputs == 0) {
+      out = new ArrayList<>();
+      return EvaluationStatus.IS_DONE;
+    } else if (round == 0) {
+      drawMaterial(round, spdzResourcePool);
+      if (myId == inputter) {
+        if (inputs == null) {
+          throw new IllegalStateException("Inputter " + inputter + " must supply the inputs");
+        }
+        List<BigInteger> masked = new ArrayList<>(numberOfInputs);
+        for (int i = 0; i < numberOfInputs; i++) {
+          masked.add(inputs.get(i).subtract(inputMasks.get(i).getRealValue()).mod(modulus));
+        }
+        network.sendToAll(serializer.serialize(masked));
+      }
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else if (round == 1) {
+      byte[] message = network.receive(inputter);
+      valuesMasked = serializer.deserializeList(message);
+      if (valuesMasked.size() != numberOfInputs) {
+        throw new MaliciousException("Expected " + numberOfInputs + " inputs from party "
+            + inputter + " but got " + valuesMasked.size());
+      }
+      // the serialized values have a fixed length, so the message determines the values uniquely
+      digest = sendBroadcastValidation(spdzResourcePool.getMessageDigest(), network, message);
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else {
+      boolean validated = receiveBroadcastValidation(network, digest);
+      if (!validated) {
+        throw new MaliciousException("SecureBroadcastUtil digests did not match");
+      }
+      BigInteger macKeyShare = storage.getSecretSharedKey();
+      out = new ArrayList<>(numberOfInputs);
+      for (int i = 0; i < numberOfInputs; i++) {
+        BigInteger valueMasked = valuesMasked.get(i);
+        SpdzElement valueMaskedElement = new SpdzElement(valueMasked,
+            macKeyShare.multiply(valueMasked).mod(modulus), modulus);
+        out.add(new SpdzSInt(inputMasks.get(i).getMask().add(valueMaskedElement, myId)));
+      }
+      return EvaluationStatus.IS_DONE;
+    }
+  }
+
+  @Override
+  public List<DRes<SInt>> out() {
+    return out;
+  }
+
+}
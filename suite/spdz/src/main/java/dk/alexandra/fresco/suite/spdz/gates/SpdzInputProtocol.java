@@ -8,6 +8,7 @@ import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import java.math.BigInteger;
 
@@ -25,6 +26,13 @@ public class SpdzInputProtocol extends SpdzNativeProtocol<SInt> {
     this.inputter = inputter;
   }
 
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    if (round == 0) {
+      this.inputMask = supplier.getNextInputMask(this.inputter);
+    }
+  }
+
   @Override
   public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
       Network network) {
@@ -33,7 +41,7 @@ public class SpdzInputProtocol extends SpdzNativeProtocol<SInt> {
     SpdzStorage storage = spdzResourcePool.getStore();
     ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
     if (round == 0) {
-      this.inputMask = storage.getSupplier().getNextInputMask(this.inputter);
+      drawMaterial(round, spdzResourcePool);
       if (myId == this.inputter) {
         BigInteger bcValue = this.input.subtract(this.inputMask.getRealValue());
         bcValue = bcValue.mod(modulus);
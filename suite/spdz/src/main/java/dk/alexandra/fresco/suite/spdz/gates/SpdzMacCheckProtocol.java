@@ -4,12 +4,15 @@ import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.MaliciousException;
 import dk.alexandra.fresco.framework.builder.Computation;
 import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzCommitment;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,6 +21,9 @@ import java.util.List;
  */
 public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNumeric> {
 
+  private static final int SEED_LENGTH = 32;
+  private static final int COEFFICIENT_BLOCK_SIZE = 1024;
+
   private final SecureRandom rand;
   private final MessageDigest digest;
   private final SpdzStorage storage;
@@ -62,18 +68,6 @@ public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNu
 
           openedValuesSize = openedValues.size();
 
-          BigInteger[] rs = new BigInteger[openedValuesSize];
-          BigInteger temporaryR = sum;
-          for (int i = 0; i < openedValuesSize; i++) {
-            temporaryR = new BigInteger(digest.digest(temporaryR.toByteArray())).mod(modulus);
-            rs[i] = temporaryR;
-          }
-          BigInteger a = BigInteger.ZERO;
-          int index = 0;
-          for (BigInteger openedValue : openedValues) {
-            a = a.add(openedValue.multiply(rs[index++])).mod(modulus);
-          }
-
           List<SpdzElement> closedValues = storage.getClosedValues();
           // compute gamma_i as the sum of all MAC's on the opened values times
           // r_j.
@@ -82,11 +76,27 @@ public class SpdzMacCheckProtocol implements Computation<Void, ProtocolBuilderNu
                 "Malicious activity detected: Amount of closed values does not "
                     + "equal the amount of partially opened values. Aborting!");
           }
+          // The r's are expanded in blocks from a PRG seeded by the common random value, and both
+          // linear combinations are accumulated in a single pass and only reduced at the end
+          Drbg coefficients = new PaddingAesCtrDrbg(
+              Arrays.copyOf(digest.digest(sum.toByteArray()), SEED_LENGTH));
+          int coefficientLength = modulus.bitLength() / Byte.SIZE + 1;
+          byte[] block = new byte[Math.min(openedValuesSize, COEFFICIENT_BLOCK_SIZE)
+              * coefficientLength];
+          BigInteger a = BigInteger.ZERO;
           BigInteger gamma = BigInteger.ZERO;
-          index = 0;
-          for (SpdzElement closedValue : closedValues) {
-            gamma = gamma.add(rs[index++].multiply(closedValue.getMac())).mod(modulus);
+          for (int i = 0; i < openedValuesSize; i++) {
+            int offset = (i % COEFFICIENT_BLOCK_SIZE) * coefficientLength;
+            if (offset == 0) {
+              coefficients.nextBytes(block);
+            }
+            BigInteger r = new BigInteger(1,
+                Arrays.copyOfRange(block, offset, offset + coefficientLength));
+            a = a.add(openedValues.get(i).multiply(r));
+            gamma = gamma.add(closedValues.get(i).getMac().multiply(r));
           }
+          a = a.mod(modulus);
+          gamma = gamma.mod(modulus);
 
           BigInteger alpha = storage.getSecretSharedKey();
           // compute delta_i as: gamma_i - alpha_i*a
@@ -0,0 +1,125 @@
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multiplies two lists of secret values element-wise, like {@link SpdzMultProtocol} does for a
+ * single pair.
+ * <p>
+ * All triples are drawn from the supplier at once, and all differences are sent to the other
+ * parties in a single message.
+ * </p>
+ */
+public class SpdzMultListProtocol extends SpdzNativeProtocol<List<DRes<SInt>>> {
+
+  private final List<DRes<SInt>> left;
+  private final List<DRes<SInt>> right;
+  private List<SpdzTriple> triples;
+  private SpdzElement[] epsilons;  // my shares of the differences [x]-[a]
+  private SpdzElement[] deltas;  // and [y]-[b].
+  private List<DRes<SInt>> out;
+
+  /**
+   * Creates a new protocol multiplying lists of the same size.
+   *
+   * @param left the left factors
+   * @param right the right factors
+   */
+  public SpdzMultListProtocol(List<DRes<SInt>> left, List<DRes<SInt>> right) {
+    if (left.size() != right.size()) {
+      throw new IllegalArgumentException("Lists must be same size");
+    }
+    this.left = left;
+    this.right = right;
+  }
+
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    if (round == 0 && !left.isEmpty()) {
+      triples = supplier.getNextTriples(left.size());
+    }
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
+      Network network) {
+    SpdzStorage store = spdzResourcePool.getStore();
+    ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
+    int size = left.size();
+    if (size == 0) {
+      out = new ArrayList<>();
+      return EvaluationStatus.IS_DONE;
+    } else if (round == 0) {
+      drawMaterial(round, spdzResourcePool);
+      epsilons = new SpdzElement[size];
+      deltas = new SpdzElement[size];
+      List<BigInteger> differences = new ArrayList<>(2 * size);
+      for (int i = 0; i < size; i++) {
+        SpdzTriple triple = triples.get(i);
+        epsilons[i] = ((SpdzSInt) left.get(i).out()).value.subtract(triple.getA());
+        differences.add(epsilons[i].getShare());
+      }
+      for (int i = 0; i < size; i++) {
+        SpdzTriple triple = triples.get(i);
+        deltas[i] = ((SpdzSInt) right.get(i).out()).value.subtract(triple.getB());
+        differences.add(deltas[i].getShare());
+      }
+      network.sendToAll(serializer.serialize(differences));
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else {
+      BigInteger[] sums = new BigInteger[2 * size];
+      Arrays.fill(sums, BigInteger.ZERO);
+      for (byte[] shares : network.receiveFromAll()) {
+        List<BigInteger> deserialized = serializer.deserializeList(shares);
+        for (int i = 0; i < sums.length; i++) {
+          sums[i] = sums[i].add(deserialized.get(i));
+        }
+      }
+      BigInteger modulus = spdzResourcePool.getModulus();
+      BigInteger macKeyShare = store.getSecretSharedKey();
+      boolean addProduct = spdzResourcePool.getMyId() == 1;
+      out = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        BigInteger e = sums[i].mod(modulus);
+        BigInteger d = sums[size + i].mod(modulus);
+        SpdzElement a = triples.get(i).getA();
+        SpdzElement b = triples.get(i).getB();
+        SpdzElement c = triples.get(i).getC();
+        // [z] = [c] + e * [b] + d * [a] + e * d, where only party 1 adds e * d to its share
+        BigInteger product = e.multiply(d);
+        BigInteger share = c.getShare().add(b.getShare().multiply(e))
+            .add(a.getShare().multiply(d));
+        if (addProduct) {
+          share = share.add(product);
+        }
+        BigInteger mac = c.getMac().add(b.getMac().multiply(e)).add(a.getMac().multiply(d))
+            .add(macKeyShare.multiply(product.mod(modulus)));
+        out.add(new SpdzSInt(new SpdzElement(share.mod(modulus), mac.mod(modulus), modulus)));
+        addOpenedValue(store, e);
+        addOpenedValue(store, d);
+        addClosedValue(store, epsilons[i]);
+        addClosedValue(store, deltas[i]);
+      }
+      return EvaluationStatus.IS_DONE;
+    }
+  }
+
+  @Override
+  public List<DRes<SInt>> out() {
+    return out;
+  }
+
+}
@@ -8,6 +8,7 @@ import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import java.math.BigInteger;
 
@@ -25,6 +26,13 @@ public class SpdzMultProtocol extends SpdzNativeProtocol<SInt> {
     this.right = right;
   }
 
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    if (round == 0) {
+      this.triple = supplier.getNextTriple();
+    }
+  }
+
   @Override
   public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
       Network network) {
@@ -32,7 +40,7 @@ public class SpdzMultProtocol extends SpdzNativeProtocol<SInt> {
     int noOfPlayers = spdzResourcePool.getNoOfParties();
     ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
     if (round == 0) {
-      this.triple = store.getSupplier().getNextTriple();
+      drawMaterial(round, spdzResourcePool);
 
       epsilon = ((SpdzSInt) left.out()).value.subtract(triple.getA());
       delta = ((SpdzSInt) right.out()).value.subtract(triple.getB());
@@ -69,10 +77,10 @@ public class SpdzMultProtocol extends SpdzNativeProtocol<SInt> {
           .add(ed, spdzResourcePool.getMyId());
       out = new SpdzSInt(res);
       // Set the opened and closed value.
-      store.addOpenedValue(e);
-      store.addOpenedValue(d);
-      store.addClosedValue(epsilon);
-      store.addClosedValue(delta);
+      addOpenedValue(store, e);
+      addOpenedValue(store, d);
+      addClosedValue(store, epsilon);
+      addClosedValue(store, delta);
       return EvaluationStatus.IS_DONE;
     }
   }
@@ -1,28 +1,131 @@
 package dk.alexandra.fresco.suite.spdz.gates;
 
-import dk.alexandra.fresco.framework.NativeProtocol;
+import dk.alexandra.fresco.framework.OrderedNativeProtocol;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import java.math.BigInteger;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * Base class of the SPDZ native protocols.
+ * <p>
+ * Protocols draw preprocessed material through {@link #reserveMaterial(int, SpdzDataSupplier)}
+ * and record opened and closed values through {@link #addOpenedValue(SpdzStorage, BigInteger)}
+ * and {@link #addClosedValue(SpdzStorage, SpdzElement)}. When the protocol is evaluated
+ * concurrently with others, material is reserved and values are committed in protocol order as
+ * described in {@link OrderedNativeProtocol}, otherwise this happens directly in evaluate.
+ * </p>
+ */
 public abstract class SpdzNativeProtocol<OutputT> implements
-    NativeProtocol<OutputT, SpdzResourcePool> {
+    OrderedNativeProtocol<OutputT, SpdzResourcePool> {
+
+  private boolean ordered;
+  private List<BigInteger> openedValues;
+  private List<SpdzElement> closedValues;
+
+  @Override
+  public final void reserve(int round, SpdzResourcePool resourcePool) {
+    ordered = true;
+    reserveMaterial(round, resourcePool.getStore().getSupplier());
+  }
+
+  @Override
+  public final void commit(int round, SpdzResourcePool resourcePool) {
+    SpdzStorage store = resourcePool.getStore();
+    if (openedValues != null) {
+      for (BigInteger value : openedValues) {
+        store.addOpenedValue(value);
+      }
+      openedValues = null;
+    }
+    if (closedValues != null) {
+      for (SpdzElement value : closedValues) {
+        store.addClosedValue(value);
+      }
+      closedValues = null;
+    }
+  }
+
+  /**
+   * Draws the preprocessed material needed in the given round. Protocols which use preprocessed
+   * material override this and call {@link #drawMaterial(int, SpdzResourcePool)} when evaluated.
+   *
+   * @param round the round about to be evaluated
+   * @param supplier the supplier to draw from
+   */
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+  }
+
+  /**
+   * Draws the preprocessed material needed in the given round, unless it has already been
+   * reserved.
+   */
+  protected void drawMaterial(int round, SpdzResourcePool resourcePool) {
+    if (!ordered) {
+      reserveMaterial(round, resourcePool.getStore().getSupplier());
+    }
+  }
+
+  /**
+   * Records an opened value for the MAC check.
+   */
+  protected void addOpenedValue(SpdzStorage store, BigInteger value) {
+    if (ordered) {
+      if (openedValues == null) {
+        openedValues = new ArrayList<>();
+      }
+      openedValues.add(value);
+    } else {
+      store.addOpenedValue(value);
+    }
+  }
+
+  /**
+   * Records a closed value for the MAC check.
+   */
+  protected void addClosedValue(SpdzStorage store, SpdzElement value) {
+    if (ordered) {
+      if (closedValues == null) {
+        closedValues = new ArrayList<>();
+      }
+      closedValues.add(value);
+    } else {
+      store.addClosedValue(value);
+    }
+  }
 
   byte[] sendBroadcastValidation(MessageDigest dig, Network network, BigInteger b) {
-    dig.update(b.toByteArray());
-    return sendAndReset(dig, network);
+    synchronized (dig) {
+      dig.update(b.toByteArray());
+      return sendAndReset(dig, network);
+    }
   }
 
   byte[] sendBroadcastValidation(MessageDigest dig, Network network,
       Collection<BigInteger> bs) {
-    for (BigInteger b : bs) {
-      dig.update(b.toByteArray());
+    synchronized (dig) {
+      for (BigInteger b : bs) {
+        dig.update(b.toByteArray());
+      }
+      return sendAndReset(dig, network);
+    }
+  }
+
+  /**
+   * Validates the broadcast of a message by hashing its raw bytes.
+   */
+  byte[] sendBroadcastValidation(MessageDigest dig, Network network, byte[] message) {
+    synchronized (dig) {
+      dig.update(message);
+      return sendAndReset(dig, network);
     }
-    return sendAndReset(dig, network);
   }
 
   private byte[] sendAndReset(MessageDigest dig, Network network) {
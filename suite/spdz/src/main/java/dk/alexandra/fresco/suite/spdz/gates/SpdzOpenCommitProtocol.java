@@ -93,10 +93,13 @@ public class SpdzOpenCommitProtocol extends SpdzNativeProtocol<Map<Integer, BigI
   private boolean checkCommitment(SpdzResourcePool numericResourcePool, BigInteger commitment,
       BigInteger value, BigInteger randomness) {
     MessageDigest messageDigest = numericResourcePool.getMessageDigest();
-    messageDigest.update(value.toByteArray());
-    messageDigest.update(randomness.toByteArray());
-    BigInteger testSubject = new BigInteger(messageDigest.digest())
-        .mod(numericResourcePool.getModulus());
+    BigInteger testSubject;
+    synchronized (messageDigest) {
+      messageDigest.update(value.toByteArray());
+      messageDigest.update(randomness.toByteArray());
+      testSubject = new BigInteger(messageDigest.digest())
+          .mod(numericResourcePool.getModulus());
+    }
     return commitment.equals(testSubject);
   }
 }
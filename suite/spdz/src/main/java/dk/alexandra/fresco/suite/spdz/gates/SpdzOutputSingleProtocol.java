@@ -8,6 +8,7 @@ import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
 import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
 import java.math.BigInteger;
 import java.util.List;
@@ -30,6 +31,13 @@ public class SpdzOutputSingleProtocol extends SpdzNativeProtocol<BigInteger>
     return out;
   }
 
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    if (round == 0) {
+      this.mask = supplier.getNextInputMask(targetPlayer);
+    }
+  }
+
   @Override
   public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
       Network network) {
@@ -38,10 +46,10 @@ public class SpdzOutputSingleProtocol extends SpdzNativeProtocol<BigInteger>
     SpdzStorage storage = spdzResourcePool.getStore();
     ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
     if (round == 0) {
-      this.mask = storage.getSupplier().getNextInputMask(targetPlayer);
+      drawMaterial(round, spdzResourcePool);
       SpdzSInt closedValue = (SpdzSInt) this.in.out();
       SpdzElement inMinusMask = closedValue.value.subtract(this.mask.getMask());
-      storage.addClosedValue(inMinusMask);
+      addClosedValue(storage, inMinusMask);
       network.sendToAll(serializer.serialize(inMinusMask.getShare()));
       return EvaluationStatus.HAS_MORE_ROUNDS;
     } else {
@@ -51,7 +59,7 @@ public class SpdzOutputSingleProtocol extends SpdzNativeProtocol<BigInteger>
         openedVal = openedVal.add(serializer.deserialize(buffer));
       }
       openedVal = openedVal.mod(spdzResourcePool.getModulus());
-      storage.addOpenedValue(openedVal);
+      addOpenedValue(storage, openedVal);
       if (targetPlayer == myId) {
         openedVal = openedVal.add(this.mask.getRealValue()).mod(spdzResourcePool.getModulus());
         this.out = openedVal;
@@ -0,0 +1,70 @@
+package dk.alexandra.fresco.suite.spdz.gates;
+
+import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.value.SInt;
+import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Opens a list of secret values to all parties, like {@link SpdzOutputToAllProtocol} does for a
+ * single value, sending all shares in a single message.
+ */
+public class SpdzOutputToAllListProtocol extends SpdzNativeProtocol<List<BigInteger>>
+    implements SpdzOutputProtocol {
+
+  private final List<DRes<SInt>> in;
+  private List<BigInteger> out;
+
+  public SpdzOutputToAllListProtocol(List<DRes<SInt>> in) {
+    this.in = in;
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
+      Network network) {
+    SpdzStorage storage = spdzResourcePool.getStore();
+    ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
+    int size = in.size();
+    if (size == 0) {
+      out = new ArrayList<>();
+      return EvaluationStatus.IS_DONE;
+    } else if (round == 0) {
+      List<BigInteger> shares = new ArrayList<>(size);
+      for (DRes<SInt> value : in) {
+        shares.add(((SpdzSInt) value.out()).value.getShare());
+      }
+      network.sendToAll(serializer.serialize(shares));
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else {
+      BigInteger[] sums = new BigInteger[size];
+      Arrays.fill(sums, BigInteger.ZERO);
+      for (byte[] shares : network.receiveFromAll()) {
+        List<BigInteger> deserialized = serializer.deserializeList(shares);
+        for (int i = 0; i < size; i++) {
+          sums[i] = sums[i].add(deserialized.get(i));
+        }
+      }
+      BigInteger modulus = spdzResourcePool.getModulus();
+      out = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        BigInteger openedVal = sums[i].mod(modulus);
+        addOpenedValue(storage, openedVal);
+        addClosedValue(storage, ((SpdzSInt) in.get(i).out()).value);
+        out.add(spdzResourcePool.convertRepresentation(openedVal));
+      }
+      return EvaluationStatus.IS_DONE;
+    }
+  }
+
+  @Override
+  public List<BigInteger> out() {
+    return out;
+  }
+}
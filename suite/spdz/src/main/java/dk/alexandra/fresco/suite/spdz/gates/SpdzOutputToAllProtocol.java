@@ -37,8 +37,8 @@ public class SpdzOutputToAllProtocol extends SpdzNativeProtocol<BigInteger>
         openedVal = openedVal.add(serializer.deserialize(buffer));
       }
       openedVal = openedVal.mod(spdzResourcePool.getModulus());
-      storage.addOpenedValue(openedVal);
-      storage.addClosedValue(((SpdzSInt) in.out()).value);
+      addOpenedValue(storage, openedVal);
+      addClosedValue(storage, ((SpdzSInt) in.out()).value);
       BigInteger tmpOut = openedVal;
       tmpOut = spdzResourcePool.convertRepresentation(tmpOut);
       this.out = tmpOut;
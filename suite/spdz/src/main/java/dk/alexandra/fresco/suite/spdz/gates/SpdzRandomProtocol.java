@@ -4,7 +4,7 @@ import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.value.SInt;
 import dk.alexandra.fresco.suite.spdz.SpdzResourcePool;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
-import dk.alexandra.fresco.suite.spdz.storage.SpdzStorage;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
 
 public class SpdzRandomProtocol extends SpdzNativeProtocol<SInt> {
 
@@ -15,11 +15,15 @@ public class SpdzRandomProtocol extends SpdzNativeProtocol<SInt> {
     return randomElement;
   }
 
+  @Override
+  protected void reserveMaterial(int round, SpdzDataSupplier supplier) {
+    this.randomElement = supplier.getNextRandomFieldElement();
+  }
+
   @Override
   public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
       Network network) {
-    SpdzStorage store = spdzResourcePool.getStore();
-    this.randomElement = store.getSupplier().getNextRandomFieldElement();
+    drawMaterial(round, spdzResourcePool);
     return EvaluationStatus.IS_DONE;
   }
 
@@ -0,0 +1,64 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A list of values modulo a fixed modulus, packed into a single growing byte array using the same
+ * number of bytes for each value.
+ *
+ * <p>This takes a fraction of the memory of a list of {@link BigInteger}. Values are reduced
+ * modulo the modulus when added, so an added value may come back as a different representative of
+ * the same residue.</p>
+ */
+final class PackedValueList extends AbstractList<BigInteger> {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private final BigInteger modulus;
+  private final int width;
+  private byte[] packed;
+  private int size;
+
+  PackedValueList(BigInteger modulus) {
+    this.modulus = modulus;
+    this.width = (modulus.bitLength() + Byte.SIZE - 1) / Byte.SIZE;
+    this.packed = new byte[INITIAL_CAPACITY * width];
+  }
+
+  @Override
+  public boolean add(BigInteger value) {
+    if ((size + 1) * width > packed.length) {
+      packed = Arrays.copyOf(packed, 2 * packed.length);
+    }
+    byte[] bytes = value.mod(modulus).toByteArray();
+    // drop the sign byte, if any, and right-align the magnitude
+    int length = Math.min(bytes.length, width);
+    int offset = size * width;
+    Arrays.fill(packed, offset, offset + width - length, (byte) 0);
+    System.arraycopy(bytes, bytes.length - length, packed, offset + width - length, length);
+    size++;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public BigInteger get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int offset = index * width;
+    return new BigInteger(1, Arrays.copyOfRange(packed, offset, offset + width));
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+}
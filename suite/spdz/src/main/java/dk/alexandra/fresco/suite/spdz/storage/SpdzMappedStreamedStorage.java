@@ -0,0 +1,585 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import dk.alexandra.fresco.framework.sce.resources.storage.FilebasedStreamedStorageImpl;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.Storage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.exceptions.NoMoreElementsException;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streamed storage of SPDZ preprocessed material using a binary format with fixed width records.
+ * <p>
+ * Each store is a file starting with a header giving the type of the records, the width in bytes
+ * of a field element and the modulus. Triples, input masks, bits and exponentiation pipes are
+ * stored as records of unsigned big-endian field elements of that width, so no Java serialization
+ * is involved. Single {@link BigInteger}s such as the modulus and the secret shared key are stored
+ * with a length prefix instead.
+ * </p>
+ * <p>
+ * A store is read by memory-mapping a window of the file and decoding the records directly from
+ * the mapped buffer. While a window is consumed, the next one is mapped and loaded into memory by
+ * a background thread. Files written by {@link FilebasedStreamedStorageImpl} can be converted to
+ * this format using {@link #convert(String, String)}. As for the file based storage,
+ * non-streamable objects are kept in an internal storage.
+ * </p>
+ */
+public class SpdzMappedStreamedStorage implements StreamedStorage {
+
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+  static final int MAGIC = 0x5350445a;
+  static final byte VERSION = 1;
+  private static final int FIXED_HEADER_BYTES = Integer.BYTES + 2 + 3 * Integer.BYTES;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(SpdzMappedStreamedStorage.class);
+
+  private final Storage storage;
+  private final int windowSize;
+  private final Map<String, Reader> readers;
+  private final Map<String, Writer> writers;
+  private final ExecutorService readAhead;
+
+  /**
+   * Creates a new mapped streamed storage using the default window size. For non-streamable
+   * objects, the given internal storage is used.
+   *
+   * @param internalStorage The storage used for non-streamable objects
+   */
+  public SpdzMappedStreamedStorage(Storage internalStorage) {
+    this(internalStorage, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a new mapped streamed storage. For non-streamable objects, the given internal storage
+   * is used.
+   *
+   * @param internalStorage The storage used for non-streamable objects
+   * @param windowSize The number of bytes of a file to map at a time
+   */
+  public SpdzMappedStreamedStorage(Storage internalStorage, int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("Window size must be positive, but was " + windowSize);
+    }
+    this.storage = internalStorage;
+    this.windowSize = windowSize;
+    this.readers = new HashMap<>();
+    this.writers = new HashMap<>();
+    this.readAhead = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "SPDZ-storage-read-ahead");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T extends Serializable> T getNext(String name) throws NoMoreElementsException {
+    Writer writer = writers.get(name);
+    if (writer != null) {
+      ExceptionConverter.safe(() -> {
+        writer.flush();
+        return null;
+      }, "IOException writing to store name " + name);
+    }
+    Reader reader = readers.get(name);
+    if (reader == null) {
+      reader = open(name);
+      readers.put(name, reader);
+    }
+    Serializable next;
+    try {
+      next = reader.next();
+    } catch (IOException e) {
+      throw new NoMoreElementsException("IOException reading from store name " + name, e);
+    }
+    if (next == null) {
+      throw new NoMoreElementsException("No more elements available in store name " + name,
+          null);
+    }
+    return (T) next;
+  }
+
+  private Reader open(String name) throws NoMoreElementsException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(Paths.get(name), StandardOpenOption.READ);
+    } catch (IOException e) {
+      throw new NoMoreElementsException(
+          "IOException accessing store name: " + name + ". Likely the file does not exist", e);
+    }
+    try {
+      return new Reader(name, channel);
+    } catch (IOException e) {
+      close(channel);
+      throw new NoMoreElementsException("Could not read the header of store name " + name, e);
+    } catch (RuntimeException e) {
+      close(channel);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean putNext(String name, Serializable o) {
+    Writer writer = writers.get(name);
+    try {
+      if (writer == null) {
+        writer = new Writer(name, RecordFormat.of(o));
+        writers.put(name, writer);
+      }
+      writer.write(o);
+    } catch (IOException e) {
+      throw new RuntimeException("IOException writing to store name " + name, e);
+    }
+    return true;
+  }
+
+  @Override
+  public void shutdown() {
+    for (Writer writer : writers.values()) {
+      try {
+        writer.flush();
+      } catch (IOException e) {
+        logger.warn("Could not flush store " + writer.name, e);
+      }
+      close(writer.channel);
+    }
+    writers.clear();
+    for (Reader reader : readers.values()) {
+      if (reader.next != null) {
+        reader.next.cancel(false);
+      }
+      close(reader.channel);
+    }
+    readers.clear();
+    readAhead.shutdownNow();
+  }
+
+  private static void close(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Do nothing - nothing can be done
+    }
+  }
+
+  @Override
+  public boolean putObject(String name, String key, Serializable o) {
+    return this.storage.putObject(name, key, o);
+  }
+
+  @Override
+  public <T extends Serializable> T getObject(String name, String key) {
+    return this.storage.getObject(name, key);
+  }
+
+  /**
+   * Converts a store written by {@link FilebasedStreamedStorageImpl} to the format of this
+   * storage. The source and target may be the same file, in which case the file is replaced once
+   * the conversion is done.
+   *
+   * @param source the name of the store to convert
+   * @param target the name of the converted store
+   * @return the number of converted elements
+   */
+  public static int convert(String source, String target) {
+    String destination = source.equals(target) ? target + ".tmp" : target;
+    SpdzMappedStreamedStorage converted = new SpdzMappedStreamedStorage(new InMemoryStorage());
+    int count = 0;
+    try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(source))) {
+      while (true) {
+        Serializable next;
+        try {
+          next = (Serializable) input.readObject();
+        } catch (EOFException e) {
+          break;
+        }
+        converted.putNext(destination, next);
+        count++;
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      throw new RuntimeException("Could not convert store " + source, e);
+    } finally {
+      converted.shutdown();
+    }
+    if (count > 0 && !destination.equals(target)) {
+      ExceptionConverter.safe(
+          () -> Files.move(Paths.get(destination), Paths.get(target),
+              StandardCopyOption.REPLACE_EXISTING),
+          "Could not replace store " + target);
+    }
+    return count;
+  }
+
+  /**
+   * Converts the stores given as arguments in place.
+   *
+   * @param args the names of the stores to convert
+   */
+  public static void main(String[] args) {
+    for (String name : args) {
+      int count = convert(name, name);
+      logger.info("Converted " + count + " elements of store " + name);
+    }
+  }
+
+  /**
+   * The types of records a store can hold.
+   */
+  enum RecordType {
+    BIG_INTEGER, TRIPLE, INPUT_MASK, SINT, EXP_PIPE
+  }
+
+  /**
+   * The format of the records of a store, which is written in the header of the file.
+   */
+  static class RecordFormat {
+
+    private final RecordType type;
+    private final BigInteger modulus;
+    private final int width;
+    private final int pipeLength;
+
+    private RecordFormat(RecordType type, BigInteger modulus, int pipeLength) {
+      this.type = type;
+      this.modulus = modulus;
+      this.width = modulus == null ? 0 : (modulus.bitLength() + 7) / 8;
+      this.pipeLength = pipeLength;
+    }
+
+    /**
+     * Determines the format of a store from the first element put into it.
+     */
+    static RecordFormat of(Serializable o) {
+      if (o instanceof BigInteger) {
+        return new RecordFormat(RecordType.BIG_INTEGER, null, 0);
+      } else if (o instanceof SpdzTriple) {
+        return new RecordFormat(RecordType.TRIPLE, ((SpdzTriple) o).getA().getModulus(), 0);
+      } else if (o instanceof SpdzInputMask) {
+        return new RecordFormat(RecordType.INPUT_MASK,
+            ((SpdzInputMask) o).getMask().getModulus(), 0);
+      } else if (o instanceof SpdzSInt) {
+        return new RecordFormat(RecordType.SINT, ((SpdzSInt) o).value.getModulus(), 0);
+      } else if (o instanceof SpdzSInt[] && ((SpdzSInt[]) o).length > 0) {
+        SpdzSInt[] pipe = (SpdzSInt[]) o;
+        return new RecordFormat(RecordType.EXP_PIPE, pipe[0].value.getModulus(), pipe.length);
+      }
+      throw new IllegalArgumentException("Cannot store objects of type "
+          + (o == null ? null : o.getClass().getSimpleName()));
+    }
+
+    /**
+     * Gets the size in bytes of a record or -1 if records are of variable size.
+     */
+    int recordSize() {
+      switch (type) {
+        case TRIPLE:
+          return 6 * width;
+        case INPUT_MASK:
+          return 3 * width + 1;
+        case SINT:
+          return 2 * width;
+        case EXP_PIPE:
+          return pipeLength * 2 * width;
+        default:
+          return -1;
+      }
+    }
+
+    private int headerSize() {
+      return FIXED_HEADER_BYTES + width;
+    }
+  }
+
+  /**
+   * Appends records to a store.
+   */
+  private static class Writer {
+
+    private final String name;
+    private final RecordFormat format;
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+
+    private Writer(String name, RecordFormat format) throws IOException {
+      this.name = name;
+      this.format = format;
+      this.channel = FileChannel.open(Paths.get(name), StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      this.buffer = ByteBuffer.allocate(Math.max(WRITE_BUFFER_SIZE,
+          Math.max(format.headerSize(), format.recordSize())));
+      buffer.putInt(MAGIC);
+      buffer.put(VERSION);
+      buffer.put((byte) format.type.ordinal());
+      buffer.putInt(format.width);
+      buffer.putInt(format.pipeLength);
+      buffer.putInt(format.width);
+      if (format.modulus != null) {
+        putValue(format.modulus);
+      }
+    }
+
+    private void write(Serializable o) throws IOException {
+      if (format.type == RecordType.BIG_INTEGER) {
+        if (!(o instanceof BigInteger)) {
+          throw invalid(o);
+        }
+        byte[] bytes = ((BigInteger) o).toByteArray();
+        ensureCapacity(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        return;
+      }
+      ensureCapacity(format.recordSize());
+      if (format.type == RecordType.TRIPLE && o instanceof SpdzTriple) {
+        SpdzTriple triple = (SpdzTriple) o;
+        putElement(triple.getA());
+        putElement(triple.getB());
+        putElement(triple.getC());
+      } else if (format.type == RecordType.INPUT_MASK && o instanceof SpdzInputMask) {
+        SpdzInputMask mask = (SpdzInputMask) o;
+        putElement(mask.getMask());
+        if (mask.getRealValue() == null) {
+          buffer.put((byte) 0);
+          buffer.put(new byte[format.width]);
+        } else {
+          buffer.put((byte) 1);
+          putValue(mask.getRealValue());
+        }
+      } else if (format.type == RecordType.SINT && o instanceof SpdzSInt) {
+        putElement(((SpdzSInt) o).value);
+      } else if (format.type == RecordType.EXP_PIPE && o instanceof SpdzSInt[]
+          && ((SpdzSInt[]) o).length == format.pipeLength) {
+        for (SpdzSInt value : (SpdzSInt[]) o) {
+          putElement(value.value);
+        }
+      } else {
+        throw invalid(o);
+      }
+    }
+
+    private IllegalArgumentException invalid(Serializable o) {
+      return new IllegalArgumentException("Cannot put " + o + " into store " + name
+          + " holding records of type " + format.type);
+    }
+
+    private void putElement(SpdzElement element) {
+      if (!format.modulus.equals(element.getModulus())) {
+        throw new IllegalArgumentException("Element " + element + " of store " + name
+            + " does not use the modulus " + format.modulus);
+      }
+      putValue(element.getShare());
+      putValue(element.getMac());
+    }
+
+    /**
+     * Puts a non-negative value as an unsigned big-endian number of the width of the store.
+     */
+    private void putValue(BigInteger value) {
+      byte[] bytes = value.toByteArray();
+      int offset = bytes[0] == 0 ? 1 : 0;
+      int length = bytes.length - offset;
+      if (value.signum() < 0 || length > format.width) {
+        throw new IllegalArgumentException(
+            "Value " + value + " does not fit in " + format.width + " bytes");
+      }
+      for (int i = length; i < format.width; i++) {
+        buffer.put((byte) 0);
+      }
+      buffer.put(bytes, offset, length);
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+        if (buffer.capacity() < bytes) {
+          buffer = ByteBuffer.allocate(bytes);
+        }
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Decodes the records of a store from windows of the file mapped into memory.
+   */
+  private class Reader {
+
+    private final String name;
+    private final FileChannel channel;
+    private final RecordFormat format;
+    private final int windowLength;
+    private final byte[] scratch;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private Future<MappedByteBuffer> next;
+    private long nextStart;
+
+    private Reader(String name, FileChannel channel) throws IOException {
+      this.name = name;
+      this.channel = channel;
+      ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES);
+      readFully(header, 0);
+      if (header.getInt() != MAGIC || header.get() != VERSION) {
+        throw new IllegalStateException("Store " + name + " is not in the SPDZ record format. "
+            + "Files of the file based streamed storage must be converted first");
+      }
+      int typeIndex = header.get();
+      if (typeIndex < 0 || typeIndex >= RecordType.values().length) {
+        throw new IllegalStateException("Unknown record type " + typeIndex + " of store " + name);
+      }
+      RecordType type = RecordType.values()[typeIndex];
+      int width = header.getInt();
+      int pipeLength = header.getInt();
+      int modulusLength = header.getInt();
+      BigInteger modulus = null;
+      if (modulusLength > 0) {
+        ByteBuffer modulusBytes = ByteBuffer.allocate(modulusLength);
+        readFully(modulusBytes, FIXED_HEADER_BYTES);
+        modulus = new BigInteger(1, modulusBytes.array());
+      }
+      this.format = new RecordFormat(type, modulus, pipeLength);
+      if (format.width != width) {
+        throw new IllegalStateException("Malformed header of store " + name);
+      }
+      int recordSize = format.recordSize();
+      this.windowLength = recordSize < 0
+          ? windowSize : Math.max(recordSize, windowSize / recordSize * recordSize);
+      this.scratch = new byte[width];
+      this.windowStart = format.headerSize();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, position + buffer.position());
+        if (read < 0) {
+          throw new EOFException("Unexpected end of store " + name);
+        }
+      }
+      buffer.flip();
+    }
+
+    /**
+     * Decodes the next record of the store.
+     *
+     * @return the next record or null if there are no more records
+     */
+    private Serializable next() throws IOException {
+      if (format.type == RecordType.BIG_INTEGER) {
+        if (!ensure(Integer.BYTES)) {
+          return null;
+        }
+        int length = window.getInt(window.position());
+        if (!ensure(Integer.BYTES + length)) {
+          return null;
+        }
+        window.getInt();
+        byte[] bytes = new byte[length];
+        window.get(bytes);
+        return new BigInteger(bytes);
+      }
+      if (!ensure(format.recordSize())) {
+        return null;
+      }
+      switch (format.type) {
+        case TRIPLE:
+          return new SpdzTriple(getElement(), getElement(), getElement());
+        case INPUT_MASK:
+          SpdzElement mask = getElement();
+          boolean hasRealValue = window.get() != 0;
+          BigInteger realValue = getValue();
+          return new SpdzInputMask(mask, hasRealValue ? realValue : null);
+        case SINT:
+          return new SpdzSInt(getElement());
+        default:
+          SpdzSInt[] pipe = new SpdzSInt[format.pipeLength];
+          for (int i = 0; i < pipe.length; i++) {
+            pipe[i] = new SpdzSInt(getElement());
+          }
+          return pipe;
+      }
+    }
+
+    private SpdzElement getElement() {
+      return new SpdzElement(getValue(), getValue(), format.modulus);
+    }
+
+    private BigInteger getValue() {
+      window.get(scratch);
+      return new BigInteger(1, scratch);
+    }
+
+    /**
+     * Ensures that the current window holds a given number of bytes, moving the window to the
+     * current position if needed.
+     *
+     * @return false if the store does not hold that many bytes more
+     */
+    private boolean ensure(int bytes) throws IOException {
+      if (window != null && window.remaining() >= bytes) {
+        return true;
+      }
+      long position = window == null ? windowStart : windowStart + window.position();
+      long size = channel.size();
+      if (size - position < bytes) {
+        return false;
+      }
+      MappedByteBuffer mapped = null;
+      if (next != null && nextStart == position) {
+        mapped = ExceptionConverter.safe(next::get, "Read-ahead of store " + name + " failed");
+      } else if (next != null) {
+        next.cancel(false);
+      }
+      next = null;
+      if (mapped == null || mapped.capacity() < bytes) {
+        mapped = channel.map(MapMode.READ_ONLY, position,
+            Math.min(size - position, Math.max(bytes, windowLength)));
+      }
+      window = mapped;
+      windowStart = position;
+      long end = position + mapped.capacity();
+      if (end < size) {
+        nextStart = end;
+        long length = Math.min(size - end, windowLength);
+        next = readAhead.submit(() -> {
+          MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, end, length);
+          buffer.load();
+          return buffer;
+        });
+      }
+      return true;
+    }
+  }
+}
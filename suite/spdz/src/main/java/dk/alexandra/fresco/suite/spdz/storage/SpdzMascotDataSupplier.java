@@ -18,12 +18,16 @@ import dk.alexandra.fresco.tools.mascot.field.MultiplicationTriple;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrgImpl;
 import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.Closeable;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +35,7 @@ import org.slf4j.LoggerFactory;
 /**
  * A data supplier based on the Mascot protocol. Uses concrete implementation {@link Mascot}.
  */
-public class SpdzMascotDataSupplier implements SpdzDataSupplier {
+public class SpdzMascotDataSupplier implements SpdzDataSupplier, Closeable {
 
   private static final Logger logger = LoggerFactory.getLogger(SpdzMascotDataSupplier.class);
   private final int myId;
@@ -51,7 +55,8 @@ public class SpdzMascotDataSupplier implements SpdzDataSupplier {
   private final int batchSize;
   private final Drbg drbg;
   private final Map<Integer, RotList> seedOts;
-  private Mascot mascot;
+  // created by the producing thread, but may be closed from another thread
+  private volatile Mascot mascot;
 
   /**
    * Creates {@link SpdzMascotDataSupplier}.
@@ -106,6 +111,50 @@ public class SpdzMascotDataSupplier implements SpdzDataSupplier {
         modBitLength, preprocessedValues, prgSeedLength, 16, ssk, seedOts, drbg);
   }
 
+  /**
+   * Creates a {@link SpdzPrefetchingDataSupplier} where each type of material is produced in the
+   * background by its own instance of {@link Mascot}.
+   * <p>
+   * The instances use the networks given by <code>networks</code> for the producer numbers defined
+   * by {@link SpdzPrefetchingDataSupplier}. The networks are requested from the producer threads
+   * and must be independent of each other, e.g. channels of a
+   * {@link dk.alexandra.fresco.framework.network.MultiplexedNetwork}.
+   * </p>
+   *
+   * @param myId this party's id
+   * @param numberOfPlayers number of players
+   * @param networks the network of each producer given its number
+   * @param modBitLength bit length of modulus
+   * @param modulus field modulus
+   * @param preprocessedValues callback to generate exponentiation pipes
+   * @param seedOts pre-computed base OTs
+   * @param drbg source of randomness, from which the seed of each instance is drawn
+   * @param ssk mac key share
+   * @param batchSize batch size in which Mascot will generate pre-processed material
+   * @param lowWatermark the queue size at which a producer resumes production
+   * @param highWatermark the capacity of the queue of each type of material
+   */
+  public static SpdzPrefetchingDataSupplier createPrefetchingSupplier(int myId,
+      int numberOfPlayers, IntFunction<Network> networks, int modBitLength, BigInteger modulus,
+      Function<Integer, SpdzSInt[]> preprocessedValues, Map<Integer, RotList> seedOts,
+      Drbg drbg, FieldElement ssk, int batchSize, int lowWatermark, int highWatermark) {
+    int prgSeedLength = 256;
+    SpdzMascotDataSupplier supplier = new SpdzMascotDataSupplier(myId, numberOfPlayers, 1,
+        () -> {
+          throw new IllegalStateException("Material is only produced by the prefetching threads");
+        }, modulus, modBitLength, preprocessedValues, prgSeedLength, batchSize, ssk, seedOts,
+        drbg);
+    IntFunction<SpdzDataSupplier> producers = producer -> {
+      byte[] seed = new byte[prgSeedLength / 8];
+      drbg.nextBytes(seed);
+      return new SpdzMascotDataSupplier(myId, numberOfPlayers, 2 + producer,
+          () -> networks.apply(producer), modulus, modBitLength, preprocessedValues,
+          prgSeedLength, batchSize, ssk, seedOts, new PaddingAesCtrDrbg(seed));
+    };
+    return new SpdzPrefetchingDataSupplier(supplier, producers, numberOfPlayers, lowWatermark,
+        highWatermark);
+  }
+
   /**
    * Creates random field element that can be used as the mac key share by the calling party.
    */
@@ -129,6 +178,21 @@ public class SpdzMascotDataSupplier implements SpdzDataSupplier {
     return MascotFormatConverter.toSpdzTriple(triple);
   }
 
+  @Override
+  public List<SpdzTriple> getNextTriples(int numberOfTriples) {
+    ensureInitialized();
+    if (triples.size() < numberOfTriples) {
+      logger.trace("Getting another triple batch");
+      triples.addAll(mascot.getTriples(Math.max(batchSize, numberOfTriples - triples.size())));
+      logger.trace("Got another triple batch");
+    }
+    List<SpdzTriple> spdzTriples = new ArrayList<>(numberOfTriples);
+    for (int i = 0; i < numberOfTriples; i++) {
+      spdzTriples.add(MascotFormatConverter.toSpdzTriple(triples.pop()));
+    }
+    return spdzTriples;
+  }
+
   @Override
   public SpdzSInt getNextRandomFieldElement() {
     ensureInitialized();
@@ -181,6 +245,16 @@ public class SpdzMascotDataSupplier implements SpdzDataSupplier {
     return this.ssk.toBigInteger();
   }
 
+  /**
+   * Closes the underlying {@link Mascot} instance, if it has been created.
+   */
+  @Override
+  public void close() {
+    if (mascot != null) {
+      mascot.close();
+    }
+  }
+
   private void ensureInitialized() {
     if (mascot != null) {
       return;
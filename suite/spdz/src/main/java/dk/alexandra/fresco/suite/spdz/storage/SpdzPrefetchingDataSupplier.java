@@ -0,0 +1,169 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.framework.util.PrefetchingQueue;
+import dk.alexandra.fresco.logging.PerformanceLogger;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Data supplier producing preprocessed material ahead of time on background threads.
+ * <p>
+ * Each type of material, i.e. triples, random elements, bits and input masks towards each party,
+ * is produced by a dedicated thread using its own underlying supplier, which must be independent
+ * of the others, e.g. an instance of {@link SpdzMascotDataSupplier} with its own network. The
+ * material is put in a bounded queue per type. When a queue is full its producer pauses until the
+ * queue has been drained to a low watermark, so online evaluation only blocks when production
+ * cannot keep up.
+ * </p>
+ * <p>
+ * Since all parties consume the same material, the producers of all parties run the underlying
+ * protocols in the same order. The modulus, the mac key share and exponentiation pipes are taken
+ * directly from a separate supplier.
+ * </p>
+ */
+public class SpdzPrefetchingDataSupplier implements SpdzDataSupplier, PerformanceLogger,
+    Closeable {
+
+  public static final String QUEUE_DEPTH = PrefetchingQueue.QUEUE_DEPTH;
+  public static final String PRODUCED = PrefetchingQueue.PRODUCED;
+  public static final String PRODUCTION_NANOS = PrefetchingQueue.PRODUCTION_NANOS;
+  public static final String PRODUCED_PER_SECOND = PrefetchingQueue.PRODUCED_PER_SECOND;
+  public static final String WAIT_NANOS = PrefetchingQueue.WAIT_NANOS;
+  public static final String TRIPLE = "TRIPLE";
+  public static final String RANDOM_ELEMENT = "RANDOM_ELEMENT";
+  public static final String BIT = "BIT";
+  public static final String INPUT_MASK = "INPUT_MASK_";
+
+  private final SpdzDataSupplier supplier;
+  private final PrefetchingQueue<SpdzTriple> triples;
+  private final PrefetchingQueue<SpdzSInt> randomElements;
+  private final PrefetchingQueue<SpdzSInt> bits;
+  private final List<PrefetchingQueue<SpdzInputMask>> masks;
+  private final List<PrefetchingQueue<?>> pipelines;
+  private final List<SpdzDataSupplier> producers;
+
+  /**
+   * Creates a new prefetching supplier and starts producing material.
+   * <p>
+   * The producers are numbered from 0: the triple producer is 0, the random element producer is 1,
+   * the bit producer is 2 and the producer of input masks towards party <i>i</i> is 2 + <i>i</i>.
+   * </p>
+   *
+   * @param supplier the supplier of the modulus, mac key share and exponentiation pipes
+   * @param producerSuppliers creates the independent supplier of each producer given its number
+   * @param noOfParties the number of parties
+   * @param lowWatermark the queue size at which a producer resumes production
+   * @param highWatermark the capacity of each queue
+   */
+  public SpdzPrefetchingDataSupplier(SpdzDataSupplier supplier,
+      IntFunction<SpdzDataSupplier> producerSuppliers, int noOfParties, int lowWatermark,
+      int highWatermark) {
+    this.supplier = supplier;
+    this.pipelines = new ArrayList<>();
+    this.producers = new ArrayList<>();
+    SpdzDataSupplier tripleSupplier = producerSuppliers.apply(0);
+    producers.add(tripleSupplier);
+    this.triples = new PrefetchingQueue<>(TRIPLE, tripleSupplier::getNextTriple, lowWatermark,
+        highWatermark);
+    SpdzDataSupplier elementSupplier = producerSuppliers.apply(1);
+    producers.add(elementSupplier);
+    this.randomElements = new PrefetchingQueue<>(RANDOM_ELEMENT,
+        elementSupplier::getNextRandomFieldElement, lowWatermark, highWatermark);
+    SpdzDataSupplier bitSupplier = producerSuppliers.apply(2);
+    producers.add(bitSupplier);
+    this.bits = new PrefetchingQueue<>(BIT, bitSupplier::getNextBit, lowWatermark, highWatermark);
+    this.masks = new ArrayList<>(noOfParties);
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      int towardPlayerId = partyId;
+      SpdzDataSupplier maskSupplier = producerSuppliers.apply(2 + partyId);
+      producers.add(maskSupplier);
+      masks.add(new PrefetchingQueue<>(INPUT_MASK + partyId,
+          () -> maskSupplier.getNextInputMask(towardPlayerId), lowWatermark, highWatermark));
+    }
+    pipelines.add(triples);
+    pipelines.add(randomElements);
+    pipelines.add(bits);
+    pipelines.addAll(masks);
+    for (PrefetchingQueue<?> pipeline : pipelines) {
+      pipeline.start();
+    }
+  }
+
+  @Override
+  public SpdzTriple getNextTriple() {
+    return triples.take();
+  }
+
+  @Override
+  public SpdzSInt[] getNextExpPipe() {
+    return supplier.getNextExpPipe();
+  }
+
+  @Override
+  public SpdzInputMask getNextInputMask(int towardPlayerId) {
+    return masks.get(towardPlayerId - 1).take();
+  }
+
+  @Override
+  public SpdzSInt getNextBit() {
+    return bits.take();
+  }
+
+  @Override
+  public BigInteger getModulus() {
+    return supplier.getModulus();
+  }
+
+  @Override
+  public BigInteger getSecretSharedKey() {
+    return supplier.getSecretSharedKey();
+  }
+
+  @Override
+  public SpdzSInt getNextRandomFieldElement() {
+    return randomElements.take();
+  }
+
+  /**
+   * Stops the producers and closes their suppliers. Material already produced is still available.
+   */
+  @Override
+  public void close() {
+    for (PrefetchingQueue<?> pipeline : pipelines) {
+      pipeline.close();
+    }
+    for (SpdzDataSupplier producer : producers) {
+      if (producer instanceof Closeable) {
+        ExceptionConverter.safe(() -> {
+          ((Closeable) producer).close();
+          return null;
+        }, "Failed closing producer");
+      }
+    }
+  }
+
+  @Override
+  public void reset() {
+    for (PrefetchingQueue<?> pipeline : pipelines) {
+      pipeline.reset();
+    }
+  }
+
+  @Override
+  public Map<String, Long> getLoggedValues() {
+    Map<String, Long> values = new HashMap<>();
+    for (PrefetchingQueue<?> pipeline : pipelines) {
+      values.putAll(pipeline.getLoggedValues());
+    }
+    return values;
+  }
+}
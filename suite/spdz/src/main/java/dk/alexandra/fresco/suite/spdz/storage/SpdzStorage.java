@@ -52,6 +52,25 @@ public interface SpdzStorage {
    */
   List<SpdzElement> getClosedValues();
 
+  /**
+   * Moves the current opened and closed values into a new storage with the same supplier, and
+   * resets this storage. <p>Used to check the values taken so far in the background, while new
+   * values are added to this storage.</p>
+   *
+   * @return a storage holding the values of this storage
+   */
+  default SpdzStorage takeSnapshot() {
+    SpdzStorage snapshot = new SpdzStorageImpl(getSupplier());
+    for (BigInteger openedValue : getOpenedValues()) {
+      snapshot.addOpenedValue(openedValue);
+    }
+    for (SpdzElement closedValue : getClosedValues()) {
+      snapshot.addClosedValue(closedValue);
+    }
+    reset();
+    return snapshot;
+  }
+
   /**
    * Returns the players share of the Secret Shared Key (alpha).
    *
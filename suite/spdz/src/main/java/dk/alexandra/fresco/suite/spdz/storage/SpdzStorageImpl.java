@@ -2,18 +2,24 @@ package dk.alexandra.fresco.suite.spdz.storage;
 
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
 import java.math.BigInteger;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Uses the D14.2 storage concept as backend
  *
+ * <p>Opened values and the shares and MACs of closed values are kept packed in byte arrays of
+ * fixed width per value, rather than as individual objects, since up to a full MAC check batch of
+ * them are kept around before they are checked.</p>
+ *
  * @author Kasper Damgaard
  */
 public class SpdzStorageImpl implements SpdzStorage {
 
-  private List<BigInteger> openedValues;
-  private List<SpdzElement> closedValues;
+  private PackedValueList openedValues;
+  private PackedValueList closedShares;
+  private PackedValueList closedMacs;
 
   private SpdzDataSupplier supplier;
 
@@ -23,14 +29,15 @@ public class SpdzStorageImpl implements SpdzStorage {
    */
   public SpdzStorageImpl(SpdzDataSupplier supplier) {
     this.supplier = supplier;
-    openedValues = new LinkedList<>();
-    closedValues = new LinkedList<>();
   }
 
   @Override
   public void reset() {
-    openedValues.clear();
-    closedValues.clear();
+    if (openedValues != null) {
+      openedValues.clear();
+      closedShares.clear();
+      closedMacs.clear();
+    }
   }
 
   @Override
@@ -40,22 +47,54 @@ public class SpdzStorageImpl implements SpdzStorage {
 
   @Override
   public void addOpenedValue(BigInteger val) {
+    initializeLists();
     openedValues.add(val);
   }
 
   @Override
   public void addClosedValue(SpdzElement elem) {
-    closedValues.add(elem);
+    initializeLists();
+    closedShares.add(elem.getShare());
+    closedMacs.add(elem.getMac());
   }
 
   @Override
   public List<BigInteger> getOpenedValues() {
-    return openedValues;
+    if (openedValues == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(openedValues);
   }
 
   @Override
   public List<SpdzElement> getClosedValues() {
-    return closedValues;
+    if (closedShares == null) {
+      return Collections.emptyList();
+    }
+    BigInteger modulus = supplier.getModulus();
+    return new AbstractList<SpdzElement>() {
+      @Override
+      public SpdzElement get(int index) {
+        return new SpdzElement(closedShares.get(index), closedMacs.get(index), modulus);
+      }
+
+      @Override
+      public int size() {
+        return closedShares.size();
+      }
+    };
+  }
+
+  @Override
+  public SpdzStorage takeSnapshot() {
+    SpdzStorageImpl snapshot = new SpdzStorageImpl(supplier);
+    snapshot.openedValues = openedValues;
+    snapshot.closedShares = closedShares;
+    snapshot.closedMacs = closedMacs;
+    openedValues = null;
+    closedShares = null;
+    closedMacs = null;
+    return snapshot;
   }
 
   @Override
@@ -63,4 +102,17 @@ public class SpdzStorageImpl implements SpdzStorage {
     return this.supplier.getSecretSharedKey();
   }
 
+  /**
+   * The modulus is only looked up once values are stored, as some suppliers need to fetch it from
+   * their preprocessed material.
+   */
+  private void initializeLists() {
+    if (openedValues == null) {
+      BigInteger modulus = supplier.getModulus();
+      openedValues = new PackedValueList(modulus);
+      closedShares = new PackedValueList(modulus);
+      closedMacs = new PackedValueList(modulus);
+    }
+  }
+
 }
@@ -1,6 +1,7 @@
 package dk.alexandra.fresco.suite.spdz;
 
 import dk.alexandra.fresco.framework.DRes;
+import dk.alexandra.fresco.framework.builder.numeric.Collections;
 import dk.alexandra.fresco.framework.builder.numeric.Numeric;
 import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
 import dk.alexandra.fresco.framework.value.SInt;
@@ -18,11 +19,27 @@ import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocol;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocolKnownLeft;
 import dk.alexandra.fresco.suite.spdz.gates.SpdzSubtractProtocolKnownRight;
 import java.math.BigInteger;
+import java.util.List;
 
 public class MaliciousSpdzBuilder extends SpdzBuilder {
 
-  MaliciousSpdzBuilder(BasicNumericContext spdzFactory, RealNumericContext realNumericContext) {
+  private final boolean collidingInputs;
+
+  MaliciousSpdzBuilder(BasicNumericContext spdzFactory, RealNumericContext realNumericContext,
+      boolean collidingInputs) {
     super(spdzFactory, realNumericContext);
+    this.collidingInputs = collidingInputs;
+  }
+
+  @Override
+  public Collections createCollections(ProtocolBuilderNumeric protocolBuilder) {
+    return new SpdzCollections(this, protocolBuilder) {
+      @Override
+      public DRes<List<DRes<SInt>>> closeList(List<BigInteger> openList, int inputParty) {
+        return protocolBuilder.append(new MaliciousSpdzInputListProtocol(openList, inputParty,
+            collidingInputs));
+      }
+    };
   }
 
   @Override
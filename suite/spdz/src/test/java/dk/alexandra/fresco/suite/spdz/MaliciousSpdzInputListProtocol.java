@@ -0,0 +1,69 @@
+package dk.alexandra.fresco.suite.spdz;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.suite.spdz.gates.SpdzInputListProtocol;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Input protocol where the inputter sends the other parties different masked values than it uses
+ * itself.
+ */
+public class MaliciousSpdzInputListProtocol extends SpdzInputListProtocol {
+
+  private final boolean colliding;
+
+  /**
+   * Creates a malicious input protocol.
+   *
+   * @param inputs the values to input
+   * @param inputter the id of the inputter, i.e. this party
+   * @param colliding if true, the first two masked values are replaced by [0x01, 0x0203] towards
+   *     parties with an even id and by [0x0102, 0x03] towards the others, so that the concatenated
+   *     byte representations of the values are the same for all parties
+   */
+  public MaliciousSpdzInputListProtocol(List<BigInteger> inputs, int inputter,
+      boolean colliding) {
+    super(inputs, inputter);
+    this.colliding = colliding;
+  }
+
+  @Override
+  public EvaluationStatus evaluate(int round, SpdzResourcePool spdzResourcePool,
+      Network network) {
+    if (round != 0) {
+      return super.evaluate(round, spdzResourcePool, network);
+    }
+    int myId = spdzResourcePool.getMyId();
+    ByteSerializer<BigInteger> serializer = spdzResourcePool.getSerializer();
+    return super.evaluate(round, spdzResourcePool, new Network() {
+      @Override
+      public void send(int partyId, byte[] data) {
+        if (colliding) {
+          List<BigInteger> values = serializer.deserializeList(data);
+          boolean even = partyId % 2 == 0;
+          values.set(0, BigInteger.valueOf(even ? 0x01 : 0x0102));
+          values.set(1, BigInteger.valueOf(even ? 0x0203 : 0x03));
+          network.send(partyId, serializer.serialize(values));
+        } else if (partyId == myId) {
+          network.send(partyId, data);
+        } else {
+          byte[] corrupted = data.clone();
+          corrupted[corrupted.length - 1] ^= 1;
+          network.send(partyId, corrupted);
+        }
+      }
+
+      @Override
+      public byte[] receive(int partyId) {
+        return network.receive(partyId);
+      }
+
+      @Override
+      public int getNoOfParties() {
+        return network.getNoOfParties();
+      }
+    });
+  }
+}
@@ -16,6 +16,7 @@ import dk.alexandra.fresco.framework.sce.evaluator.BatchEvaluationStrategy;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.EvaluationStrategy;
 import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests;
+import dk.alexandra.fresco.lib.collections.io.CloseListTests;
 import dk.alexandra.fresco.lib.compare.CompareTests;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
 import dk.alexandra.fresco.lib.real.RealNumericContext;
@@ -37,7 +38,8 @@ import org.junit.Test;
 public class TestMaliciousBehaviour {
 
   enum Corrupt {
-    COMMIT_ROUND_1, OPEN_COMMIT_ROUND_1, COMMIT_ROUND_2, OPEN_COMMIT_ROUND_2, INPUT
+    COMMIT_ROUND_1, OPEN_COMMIT_ROUND_1, COMMIT_ROUND_2, OPEN_COMMIT_ROUND_2, INPUT,
+    INPUT_COLLISION
   }
 
   /**
@@ -122,6 +124,36 @@ public class TestMaliciousBehaviour {
     }
   }
 
+  @Test
+  public void testMaliciousInputList() {
+    try {
+      runTest(new CloseListTests.TestCloseAndOpenList<>(), EvaluationStrategy.SEQUENTIAL_BATCHED,
+          2, Corrupt.INPUT);
+      Assert.fail("Should not go well");
+    } catch (RuntimeException e) {
+      if (e.getCause().getCause() == null || !(e.getCause()
+          .getCause() instanceof MaliciousException)) {
+        Assert.fail();
+      }
+    }
+  }
+
+  @Test
+  public void testMaliciousInputListCollidingDigest() {
+    try {
+      runTest(new CloseListTests.TestCloseAndOpenList<>(), EvaluationStrategy.SEQUENTIAL_BATCHED,
+          2, Corrupt.INPUT_COLLISION);
+      Assert.fail("Should not go well");
+    } catch (RuntimeException e) {
+      // the inconsistent inputs must be caught by the broadcast validation, not a later mac check
+      Throwable cause = e.getCause().getCause();
+      if (!(cause instanceof MaliciousException)
+          || !cause.getMessage().contains("digests did not match")) {
+        Assert.fail();
+      }
+    }
+  }
+
   protected void runTest(
       TestThreadRunner.TestThreadFactory<SpdzResourcePool, ProtocolBuilderNumeric> f,
       EvaluationStrategy evalStrategy, int noOfParties, Corrupt corrupt) {
@@ -196,8 +228,10 @@ public class TestMaliciousBehaviour {
     public BuilderFactoryNumeric init(SpdzResourcePool resourcePool, Network network) {
       BasicNumericContext spdzFactory = createNumericContext(resourcePool);
       RealNumericContext realNumericContext = createRealNumericContext();
-      if (resourcePool.getMyId() == 1 && corrupt.compareTo(Corrupt.INPUT) == 0) {
-        return new MaliciousSpdzBuilder(spdzFactory, realNumericContext);
+      if (resourcePool.getMyId() == 1
+          && (corrupt == Corrupt.INPUT || corrupt == Corrupt.INPUT_COLLISION)) {
+        return new MaliciousSpdzBuilder(spdzFactory, realNumericContext,
+            corrupt == Corrupt.INPUT_COLLISION);
       } else {
         return new SpdzBuilder(spdzFactory, realNumericContext);
       }
@@ -0,0 +1,122 @@
+package dk.alexandra.fresco.suite.spdz;
+
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.ProtocolEvaluator;
+import dk.alexandra.fresco.framework.TestThreadRunner;
+import dk.alexandra.fresco.framework.TestThreadRunner.TestThreadConfiguration;
+import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.KryoNetNetwork;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngine;
+import dk.alexandra.fresco.framework.sce.SecureComputationEngineImpl;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
+import dk.alexandra.fresco.lib.arithmetic.BasicArithmeticTests.TestAlternatingMultAdd;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzDummyDataSupplier;
+import dk.alexandra.fresco.suite.spdz.storage.SpdzStorageImpl;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSpdzBackgroundMacCheck {
+
+  @Test
+  public void testBackgroundMacCheck() {
+    runTest(2, false);
+  }
+
+  @Test
+  public void testBackgroundMacCheck3Parties() {
+    runTest(3, false);
+  }
+
+  @Test
+  public void testBackgroundMacCheckCorrupt() {
+    try {
+      runTest(2, true);
+      Assert.fail("Should not go well");
+    } catch (RuntimeException e) {
+      if (e.getCause().getCause() == null
+          || !(e.getCause().getCause() instanceof MaliciousException)) {
+        Assert.fail();
+      }
+    }
+  }
+
+  private void runTest(int noOfParties, boolean corrupt) {
+    List<Integer> ports = new ArrayList<>(noOfParties);
+    for (int i = 1; i <= noOfParties; i++) {
+      ports.add(9000 + i * (noOfParties - 1));
+    }
+    KryoNetManager macCheckManager = new KryoNetManager(ports);
+    Map<Integer, NetworkConfiguration> netConf =
+        TestConfiguration.getNetworkConfigurations(noOfParties, ports);
+    Map<Integer, TestThreadConfiguration<SpdzResourcePool, ProtocolBuilderNumeric>> conf =
+        new HashMap<>();
+    for (int playerId : netConf.keySet()) {
+      SpdzProtocolSuite protocolSuite = new SpdzProtocolSuite(150, 16,
+          () -> macCheckManager.createExtraNetwork(playerId)) {
+        @Override
+        public RoundSynchronization<SpdzResourcePool> createRoundSynchronization() {
+          return new SpdzRoundSynchronization(this, 10);
+        }
+      };
+      ProtocolEvaluator<SpdzResourcePool> evaluator =
+          new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), protocolSuite, 64);
+      SecureComputationEngine<SpdzResourcePool, ProtocolBuilderNumeric> sce =
+          new SecureComputationEngineImpl<>(protocolSuite, evaluator);
+      TestThreadRunner.TestThreadConfiguration<SpdzResourcePool, ProtocolBuilderNumeric> ttc =
+          new TestThreadRunner.TestThreadConfiguration<>(sce,
+              () -> createResourcePool(playerId, noOfParties, corrupt && playerId == 1),
+              () -> new KryoNetNetwork(netConf.get(playerId)));
+      conf.put(playerId, ttc);
+    }
+    try {
+      TestThreadRunner.run(new TestAlternatingMultAdd<>(), conf);
+    } finally {
+      macCheckManager.close();
+    }
+  }
+
+  private SpdzResourcePool createResourcePool(int myId, int size, boolean corrupt) {
+    SpdzDataSupplier supplier;
+    if (corrupt) {
+      supplier = new CorruptTripleDataSupplier(myId, size);
+    } else {
+      supplier = new SpdzDummyDataSupplier(myId, size);
+    }
+    return new SpdzResourcePoolImpl(myId, size, new SpdzStorageImpl(supplier));
+  }
+
+  /**
+   * Supplies a triple with a wrong share early on, which the first MAC check should catch.
+   */
+  private static class CorruptTripleDataSupplier extends SpdzDummyDataSupplier {
+
+    private int countdown = 3;
+
+    CorruptTripleDataSupplier(int myId, int numberOfPlayers) {
+      super(myId, numberOfPlayers);
+    }
+
+    @Override
+    public SpdzTriple getNextTriple() {
+      SpdzTriple triple = super.getNextTriple();
+      if (--countdown == 0) {
+        SpdzElement a = triple.getA();
+        SpdzElement corruptA = new SpdzElement(a.getShare().add(BigInteger.ONE), a.getMac(),
+            getModulus());
+        triple = new SpdzTriple(corruptA, triple.getB(), triple.getC());
+      }
+      return triple;
+    }
+  }
+}
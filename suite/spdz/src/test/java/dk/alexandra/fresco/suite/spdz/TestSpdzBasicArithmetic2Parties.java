@@ -117,6 +117,18 @@ public class TestSpdzBasicArithmetic2Parties extends AbstractSpdzTest {
         PreprocessingStrategy.DUMMY, 2, false, 256, 128, 16);
   }
 
+  @Test
+  public void testVectorizedMultAndOpen() {
+    runTest(new BasicArithmeticTests.TestVectorizedMultAndOpen<>(),
+        EvaluationStrategy.SEQUENTIAL_BATCHED, PreprocessingStrategy.DUMMY, 2);
+  }
+
+  @Test
+  public void testVectorizedMultAndOpenMascot() {
+    runTest(new BasicArithmeticTests.TestVectorizedMultAndOpen<>(), EvaluationStrategy.SEQUENTIAL,
+        PreprocessingStrategy.MASCOT, 2, 16, 16, 16);
+  }
+
   @Test
   public void testOpenWithConversionMascot() {
     runTest(new BasicArithmeticTests.TestOpenWithConversion<>(), EvaluationStrategy.SEQUENTIAL,
@@ -41,6 +41,24 @@ public class TestSpdzBasicArithmetic3Parties extends AbstractSpdzTest {
         PreprocessingStrategy.DUMMY, 3);
   }
 
+  @Test
+  public void testVectorizedMultAndOpen() {
+    runTest(new BasicArithmeticTests.TestVectorizedMultAndOpen<>(),
+        EvaluationStrategy.SEQUENTIAL_BATCHED, PreprocessingStrategy.DUMMY, 3);
+  }
+
+  @Test
+  public void test_Lots_Of_Mults_Parallel_Batched() {
+    runTest(new BasicArithmeticTests.TestLotsMult<>(), EvaluationStrategy.PARALLEL_BATCHED,
+        PreprocessingStrategy.DUMMY, 3);
+  }
+
+  @Test
+  public void testVectorizedMultAndOpenParallelBatched() {
+    runTest(new BasicArithmeticTests.TestVectorizedMultAndOpen<>(),
+        EvaluationStrategy.PARALLEL_BATCHED, PreprocessingStrategy.DUMMY, 3);
+  }
+
   @Test
   public void test_Alternating_Sequential() {
     runTest(new BasicArithmeticTests.TestAlternatingMultAdd<>(), EvaluationStrategy.SEQUENTIAL,
@@ -59,6 +77,18 @@ public class TestSpdzBasicArithmetic3Parties extends AbstractSpdzTest {
         PreprocessingStrategy.DUMMY, 3);
   }
 
+  @Test
+  public void test_Alternating_Parallel_Batched() {
+    runTest(new BasicArithmeticTests.TestAlternatingMultAdd<>(),
+        EvaluationStrategy.PARALLEL_BATCHED, PreprocessingStrategy.DUMMY, 3);
+  }
+
+  @Test
+  public void testInputFromAllParallelBatched() {
+    runTest(new BasicArithmeticTests.TestInputFromAll<>(), EvaluationStrategy.PARALLEL_BATCHED,
+        PreprocessingStrategy.DUMMY, 3);
+  }
+
   @Test
   public void testInputFromAllMascot() {
     runTest(new BasicArithmeticTests.TestInputFromAll<>(), EvaluationStrategy.SEQUENTIAL_BATCHED,
@@ -4,6 +4,8 @@ import dk.alexandra.fresco.framework.MaliciousException;
 import dk.alexandra.fresco.framework.ProtocolCollection;
 import dk.alexandra.fresco.framework.ProtocolProducer;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.lib.helper.SequentialProtocolProducer;
 import dk.alexandra.fresco.lib.helper.SingleProtocolProducer;
 import dk.alexandra.fresco.suite.spdz.datatypes.SpdzCommitment;
@@ -19,6 +21,9 @@ import java.util.Map;
 
 public class MaliciousSpdzMacCheckProtocol implements ProtocolProducer {
 
+  private static final int SEED_LENGTH = 32;
+  private static final int COEFFICIENT_BLOCK_SIZE = 1024;
+
   private SecureRandom rand;
   private MessageDigest digest;
   private List<BigInteger> as;
@@ -87,26 +92,29 @@ public class MaliciousSpdzMacCheckProtocol implements ProtocolProducer {
 
         int t = as.size();
 
-        BigInteger[] rs = new BigInteger[t];
-        BigInteger temporaryR = s;
-        for (int i = 0; i < t; i++) {
-          temporaryR = new BigInteger(digest.digest(temporaryR.toByteArray())).mod(modulus);
-          rs[i] = temporaryR;
-        }
-        BigInteger a = BigInteger.ZERO;
-        int index = 0;
-        for (BigInteger aa : as) {
-          a = a.add(aa.multiply(rs[index++])).mod(modulus);
-        }
-
         List<SpdzElement> closedValues = storage.getClosedValues();
-        // compute gamma_i as the sum of all MAC's on the opened values times
-        // r_j.
+        // Expand the r's from a PRG seeded by the common random value exactly as
+        // SpdzMacCheckProtocol does, so only the injected corruption makes the check fail
+        Drbg coefficients = new PaddingAesCtrDrbg(
+            Arrays.copyOf(digest.digest(s.toByteArray()), SEED_LENGTH));
+        int coefficientLength = modulus.bitLength() / Byte.SIZE + 1;
+        byte[] block = new byte[Math.min(t, COEFFICIENT_BLOCK_SIZE) * coefficientLength];
+        // compute a as the sum of the opened values and gamma_i as the sum of all MAC's on the
+        // opened values, both times r_j.
+        BigInteger a = BigInteger.ZERO;
         BigInteger gamma = BigInteger.ZERO;
-        index = 0;
-        for (SpdzElement c : closedValues) {
-          gamma = gamma.add(rs[index++].multiply(c.getMac())).mod(modulus);
+        for (int i = 0; i < t; i++) {
+          int offset = (i % COEFFICIENT_BLOCK_SIZE) * coefficientLength;
+          if (offset == 0) {
+            coefficients.nextBytes(block);
+          }
+          BigInteger r = new BigInteger(1,
+              Arrays.copyOfRange(block, offset, offset + coefficientLength));
+          a = a.add(as.get(i).multiply(r));
+          gamma = gamma.add(closedValues.get(i).getMac().multiply(r));
         }
+        a = a.mod(modulus);
+        gamma = gamma.mod(modulus);
 
         BigInteger alpha = storage.getSecretSharedKey();
         // compute delta_i as: gamma_i - alpha_i*a
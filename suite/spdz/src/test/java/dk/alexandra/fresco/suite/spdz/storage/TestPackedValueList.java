@@ -0,0 +1,61 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestPackedValueList {
+
+  private static final BigInteger MODULUS =
+      BigInteger.ONE.shiftLeft(256).subtract(BigInteger.valueOf(189));
+
+  @Test
+  public void testAddAndGet() {
+    Random random = new Random(42);
+    PackedValueList packed = new PackedValueList(MODULUS);
+    List<BigInteger> expected = new ArrayList<>();
+    // enough values to grow the backing array a few times
+    for (int i = 0; i < 5000; i++) {
+      BigInteger value = new BigInteger(MODULUS.bitLength(), random).mod(MODULUS);
+      packed.add(value);
+      expected.add(value);
+    }
+    packed.add(BigInteger.ZERO);
+    expected.add(BigInteger.ZERO);
+    packed.add(MODULUS.subtract(BigInteger.ONE));
+    expected.add(MODULUS.subtract(BigInteger.ONE));
+    assertEquals(expected, packed);
+  }
+
+  @Test
+  public void testValuesAreReduced() {
+    PackedValueList packed = new PackedValueList(MODULUS);
+    packed.add(BigInteger.ONE.negate());
+    packed.add(MODULUS.add(BigInteger.TEN));
+    assertEquals(MODULUS.subtract(BigInteger.ONE), packed.get(0));
+    assertEquals(BigInteger.TEN, packed.get(1));
+  }
+
+  @Test
+  public void testClear() {
+    PackedValueList packed = new PackedValueList(MODULUS);
+    packed.add(BigInteger.ONE);
+    packed.clear();
+    assertTrue(packed.isEmpty());
+    packed.add(BigInteger.TEN);
+    assertEquals(1, packed.size());
+    assertEquals(BigInteger.TEN, packed.get(0));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetOutOfBounds() {
+    PackedValueList packed = new PackedValueList(MODULUS);
+    packed.add(BigInteger.ONE);
+    packed.get(1);
+  }
+}
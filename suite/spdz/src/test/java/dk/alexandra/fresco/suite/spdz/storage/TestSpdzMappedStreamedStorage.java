@@ -0,0 +1,188 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import dk.alexandra.fresco.framework.sce.resources.storage.FilebasedStreamedStorageImpl;
+import dk.alexandra.fresco.framework.sce.resources.storage.InMemoryStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.StreamedStorage;
+import dk.alexandra.fresco.framework.sce.resources.storage.exceptions.NoMoreElementsException;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzSInt;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSpdzMappedStreamedStorage {
+
+  private static final BigInteger MODULUS = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+  private static final String NAME = SpdzStorageDataSupplier.STORAGE_FOLDER + "MAPPED_TEST";
+
+  private SpdzMappedStreamedStorage storage;
+  private Random random;
+
+  @Before
+  public void setup() {
+    new File(SpdzStorageDataSupplier.STORAGE_FOLDER).mkdirs();
+    // A small window forces records to be read from several mapped windows
+    storage = new SpdzMappedStreamedStorage(new InMemoryStorage(), 100);
+    random = new Random(42);
+  }
+
+  @After
+  public void teardown() throws IOException {
+    storage.shutdown();
+    InitializeStorage.cleanup();
+  }
+
+  private SpdzElement element() {
+    return new SpdzElement(new BigInteger(127, random).mod(MODULUS),
+        new BigInteger(127, random).mod(MODULUS), MODULUS);
+  }
+
+  private SpdzTriple triple() {
+    return new SpdzTriple(element(), element(), element());
+  }
+
+  @Test
+  public void testTriples() throws Exception {
+    SpdzTriple[] triples = new SpdzTriple[100];
+    for (int i = 0; i < triples.length; i++) {
+      triples[i] = triple();
+      storage.putNext(NAME, triples[i]);
+    }
+    storage.putNext(NAME, new SpdzTriple(new SpdzElement(BigInteger.ZERO, BigInteger.ONE, MODULUS),
+        element(), element()));
+    for (SpdzTriple triple : triples) {
+      assertEquals(triple, storage.getNext(NAME));
+    }
+    SpdzTriple small = storage.getNext(NAME);
+    assertEquals(BigInteger.ZERO, small.getA().getShare());
+    assertEquals(BigInteger.ONE, small.getA().getMac());
+  }
+
+  @Test
+  public void testInputMasks() throws Exception {
+    SpdzElement first = element();
+    SpdzElement second = element();
+    storage.putNext(NAME, new SpdzInputMask(first, BigInteger.TEN));
+    storage.putNext(NAME, new SpdzInputMask(second));
+    SpdzInputMask mask = storage.getNext(NAME);
+    assertEquals(first, mask.getMask());
+    assertEquals(BigInteger.TEN, mask.getRealValue());
+    mask = storage.getNext(NAME);
+    assertEquals(second, mask.getMask());
+    assertNull(mask.getRealValue());
+  }
+
+  @Test
+  public void testBitsAndExpPipes() throws Exception {
+    SpdzSInt bit = new SpdzSInt(element());
+    SpdzSInt[] pipe = new SpdzSInt[10];
+    for (int i = 0; i < pipe.length; i++) {
+      pipe[i] = new SpdzSInt(element());
+    }
+    storage.putNext(NAME + "BIT", bit);
+    storage.putNext(NAME + "EXP", pipe);
+    storage.putNext(NAME + "EXP", pipe);
+    assertEquals(bit, storage.getNext(NAME + "BIT"));
+    assertArrayEquals(pipe, storage.<SpdzSInt[]>getNext(NAME + "EXP"));
+    assertArrayEquals(pipe, storage.<SpdzSInt[]>getNext(NAME + "EXP"));
+  }
+
+  @Test
+  public void testBigIntegers() throws Exception {
+    BigInteger large = BigInteger.ONE.shiftLeft(1000);
+    storage.putNext(NAME, MODULUS);
+    storage.putNext(NAME, BigInteger.valueOf(-5));
+    storage.putNext(NAME, large);
+    assertEquals(MODULUS, storage.getNext(NAME));
+    assertEquals(BigInteger.valueOf(-5), storage.getNext(NAME));
+    assertEquals(large, storage.getNext(NAME));
+  }
+
+  @Test
+  public void testReadWrittenByOtherStorage() throws Exception {
+    SpdzTriple triple = triple();
+    storage.putNext(NAME, triple);
+    storage.shutdown();
+    StreamedStorage other = new SpdzMappedStreamedStorage(new InMemoryStorage());
+    assertEquals(triple, other.getNext(NAME));
+    other.shutdown();
+  }
+
+  @Test(expected = NoMoreElementsException.class)
+  public void testNoMoreElements() throws Exception {
+    storage.putNext(NAME, triple());
+    storage.getNext(NAME);
+    storage.getNext(NAME);
+  }
+
+  @Test(expected = NoMoreElementsException.class)
+  public void testMissingFile() throws Exception {
+    storage.getNext(NAME + "MISSING");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMixedTypes() {
+    storage.putNext(NAME, triple());
+    storage.putNext(NAME, new SpdzSInt(element()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValueOutOfRange() {
+    storage.putNext(NAME, new SpdzSInt(new SpdzElement(BigInteger.ONE.negate(), BigInteger.ONE,
+        MODULUS)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnconvertedFile() throws Exception {
+    StreamedStorage fileStorage = new FilebasedStreamedStorageImpl(new InMemoryStorage());
+    fileStorage.putNext(NAME, triple());
+    fileStorage.shutdown();
+    storage.getNext(NAME);
+  }
+
+  @Test
+  public void testConvert() throws Exception {
+    StreamedStorage fileStorage = new FilebasedStreamedStorageImpl(new InMemoryStorage());
+    SpdzTriple[] triples = new SpdzTriple[10];
+    for (int i = 0; i < triples.length; i++) {
+      triples[i] = triple();
+      fileStorage.putNext(NAME, triples[i]);
+    }
+    fileStorage.shutdown();
+    assertEquals(triples.length, SpdzMappedStreamedStorage.convert(NAME, NAME));
+    for (SpdzTriple triple : triples) {
+      assertEquals(triple, storage.getNext(NAME));
+    }
+  }
+
+  @Test
+  public void testSupplierOnConvertedStorage() throws Exception {
+    StreamedStorage fileStorage = new FilebasedStreamedStorageImpl(new InMemoryStorage());
+    InitializeStorage.initStreamedStorage(fileStorage, 2, 1, 10, 10, 10, 1);
+    fileStorage.shutdown();
+    for (File file : new File(SpdzStorageDataSupplier.STORAGE_FOLDER).listFiles()) {
+      SpdzMappedStreamedStorage.convert(file.getPath(), file.getPath());
+    }
+    String storageName = SpdzStorageDataSupplier.STORAGE_NAME_PREFIX + "1_1_0_";
+    SpdzDataSupplier supplier = new SpdzStorageDataSupplier(storage, storageName, 2);
+    BigInteger modulus = supplier.getModulus();
+    supplier.getSecretSharedKey();
+    for (int i = 0; i < 10; i++) {
+      assertEquals(modulus, supplier.getNextTriple().getA().getModulus());
+      supplier.getNextInputMask(1);
+      supplier.getNextInputMask(2);
+      supplier.getNextBit();
+    }
+    assertEquals(FakeTripGen.EXP_PIPE_SIZE, supplier.getNextExpPipe().length);
+  }
+}
@@ -0,0 +1,210 @@
+package dk.alexandra.fresco.suite.spdz.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.MultiplexedNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.async.AsyncNetwork;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzElement;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzInputMask;
+import dk.alexandra.fresco.suite.spdz.datatypes.SpdzTriple;
+import dk.alexandra.fresco.tools.mascot.field.FieldElement;
+import dk.alexandra.fresco.tools.ot.base.DummyOt;
+import dk.alexandra.fresco.tools.ot.base.Ot;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.Test;
+
+public class TestSpdzPrefetchingDataSupplier {
+
+  private static final BigInteger MODULUS = ModulusFinder.findSuitableModulus(64);
+
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    while (!condition.getAsBoolean()) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static long logged(SpdzPrefetchingDataSupplier supplier, String key) {
+    return supplier.getLoggedValues().get(key);
+  }
+
+  @Test(timeout = 10000)
+  public void testSuppliesMaterial() {
+    SpdzPrefetchingDataSupplier supplier = new SpdzPrefetchingDataSupplier(
+        new SpdzDummyDataSupplier(1, 2, MODULUS, BigInteger.ONE, 10),
+        producer -> new SpdzDummyDataSupplier(1, 2, MODULUS, BigInteger.ONE), 2, 2, 8);
+    for (int i = 0; i < 20; i++) {
+      assertNotNull(supplier.getNextTriple());
+      assertNotNull(supplier.getNextBit());
+      assertNotNull(supplier.getNextRandomFieldElement());
+      assertNotNull(supplier.getNextInputMask(1).getRealValue());
+      assertNull(supplier.getNextInputMask(2).getRealValue());
+    }
+    assertEquals(11, supplier.getNextExpPipe().length);
+    assertEquals(MODULUS, supplier.getModulus());
+    assertEquals(BigInteger.ONE, supplier.getSecretSharedKey());
+    supplier.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testWatermarks() throws Exception {
+    AtomicInteger produced = new AtomicInteger();
+    SpdzPrefetchingDataSupplier supplier = new SpdzPrefetchingDataSupplier(
+        new SpdzDummyDataSupplier(1, 1, MODULUS),
+        producer -> new SpdzDummyDataSupplier(1, 1, MODULUS) {
+          @Override
+          public SpdzTriple getNextTriple() {
+            produced.incrementAndGet();
+            return super.getNextTriple();
+          }
+        }, 1, 2, 10);
+    String depth = SpdzPrefetchingDataSupplier.TRIPLE + SpdzPrefetchingDataSupplier.QUEUE_DEPTH;
+    awaitTrue(() -> logged(supplier, depth) == 10);
+    for (int i = 0; i < 7; i++) {
+      supplier.getNextTriple();
+    }
+    Thread.sleep(100);
+    // Still above the low watermark, so nothing more is produced
+    assertEquals(10, produced.get());
+    assertEquals(3, logged(supplier, depth));
+    supplier.getNextTriple();
+    awaitTrue(() -> logged(supplier, depth) == 10);
+    assertEquals(18, produced.get());
+    assertEquals(18, logged(supplier,
+        SpdzPrefetchingDataSupplier.TRIPLE + SpdzPrefetchingDataSupplier.PRODUCED));
+    supplier.reset();
+    assertEquals(0, logged(supplier,
+        SpdzPrefetchingDataSupplier.TRIPLE + SpdzPrefetchingDataSupplier.PRODUCED));
+    supplier.close();
+  }
+
+  @Test(timeout = 10000, expected = IllegalStateException.class)
+  public void testProducerFailure() {
+    SpdzPrefetchingDataSupplier supplier = new SpdzPrefetchingDataSupplier(
+        new SpdzDummyDataSupplier(1, 1, MODULUS),
+        producer -> new SpdzDummyDataSupplier(1, 1, MODULUS) {
+          @Override
+          public SpdzTriple getNextTriple() {
+            throw new RuntimeException("Failed");
+          }
+        }, 1, 2, 10);
+    supplier.getNextTriple();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalWatermarks() {
+    new SpdzPrefetchingDataSupplier(new SpdzDummyDataSupplier(1, 1, MODULUS),
+        producer -> new SpdzDummyDataSupplier(1, 1, MODULUS), 1, 4, 4);
+  }
+
+  private Map<Integer, RotList> seedOts(int myId, int noOfParties, Drbg drbg,
+      Network network) {
+    Map<Integer, RotList> seedOts = new HashMap<>();
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (myId != otherId) {
+        Ot ot = new DummyOt(otherId, network);
+        RotList currentSeedOts = new RotList(drbg, 256);
+        if (myId < otherId) {
+          currentSeedOts.send(ot);
+          currentSeedOts.receive(ot);
+        } else {
+          currentSeedOts.receive(ot);
+          currentSeedOts.send(ot);
+        }
+        seedOts.put(otherId, currentSeedOts);
+      }
+    }
+    return seedOts;
+  }
+
+  private static BigInteger sum(List<SpdzElement> elements, boolean macs) {
+    BigInteger sum = BigInteger.ZERO;
+    for (SpdzElement element : elements) {
+      sum = sum.add(macs ? element.getMac() : element.getShare());
+    }
+    return sum.mod(MODULUS);
+  }
+
+  @Test(timeout = 120000)
+  public void testMascot() throws Exception {
+    int noOfParties = 2;
+    int noOfTriples = 20;
+    Map<Integer, NetworkConfiguration> confs =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    ExecutorService executor = Executors.newFixedThreadPool(noOfParties);
+    List<Future<List<SpdzTriple>>> futures = new ArrayList<>();
+    List<FieldElement> ssks = new ArrayList<>();
+    for (int i = 1; i <= noOfParties; i++) {
+      int myId = i;
+      FieldElement ssk = SpdzMascotDataSupplier.createRandomSsk(MODULUS, 256);
+      ssks.add(ssk);
+      futures.add(executor.submit(() -> {
+        // Channel 0 is used for the seed OTs, and the rest by the producers
+        MultiplexedNetwork network =
+            new MultiplexedNetwork(new AsyncNetwork(confs.get(myId)), 4 + noOfParties);
+        byte[] seed = new byte[32];
+        new Random(myId).nextBytes(seed);
+        Drbg drbg = new PaddingAesCtrDrbg(seed);
+        Map<Integer, RotList> seedOts =
+            seedOts(myId, noOfParties, drbg, network.getChannel(0));
+        SpdzPrefetchingDataSupplier supplier = SpdzMascotDataSupplier.createPrefetchingSupplier(
+            myId, noOfParties, producer -> network.getChannel(producer + 1),
+            MODULUS.bitLength(), MODULUS, null, seedOts, drbg, ssk, 8, 4, 16);
+        List<SpdzTriple> triples = new ArrayList<>();
+        for (int j = 0; j < noOfTriples; j++) {
+          triples.add(supplier.getNextTriple());
+        }
+        SpdzInputMask mask = supplier.getNextInputMask(1);
+        assertEquals(myId == 1, mask.getRealValue() != null);
+        supplier.getNextBit();
+        Map<String, Long> values = supplier.getLoggedValues();
+        assertTrue(values.get(
+            SpdzPrefetchingDataSupplier.TRIPLE + SpdzPrefetchingDataSupplier.PRODUCED)
+            >= noOfTriples);
+        supplier.close();
+        network.close();
+        return triples;
+      }));
+    }
+    List<List<SpdzTriple>> results = new ArrayList<>();
+    for (Future<List<SpdzTriple>> future : futures) {
+      results.add(future.get());
+    }
+    executor.shutdown();
+    BigInteger macKey = BigInteger.ZERO;
+    for (FieldElement ssk : ssks) {
+      macKey = macKey.add(ssk.toBigInteger());
+    }
+    for (int j = 0; j < noOfTriples; j++) {
+      List<SpdzElement> a = new ArrayList<>();
+      List<SpdzElement> b = new ArrayList<>();
+      List<SpdzElement> c = new ArrayList<>();
+      for (List<SpdzTriple> triples : results) {
+        a.add(triples.get(j).getA());
+        b.add(triples.get(j).getB());
+        c.add(triples.get(j).getC());
+      }
+      assertEquals(sum(a, false).multiply(sum(b, false)).mod(MODULUS), sum(c, false));
+      assertEquals(sum(c, false).multiply(macKey).mod(MODULUS), sum(c, true));
+    }
+  }
+}
@@ -2,6 +2,9 @@ package dk.alexandra.fresco.suite.spdz2k;
 
 import dk.alexandra.fresco.framework.builder.numeric.BuilderFactoryNumeric;
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BackgroundProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
+import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
 import dk.alexandra.fresco.lib.field.integer.BasicNumericContext;
 import dk.alexandra.fresco.suite.ProtocolSuiteNumeric;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
@@ -10,6 +13,9 @@ import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt;
 import dk.alexandra.fresco.suite.spdz2k.protocols.computations.Spdz2kMacCheckComputation;
 import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
 import dk.alexandra.fresco.suite.spdz2k.synchronization.Spdz2kRoundSynchronization;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * The SPDZ2k protocol suite. <p>This suite works with ring elements. Each ring element, represented
@@ -27,9 +33,10 @@ public abstract class Spdz2kProtocolSuite<
     HighT extends UInt<HighT>,
     LowT extends UInt<LowT>,
     PlainT extends CompUInt<HighT, LowT, PlainT>>
-    implements ProtocolSuiteNumeric<Spdz2kResourcePool<PlainT>> {
+    implements ProtocolSuiteNumeric<Spdz2kResourcePool<PlainT>>, Closeable {
 
   private final CompUIntConverter<HighT, LowT, PlainT> converter;
+  private final BackgroundProtocolEvaluator<Spdz2kResourcePool<PlainT>> backgroundEvaluator;
 
   /**
    * Constructs new {@link Spdz2kProtocolSuite}.
@@ -40,6 +47,23 @@ public abstract class Spdz2kProtocolSuite<
    */
   Spdz2kProtocolSuite(CompUIntConverter<HighT, LowT, PlainT> converter) {
     this.converter = converter;
+    this.backgroundEvaluator = null;
+  }
+
+  /**
+   * Constructs new {@link Spdz2kProtocolSuite} which runs mac-checks triggered by the number of
+   * opened values in the background, on a separate network. <p>Only protocols requiring a
+   * mac-check wait for these checks to pass.</p>
+   *
+   * @param converter see {@link #Spdz2kProtocolSuite(CompUIntConverter)}
+   * @param macCheckNetworkSupplier supplier for the network to run background mac-checks on
+   */
+  Spdz2kProtocolSuite(CompUIntConverter<HighT, LowT, PlainT> converter,
+      Supplier<Network> macCheckNetworkSupplier) {
+    this.converter = converter;
+    this.backgroundEvaluator = new BackgroundProtocolEvaluator<>(
+        new BatchedProtocolEvaluator<>(new BatchedStrategy<>(), this, 128),
+        macCheckNetworkSupplier);
   }
 
   @Override
@@ -49,7 +73,7 @@ public abstract class Spdz2kProtocolSuite<
 
   @Override
   public RoundSynchronization<Spdz2kResourcePool<PlainT>> createRoundSynchronization() {
-    return new Spdz2kRoundSynchronization<>(this, converter);
+    return new Spdz2kRoundSynchronization<>(this, converter, backgroundEvaluator);
   }
 
   public BasicNumericContext createBasicNumericContext(Spdz2kResourcePool<PlainT> resourcePool) {
@@ -58,4 +82,14 @@ public abstract class Spdz2kProtocolSuite<
         resourcePool.getNoOfParties());
   }
 
+  /**
+   * Stops the background mac-checks, if any, and closes their network.
+   */
+  @Override
+  public void close() throws IOException {
+    if (backgroundEvaluator != null) {
+      backgroundEvaluator.close();
+    }
+  }
+
 }
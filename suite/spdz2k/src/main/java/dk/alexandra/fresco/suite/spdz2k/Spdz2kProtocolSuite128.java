@@ -1,8 +1,10 @@
 package dk.alexandra.fresco.suite.spdz2k;
 
+import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntConverter128;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt64;
+import java.util.function.Supplier;
 
 /**
  * Protocol suite using {@link CompUInt128} as the underlying plain-value type.
@@ -13,4 +15,13 @@ public class Spdz2kProtocolSuite128 extends Spdz2kProtocolSuite<UInt64, UInt64,
     super(new CompUIntConverter128());
   }
 
+  /**
+   * Creates a suite which runs mac-checks in the background on a separate network.
+   *
+   * @param macCheckNetworkSupplier supplier for the network to run background mac-checks on
+   */
+  public Spdz2kProtocolSuite128(Supplier<Network> macCheckNetworkSupplier) {
+    super(new CompUIntConverter128(), macCheckNetworkSupplier);
+  }
+
 }
@@ -182,6 +182,19 @@ public class CompUInt128 implements CompUInt<UInt64, UInt64, CompUInt128> {
     return 64;
   }
 
+  @Override
+  public UIntAccumulator<CompUInt128> newAccumulator() {
+    return new Accumulator();
+  }
+
+  /**
+   * Creates a packed vector from the concatenated big-endian representations of its elements, each
+   * of the given length.
+   */
+  static CompUIntVector<CompUInt128> createVector(byte[] bytes, int elementLength) {
+    return new Vector(bytes, elementLength);
+  }
+
   @Override
   public String toString() {
     return toBigInteger().toString();
@@ -190,22 +203,28 @@ public class CompUInt128 implements CompUInt<UInt64, UInt64, CompUInt128> {
   @Override
   public byte[] toByteArray() {
     byte[] bytes = new byte[16];
-    toByteArray(bytes, 0, low);
-    toByteArray(bytes, 4, mid);
-    toByteArrayLong(bytes, 8, high);
+    toByteArray(bytes, 0);
     return bytes;
   }
 
-  private void toByteArrayLong(byte[] bytes, int start, long value) {
-    int offset = bytes.length - start - 1;
+  @Override
+  public void toByteArray(byte[] bytes, int offset) {
+    int end = offset + 16;
+    toByteArray(bytes, end, 0, low);
+    toByteArray(bytes, end, 4, mid);
+    toByteArrayLong(bytes, end, 8, high);
+  }
+
+  private void toByteArrayLong(byte[] bytes, int end, int start, long value) {
+    int offset = end - start - 1;
     for (int i = 0; i < 8; i++) {
       bytes[offset - i] = (byte) (value & 0xFF);
       value >>>= 8;
     }
   }
 
-  private void toByteArray(byte[] bytes, int start, int value) {
-    int offset = bytes.length - start - 1;
+  private void toByteArray(byte[] bytes, int end, int start, int value) {
+    int offset = end - start - 1;
     for (int i = 0; i < 4; i++) {
       bytes[offset - i] = (byte) (value & 0xFF);
       value >>>= 8;
@@ -232,4 +251,51 @@ public class CompUInt128 implements CompUInt<UInt64, UInt64, CompUInt128> {
         | (bytes[flipped - 3] & 0xFF) << 24;
   }
 
+  private static final class Accumulator extends LongPairAccumulator<CompUInt128> {
+
+    @Override
+    public void add(CompUInt128 value) {
+      addLimbs(value.high, value.toLong());
+    }
+
+    @Override
+    public void addProduct(CompUInt128 left, CompUInt128 right) {
+      addProductLimbs(left.high, left.toLong(), right.high, right.toLong());
+    }
+
+    @Override
+    public CompUInt128 get() {
+      return new CompUInt128(high, (int) (low >>> 32), (int) low);
+    }
+
+  }
+
+  private static final class Vector extends LongPairVector<CompUInt128> {
+
+    Vector(byte[] bytes, int elementLength) {
+      super(bytes, elementLength, 16);
+    }
+
+    @Override
+    long getHigh(CompUInt128 value) {
+      return value.high;
+    }
+
+    @Override
+    long getLow(CompUInt128 value) {
+      return value.toLong();
+    }
+
+    @Override
+    CompUInt128 fromLimbs(long high, long low) {
+      return new CompUInt128(high, (int) (low >>> 32), (int) low);
+    }
+
+    @Override
+    LongPairAccumulator<CompUInt128> newAccumulator() {
+      return new Accumulator();
+    }
+
+  }
+
 }
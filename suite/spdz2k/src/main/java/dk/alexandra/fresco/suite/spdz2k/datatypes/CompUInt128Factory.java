@@ -22,6 +22,11 @@ public class CompUInt128Factory implements CompUIntFactory<CompUInt128> {
     return createFromBytes(bytes);
   }
 
+  @Override
+  public CompUIntVector<CompUInt128> createVector(byte[] bytes, int elementLength) {
+    return CompUInt128.createVector(bytes, elementLength);
+  }
+
   @Override
   public ByteSerializer<CompUInt128> createSerializer() {
     return new UIntSerializer<>(this);
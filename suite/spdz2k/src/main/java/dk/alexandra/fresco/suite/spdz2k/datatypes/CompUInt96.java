@@ -171,6 +171,19 @@ public class CompUInt96 implements CompUInt<UInt64, UInt32, CompUInt96> {
     return 64;
   }
 
+  @Override
+  public UIntAccumulator<CompUInt96> newAccumulator() {
+    return new Accumulator();
+  }
+
+  /**
+   * Creates a packed vector from the concatenated big-endian representations of its elements, each
+   * of the given length.
+   */
+  static CompUIntVector<CompUInt96> createVector(byte[] bytes, int elementLength) {
+    return new Vector(bytes, elementLength);
+  }
+
   @Override
   public String toString() {
     return toBigInteger().toString();
@@ -192,4 +205,69 @@ public class CompUInt96 implements CompUInt<UInt64, UInt32, CompUInt96> {
     return buffer.array();
   }
 
+  @Override
+  public void toByteArray(byte[] bytes, int offset) {
+    toByteArray(bytes, offset, high);
+    toByteArray(bytes, offset + 4, mid);
+    toByteArray(bytes, offset + 8, low);
+  }
+
+  private static void toByteArray(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+
+  /**
+   * Accumulates modulo 2^128 and truncates to 96 bits when done.
+   */
+  private static final class Accumulator extends LongPairAccumulator<CompUInt96> {
+
+    @Override
+    public void add(CompUInt96 value) {
+      addLimbs(UInt.toUnLong(value.high), value.toLong());
+    }
+
+    @Override
+    public void addProduct(CompUInt96 left, CompUInt96 right) {
+      addProductLimbs(UInt.toUnLong(left.high), left.toLong(),
+          UInt.toUnLong(right.high), right.toLong());
+    }
+
+    @Override
+    public CompUInt96 get() {
+      return new CompUInt96((int) high, (int) (low >>> 32), (int) low);
+    }
+
+  }
+
+  private static final class Vector extends LongPairVector<CompUInt96> {
+
+    Vector(byte[] bytes, int elementLength) {
+      super(bytes, elementLength, 12);
+    }
+
+    @Override
+    long getHigh(CompUInt96 value) {
+      return UInt.toUnLong(value.high);
+    }
+
+    @Override
+    long getLow(CompUInt96 value) {
+      return value.toLong();
+    }
+
+    @Override
+    CompUInt96 fromLimbs(long high, long low) {
+      return new CompUInt96((int) high, (int) (low >>> 32), (int) low);
+    }
+
+    @Override
+    LongPairAccumulator<CompUInt96> newAccumulator() {
+      return new Accumulator();
+    }
+
+  }
+
 }
@@ -20,6 +20,11 @@ public class CompUInt96Factory implements CompUIntFactory<CompUInt96> {
     return createFromBytes(bytes);
   }
 
+  @Override
+  public CompUIntVector<CompUInt96> createVector(byte[] bytes, int elementLength) {
+    return CompUInt96.createVector(bytes, elementLength);
+  }
+
   @Override
   public ByteSerializer<CompUInt96> createSerializer() {
     return new UIntSerializer<>(this);
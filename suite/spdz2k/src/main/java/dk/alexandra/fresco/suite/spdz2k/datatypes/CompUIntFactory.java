@@ -2,6 +2,9 @@ package dk.alexandra.fresco.suite.spdz2k.datatypes;
 
 import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Factory for {@link CompT} instances.
@@ -13,6 +16,25 @@ public interface CompUIntFactory<CompT extends CompUInt<?, ?, CompT>> {
    */
   CompT createFromBytes(byte[] bytes);
 
+  /**
+   * Creates a vector of {@link CompT} from the concatenated big-endian representations of its
+   * elements, each of which is interpreted as by {@link #createFromBytes(byte[])}.
+   *
+   * @param bytes the element representations
+   * @param elementLength the number of bytes representing each element
+   */
+  default CompUIntVector<CompT> createVector(byte[] bytes, int elementLength) {
+    if (bytes.length % elementLength != 0) {
+      throw new IllegalArgumentException(
+          "Total number of bytes must be a multiple of length of single element");
+    }
+    List<CompT> elements = new ArrayList<>(bytes.length / elementLength);
+    for (int offset = 0; offset < bytes.length; offset += elementLength) {
+      elements.add(createFromBytes(Arrays.copyOfRange(bytes, offset, offset + elementLength)));
+    }
+    return new ListCompUIntVector<>(elements);
+  }
+
   /**
    * Creates random {@link CompT}.
    */
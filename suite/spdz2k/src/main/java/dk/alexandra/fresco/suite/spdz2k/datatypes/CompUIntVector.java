@@ -0,0 +1,34 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.util.List;
+
+/**
+ * Fixed-size vector of {@link CompT} elements. <p>Implementations for types of at most 128 bits
+ * store their elements packed in an array of primitives, so that holding and computing on large
+ * vectors does not require one object per element.</p>
+ */
+public interface CompUIntVector<CompT extends CompUInt<?, ?, CompT>> {
+
+  /**
+   * Returns the number of elements in this vector.
+   */
+  int size();
+
+  /**
+   * Returns the element at the given index.
+   */
+  CompT get(int index);
+
+  /**
+   * Computes the inner product of this vector and the given values, which must have the same
+   * size. <p>The products are added up in place without creating intermediate elements.</p>
+   */
+  CompT innerProduct(List<CompT> values);
+
+  /**
+   * Writes the big-endian representations of all elements, one after the other, to the given
+   * array starting at the given offset.
+   */
+  void toByteArray(byte[] bytes, int offset);
+
+}
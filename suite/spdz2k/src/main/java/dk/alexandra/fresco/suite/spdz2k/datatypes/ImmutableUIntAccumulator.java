@@ -0,0 +1,30 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+/**
+ * Default {@link UIntAccumulator} which accumulates by calling the operations of the immutable
+ * values.
+ */
+class ImmutableUIntAccumulator<T extends UInt<T>> implements UIntAccumulator<T> {
+
+  private T sum;
+
+  ImmutableUIntAccumulator(T zero) {
+    this.sum = zero;
+  }
+
+  @Override
+  public void add(T value) {
+    sum = sum.add(value);
+  }
+
+  @Override
+  public void addProduct(T left, T right) {
+    sum = sum.add(left.multiply(right));
+  }
+
+  @Override
+  public T get() {
+    return sum;
+  }
+
+}
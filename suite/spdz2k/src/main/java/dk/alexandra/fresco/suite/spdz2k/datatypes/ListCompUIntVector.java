@@ -0,0 +1,39 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.util.List;
+
+/**
+ * Default {@link CompUIntVector} which stores its elements in a list.
+ */
+class ListCompUIntVector<CompT extends CompUInt<?, ?, CompT>> implements CompUIntVector<CompT> {
+
+  private final List<CompT> elements;
+
+  ListCompUIntVector(List<CompT> elements) {
+    this.elements = elements;
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public CompT get(int index) {
+    return elements.get(index);
+  }
+
+  @Override
+  public CompT innerProduct(List<CompT> values) {
+    return UInt.innerProduct(elements, values);
+  }
+
+  @Override
+  public void toByteArray(byte[] bytes, int offset) {
+    for (CompT element : elements) {
+      element.toByteArray(bytes, offset);
+      offset += element.getCompositeBitLength() / Byte.SIZE;
+    }
+  }
+
+}
@@ -0,0 +1,48 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+/**
+ * Base class for accumulators of types of at most 128 bits, which accumulate modulo 2^128 in two
+ * longs. Types of fewer bits truncate the result in {@link #get()}.
+ */
+abstract class LongPairAccumulator<T extends UInt<T>> implements UIntAccumulator<T> {
+
+  private static final long LOWER_HALF = 0xffffffffL;
+  long high;
+  long low;
+
+  /**
+   * Adds the 128-bit value high * 2^64 + low.
+   */
+  final void addLimbs(long otherHigh, long otherLow) {
+    long newLow = low + otherLow;
+    long carry = Long.compareUnsigned(newLow, low) < 0 ? 1L : 0L;
+    high += otherHigh + carry;
+    low = newLow;
+  }
+
+  /**
+   * Adds the product of the 128-bit values leftHigh * 2^64 + leftLow and rightHigh * 2^64 +
+   * rightLow, modulo 2^128.
+   */
+  final void addProductLimbs(long leftHigh, long leftLow, long rightHigh, long rightLow) {
+    addLimbs(
+        multiplyHighUnsigned(leftLow, rightLow) + leftHigh * rightLow + leftLow * rightHigh,
+        leftLow * rightLow);
+  }
+
+  /**
+   * Computes the 64 most significant bits of the unsigned 128-bit product of left and right.
+   */
+  static long multiplyHighUnsigned(long left, long right) {
+    long leftLow = left & LOWER_HALF;
+    long leftHigh = left >>> 32;
+    long rightLow = right & LOWER_HALF;
+    long rightHigh = right >>> 32;
+    long lowLow = leftLow * rightLow;
+    long lowHigh = leftLow * rightHigh;
+    long highLow = leftHigh * rightLow;
+    long middle = (lowLow >>> 32) + (lowHigh & LOWER_HALF) + (highLow & LOWER_HALF);
+    return leftHigh * rightHigh + (lowHigh >>> 32) + (highLow >>> 32) + (middle >>> 32);
+  }
+
+}
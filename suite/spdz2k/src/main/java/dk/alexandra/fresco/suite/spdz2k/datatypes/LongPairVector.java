@@ -0,0 +1,110 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.util.List;
+
+/**
+ * Base class for vectors of types of at most 128 bits, which stores each element as two longs,
+ * the 64 most significant bits followed by the 64 least significant bits, in a single array.
+ */
+abstract class LongPairVector<T extends CompUInt<?, ?, T>> implements CompUIntVector<T> {
+
+  private final long[] limbs;
+  private final int byteLength;
+
+  /**
+   * Creates a vector from the concatenated big-endian representations of its elements.
+   *
+   * @param bytes the element representations
+   * @param elementLength the number of bytes representing each element
+   * @param byteLength the number of bytes of the element type
+   */
+  LongPairVector(byte[] bytes, int elementLength, int byteLength) {
+    if (elementLength <= 0 || elementLength > byteLength) {
+      throw new IllegalArgumentException(
+          "Element length must be positive and at most " + byteLength + " bytes");
+    }
+    if (bytes.length % elementLength != 0) {
+      throw new IllegalArgumentException(
+          "Total number of bytes must be a multiple of length of single element");
+    }
+    this.byteLength = byteLength;
+    this.limbs = new long[2 * (bytes.length / elementLength)];
+    for (int i = 0; i < limbs.length; i += 2) {
+      int end = (i / 2 + 1) * elementLength;
+      long high = 0;
+      long low = 0;
+      for (int j = 0; j < elementLength; j++) {
+        long next = bytes[end - 1 - j] & 0xFFL;
+        if (j < Long.BYTES) {
+          low |= next << (Byte.SIZE * j);
+        } else {
+          high |= next << (Byte.SIZE * (j - Long.BYTES));
+        }
+      }
+      limbs[i] = high;
+      limbs[i + 1] = low;
+    }
+  }
+
+  /**
+   * Returns the 64 most significant bits of the value.
+   */
+  abstract long getHigh(T value);
+
+  /**
+   * Returns the 64 least significant bits of the value.
+   */
+  abstract long getLow(T value);
+
+  /**
+   * Creates an element from its 64 most and 64 least significant bits.
+   */
+  abstract T fromLimbs(long high, long low);
+
+  /**
+   * Creates an empty accumulator for the element type.
+   */
+  abstract LongPairAccumulator<T> newAccumulator();
+
+  @Override
+  public int size() {
+    return limbs.length / 2;
+  }
+
+  @Override
+  public T get(int index) {
+    return fromLimbs(limbs[2 * index], limbs[2 * index + 1]);
+  }
+
+  @Override
+  public T innerProduct(List<T> values) {
+    if (values.size() != size()) {
+      throw new IllegalArgumentException("Vectors must have the same size");
+    }
+    LongPairAccumulator<T> accumulator = newAccumulator();
+    for (int i = 0; i < values.size(); i++) {
+      T value = values.get(i);
+      accumulator.addProductLimbs(limbs[2 * i], limbs[2 * i + 1], getHigh(value), getLow(value));
+    }
+    return accumulator.get();
+  }
+
+  @Override
+  public void toByteArray(byte[] bytes, int offset) {
+    for (int i = 0; i < limbs.length; i += 2) {
+      int end = offset + (i / 2 + 1) * byteLength;
+      long high = limbs[i];
+      long low = limbs[i + 1];
+      for (int j = 0; j < byteLength; j++) {
+        if (j < Long.BYTES) {
+          bytes[end - 1 - j] = (byte) low;
+          low >>>= Byte.SIZE;
+        } else {
+          bytes[end - 1 - j] = (byte) high;
+          high >>>= Byte.SIZE;
+        }
+      }
+    }
+  }
+
+}
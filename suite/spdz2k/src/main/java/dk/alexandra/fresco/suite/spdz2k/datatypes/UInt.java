@@ -6,7 +6,7 @@ import java.util.List;
 /**
  * Interface for representing unsigned integers.
  */
-public interface UInt<T extends UInt> {
+public interface UInt<T extends UInt<T>> {
 
   /**
    * Compute sum of this and {@code other}.
@@ -60,22 +60,45 @@ public interface UInt<T extends UInt> {
    */
   int toInt();
 
+  /**
+   * Creates a new accumulator for sums of values of this type, initialized to zero. <p>The default
+   * accumulator uses the immutable operations of this type; types with a primitive representation
+   * override this to accumulate in place.</p>
+   */
+  @SuppressWarnings("unchecked")
+  default UIntAccumulator<T> newAccumulator() {
+    return new ImmutableUIntAccumulator<>(subtract((T) this));
+  }
+
+  /**
+   * Writes this into {@code bytes}, starting at {@code offset}. <p>Result is big-endian and takes
+   * up {@link #getBitLength()} / 8 bytes.</p>
+   */
+  default void toByteArray(byte[] bytes, int offset) {
+    byte[] own = toByteArray();
+    System.arraycopy(own, 0, bytes, offset, own.length);
+  }
+
   /**
    * Compute sum of elements.
    */
   static <S extends UInt<S>> S sum(List<S> elements) {
-    return elements.stream().reduce(UInt::add).orElse(elements.get(0));
+    UIntAccumulator<S> accumulator = elements.get(0).newAccumulator();
+    for (S element : elements) {
+      accumulator.add(element);
+    }
+    return accumulator.get();
   }
 
   /**
    * Compute inner product of elements.
    */
   static <S extends UInt<S>> S innerProduct(List<S> left, List<S> right) {
-    S accumulator = left.get(0).multiply(right.get(0));
-    for (int i = 1; i < left.size(); i++) {
-      accumulator = accumulator.add(left.get(i).multiply(right.get(i)));
+    UIntAccumulator<S> accumulator = left.get(0).newAccumulator();
+    for (int i = 0; i < left.size(); i++) {
+      accumulator.addProduct(left.get(i), right.get(i));
     }
-    return accumulator;
+    return accumulator.get();
   }
 
   /**
@@ -69,4 +69,31 @@ public class UInt64 implements UInt<UInt64> {
   public String toString() {
     return Long.toUnsignedString(value);
   }
+
+  @Override
+  public UIntAccumulator<UInt64> newAccumulator() {
+    return new Accumulator();
+  }
+
+  private static final class Accumulator implements UIntAccumulator<UInt64> {
+
+    private long sum;
+
+    @Override
+    public void add(UInt64 value) {
+      sum += value.value;
+    }
+
+    @Override
+    public void addProduct(UInt64 left, UInt64 right) {
+      sum += left.value * right.value;
+    }
+
+    @Override
+    public UInt64 get() {
+      return new UInt64(sum);
+    }
+
+  }
+
 }
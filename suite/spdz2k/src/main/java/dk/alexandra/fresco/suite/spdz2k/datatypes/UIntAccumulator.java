@@ -0,0 +1,25 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+/**
+ * Mutable accumulator for sums of {@link UInt} values. <p>Implementations for types with a
+ * primitive representation update their state in place, so summing many terms does not allocate
+ * an intermediate value per term.</p>
+ */
+public interface UIntAccumulator<T extends UInt<T>> {
+
+  /**
+   * Adds {@code value} to the accumulated sum.
+   */
+  void add(T value);
+
+  /**
+   * Adds the product of {@code left} and {@code right} to the accumulated sum.
+   */
+  void addProduct(T left, T right);
+
+  /**
+   * Returns the accumulated sum.
+   */
+  T get();
+
+}
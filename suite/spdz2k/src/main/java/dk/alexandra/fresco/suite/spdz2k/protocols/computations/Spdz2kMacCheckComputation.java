@@ -11,12 +11,13 @@ import dk.alexandra.fresco.framework.util.Pair;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntConverter;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntVector;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UIntAccumulator;
 import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
 import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kDataSupplier;
 import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kOpenedValueStore;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,7 +34,7 @@ public class Spdz2kMacCheckComputation<
   private final Spdz2kOpenedValueStore<PlainT> openedValueStore;
   private final ByteSerializer<PlainT> serializer;
   private final Spdz2kDataSupplier<PlainT> supplier;
-  private List<PlainT> randomCoefficients;
+  private CompUIntVector<PlainT> randomCoefficients;
   private ByteSerializer<HashBasedCommitment> commitmentSerializer;
   private final int noOfParties;
   private final Drbg localDrbg;
@@ -65,7 +66,7 @@ public class Spdz2kMacCheckComputation<
     List<Spdz2kSInt<PlainT>> authenticatedElements = opened.getFirst();
     List<PlainT> openValues = opened.getSecond();
     PlainT macKeyShare = supplier.getSecretSharedKey();
-    PlainT y = UInt.innerProduct(openValues, randomCoefficients);
+    PlainT y = randomCoefficients.innerProduct(openValues);
     Spdz2kSInt<PlainT> r = supplier.getNextRandomElementShare();
     return builder
         .seq(seq -> {
@@ -91,22 +92,18 @@ public class Spdz2kMacCheckComputation<
         });
   }
 
-  private HighT computePj(PlainT originalShare, PlainT randomCoefficient) {
-    HighT overflow = computeDifference(originalShare);
-    HighT randomCoefficientHigh = randomCoefficient.getLeastSignificantAsHigh();
-    return overflow.multiply(randomCoefficientHigh);
-  }
-
   private DRes<List<byte[]>> computePValues(ProtocolBuilderNumeric builder,
       List<Spdz2kSInt<PlainT>> authenticatedElements,
       Spdz2kSInt<PlainT> r) {
-    HighT pj = computePj(authenticatedElements.get(0).getShare(), randomCoefficients.get(0));
-    for (int i = 1; i < authenticatedElements.size(); i++) {
+    HighT rLow = r.getShare().getLeastSignificantAsHigh();
+    UIntAccumulator<HighT> pj = rLow.newAccumulator();
+    pj.add(rLow);
+    for (int i = 0; i < authenticatedElements.size(); i++) {
       PlainT share = authenticatedElements.get(i).getShare();
       PlainT randomCoefficient = randomCoefficients.get(i);
-      pj = pj.add(computePj(share, randomCoefficient));
+      pj.addProduct(computeDifference(share), randomCoefficient.getLeastSignificantAsHigh());
     }
-    byte[] pjBytes = pj.add(r.getShare().getLeastSignificantAsHigh()).toByteArray();
+    byte[] pjBytes = pj.get().toByteArray();
     return new BroadcastComputation<ProtocolBuilderNumeric>(pjBytes).buildComputation(builder);
   }
 
@@ -115,13 +112,15 @@ public class Spdz2kMacCheckComputation<
       PlainT macKeyShare, PlainT y, Spdz2kSInt<PlainT> r,
       List<byte[]> broadcastPjs) {
     List<PlainT> pjList = serializer.deserializeList(broadcastPjs);
-    HighT pLow = UInt.sum(
-        pjList.stream().map(PlainT::getLeastSignificantAsHigh).collect(Collectors.toList()));
+    UIntAccumulator<HighT> pLowSum = pjList.get(0).getLeastSignificantAsHigh().newAccumulator();
+    for (PlainT pjValue : pjList) {
+      pLowSum.add(pjValue.getLeastSignificantAsHigh());
+    }
+    HighT pLow = pLowSum.get();
     PlainT p = converter.createFromHigh(pLow);
-    List<PlainT> macShares = authenticatedElements.stream()
+    PlainT mj = randomCoefficients.innerProduct(authenticatedElements.stream()
         .map(Spdz2kSInt::getMacShare)
-        .collect(Collectors.toList());
-    PlainT mj = UInt.innerProduct(macShares, randomCoefficients);
+        .collect(Collectors.toList()));
     PlainT zj = macKeyShare.multiply(y)
         .subtract(mj)
         .subtract(p.multiply(macKeyShare).shiftLowIntoHigh())
@@ -131,17 +130,15 @@ public class Spdz2kMacCheckComputation<
   }
 
   /**
-   * Samples random coefficients for mac-check using joint source of randomness.
+   * Samples random coefficients for mac-check using joint source of randomness. <p>All coefficients
+   * are drawn in a single call and packed into a vector.</p>
    */
-  private List<PlainT> sampleCoefficients(Drbg drbg, CompUIntFactory<PlainT> factory,
+  private CompUIntVector<PlainT> sampleCoefficients(Drbg drbg, CompUIntFactory<PlainT> factory,
       int numCoefficients) {
-    List<PlainT> randomCoefficients = new ArrayList<>(numCoefficients);
-    for (int i = 0; i < numCoefficients; i++) {
-      byte[] bytes = new byte[factory.getHighBitLength() / Byte.SIZE];
-      drbg.nextBytes(bytes);
-      randomCoefficients.add(factory.createFromBytes(bytes));
-    }
-    return randomCoefficients;
+    int coefficientLength = factory.getHighBitLength() / Byte.SIZE;
+    byte[] bytes = new byte[numCoefficients * coefficientLength];
+    drbg.nextBytes(bytes);
+    return factory.createVector(bytes, coefficientLength);
   }
 
   /**
@@ -9,6 +9,7 @@ import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.UIntAccumulator;
 import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
 import java.util.Arrays;
 
@@ -82,13 +83,13 @@ public class Spdz2kMultiplyProtocol<PlainT extends CompUInt<?, ?, PlainT>> exten
   private Pair<PlainT, PlainT> receiveAndReconstruct(Network network,
       CompUIntFactory<PlainT> factory, int noOfParties,
       ByteSerializer<PlainT> serializer) {
-    PlainT e = factory.zero();
-    PlainT d = factory.zero();
+    UIntAccumulator<PlainT> e = factory.zero().newAccumulator();
+    UIntAccumulator<PlainT> d = factory.zero().newAccumulator();
     for (int i = 1; i <= noOfParties; i++) {
-      e = e.add(serializer.deserialize(network.receive(i)));
-      d = d.add(serializer.deserialize(network.receive(i)));
+      e.add(serializer.deserialize(network.receive(i)));
+      d.add(serializer.deserialize(network.receive(i)));
     }
-    return new Pair<>(e, d);
+    return new Pair<>(e.get(), d.get());
   }
 
   @Override
@@ -48,4 +48,11 @@ public interface Spdz2kOpenedValueStore<T extends CompUInt<?, ?, T>> {
    */
   boolean exceedsThreshold(int threshold);
 
+  /**
+   * Moves all values that haven't been scheduled for checking into a new store, leaving this store
+   * empty. <p>Used to check the values opened so far in the background, while new values are
+   * pushed to this store.</p>
+   */
+  Spdz2kOpenedValueStore<T> takeSnapshot();
+
 }
@@ -12,14 +12,19 @@ import java.util.List;
 public class Spdz2kOpenedValueStoreImpl<PlainT extends CompUInt<?, ?, PlainT>>
     implements Spdz2kOpenedValueStore<PlainT> {
 
-  private final List<Spdz2kSInt<PlainT>> sharesWithMacs;
-  private final List<PlainT> openedValues;
+  private List<Spdz2kSInt<PlainT>> sharesWithMacs;
+  private List<PlainT> openedValues;
   private int numPending;
 
   public Spdz2kOpenedValueStoreImpl() {
-    this.sharesWithMacs = new ArrayList<>();
-    this.openedValues = new ArrayList<>();
-    numPending = 0;
+    this(new ArrayList<>(), new ArrayList<>(), 0);
+  }
+
+  private Spdz2kOpenedValueStoreImpl(List<Spdz2kSInt<PlainT>> sharesWithMacs,
+      List<PlainT> openedValues, int numPending) {
+    this.sharesWithMacs = sharesWithMacs;
+    this.openedValues = openedValues;
+    this.numPending = numPending;
   }
 
   @Override
@@ -60,4 +65,17 @@ public class Spdz2kOpenedValueStoreImpl<PlainT extends CompUInt<?, ?, PlainT>>
     return numPending > threshold;
   }
 
+  @Override
+  public Spdz2kOpenedValueStore<PlainT> takeSnapshot() {
+    if (numPending != sharesWithMacs.size()) {
+      throw new IllegalStateException("Called takeSnapshot while values are being checked");
+    }
+    Spdz2kOpenedValueStore<PlainT> snapshot =
+        new Spdz2kOpenedValueStoreImpl<>(sharesWithMacs, openedValues, numPending);
+    sharesWithMacs = new ArrayList<>();
+    openedValues = new ArrayList<>();
+    numPending = 0;
+    return snapshot;
+  }
+
 }
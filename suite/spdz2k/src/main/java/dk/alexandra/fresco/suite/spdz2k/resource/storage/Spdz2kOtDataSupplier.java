@@ -0,0 +1,694 @@
+package dk.alexandra.fresco.suite.spdz2k.resource.storage;
+
+import dk.alexandra.fresco.commitment.HashBasedCommitment;
+import dk.alexandra.fresco.commitment.HashBasedCommitmentSerializer;
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.framework.util.ByteArrayHelper;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.tools.cointossing.CoinTossing;
+import dk.alexandra.fresco.tools.ot.base.RotBatch;
+import dk.alexandra.fresco.tools.ot.otextension.BristolRotBatch;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePool;
+import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePoolImpl;
+import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link Spdz2kDataSupplier} generating pre-processing material with oblivious
+ * transfer.
+ * <p>
+ * Material is generated in batches. The products of values held by two different parties, which
+ * are needed both for the products of triples and for the macs, are computed using the OT based
+ * multiplication of Gilboa: for each bit of the receiver's factor the parties run a random OT of
+ * elements of Z<sub>2<sup>k + s</sup></sub>, from which they derive additive shares of the product.
+ * The random OTs are extended from the given base OTs using {@link BristolRotBatch}.
+ * </p>
+ * <p>
+ * Each batch is checked before any of it is used, and a failed check throws a
+ * {@link MaliciousException}. Every batch of values is authenticated along with a random mask, and
+ * the mask plus a random linear combination of the values is opened, so a party using different
+ * mac key shares in the multiplications of the batch makes the mac-check of the opened value fail.
+ * Each triple <i>(a, b, c)</i> is sacrificed with a second triple <i>(a', b, c')</i>: for a random
+ * <i>r</i> the parties open <i>&rho; = r * a - a'</i> and <i>&sigma; = r * c - c' - &rho; * b</i>,
+ * and check that <i>&sigma;</i> is zero. Likewise, a triple is used to check that
+ * <i>b * b - b</i> is zero for each random bit <i>b</i>. All opened values are mac-checked by
+ * committing to and opening the differences between the products of the mac key shares and the
+ * opened values and the mac shares. The random coefficients of the checks are derived from a seed
+ * the parties agree on using commitments once the values to check are fixed.
+ * </p>
+ */
+public class Spdz2kOtDataSupplier<PlainT extends CompUInt<?, ?, PlainT>> implements
+    Spdz2kDataSupplier<PlainT> {
+
+  private static final Logger logger = LoggerFactory.getLogger(Spdz2kOtDataSupplier.class);
+  private final int myId;
+  private final int noOfParties;
+  private final int instanceId;
+  private final Supplier<Network> networkSupplier;
+  private final CompUIntFactory<PlainT> factory;
+  private final ByteSerializer<PlainT> serializer;
+  private final PlainT macKeyShare;
+  private final int prgSeedLength;
+  private final int batchSize;
+  private final Map<Integer, RotList> seedOts;
+  private final Drbg drbg;
+  private final int bitLength;
+  private final PlainT zero;
+  private final PlainT one;
+  private final MessageDigest digest;
+  private final ByteSerializer<HashBasedCommitment> commitmentSerializer;
+  private final List<Spdz2kSInt<PlainT>> toCheck;
+  private final List<PlainT> openedValues;
+
+  private final ArrayDeque<Spdz2kTriple<PlainT>> triples;
+  private final Map<Integer, ArrayDeque<Spdz2kInputMask<PlainT>>> masks;
+  private final ArrayDeque<Spdz2kSInt<PlainT>> bits;
+  private final ArrayDeque<Spdz2kSInt<PlainT>> randomElements;
+  private Network network;
+  private Map<Integer, RotBatch> rots;
+
+  /**
+   * Creates {@link Spdz2kOtDataSupplier}.
+   *
+   * @param myId this party's id
+   * @param noOfParties number of parties
+   * @param instanceId identifier used to distinguish parallel instances
+   * @param networkSupplier supplier of the network to be used by this instance
+   * @param factory factory for the ring elements
+   * @param macKeyShare this party's share of the mac key
+   * @param prgSeedLength computational security parameter, i.e. the number of base OTs
+   * @param batchSize the number of elements of each type generated at a time
+   * @param seedOts pre-computed base OTs with each of the other parties
+   * @param drbg source of randomness
+   */
+  public Spdz2kOtDataSupplier(int myId, int noOfParties, int instanceId,
+      Supplier<Network> networkSupplier, CompUIntFactory<PlainT> factory, PlainT macKeyShare,
+      int prgSeedLength, int batchSize, Map<Integer, RotList> seedOts, Drbg drbg) {
+    this.myId = myId;
+    this.noOfParties = noOfParties;
+    this.instanceId = instanceId;
+    this.networkSupplier = networkSupplier;
+    this.factory = factory;
+    this.serializer = factory.createSerializer();
+    this.macKeyShare = macKeyShare;
+    this.prgSeedLength = prgSeedLength;
+    this.batchSize = batchSize;
+    this.seedOts = seedOts;
+    this.drbg = drbg;
+    this.bitLength = factory.getCompositeBitLength();
+    this.zero = factory.zero();
+    this.one = factory.createFromBigInteger(BigInteger.ONE);
+    this.digest = ExceptionConverter.safe(() -> MessageDigest.getInstance("SHA-256"),
+        "Configuration error, SHA-256 is needed for the broadcast validation");
+    this.commitmentSerializer = new HashBasedCommitmentSerializer();
+    this.toCheck = new ArrayList<>();
+    this.openedValues = new ArrayList<>();
+    this.triples = new ArrayDeque<>();
+    this.masks = new HashMap<>();
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      masks.put(partyId, new ArrayDeque<>());
+    }
+    this.bits = new ArrayDeque<>();
+    this.randomElements = new ArrayDeque<>();
+  }
+
+  /**
+   * Creates a {@link Spdz2kPrefetchingDataSupplier} where each type of material is produced in the
+   * background by its own instance of {@link Spdz2kOtDataSupplier}.
+   * <p>
+   * The instances use the networks given by <code>networks</code> for the producer numbers defined
+   * by {@link Spdz2kPrefetchingDataSupplier}. The networks are requested from the producer threads
+   * and must be independent of each other, e.g. channels of a
+   * {@link dk.alexandra.fresco.framework.network.MultiplexedNetwork}.
+   * </p>
+   *
+   * @param myId this party's id
+   * @param noOfParties number of parties
+   * @param networks the network of each producer given its number
+   * @param factory factory for the ring elements
+   * @param macKeyShare this party's share of the mac key
+   * @param prgSeedLength computational security parameter, i.e. the number of base OTs
+   * @param seedOts pre-computed base OTs with each of the other parties
+   * @param drbg source of randomness, from which the seed of each instance is drawn
+   * @param batchSize the number of elements of each type generated at a time
+   * @param lowWatermark the queue size at which a producer resumes production
+   * @param highWatermark the capacity of the queue of each type of material
+   */
+  public static <PlainT extends CompUInt<?, ?, PlainT>> Spdz2kPrefetchingDataSupplier<PlainT>
+      createPrefetchingSupplier(int myId, int noOfParties, IntFunction<Network> networks,
+      CompUIntFactory<PlainT> factory, PlainT macKeyShare, int prgSeedLength,
+      Map<Integer, RotList> seedOts, Drbg drbg, int batchSize, int lowWatermark,
+      int highWatermark) {
+    IntFunction<Spdz2kDataSupplier<PlainT>> producers = producer -> {
+      byte[] seed = new byte[prgSeedLength / 8];
+      drbg.nextBytes(seed);
+      return new Spdz2kOtDataSupplier<>(myId, noOfParties, 2 + producer,
+          () -> networks.apply(producer), factory, macKeyShare, prgSeedLength, batchSize,
+          seedOts, new PaddingAesCtrDrbg(seed));
+    };
+    return new Spdz2kPrefetchingDataSupplier<>(macKeyShare, producers, noOfParties, lowWatermark,
+        highWatermark);
+  }
+
+  @Override
+  public Spdz2kTriple<PlainT> getNextTripleShares() {
+    ensureInitialized();
+    if (triples.isEmpty()) {
+      logger.trace("Getting another triple batch");
+      triples.addAll(generateTriples(batchSize));
+      logger.trace("Got another triple batch");
+    }
+    return triples.pop();
+  }
+
+  @Override
+  public Spdz2kInputMask<PlainT> getNextInputMask(int towardPlayerId) {
+    ensureInitialized();
+    ArrayDeque<Spdz2kInputMask<PlainT>> inputMasks = masks.get(towardPlayerId);
+    if (inputMasks.isEmpty()) {
+      logger.trace("Getting another mask batch");
+      inputMasks.addAll(generateInputMasks(towardPlayerId, batchSize));
+      logger.trace("Got another mask batch");
+    }
+    return inputMasks.pop();
+  }
+
+  @Override
+  public Spdz2kSInt<PlainT> getNextBitShare() {
+    ensureInitialized();
+    if (bits.isEmpty()) {
+      logger.trace("Getting another bit batch");
+      bits.addAll(generateBits(batchSize));
+      logger.trace("Got another bit batch");
+    }
+    return bits.pop();
+  }
+
+  @Override
+  public PlainT getSecretSharedKey() {
+    return macKeyShare;
+  }
+
+  @Override
+  public Spdz2kSInt<PlainT> getNextRandomElementShare() {
+    ensureInitialized();
+    if (randomElements.isEmpty()) {
+      logger.trace("Getting another random element batch");
+      List<PlainT> shares = sample(batchSize + 1);
+      randomElements.addAll(checkAuthenticated(toSInts(shares, authenticate(shares))));
+      logger.trace("Got another random element batch");
+    }
+    return randomElements.pop();
+  }
+
+  /**
+   * Generates triples <i>(a, b, c)</i> along with triples <i>(a', b, c')</i> to sacrifice them
+   * with. The values are authenticated in the order <i>a, a', b, c, c'</i> followed by the mask of
+   * the authentication check.
+   */
+  private List<Spdz2kTriple<PlainT>> generateTriples(int numTriples) {
+    List<PlainT> left = sample(2 * numTriples);
+    List<PlainT> right = sample(numTriples);
+    List<PlainT> rightTwice = new ArrayList<>(2 * numTriples);
+    rightTwice.addAll(right);
+    rightTwice.addAll(right);
+    List<PlainT> values = new ArrayList<>(5 * numTriples + 1);
+    values.addAll(left);
+    values.addAll(right);
+    values.addAll(multiply(left, rightTwice));
+    values.addAll(sample(1));
+    List<Spdz2kSInt<PlainT>> authenticated = toSInts(values, authenticate(values));
+    Drbg jointDrbg = jointDrbg();
+    List<Spdz2kSInt<PlainT>> toOpen = new ArrayList<>(numTriples + 1);
+    toOpen.add(combine(authenticated, jointDrbg));
+    List<PlainT> factors = sample(jointDrbg, numTriples);
+    for (int i = 0; i < numTriples; i++) {
+      toOpen.add(authenticated.get(i).multiply(factors.get(i))
+          .subtract(authenticated.get(numTriples + i)));
+    }
+    List<PlainT> opened = open(toOpen);
+    List<Spdz2kSInt<PlainT>> sigmas = new ArrayList<>(numTriples);
+    for (int i = 0; i < numTriples; i++) {
+      Spdz2kSInt<PlainT> b = authenticated.get(2 * numTriples + i);
+      Spdz2kSInt<PlainT> c = authenticated.get(3 * numTriples + i);
+      Spdz2kSInt<PlainT> sacrificed = authenticated.get(4 * numTriples + i);
+      sigmas.add(c.multiply(factors.get(i)).subtract(sacrificed)
+          .subtract(b.multiply(opened.get(i + 1))));
+    }
+    for (PlainT sigma : open(sigmas)) {
+      if (!sigma.isZero()) {
+        throw new MaliciousException("Triple sacrifice failed");
+      }
+    }
+    macCheck();
+    List<Spdz2kTriple<PlainT>> result = new ArrayList<>(numTriples);
+    for (int i = 0; i < numTriples; i++) {
+      result.add(new Spdz2kTriple<>(authenticated.get(i), authenticated.get(2 * numTriples + i),
+          authenticated.get(3 * numTriples + i)));
+    }
+    return result;
+  }
+
+  /**
+   * Generates input masks towards a party. Only the input party holds a non-zero share, so only
+   * the macs of its values need to be computed jointly.
+   */
+  private List<Spdz2kInputMask<PlainT>> generateInputMasks(int towardPlayerId, int numMasks) {
+    List<PlainT> values;
+    List<PlainT> macs;
+    if (myId == towardPlayerId) {
+      values = sample(numMasks + 1);
+      macs = new ArrayList<>(numMasks + 1);
+      for (PlainT value : values) {
+        macs.add(macKeyShare.multiply(value));
+      }
+      for (int otherId = 1; otherId <= noOfParties; otherId++) {
+        if (otherId != myId) {
+          addTo(macs, receive(otherId, values, bitLength));
+        }
+      }
+    } else {
+      values = Collections.nCopies(numMasks + 1, zero);
+      macs = send(towardPlayerId, Collections.nCopies(numMasks + 1, macKeyShare), bitLength);
+    }
+    List<Spdz2kSInt<PlainT>> authenticated = checkAuthenticated(toSInts(values, macs));
+    List<Spdz2kInputMask<PlainT>> result = new ArrayList<>(numMasks);
+    for (int i = 0; i < numMasks; i++) {
+      result.add(myId == towardPlayerId
+          ? new Spdz2kInputMask<>(authenticated.get(i), values.get(i))
+          : new Spdz2kInputMask<>(authenticated.get(i)));
+    }
+    return result;
+  }
+
+  /**
+   * Generates random bits as the XOR of a random bit from each party. The bit of the first party is
+   * shared directly, and the bit <i>b</i> of each following party is added to the sharing of
+   * <i>y</i> as <i>y + b - 2yb</i>. A party could use a value other than a bit, so the result is
+   * checked to satisfy <i>b * b = b</i>, which only holds for bits, using a triple
+   * <i>(x, y, z)</i> for each bit: with the opened values <i>e = b - x</i> and <i>d = b - y</i>
+   * the parties open <i>z + e * y + d * x + e * d - b</i> and check that it is zero.
+   */
+  private List<Spdz2kSInt<PlainT>> generateBits(int numBits) {
+    List<Spdz2kTriple<PlainT>> checkTriples = generateTriples(numBits);
+    List<PlainT> shares = myId == 1 ? sampleBits(numBits) : Collections.nCopies(numBits, zero);
+    for (int partyId = 2; partyId <= noOfParties; partyId++) {
+      List<PlainT> updated = new ArrayList<>(numBits);
+      if (myId == partyId) {
+        List<PlainT> myBits = sampleBits(numBits);
+        List<PlainT> products = new ArrayList<>(numBits);
+        for (int i = 0; i < numBits; i++) {
+          products.add(shares.get(i).multiply(myBits.get(i)));
+        }
+        for (int otherId = 1; otherId <= noOfParties; otherId++) {
+          if (otherId != myId) {
+            addTo(products, receive(otherId, myBits, 1));
+          }
+        }
+        for (int i = 0; i < numBits; i++) {
+          PlainT product = products.get(i);
+          updated.add(shares.get(i).add(myBits.get(i)).subtract(product.add(product)));
+        }
+      } else {
+        List<PlainT> products = send(partyId, shares, 1);
+        for (int i = 0; i < numBits; i++) {
+          PlainT product = products.get(i);
+          updated.add(shares.get(i).subtract(product.add(product)));
+        }
+      }
+      shares = updated;
+    }
+    List<PlainT> values = new ArrayList<>(numBits + 1);
+    values.addAll(shares);
+    values.addAll(sample(1));
+    List<Spdz2kSInt<PlainT>> authenticated = toSInts(values, authenticate(values));
+    List<Spdz2kSInt<PlainT>> toOpen = new ArrayList<>(2 * numBits + 1);
+    toOpen.add(combine(authenticated, jointDrbg()));
+    for (int i = 0; i < numBits; i++) {
+      Spdz2kSInt<PlainT> bit = authenticated.get(i);
+      toOpen.add(bit.subtract(checkTriples.get(i).getLeft()));
+      toOpen.add(bit.subtract(checkTriples.get(i).getRight()));
+    }
+    List<PlainT> opened = open(toOpen);
+    List<Spdz2kSInt<PlainT>> differences = new ArrayList<>(numBits);
+    for (int i = 0; i < numBits; i++) {
+      Spdz2kTriple<PlainT> triple = checkTriples.get(i);
+      PlainT e = opened.get(2 * i + 1);
+      PlainT d = opened.get(2 * i + 2);
+      differences.add(triple.getProduct()
+          .add(triple.getRight().multiply(e))
+          .add(triple.getLeft().multiply(d))
+          .addConstant(e.multiply(d), macKeyShare, zero, myId == 1)
+          .subtract(authenticated.get(i)));
+    }
+    for (PlainT difference : open(differences)) {
+      if (!difference.isZero()) {
+        throw new MaliciousException("Random bit check failed");
+      }
+    }
+    macCheck();
+    return new ArrayList<>(authenticated.subList(0, numBits));
+  }
+
+  /**
+   * Computes this party's shares of the products of the values shared by the given shares.
+   */
+  List<PlainT> multiply(List<PlainT> left, List<PlainT> right) {
+    List<PlainT> products = crossProducts(left, right);
+    for (int i = 0; i < products.size(); i++) {
+      products.set(i, products.get(i).add(left.get(i).multiply(right.get(i))));
+    }
+    return products;
+  }
+
+  /**
+   * Computes this party's shares of the macs of the values shared by the given shares.
+   */
+  List<PlainT> authenticate(List<PlainT> shares) {
+    List<PlainT> macs = crossProducts(Collections.nCopies(shares.size(), macKeyShare), shares);
+    for (int i = 0; i < shares.size(); i++) {
+      macs.set(i, macs.get(i).add(macKeyShare.multiply(shares.get(i))));
+    }
+    return macs;
+  }
+
+  /**
+   * Computes this party's shares of the sums over all pairs of distinct parties <i>i</i> and
+   * <i>j</i> of <i>left<sub>i</sub> * right<sub>j</sub></i>.
+   * <p>
+   * For each other party, the party with the lowest id acts as the sender first.
+   * </p>
+   */
+  private List<PlainT> crossProducts(List<PlainT> left, List<PlainT> right) {
+    List<PlainT> result = new ArrayList<>(Collections.nCopies(left.size(), zero));
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (otherId == myId) {
+        continue;
+      }
+      if (myId < otherId) {
+        addTo(result, send(otherId, left, bitLength));
+        addTo(result, receive(otherId, right, bitLength));
+      } else {
+        addTo(result, receive(otherId, right, bitLength));
+        addTo(result, send(otherId, left, bitLength));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs the sender side of the OT based multiplication of each of the given factors with the
+   * lowest <code>factorBitLength</code> bits of the corresponding factors of the other party.
+   *
+   * @return this party's shares of the products
+   */
+  private List<PlainT> send(int otherId, List<PlainT> factors, int factorBitLength) {
+    List<Pair<StrictBitVector, StrictBitVector>> pads =
+        rots.get(otherId).send(numberOfOts(factors.size(), factorBitLength), bitLength);
+    List<PlainT> shares = new ArrayList<>(factors.size());
+    List<PlainT> diffs = new ArrayList<>(factors.size() * factorBitLength);
+    for (int i = 0; i < factors.size(); i++) {
+      PlainT share = zero;
+      PlainT shifted = factors.get(i);
+      for (int bit = 0; bit < factorBitLength; bit++) {
+        Pair<StrictBitVector, StrictBitVector> pad = pads.get(i * factorBitLength + bit);
+        PlainT zeroPad = factory.createFromBytes(pad.getFirst().toByteArray());
+        PlainT onePad = factory.createFromBytes(pad.getSecond().toByteArray());
+        share = share.subtract(zeroPad);
+        diffs.add(zeroPad.subtract(onePad).add(shifted));
+        shifted = shifted.add(shifted);
+      }
+      shares.add(share);
+    }
+    network.send(otherId, serializer.serialize(diffs));
+    return shares;
+  }
+
+  /**
+   * Runs the receiver side of the OT based multiplication of the lowest
+   * <code>factorBitLength</code> bits of each of the given factors with the corresponding factors
+   * of the other party.
+   *
+   * @return this party's shares of the products
+   */
+  private List<PlainT> receive(int otherId, List<PlainT> factors, int factorBitLength) {
+    StrictBitVector choices = new StrictBitVector(numberOfOts(factors.size(), factorBitLength));
+    for (int i = 0; i < factors.size(); i++) {
+      byte[] bytes = factors.get(i).toByteArray();
+      for (int bit = 0; bit < factorBitLength; bit++) {
+        choices.setBit(i * factorBitLength + bit, getBit(bytes, bit), false);
+      }
+    }
+    List<StrictBitVector> pads = rots.get(otherId).receive(choices, bitLength);
+    List<PlainT> diffs = serializer.deserializeList(network.receive(otherId));
+    List<PlainT> shares = new ArrayList<>(factors.size());
+    for (int i = 0; i < factors.size(); i++) {
+      PlainT share = zero;
+      for (int bit = 0; bit < factorBitLength; bit++) {
+        int index = i * factorBitLength + bit;
+        share = share.add(factory.createFromBytes(pads.get(index).toByteArray()));
+        if (choices.getBit(index, false)) {
+          share = share.add(diffs.get(index));
+        }
+      }
+      shares.add(share);
+    }
+    return shares;
+  }
+
+  /**
+   * Checks the authentication of the given values, of which the last is a random mask, and returns
+   * the others.
+   */
+  private List<Spdz2kSInt<PlainT>> checkAuthenticated(List<Spdz2kSInt<PlainT>> authenticated) {
+    open(Collections.singletonList(combine(authenticated, jointDrbg())));
+    macCheck();
+    return new ArrayList<>(authenticated.subList(0, authenticated.size() - 1));
+  }
+
+  /**
+   * Computes a random linear combination of the given values, masked by the last value so that
+   * it can be opened without revealing anything about the others.
+   */
+  private Spdz2kSInt<PlainT> combine(List<Spdz2kSInt<PlainT>> authenticated, Drbg jointDrbg) {
+    int numValues = authenticated.size() - 1;
+    List<PlainT> coefficients = sample(jointDrbg, numValues);
+    Spdz2kSInt<PlainT> combination = authenticated.get(numValues);
+    for (int i = 0; i < numValues; i++) {
+      combination = combination.add(authenticated.get(i).multiply(coefficients.get(i)));
+    }
+    return combination;
+  }
+
+  /**
+   * Opens the values shared by the given authenticated shares. The opened values are checked by
+   * the next call to {@link #macCheck()}.
+   */
+  private List<PlainT> open(List<Spdz2kSInt<PlainT>> authenticated) {
+    List<PlainT> shares = new ArrayList<>(authenticated.size());
+    for (Spdz2kSInt<PlainT> value : authenticated) {
+      shares.add(value.getShare());
+    }
+    List<PlainT> opened = sumAll(broadcast(serializer.serialize(shares)), shares.size());
+    toCheck.addAll(authenticated);
+    openedValues.addAll(opened);
+    return opened;
+  }
+
+  /**
+   * Checks the macs of the values opened since the last check. Each party commits to the
+   * differences between the products of its mac key share and the opened values and its mac
+   * shares, and the differences of all parties must sum to zero.
+   */
+  private void macCheck() {
+    List<PlainT> differences = new ArrayList<>(toCheck.size());
+    for (int i = 0; i < toCheck.size(); i++) {
+      differences.add(macKeyShare.multiply(openedValues.get(i))
+          .subtract(toCheck.get(i).getMacShare()));
+    }
+    toCheck.clear();
+    openedValues.clear();
+    for (PlainT sum : sumAll(commitAndOpen(serializer.serialize(differences)),
+        differences.size())) {
+      if (!sum.isZero()) {
+        throw new MaliciousException("Mac check failed");
+      }
+    }
+  }
+
+  /**
+   * Sums the lists of elements sent by each party.
+   */
+  private List<PlainT> sumAll(List<byte[]> messages, int numElements) {
+    List<PlainT> sums = new ArrayList<>(Collections.nCopies(numElements, zero));
+    for (byte[] message : messages) {
+      List<PlainT> elements = serializer.deserializeList(message);
+      if (elements.size() != numElements) {
+        throw new MaliciousException(
+            "Expected " + numElements + " elements, but received " + elements.size());
+      }
+      addTo(sums, elements);
+    }
+    return sums;
+  }
+
+  /**
+   * Agrees on a random generator with the other parties. The seed is the XOR of a seed of each
+   * party, which the parties commit to before opening, so it is random if just one party is
+   * honest.
+   */
+  private Drbg jointDrbg() {
+    byte[] seed = new byte[prgSeedLength / Byte.SIZE];
+    drbg.nextBytes(seed);
+    byte[] jointSeed = new byte[seed.length];
+    for (byte[] otherSeed : commitAndOpen(seed)) {
+      if (otherSeed.length != jointSeed.length) {
+        throw new MaliciousException("Received seed of wrong length");
+      }
+      ByteArrayHelper.xor(jointSeed, otherSeed);
+    }
+    return new PaddingAesCtrDrbg(jointSeed);
+  }
+
+  /**
+   * Commits to the given value, and opens it after receiving the commitments of all other parties.
+   *
+   * @return the values of all parties ordered by party id
+   */
+  private List<byte[]> commitAndOpen(byte[] value) {
+    HashBasedCommitment ownCommitment = new HashBasedCommitment();
+    byte[] ownOpening = ownCommitment.commit(drbg, value);
+    List<HashBasedCommitment> commitments = commitmentSerializer.deserializeList(
+        broadcast(commitmentSerializer.serialize(ownCommitment)));
+    network.sendToAll(ownOpening);
+    List<byte[]> openings = network.receiveFromAll();
+    List<byte[]> values = new ArrayList<>(noOfParties);
+    for (int i = 0; i < noOfParties; i++) {
+      values.add(commitments.get(i).open(openings.get(i)));
+    }
+    return values;
+  }
+
+  /**
+   * Sends the given message to all parties and receives their messages. With more than two
+   * parties, the parties exchange digests of the received messages to make sure that all parties
+   * received the same messages.
+   *
+   * @return the messages of all parties ordered by party id
+   */
+  private List<byte[]> broadcast(byte[] message) {
+    network.sendToAll(message);
+    List<byte[]> messages = network.receiveFromAll();
+    if (noOfParties > 2) {
+      for (byte[] received : messages) {
+        digest.update(received);
+      }
+      byte[] ownDigest = digest.digest();
+      network.sendToAll(ownDigest);
+      for (byte[] otherDigest : network.receiveFromAll()) {
+        if (!Arrays.equals(ownDigest, otherDigest)) {
+          throw new MaliciousException("Broadcast validation failed");
+        }
+      }
+    }
+    return messages;
+  }
+
+  private List<PlainT> sample(int numElements) {
+    return sample(drbg, numElements);
+  }
+
+  private List<PlainT> sample(Drbg source, int numElements) {
+    List<PlainT> elements = new ArrayList<>(numElements);
+    for (int i = 0; i < numElements; i++) {
+      byte[] bytes = new byte[bitLength / Byte.SIZE];
+      source.nextBytes(bytes);
+      elements.add(factory.createFromBytes(bytes));
+    }
+    return elements;
+  }
+
+  private List<PlainT> sampleBits(int numBits) {
+    byte[] bytes = new byte[(numBits + Byte.SIZE - 1) / Byte.SIZE];
+    drbg.nextBytes(bytes);
+    List<PlainT> result = new ArrayList<>(numBits);
+    for (int i = 0; i < numBits; i++) {
+      result.add((bytes[i / Byte.SIZE] >>> (i % Byte.SIZE) & 1) == 1 ? one : zero);
+    }
+    return result;
+  }
+
+  private List<Spdz2kSInt<PlainT>> toSInts(List<PlainT> shares, List<PlainT> macs) {
+    List<Spdz2kSInt<PlainT>> result = new ArrayList<>(shares.size());
+    for (int i = 0; i < shares.size(); i++) {
+      result.add(new Spdz2kSInt<>(shares.get(i), macs.get(i)));
+    }
+    return result;
+  }
+
+  private void addTo(List<PlainT> sums, List<PlainT> terms) {
+    for (int i = 0; i < sums.size(); i++) {
+      sums.set(i, sums.get(i).add(terms.get(i)));
+    }
+  }
+
+  /**
+   * Returns the bit of the given big endian bytes at the given index, counting from the least
+   * significant bit.
+   */
+  private static boolean getBit(byte[] bytes, int index) {
+    return (bytes[bytes.length - 1 - index / Byte.SIZE] >>> (index % Byte.SIZE) & 1) == 1;
+  }
+
+  /**
+   * The number of OTs must be the same for both parties and divisible by 8.
+   */
+  private static int numberOfOts(int numFactors, int factorBitLength) {
+    int numOts = numFactors * factorBitLength;
+    return (numOts + Byte.SIZE - 1) / Byte.SIZE * Byte.SIZE;
+  }
+
+  private void ensureInitialized() {
+    if (rots != null) {
+      return;
+    }
+    network = networkSupplier.get();
+    rots = new HashMap<>();
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (otherId != myId) {
+        CoinTossing ct = new CoinTossing(myId, otherId, drbg);
+        ct.initialize(network);
+        OtExtensionResourcePool otResources = new OtExtensionResourcePoolImpl(myId, otherId,
+            prgSeedLength, factory.getHighBitLength(), instanceId, drbg, ct,
+            seedOts.get(otherId));
+        rots.put(otherId, new BristolRotBatch(new RotFactory(otResources, network),
+            prgSeedLength, factory.getHighBitLength()));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+package dk.alexandra.fresco.suite.spdz2k.resource.storage;
+
+import dk.alexandra.fresco.framework.util.PrefetchingQueue;
+import dk.alexandra.fresco.logging.PerformanceLogger;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Data supplier producing pre-processing material ahead of time on background threads.
+ * <p>
+ * Each type of material, i.e. triples, random elements, bits and input masks towards each party,
+ * is produced by a dedicated thread using its own underlying supplier, which must be independent
+ * of the others, e.g. an instance of {@link Spdz2kOtDataSupplier} with its own network.
+ * See {@link PrefetchingQueue} for how production is paced. The security of the material is that
+ * of the underlying suppliers.
+ * </p>
+ */
+public class Spdz2kPrefetchingDataSupplier<PlainT extends CompUInt<?, ?, PlainT>> implements
+    Spdz2kDataSupplier<PlainT>, PerformanceLogger, Closeable {
+
+  public static final String TRIPLE = "TRIPLE";
+  public static final String RANDOM_ELEMENT = "RANDOM_ELEMENT";
+  public static final String BIT = "BIT";
+  public static final String INPUT_MASK = "INPUT_MASK_";
+
+  private final PlainT macKeyShare;
+  private final PrefetchingQueue<Spdz2kTriple<PlainT>> triples;
+  private final PrefetchingQueue<Spdz2kSInt<PlainT>> randomElements;
+  private final PrefetchingQueue<Spdz2kSInt<PlainT>> bits;
+  private final List<PrefetchingQueue<Spdz2kInputMask<PlainT>>> masks;
+  private final List<PrefetchingQueue<?>> queues;
+
+  /**
+   * Creates a new prefetching supplier and starts producing material.
+   * <p>
+   * The producers are numbered from 0: the triple producer is 0, the random element producer is 1,
+   * the bit producer is 2 and the producer of input masks towards party <i>i</i> is 2 + <i>i</i>.
+   * </p>
+   *
+   * @param macKeyShare this party's share of the mac key
+   * @param producerSuppliers creates the independent supplier of each producer given its number
+   * @param noOfParties the number of parties
+   * @param lowWatermark the queue size at which a producer resumes production
+   * @param highWatermark the capacity of each queue
+   */
+  public Spdz2kPrefetchingDataSupplier(PlainT macKeyShare,
+      IntFunction<Spdz2kDataSupplier<PlainT>> producerSuppliers, int noOfParties,
+      int lowWatermark, int highWatermark) {
+    this.macKeyShare = macKeyShare;
+    this.queues = new ArrayList<>();
+    Spdz2kDataSupplier<PlainT> tripleSupplier = producerSuppliers.apply(0);
+    this.triples = new PrefetchingQueue<>(TRIPLE, tripleSupplier::getNextTripleShares,
+        lowWatermark, highWatermark);
+    Spdz2kDataSupplier<PlainT> elementSupplier = producerSuppliers.apply(1);
+    this.randomElements = new PrefetchingQueue<>(RANDOM_ELEMENT,
+        elementSupplier::getNextRandomElementShare, lowWatermark, highWatermark);
+    Spdz2kDataSupplier<PlainT> bitSupplier = producerSuppliers.apply(2);
+    this.bits = new PrefetchingQueue<>(BIT, bitSupplier::getNextBitShare, lowWatermark,
+        highWatermark);
+    this.masks = new ArrayList<>(noOfParties);
+    for (int partyId = 1; partyId <= noOfParties; partyId++) {
+      int towardPlayerId = partyId;
+      Spdz2kDataSupplier<PlainT> maskSupplier = producerSuppliers.apply(2 + partyId);
+      masks.add(new PrefetchingQueue<>(INPUT_MASK + partyId,
+          () -> maskSupplier.getNextInputMask(towardPlayerId), lowWatermark, highWatermark));
+    }
+    queues.add(triples);
+    queues.add(randomElements);
+    queues.add(bits);
+    queues.addAll(masks);
+    for (PrefetchingQueue<?> queue : queues) {
+      queue.start();
+    }
+  }
+
+  @Override
+  public Spdz2kTriple<PlainT> getNextTripleShares() {
+    return triples.take();
+  }
+
+  @Override
+  public Spdz2kInputMask<PlainT> getNextInputMask(int towardPlayerId) {
+    return masks.get(towardPlayerId - 1).take();
+  }
+
+  @Override
+  public Spdz2kSInt<PlainT> getNextBitShare() {
+    return bits.take();
+  }
+
+  @Override
+  public PlainT getSecretSharedKey() {
+    return macKeyShare;
+  }
+
+  @Override
+  public Spdz2kSInt<PlainT> getNextRandomElementShare() {
+    return randomElements.take();
+  }
+
+  /**
+   * Stops the producers. Material already produced is still available.
+   */
+  @Override
+  public void close() {
+    for (PrefetchingQueue<?> queue : queues) {
+      queue.close();
+    }
+  }
+
+  @Override
+  public void reset() {
+    for (PrefetchingQueue<?> queue : queues) {
+      queue.reset();
+    }
+  }
+
+  @Override
+  public Map<String, Long> getLoggedValues() {
+    Map<String, Long> values = new HashMap<>();
+    for (PrefetchingQueue<?> queue : queues) {
+      values.putAll(queue.getLoggedValues());
+    }
+    return values;
+  }
+}
@@ -3,6 +3,7 @@ package dk.alexandra.fresco.suite.spdz2k.synchronization;
 import dk.alexandra.fresco.framework.ProtocolCollection;
 import dk.alexandra.fresco.framework.builder.numeric.ProtocolBuilderNumeric;
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.sce.evaluator.BackgroundProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchEvaluationStrategy;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedProtocolEvaluator;
 import dk.alexandra.fresco.framework.sce.evaluator.BatchedStrategy;
@@ -15,12 +16,18 @@ import dk.alexandra.fresco.suite.spdz2k.datatypes.UInt;
 import dk.alexandra.fresco.suite.spdz2k.protocols.computations.Spdz2kMacCheckComputation;
 import dk.alexandra.fresco.suite.spdz2k.protocols.natives.RequiresMacCheck;
 import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePool;
+import dk.alexandra.fresco.suite.spdz2k.resource.Spdz2kResourcePoolImpl;
 import dk.alexandra.fresco.suite.spdz2k.resource.storage.Spdz2kOpenedValueStore;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Future;
 import java.util.stream.StreamSupport;
 
 /**
  * Round synchronization for SPDZ2k. <p>Requires a mac check to be performed on an all opened
- * unauthenticated values whenever an output protocol is encountered in a batch.</p>
+ * unauthenticated values whenever an output protocol is encountered in a batch.</p> <p>Given a
+ * background evaluator, mac checks triggered by the number of opened values run in the background,
+ * and only batches with protocols that require a mac check wait for them to pass.</p>
  */
 public class Spdz2kRoundSynchronization<
     HighT extends UInt<HighT>,
@@ -33,21 +40,49 @@ public class Spdz2kRoundSynchronization<
   private boolean isCheckRequired;
   private final Spdz2kProtocolSuite<HighT, LowT, PlainT> protocolSuite;
   private final CompUIntConverter<HighT, LowT, PlainT> converter;
+  private final BackgroundProtocolEvaluator<Spdz2kResourcePool<PlainT>> backgroundEvaluator;
+  private final Queue<Future<?>> backgroundMacChecks;
 
   public Spdz2kRoundSynchronization(Spdz2kProtocolSuite<HighT, LowT, PlainT> protocolSuite,
       CompUIntConverter<HighT, LowT, PlainT> converter) {
-    this(protocolSuite, converter, 100000, 128);
+    this(protocolSuite, converter, null);
+  }
+
+  public Spdz2kRoundSynchronization(Spdz2kProtocolSuite<HighT, LowT, PlainT> protocolSuite,
+      CompUIntConverter<HighT, LowT, PlainT> converter,
+      BackgroundProtocolEvaluator<Spdz2kResourcePool<PlainT>> backgroundEvaluator) {
+    this(protocolSuite, converter, 100000, 128, backgroundEvaluator);
   }
 
   public Spdz2kRoundSynchronization(Spdz2kProtocolSuite<HighT, LowT, PlainT> protocolSuite,
       CompUIntConverter<HighT, LowT, PlainT> converter,
       int openValueThreshold,
       int batchSize) {
+    this(protocolSuite, converter, openValueThreshold, batchSize, null);
+  }
+
+  /**
+   * Creates new {@link Spdz2kRoundSynchronization}.
+   *
+   * @param protocolSuite the protocol suite
+   * @param converter converter used by the mac check
+   * @param openValueThreshold the number of opened values after which to do a mac check
+   * @param batchSize batch size used when evaluating mac checks
+   * @param backgroundEvaluator evaluator for running mac checks in the background, or null to run
+   * all mac checks right away
+   */
+  public Spdz2kRoundSynchronization(Spdz2kProtocolSuite<HighT, LowT, PlainT> protocolSuite,
+      CompUIntConverter<HighT, LowT, PlainT> converter,
+      int openValueThreshold,
+      int batchSize,
+      BackgroundProtocolEvaluator<Spdz2kResourcePool<PlainT>> backgroundEvaluator) {
     this.protocolSuite = protocolSuite;
     this.converter = converter;
     this.openValueThreshold = openValueThreshold;
     this.batchSize = batchSize;
     this.isCheckRequired = false;
+    this.backgroundEvaluator = backgroundEvaluator;
+    this.backgroundMacChecks = new ArrayDeque<>();
   }
 
   private void doMacCheck(Spdz2kResourcePool<PlainT> resourcePool, Network network) {
@@ -68,19 +103,55 @@ public class Spdz2kRoundSynchronization<
     }
   }
 
+  /**
+   * Starts a mac check on a snapshot of the opened values in the background. <p>The check gets its
+   * own resource pool holding the snapshot. Its joint randomness and preprocessed material are
+   * drawn here, on the main thread, so all parties draw them in the same order.</p>
+   */
+  private void startBackgroundMacCheck(Spdz2kResourcePool<PlainT> resourcePool) {
+    Spdz2kOpenedValueStore<PlainT> snapshot = resourcePool.getOpenedValueStore().takeSnapshot();
+    if (snapshot.hasPendingValues()) {
+      Spdz2kResourcePool<PlainT> checkResourcePool = new Spdz2kResourcePoolImpl<>(
+          resourcePool.getMyId(), resourcePool.getNoOfParties(),
+          resourcePool.getRandomGenerator(), snapshot, resourcePool.getDataSupplier(),
+          resourcePool.getFactory());
+      Spdz2kBuilder<PlainT> builder = new Spdz2kBuilder<>(resourcePool.getFactory(),
+          protocolSuite.createBasicNumericContext(checkResourcePool));
+      Spdz2kMacCheckComputation<HighT, LowT, PlainT> macCheck = new Spdz2kMacCheckComputation<>(
+          checkResourcePool, converter);
+      ProtocolBuilderNumeric sequential = builder.createSequential();
+      macCheck.buildComputation(sequential);
+      backgroundMacChecks.add(backgroundEvaluator.eval(sequential.build(), checkResourcePool));
+    }
+  }
+
+  /**
+   * Waits for all background mac checks to pass, then checks the remaining values.
+   */
+  private void finishMacChecks(Spdz2kResourcePool<PlainT> resourcePool, Network network) {
+    BackgroundProtocolEvaluator.awaitAll(backgroundMacChecks);
+    doMacCheck(resourcePool, network);
+  }
+
   @Override
   public void finishedBatch(int gatesEvaluated, Spdz2kResourcePool<PlainT> resourcePool,
       Network network) {
     Spdz2kOpenedValueStore<PlainT> openedValueStore = resourcePool.getOpenedValueStore();
-    if (isCheckRequired || openedValueStore.exceedsThreshold(openValueThreshold)) {
-      doMacCheck(resourcePool, network);
+    if (isCheckRequired) {
+      finishMacChecks(resourcePool, network);
       isCheckRequired = false;
+    } else if (openedValueStore.exceedsThreshold(openValueThreshold)) {
+      if (backgroundEvaluator == null) {
+        doMacCheck(resourcePool, network);
+      } else {
+        startBackgroundMacCheck(resourcePool);
+      }
     }
   }
 
   @Override
   public void finishedEval(Spdz2kResourcePool<PlainT> resourcePool, Network network) {
-    doMacCheck(resourcePool, network);
+    finishMacChecks(resourcePool, network);
   }
 
   @Override
@@ -90,7 +161,7 @@ public class Spdz2kRoundSynchronization<
     isCheckRequired = StreamSupport.stream(nativeProtocols.spliterator(), false)
         .anyMatch(p -> p instanceof RequiresMacCheck);
     if (isCheckRequired) {
-      doMacCheck(resourcePool, network);
+      finishMacChecks(resourcePool, network);
     }
   }
 
@@ -3,6 +3,7 @@ package dk.alexandra.fresco.suite.spdz2k.util;
 import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntVector;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -35,12 +36,20 @@ public class UIntSerializer<PlainT extends CompUInt<?, ?, PlainT>> implements
   public byte[] serialize(List<PlainT> objects) {
     byte[] all = new byte[byteLength * objects.size()];
     for (int i = 0; i < objects.size(); i++) {
-      byte[] serialized = serialize(objects.get(i));
-      System.arraycopy(serialized, 0, all, i * byteLength, byteLength);
+      objects.get(i).toByteArray(all, i * byteLength);
     }
     return all;
   }
 
+  /**
+   * Serializes all elements of a vector into a single array.
+   */
+  public byte[] serialize(CompUIntVector<PlainT> vector) {
+    byte[] all = new byte[byteLength * vector.size()];
+    vector.toByteArray(all, 0);
+    return all;
+  }
+
   @Override
   public PlainT deserialize(byte[] bytes) {
     return factory.createFromBytes(bytes);
@@ -60,4 +69,12 @@ public class UIntSerializer<PlainT extends CompUInt<?, ?, PlainT>> implements
     return elements;
   }
 
+  /**
+   * Deserializes an array holding the serialized elements of a vector, without creating an object
+   * per element where the vector type supports this.
+   */
+  public CompUIntVector<PlainT> deserializeVector(byte[] bytes) {
+    return factory.createVector(bytes, byteLength);
+  }
+
 }
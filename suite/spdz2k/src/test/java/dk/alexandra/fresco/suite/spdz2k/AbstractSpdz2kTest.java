@@ -40,18 +40,22 @@ public abstract class AbstractSpdz2kTest<Spdz2kResourcePoolT extends Spdz2kResou
       TestThreadFactory<Spdz2kResourcePoolT, ProtocolBuilderNumeric> f,
       EvaluationStrategy evalStrategy, int noOfParties) {
 
-    List<Integer> ports = getFreePorts(2 * noOfParties);
+    List<Integer> ports = getFreePorts(3 * noOfParties);
     Map<Integer, NetworkConfiguration> netConf =
         TestConfiguration.getNetworkConfigurations(noOfParties, ports.subList(0, noOfParties));
     Map<Integer, NetworkConfiguration> coinTossingNetConf = TestConfiguration
-        .getNetworkConfigurations(noOfParties, ports.subList(noOfParties, ports.size()));
+        .getNetworkConfigurations(noOfParties, ports.subList(noOfParties, 2 * noOfParties));
+    Map<Integer, NetworkConfiguration> macCheckNetConf = TestConfiguration
+        .getNetworkConfigurations(noOfParties, ports.subList(2 * noOfParties, ports.size()));
 
     Map<Integer, TestThreadRunner.TestThreadConfiguration<Spdz2kResourcePoolT, ProtocolBuilderNumeric>> conf =
         new HashMap<>();
     for (int playerId : netConf.keySet()) {
       NetworkConfiguration partyNetConf = netConf.get(playerId);
       NetworkConfiguration coinTossingPartyNetConf = coinTossingNetConf.get(playerId);
-      ProtocolSuiteNumeric<Spdz2kResourcePoolT> ps = createProtocolSuite();
+      NetworkConfiguration macCheckPartyNetConf = macCheckNetConf.get(playerId);
+      ProtocolSuiteNumeric<Spdz2kResourcePoolT> ps =
+          createProtocolSuite(() -> new AsyncNetwork(macCheckPartyNetConf));
       BatchEvaluationStrategy<Spdz2kResourcePoolT> batchEvaluationStrategy =
           evalStrategy.getStrategy();
       ProtocolEvaluator<Spdz2kResourcePoolT> evaluator =
@@ -89,4 +93,13 @@ public abstract class AbstractSpdz2kTest<Spdz2kResourcePoolT extends Spdz2kResou
 
   protected abstract ProtocolSuiteNumeric<Spdz2kResourcePoolT> createProtocolSuite();
 
+  /**
+   * Creates the protocol suite, given a supplier for a separate network the suite may use for
+   * background mac-checks. Uses {@link #createProtocolSuite()} by default.
+   */
+  protected ProtocolSuiteNumeric<Spdz2kResourcePoolT> createProtocolSuite(
+      Supplier<Network> macCheckNetworkSupplier) {
+    return createProtocolSuite();
+  }
+
 }
@@ -0,0 +1,98 @@
+package dk.alexandra.fresco.suite.spdz2k.datatypes;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Benchmark of the inner product of random coefficients and opened values, as computed in the
+ * mac-check. Compares immutable arithmetic, accumulating into a list of coefficients and
+ * accumulating into a packed vector of coefficients, reporting time, allocated bytes and number of
+ * garbage collections per inner product.
+ */
+public class CompUIntVectorBenchmark {
+
+  private static final int SIZE = 1 << 17;
+  private static final int WARMUP_ITERATIONS = 20;
+  private static final int ITERATIONS = 50;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    benchmark("CompUInt128", new CompUInt128Factory());
+    benchmark("CompUInt96", new CompUInt96Factory());
+  }
+
+  private static <T extends CompUInt<?, ?, T>> void benchmark(String name,
+      CompUIntFactory<T> factory) {
+    Random random = new Random(42);
+    int coefficientLength = factory.getHighBitLength() / Byte.SIZE;
+    byte[] coefficientBytes = new byte[SIZE * coefficientLength];
+    random.nextBytes(coefficientBytes);
+    List<T> values = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      values.add(factory.createRandom());
+    }
+    run(name, "immutable", coefficientBytes, bytes -> {
+      List<T> coefficients = toList(factory, bytes, coefficientLength);
+      T result = factory.zero();
+      for (int i = 0; i < SIZE; i++) {
+        result = result.add(coefficients.get(i).multiply(values.get(i)));
+      }
+      return result;
+    });
+    run(name, "list", coefficientBytes,
+        bytes -> UInt.innerProduct(toList(factory, bytes, coefficientLength), values));
+    run(name, "vector", coefficientBytes,
+        bytes -> factory.createVector(bytes, coefficientLength).innerProduct(values));
+  }
+
+  private static <T extends CompUInt<?, ?, T>> List<T> toList(CompUIntFactory<T> factory,
+      byte[] bytes, int elementLength) {
+    List<T> elements = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      elements.add(factory.createFromBytes(
+          Arrays.copyOfRange(bytes, i * elementLength, (i + 1) * elementLength)));
+    }
+    return elements;
+  }
+
+  private static <T extends CompUInt<?, ?, T>> void run(String name, String variant,
+      byte[] coefficientBytes, Function<byte[], T> innerProduct) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    boolean zero = true;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      zero &= innerProduct.apply(coefficientBytes).isZero();
+    }
+    long collections = countCollections();
+    long allocated = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      zero &= innerProduct.apply(coefficientBytes).isZero();
+    }
+    long time = System.nanoTime() - start;
+    allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+    collections = countCollections() - collections;
+    System.out.println(String.format("%-12s %-10s %8.2f ms %12.1f KB %6.1f GCs%s", name, variant,
+        time / 1e6 / ITERATIONS, allocated / 1024.0 / ITERATIONS,
+        (double) collections / ITERATIONS, zero ? " (zero)" : ""));
+  }
+
+  private static long countCollections() {
+    long collections = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections += collector.getCollectionCount();
+    }
+    return collections;
+  }
+
+}
@@ -6,6 +6,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import org.junit.Test;
 
@@ -274,4 +277,69 @@ public class TestCompUInt128 {
     assertFalse(new CompUInt128(1, 0,0).isZero());
   }
 
+  @Test
+  public void testAccumulator() {
+    Random random = new Random(42);
+    UIntAccumulator<CompUInt128> accumulator = new CompUInt128(0L).newAccumulator();
+    BigInteger expected = BigInteger.ZERO;
+    for (int i = 0; i < 1000; i++) {
+      BigInteger left = new BigInteger(128, random);
+      BigInteger right = new BigInteger(128, random);
+      BigInteger summand = new BigInteger(128, random);
+      accumulator.addProduct(new CompUInt128(left), new CompUInt128(right));
+      accumulator.add(new CompUInt128(summand));
+      expected = expected.add(left.multiply(right)).add(summand).mod(twoTo128);
+    }
+    assertEquals(expected, accumulator.get().toBigInteger());
+  }
+
+  @Test
+  public void testToByteArrayWithOffset() {
+    CompUInt128 value = new CompUInt128(twoTo128.subtract(BigInteger.TEN));
+    byte[] bytes = new byte[16 + 3];
+    value.toByteArray(bytes, 3);
+    assertArrayEquals(value.toByteArray(), Arrays.copyOfRange(bytes, 3, bytes.length));
+  }
+
+  @Test
+  public void testVector() {
+    Random random = new Random(42);
+    byte[] bytes = new byte[100 * 16];
+    random.nextBytes(bytes);
+    CompUIntVector<CompUInt128> vector = new CompUInt128Factory().createVector(bytes, 16);
+    assertEquals(100, vector.size());
+    List<CompUInt128> others = new ArrayList<>();
+    BigInteger expected = BigInteger.ZERO;
+    for (int i = 0; i < vector.size(); i++) {
+      CompUInt128 element = new CompUInt128(Arrays.copyOfRange(bytes, i * 16, (i + 1) * 16));
+      assertArrayEquals(element.toByteArray(), vector.get(i).toByteArray());
+      BigInteger other = new BigInteger(128, random);
+      others.add(new CompUInt128(other));
+      expected = expected.add(element.toBigInteger().multiply(other)).mod(twoTo128);
+    }
+    assertEquals(expected, vector.innerProduct(others).toBigInteger());
+    byte[] serialized = new byte[bytes.length + 3];
+    vector.toByteArray(serialized, 3);
+    assertArrayEquals(bytes, Arrays.copyOfRange(serialized, 3, serialized.length));
+  }
+
+  @Test
+  public void testVectorShortElements() {
+    Random random = new Random(42);
+    byte[] bytes = new byte[10 * 8];
+    random.nextBytes(bytes);
+    CompUIntFactory<CompUInt128> factory = new CompUInt128Factory();
+    CompUIntVector<CompUInt128> vector = factory.createVector(bytes, 8);
+    assertEquals(10, vector.size());
+    for (int i = 0; i < vector.size(); i++) {
+      CompUInt128 element = factory.createFromBytes(Arrays.copyOfRange(bytes, i * 8, (i + 1) * 8));
+      assertEquals(element.toBigInteger(), vector.get(i).toBigInteger());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testVectorWrongLength() {
+    new CompUInt128Factory().createVector(new byte[16 + 1], 16);
+  }
+
 }
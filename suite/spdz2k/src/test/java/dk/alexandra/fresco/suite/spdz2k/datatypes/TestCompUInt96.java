@@ -6,6 +6,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import org.junit.Test;
 
@@ -282,4 +285,69 @@ public class TestCompUInt96 {
     assertFalse(new CompUInt96(1, 0,0).isZero());
   }
 
+  @Test
+  public void testAccumulator() {
+    Random random = new Random(42);
+    UIntAccumulator<CompUInt96> accumulator = new CompUInt96(0L).newAccumulator();
+    BigInteger expected = BigInteger.ZERO;
+    for (int i = 0; i < 1000; i++) {
+      BigInteger left = new BigInteger(96, random);
+      BigInteger right = new BigInteger(96, random);
+      BigInteger summand = new BigInteger(96, random);
+      accumulator.addProduct(new CompUInt96(left), new CompUInt96(right));
+      accumulator.add(new CompUInt96(summand));
+      expected = expected.add(left.multiply(right)).add(summand).mod(twoTo96);
+    }
+    assertEquals(expected, accumulator.get().toBigInteger());
+  }
+
+  @Test
+  public void testToByteArrayWithOffset() {
+    CompUInt96 value = new CompUInt96(twoTo96.subtract(BigInteger.TEN));
+    byte[] bytes = new byte[12 + 3];
+    value.toByteArray(bytes, 3);
+    assertArrayEquals(value.toByteArray(), Arrays.copyOfRange(bytes, 3, bytes.length));
+  }
+
+  @Test
+  public void testVector() {
+    Random random = new Random(42);
+    byte[] bytes = new byte[100 * 12];
+    random.nextBytes(bytes);
+    CompUIntVector<CompUInt96> vector = new CompUInt96Factory().createVector(bytes, 12);
+    assertEquals(100, vector.size());
+    List<CompUInt96> others = new ArrayList<>();
+    BigInteger expected = BigInteger.ZERO;
+    for (int i = 0; i < vector.size(); i++) {
+      CompUInt96 element = new CompUInt96(Arrays.copyOfRange(bytes, i * 12, (i + 1) * 12));
+      assertArrayEquals(element.toByteArray(), vector.get(i).toByteArray());
+      BigInteger other = new BigInteger(96, random);
+      others.add(new CompUInt96(other));
+      expected = expected.add(element.toBigInteger().multiply(other)).mod(twoTo96);
+    }
+    assertEquals(expected, vector.innerProduct(others).toBigInteger());
+    byte[] serialized = new byte[bytes.length + 3];
+    vector.toByteArray(serialized, 3);
+    assertArrayEquals(bytes, Arrays.copyOfRange(serialized, 3, serialized.length));
+  }
+
+  @Test
+  public void testVectorShortElements() {
+    Random random = new Random(42);
+    byte[] bytes = new byte[10 * 8];
+    random.nextBytes(bytes);
+    CompUIntFactory<CompUInt96> factory = new CompUInt96Factory();
+    CompUIntVector<CompUInt96> vector = factory.createVector(bytes, 8);
+    assertEquals(10, vector.size());
+    for (int i = 0; i < vector.size(); i++) {
+      CompUInt96 element = factory.createFromBytes(Arrays.copyOfRange(bytes, i * 8, (i + 1) * 8));
+      assertEquals(element.toBigInteger(), vector.get(i).toBigInteger());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testVectorWrongLength() {
+    new CompUInt96Factory().createVector(new byte[12 + 1], 12);
+  }
+
 }
@@ -0,0 +1,302 @@
+package dk.alexandra.fresco.suite.spdz2k.resource.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.configuration.NetworkConfiguration;
+import dk.alexandra.fresco.framework.configuration.TestConfiguration;
+import dk.alexandra.fresco.framework.network.CloseableNetwork;
+import dk.alexandra.fresco.framework.network.MultiplexedNetwork;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.network.async.AsyncNetwork;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128Factory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kInputMask;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kSInt;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.Spdz2kTriple;
+import dk.alexandra.fresco.tools.ot.base.DummyOt;
+import dk.alexandra.fresco.tools.ot.base.Ot;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import org.junit.Test;
+
+public class TestSpdz2kOtDataSupplier {
+
+  private static final int PRG_SEED_LENGTH = 128;
+  private static final int NUM_ELEMENTS = 10;
+
+  private final CompUIntFactory<CompUInt128> factory = new CompUInt128Factory();
+
+  /**
+   * Material produced by a single party.
+   */
+  private static class Material {
+
+    private final CompUInt128 macKeyShare;
+    private final List<Spdz2kTriple<CompUInt128>> triples = new ArrayList<>();
+    private final List<Spdz2kSInt<CompUInt128>> bits = new ArrayList<>();
+    private final List<Spdz2kSInt<CompUInt128>> elements = new ArrayList<>();
+    private final List<List<Spdz2kInputMask<CompUInt128>>> masks = new ArrayList<>();
+
+    private Material(CompUInt128 macKeyShare) {
+      this.macKeyShare = macKeyShare;
+    }
+  }
+
+  private Map<Integer, RotList> seedOts(int myId, int noOfParties, Drbg drbg,
+      Network network) {
+    Map<Integer, RotList> seedOts = new HashMap<>();
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (myId != otherId) {
+        Ot ot = new DummyOt(otherId, network);
+        RotList currentSeedOts = new RotList(drbg, PRG_SEED_LENGTH);
+        if (myId < otherId) {
+          currentSeedOts.send(ot);
+          currentSeedOts.receive(ot);
+        } else {
+          currentSeedOts.receive(ot);
+          currentSeedOts.send(ot);
+        }
+        seedOts.put(otherId, currentSeedOts);
+      }
+    }
+    return seedOts;
+  }
+
+  private List<Material> run(int noOfParties, int noOfChannels,
+      BiFunction<Integer, MultiplexedNetwork, Spdz2kDataSupplier<CompUInt128>> suppliers)
+      throws Exception {
+    Map<Integer, NetworkConfiguration> confs =
+        TestConfiguration.getNetworkConfigurations(noOfParties);
+    ExecutorService executor = Executors.newFixedThreadPool(noOfParties);
+    List<Future<Material>> futures = new ArrayList<>();
+    CyclicBarrier done = new CyclicBarrier(noOfParties);
+    for (int i = 1; i <= noOfParties; i++) {
+      int myId = i;
+      futures.add(executor.submit(() -> {
+        CloseableNetwork network = new AsyncNetwork(confs.get(myId));
+        MultiplexedNetwork channels = new MultiplexedNetwork(network, noOfChannels);
+        try {
+          Spdz2kDataSupplier<CompUInt128> supplier = suppliers.apply(myId, channels);
+          Material material = new Material(supplier.getSecretSharedKey());
+          for (int j = 0; j < NUM_ELEMENTS; j++) {
+            material.triples.add(supplier.getNextTripleShares());
+            material.bits.add(supplier.getNextBitShare());
+            material.elements.add(supplier.getNextRandomElementShare());
+          }
+          for (int partyId = 1; partyId <= noOfParties; partyId++) {
+            List<Spdz2kInputMask<CompUInt128>> masks = new ArrayList<>();
+            for (int j = 0; j < NUM_ELEMENTS; j++) {
+              masks.add(supplier.getNextInputMask(partyId));
+            }
+            material.masks.add(masks);
+          }
+          // the other parties may still need messages from this party to complete their material
+          done.await();
+          if (supplier instanceof Spdz2kPrefetchingDataSupplier) {
+            ((Spdz2kPrefetchingDataSupplier<CompUInt128>) supplier).close();
+          }
+          return material;
+        } finally {
+          channels.close();
+        }
+      }));
+    }
+    List<Material> results = new ArrayList<>();
+    try {
+      for (Future<Material> future : futures) {
+        results.add(future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return results;
+  }
+
+  private Drbg drbg(int myId) {
+    byte[] seed = new byte[32];
+    new Random(myId).nextBytes(seed);
+    return new PaddingAesCtrDrbg(seed);
+  }
+
+  private Spdz2kDataSupplier<CompUInt128> createSupplier(int myId, int noOfParties,
+      MultiplexedNetwork network) {
+    Drbg drbg = drbg(myId);
+    Map<Integer, RotList> seedOts = seedOts(myId, noOfParties, drbg, network.getChannel(0));
+    return new Spdz2kOtDataSupplier<>(myId, noOfParties, 1, () -> network.getChannel(1),
+        factory, factory.createRandom(), PRG_SEED_LENGTH, 4, seedOts, drbg);
+  }
+
+  /**
+   * Creates a supplier for two parties where party two adds one to the first product of each
+   * batch of triples.
+   */
+  private Spdz2kDataSupplier<CompUInt128> createCorruptProductSupplier(int myId,
+      MultiplexedNetwork network) {
+    Drbg drbg = drbg(myId);
+    Map<Integer, RotList> seedOts = seedOts(myId, 2, drbg, network.getChannel(0));
+    return new Spdz2kOtDataSupplier<CompUInt128>(myId, 2, 1, () -> network.getChannel(1),
+        factory, factory.createRandom(), PRG_SEED_LENGTH, 4, seedOts, drbg) {
+      @Override
+      List<CompUInt128> multiply(List<CompUInt128> left, List<CompUInt128> right) {
+        List<CompUInt128> products = super.multiply(left, right);
+        if (myId == 2) {
+          products.set(0, products.get(0).add(factory.createFromBigInteger(BigInteger.ONE)));
+        }
+        return products;
+      }
+    };
+  }
+
+  /**
+   * Creates a supplier for two parties where party two adds one to the first mac share of each
+   * batch of values it authenticates, as if it had used another mac key share.
+   */
+  private Spdz2kDataSupplier<CompUInt128> createCorruptMacSupplier(int myId,
+      MultiplexedNetwork network) {
+    Drbg drbg = drbg(myId);
+    Map<Integer, RotList> seedOts = seedOts(myId, 2, drbg, network.getChannel(0));
+    return new Spdz2kOtDataSupplier<CompUInt128>(myId, 2, 1, () -> network.getChannel(1),
+        factory, factory.createRandom(), PRG_SEED_LENGTH, 4, seedOts, drbg) {
+      @Override
+      List<CompUInt128> authenticate(List<CompUInt128> shares) {
+        List<CompUInt128> macs = super.authenticate(shares);
+        if (myId == 2) {
+          macs.set(0, macs.get(0).add(factory.createFromBigInteger(BigInteger.ONE)));
+        }
+        return macs;
+      }
+    };
+  }
+
+  private Spdz2kDataSupplier<CompUInt128> createPrefetchingSupplier(int myId, int noOfParties,
+      MultiplexedNetwork network) {
+    Drbg drbg = drbg(myId);
+    Map<Integer, RotList> seedOts = seedOts(myId, noOfParties, drbg, network.getChannel(0));
+    return Spdz2kOtDataSupplier.createPrefetchingSupplier(myId, noOfParties,
+        producer -> network.getChannel(producer + 1), factory, factory.createRandom(),
+        PRG_SEED_LENGTH, seedOts, drbg, 4, 2, 8);
+  }
+
+  private void assertMaliciousDetected(String message,
+      BiFunction<Integer, MultiplexedNetwork, Spdz2kDataSupplier<CompUInt128>> suppliers)
+      throws Exception {
+    try {
+      run(2, 2, suppliers);
+      fail("Malicious behaviour was not detected");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof MaliciousException);
+      assertEquals(message, e.getCause().getMessage());
+    }
+  }
+
+  private Spdz2kSInt<CompUInt128> recombine(List<Spdz2kSInt<CompUInt128>> shares) {
+    return shares.stream().reduce(Spdz2kSInt::add).get();
+  }
+
+  private void assertMacCorrect(Spdz2kSInt<CompUInt128> recombined, CompUInt128 macKey) {
+    assertArrayEquals(
+        macKey.multiply(recombined.getShare()).toByteArray(),
+        recombined.getMacShare().toByteArray()
+    );
+  }
+
+  private void assertMaterialValid(List<Material> results) {
+    int noOfParties = results.size();
+    CompUInt128 macKey = results.stream().map(material -> material.macKeyShare)
+        .reduce(CompUInt128::add).get();
+    List<BigInteger> bitValues = new ArrayList<>();
+    for (int j = 0; j < NUM_ELEMENTS; j++) {
+      List<Spdz2kSInt<CompUInt128>> left = new ArrayList<>();
+      List<Spdz2kSInt<CompUInt128>> right = new ArrayList<>();
+      List<Spdz2kSInt<CompUInt128>> product = new ArrayList<>();
+      List<Spdz2kSInt<CompUInt128>> bits = new ArrayList<>();
+      List<Spdz2kSInt<CompUInt128>> elements = new ArrayList<>();
+      for (Material material : results) {
+        left.add(material.triples.get(j).getLeft());
+        right.add(material.triples.get(j).getRight());
+        product.add(material.triples.get(j).getProduct());
+        bits.add(material.bits.get(j));
+        elements.add(material.elements.get(j));
+      }
+      Spdz2kTriple<CompUInt128> triple =
+          new Spdz2kTriple<>(recombine(left), recombine(right), recombine(product));
+      assertMacCorrect(triple.getLeft(), macKey);
+      assertMacCorrect(triple.getRight(), macKey);
+      assertMacCorrect(triple.getProduct(), macKey);
+      assertEquals(triple.getProduct().getShare().toBigInteger(),
+          triple.getLeft().getShare().multiply(triple.getRight().getShare()).toBigInteger());
+      Spdz2kSInt<CompUInt128> bit = recombine(bits);
+      BigInteger bitValue = bit.getShare().toBigInteger();
+      assertTrue("Not a bit " + bitValue,
+          bitValue.equals(BigInteger.ZERO) || bitValue.equals(BigInteger.ONE));
+      bitValues.add(bitValue);
+      assertMacCorrect(bit, macKey);
+      assertMacCorrect(recombine(elements), macKey);
+      for (int partyId = 1; partyId <= noOfParties; partyId++) {
+        List<Spdz2kSInt<CompUInt128>> maskShares = new ArrayList<>();
+        CompUInt128 openValue = null;
+        for (int i = 1; i <= noOfParties; i++) {
+          Spdz2kInputMask<CompUInt128> mask = results.get(i - 1).masks.get(partyId - 1).get(j);
+          if (i == partyId) {
+            openValue = mask.getOpenValue();
+          } else {
+            assertNull(mask.getOpenValue());
+          }
+          maskShares.add(mask.getMaskShare());
+        }
+        Spdz2kSInt<CompUInt128> mask = recombine(maskShares);
+        assertMacCorrect(mask, macKey);
+        assertEquals(openValue.toBigInteger(), mask.getShare().toBigInteger());
+      }
+    }
+    assertTrue("Bits were all equal",
+        bitValues.contains(BigInteger.ZERO) && bitValues.contains(BigInteger.ONE));
+  }
+
+  @Test(timeout = 60000)
+  public void testTwoParties() throws Exception {
+    assertMaterialValid(run(2, 2, (myId, network) -> createSupplier(myId, 2, network)));
+  }
+
+  @Test(timeout = 60000)
+  public void testThreeParties() throws Exception {
+    assertMaterialValid(run(3, 2, (myId, network) -> createSupplier(myId, 3, network)));
+  }
+
+  @Test(timeout = 60000)
+  public void testCorruptProductDetected() throws Exception {
+    assertMaliciousDetected("Triple sacrifice failed", this::createCorruptProductSupplier);
+  }
+
+  @Test(timeout = 60000)
+  public void testCorruptMacDetected() throws Exception {
+    assertMaliciousDetected("Mac check failed", this::createCorruptMacSupplier);
+  }
+
+  @Test(timeout = 60000)
+  public void testPrefetching() throws Exception {
+    // Channel 0 is used for the seed OTs, and the rest by the producers
+    assertMaterialValid(run(2, 6, (myId, network) -> createPrefetchingSupplier(myId, 2,
+        network)));
+  }
+
+}
@@ -3,8 +3,10 @@ package dk.alexandra.fresco.suite.spdz2k.util;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
-import dk.alexandra.fresco.framework.network.serializers.ByteSerializer;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUInt128Factory;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntFactory;
+import dk.alexandra.fresco.suite.spdz2k.datatypes.CompUIntVector;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.GenericCompUInt;
 import dk.alexandra.fresco.suite.spdz2k.datatypes.GenericCompUIntFactory;
 import java.util.Arrays;
@@ -15,7 +17,7 @@ import org.junit.Test;
 public class TestUIntSerializer {
 
   private final CompUIntFactory<GenericCompUInt> factory = new GenericCompUIntFactory(64, 64);
-  private final ByteSerializer<GenericCompUInt> serializer = new UIntSerializer<>(factory);
+  private final UIntSerializer<GenericCompUInt> serializer = new UIntSerializer<>(factory);
 
   @Test
   public void testSerialize() {
@@ -73,4 +75,27 @@ public class TestUIntSerializer {
     serializer.deserializeList(rawBytes);
   }
 
+  @Test
+  public void testSerializeVector() {
+    Random random = new Random(42);
+    byte[] rawBytes = new byte[48];
+    random.nextBytes(rawBytes);
+    CompUIntVector<GenericCompUInt> vector = serializer.deserializeVector(rawBytes);
+    assertEquals(3, vector.size());
+    assertArrayEquals(Arrays.copyOfRange(rawBytes, 16, 32), vector.get(1).toByteArray());
+    assertArrayEquals(rawBytes, serializer.serialize(vector));
+  }
+
+  @Test
+  public void testSerializePackedVector() {
+    Random random = new Random(42);
+    byte[] rawBytes = new byte[48];
+    random.nextBytes(rawBytes);
+    UIntSerializer<CompUInt128> packedSerializer = new UIntSerializer<>(new CompUInt128Factory());
+    CompUIntVector<CompUInt128> vector = packedSerializer.deserializeVector(rawBytes);
+    assertEquals(3, vector.size());
+    assertArrayEquals(Arrays.copyOfRange(rawBytes, 16, 32), vector.get(1).toByteArray());
+    assertArrayEquals(rawBytes, packedSerializer.serialize(vector));
+  }
+
 }
@@ -0,0 +1,107 @@
+package dk.alexandra.fresco.suite.tinytables.online;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.RegularBitVector;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Collects the shares of bits opened in the online phase of the TinyTables protocol, such that all
+ * shares opened in the same batch are sent as a single bit vector to each party instead of one
+ * byte per share.
+ * </p>
+ *
+ * <p>
+ * Opening a bit takes three rounds: In the first round the protocol adds its share using
+ * {@link #add(boolean)}. In the second round it calls {@link #send(Network)}, which sends all
+ * shares added in the batch the first time it is called. In the third round the opened bit is
+ * obtained using {@link #get(int, Network)}, which receives and XORs the bit vectors of all parties
+ * the first time it is called. Since all protocols in a batch are evaluated round by round, only
+ * the first call to send and get in a batch does any work. Adding a share after the batch has been
+ * opened starts a new batch.
+ * </p>
+ *
+ * <p>
+ * The protocols of a batch must be evaluated in the same order by all parties. An instance is used
+ * by the protocols evaluated on a single network, see
+ * {@link TinyTablesProtocolSuite#getBatchedOpening(Network)}, and is not thread safe.
+ * </p>
+ */
+public class TinyTablesBatchedOpening {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private byte[] shares = new byte[INITIAL_CAPACITY / Byte.SIZE];
+  private int size;
+  private State state = State.COLLECTING;
+  private RegularBitVector opened;
+
+  /**
+   * Adds a share of a bit to be opened in the current batch.
+   *
+   * @param share this party's share of the bit
+   * @return the index of the bit in the batch, to be used with {@link #get(int, Network)}
+   */
+  public int add(boolean share) {
+    if (state != State.COLLECTING) {
+      Arrays.fill(shares, 0, byteLength(size), (byte) 0);
+      size = 0;
+      opened = null;
+      state = State.COLLECTING;
+    }
+    if (byteLength(size + 1) > shares.length) {
+      shares = Arrays.copyOf(shares, shares.length * 2);
+    }
+    if (share) {
+      shares[size >>> 3] |= (byte) (1 << (size & 7));
+    }
+    return size++;
+  }
+
+  /**
+   * Sends the shares added in the current batch to all parties, unless this has already been done.
+   *
+   * @param network the network to send on
+   */
+  public void send(Network network) {
+    if (state == State.COLLECTING) {
+      network.sendToAll(Arrays.copyOf(shares, byteLength(size)));
+      state = State.SENT;
+    }
+  }
+
+  /**
+   * Gets an opened bit of the current batch, receiving the shares of all parties if this has not
+   * already been done.
+   *
+   * @param index the index of the bit as returned by {@link #add(boolean)}
+   * @param network the network to receive on
+   * @return the opened bit
+   */
+  public boolean get(int index, Network network) {
+    if (state == State.COLLECTING) {
+      throw new IllegalStateException("Shares must be sent before they are opened");
+    }
+    if (state == State.SENT) {
+      opened = new RegularBitVector(size);
+      for (int i = 1; i <= network.getNoOfParties(); i++) {
+        byte[] received = network.receive(i);
+        if (received.length != byteLength(size)) {
+          throw new IllegalStateException(
+              "Expected " + byteLength(size) + " bytes of shares but got " + received.length);
+        }
+        opened.xor(new RegularBitVector(received, size));
+      }
+      state = State.OPENED;
+    }
+    return opened.getBit(index);
+  }
+
+  private static int byteLength(int bits) {
+    return (bits + Byte.SIZE - 1) / Byte.SIZE;
+  }
+
+  private enum State {
+    COLLECTING, SENT, OPENED
+  }
+}
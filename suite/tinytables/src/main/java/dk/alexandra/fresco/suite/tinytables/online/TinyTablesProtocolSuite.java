@@ -11,13 +11,14 @@ import dk.alexandra.fresco.suite.tinytables.online.protocols.TinyTablesNOTProtoc
 import dk.alexandra.fresco.suite.tinytables.online.protocols.TinyTablesOpenToAllProtocol;
 import dk.alexandra.fresco.suite.tinytables.online.protocols.TinyTablesXORProtocol;
 import dk.alexandra.fresco.suite.tinytables.prepro.TinyTablesPreproProtocolSuite;
+import dk.alexandra.fresco.suite.tinytables.storage.PackedTinyTablesStorage;
 import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +47,8 @@ public class TinyTablesProtocolSuite
 
   private final File tinyTablesFile;
   private TinyTablesStorage storage;
+  private final Map<Network, TinyTablesBatchedOpening> batchedOpenings =
+      Collections.synchronizedMap(new WeakHashMap<>());
   private static volatile Map<Integer, TinyTablesProtocolSuite> instances = new HashMap<>();
   private final static Logger logger = LoggerFactory.getLogger(TinyTablesProtocolSuite.class);
 
@@ -63,7 +66,6 @@ public class TinyTablesProtocolSuite
       Network network) {
     try {
       this.storage = loadTinyTables(tinyTablesFile);
-    } catch (ClassNotFoundException ignored) {
     } catch (IOException e) {
       logger.error("Failed to load TinyTables: " + e.getMessage());
     }
@@ -71,21 +73,38 @@ public class TinyTablesProtocolSuite
     return b;
   }
 
-  private TinyTablesStorage loadTinyTables(File file) throws IOException, ClassNotFoundException {
-    FileInputStream fin = new FileInputStream(file);
-    ObjectInputStream is = new ObjectInputStream(fin);
-    logger.info("Loading TinyTabels from " + file);
-    TinyTablesStorage storage = (TinyTablesStorage) is.readObject();
-    is.close();
-    return storage;
+  private TinyTablesStorage loadTinyTables(File file) throws IOException {
+    logger.info("Loading TinyTables from " + file);
+    return PackedTinyTablesStorage.read(file);
   }
 
   public TinyTablesStorage getStorage() {
     return this.storage;
   }
 
+  /**
+   * Gets the object collecting the shares opened by the protocols evaluated on a given network.
+   * Batch evaluation strategies evaluating parts of a batch concurrently use a network per part, so
+   * keeping an opening per network lets each part open its shares independently.
+   *
+   * @param network the network the protocols of the batch are evaluated on
+   * @return the batched opening for the network
+   */
+  public TinyTablesBatchedOpening getBatchedOpening(Network network) {
+    return batchedOpenings.computeIfAbsent(network, key -> new TinyTablesBatchedOpening());
+  }
+
   @Override
   public RoundSynchronization<ResourcePoolImpl> createRoundSynchronization() {
     return new DummyRoundSynchronization<>();
   }
+
+  /**
+   * The online protocols only read the TinyTables and open their shares through a batched opening
+   * per network, see {@link #getBatchedOpening(Network)}, so they may be evaluated concurrently.
+   */
+  @Override
+  public boolean supportsConcurrentEvaluation() {
+    return true;
+  }
 }
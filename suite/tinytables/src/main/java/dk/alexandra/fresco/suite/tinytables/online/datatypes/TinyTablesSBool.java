@@ -12,6 +12,8 @@ import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
  */
 public class TinyTablesSBool implements SBool {
 
+  private static final TinyTablesSBool FALSE = new TinyTablesSBool(new TinyTablesElement(false));
+  private static final TinyTablesSBool TRUE = new TinyTablesSBool(new TinyTablesElement(true));
 
   private final TinyTablesElement value;
 
@@ -19,6 +21,17 @@ public class TinyTablesSBool implements SBool {
     this.value = share;
   }
 
+  /**
+   * Returns a masked value without allocating a new instance. Since instances are immutable, the
+   * same two instances can be shared by all gates.
+   *
+   * @param value the masked value
+   * @return an instance representing the masked value
+   */
+  public static TinyTablesSBool of(boolean value) {
+    return value ? TRUE : FALSE;
+  }
+
   public TinyTablesElement getValue() {
     return value;
   }
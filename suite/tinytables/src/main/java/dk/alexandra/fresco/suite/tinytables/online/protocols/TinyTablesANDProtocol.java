@@ -2,16 +2,11 @@ package dk.alexandra.fresco.suite.tinytables.online.protocols;
 
 import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.network.Network;
-import dk.alexandra.fresco.framework.network.serializers.BooleanSerializer;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
 import dk.alexandra.fresco.framework.value.SBool;
-import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTable;
-import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import dk.alexandra.fresco.suite.tinytables.online.TinyTablesBatchedOpening;
 import dk.alexandra.fresco.suite.tinytables.online.TinyTablesProtocolSuite;
 import dk.alexandra.fresco.suite.tinytables.online.datatypes.TinyTablesSBool;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
 
 /**
  * <p>
@@ -29,6 +24,10 @@ import java.util.Objects;
  * Both players now add their share with the other players share to get the masked value of the
  * output wire.
  * </p>
+ * <p>
+ * The shares of all AND gates (and openings) in a batch are exchanged together as a single bit
+ * vector, see {@link TinyTablesBatchedOpening}.
+ * </p>
  *
  * @author Jonas Lindstrøm (jonas.lindstrom@alexandra.dk)
  */
@@ -37,6 +36,7 @@ public class TinyTablesANDProtocol extends TinyTablesProtocol<SBool> {
   private int id;
   private DRes<SBool> inLeft, inRight;
   private TinyTablesSBool out;
+  private int index;
 
   public TinyTablesANDProtocol(int id, DRes<SBool> inLeft, DRes<SBool> inRight) {
     this.id = id;
@@ -47,23 +47,19 @@ public class TinyTablesANDProtocol extends TinyTablesProtocol<SBool> {
   @Override
   public EvaluationStatus evaluate(int round, ResourcePoolImpl resourcePool, Network network) {
     TinyTablesProtocolSuite ps = TinyTablesProtocolSuite.getInstance(resourcePool.getMyId());
+    TinyTablesBatchedOpening opening = ps.getBatchedOpening(network);
 
     if (round == 0) {
-      TinyTable tinyTable = Objects.requireNonNull(ps.getStorage().getTinyTable(id),
-          "Unable to find TinyTable for gate with id " + id);
-      TinyTablesElement myShare = tinyTable.getValue(((TinyTablesSBool) inLeft.out()).getValue(),
-          ((TinyTablesSBool) inRight.out()).getValue());
-
-      network.sendToAll(new byte[]{BooleanSerializer.toBytes(myShare.getShare())});
+      boolean myShare = ps.getStorage().lookup(id,
+          ((TinyTablesSBool) inLeft.out()).getValue().getShare(),
+          ((TinyTablesSBool) inRight.out()).getValue().getShare());
+      index = opening.add(myShare);
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else if (round == 1) {
+      opening.send(network);
       return EvaluationStatus.HAS_MORE_ROUNDS;
     } else {
-      List<byte[]> buffers = network.receiveFromAll();
-      List<TinyTablesElement> shares = new ArrayList<>();
-      for (byte[] bytes : buffers) {
-        shares.add(new TinyTablesElement(BooleanSerializer.fromBytes(bytes[0])));
-      }
-      boolean open = TinyTablesElement.open(shares);
-      this.out = new TinyTablesSBool(new TinyTablesElement(open));
+      this.out = TinyTablesSBool.of(opening.get(index, network));
       return EvaluationStatus.IS_DONE;
     }
   }
@@ -2,14 +2,12 @@ package dk.alexandra.fresco.suite.tinytables.online.protocols;
 
 import dk.alexandra.fresco.framework.DRes;
 import dk.alexandra.fresco.framework.network.Network;
-import dk.alexandra.fresco.framework.network.serializers.BooleanSerializer;
 import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
 import dk.alexandra.fresco.framework.value.SBool;
 import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import dk.alexandra.fresco.suite.tinytables.online.TinyTablesBatchedOpening;
 import dk.alexandra.fresco.suite.tinytables.online.TinyTablesProtocolSuite;
 import dk.alexandra.fresco.suite.tinytables.online.datatypes.TinyTablesSBool;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * <p>
@@ -29,6 +27,7 @@ public class TinyTablesOpenToAllProtocol extends TinyTablesProtocol<Boolean> {
   private int id;
   private DRes<SBool> toOpen;
   private Boolean opened;
+  private int index;
 
   public TinyTablesOpenToAllProtocol(int id, DRes<SBool> toOpen) {
     super();
@@ -39,24 +38,23 @@ public class TinyTablesOpenToAllProtocol extends TinyTablesProtocol<Boolean> {
   @Override
   public EvaluationStatus evaluate(int round, ResourcePoolImpl resourcePool, Network network) {
     TinyTablesProtocolSuite ps = TinyTablesProtocolSuite.getInstance(resourcePool.getMyId());
+    TinyTablesBatchedOpening opening = ps.getBatchedOpening(network);
 
     /*
      * When opening a value, all players send their shares of the masking value r to the other
      * players, and each player can then calculate the unmasked value as the XOR of the masked value
-     * and all the shares of the mask.
+     * and all the shares of the mask. The shares are sent together with the other shares opened in
+     * the same batch.
      */
     if (round == 0) {
       TinyTablesElement myR = ps.getStorage().getMaskShare(id);
-      network.sendToAll(new byte[]{BooleanSerializer.toBytes(myR.getShare())});
+      index = opening.add(myR.getShare());
+      return EvaluationStatus.HAS_MORE_ROUNDS;
+    } else if (round == 1) {
+      opening.send(network);
       return EvaluationStatus.HAS_MORE_ROUNDS;
     } else {
-      // round > 0
-      List<byte[]> buffers = network.receiveFromAll();
-      List<TinyTablesElement> maskShares = new ArrayList<>();
-      for (byte[] buffer : buffers) {
-        maskShares.add(new TinyTablesElement(BooleanSerializer.fromBytes(buffer[0])));
-      }
-      boolean mask = TinyTablesElement.open(maskShares);
+      boolean mask = opening.get(index, network);
       this.opened = ((TinyTablesSBool) toOpen.out()).getValue().getShare() ^ mask;
       return EvaluationStatus.IS_DONE;
     }
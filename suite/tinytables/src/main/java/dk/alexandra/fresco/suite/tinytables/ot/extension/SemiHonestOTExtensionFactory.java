@@ -1,6 +1,8 @@
 package dk.alexandra.fresco.suite.tinytables.ot.extension;
 
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCorrelationRobustHash;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import java.util.Random;
 
 public class SemiHonestOTExtensionFactory implements
@@ -11,25 +13,35 @@ public class SemiHonestOTExtensionFactory implements
 	private int securityParameter;
   private dk.alexandra.fresco.suite.tinytables.ot.OTFactory baseOT;
   private Random random;
+  private CorrelationRobustHash hash;
 
 	public SemiHonestOTExtensionFactory(Network network, int myId,
       int securityParameter, dk.alexandra.fresco.suite.tinytables.ot.OTFactory baseOT,
       Random random) {
+    this(network, myId, securityParameter, baseOT, random, new AesCorrelationRobustHash());
+  }
+
+  public SemiHonestOTExtensionFactory(Network network, int myId,
+      int securityParameter, dk.alexandra.fresco.suite.tinytables.ot.OTFactory baseOT,
+      Random random, CorrelationRobustHash hash) {
     this.network = network;
 		this.myId = myId;
 		this.securityParameter = securityParameter;
 		this.baseOT = baseOT;
 		this.random = random;
+		this.hash = hash;
 	}
 	
 	@Override
   public dk.alexandra.fresco.suite.tinytables.ot.OTSender createOTSender() {
-    return new SemiHonestOTExtensionSender(network, myId, securityParameter, baseOT, random);
+    return new SemiHonestOTExtensionSender(network, myId, securityParameter, baseOT, random,
+        hash);
 	}
 
 	@Override
   public dk.alexandra.fresco.suite.tinytables.ot.OTReceiver createOTReceiver() {
-    return new SemiHonestOTExtensionReceiver(network, myId, securityParameter, baseOT, random);
+    return new SemiHonestOTExtensionReceiver(network, myId, securityParameter, baseOT, random,
+        hash);
 	}
 
 }
@@ -1,8 +1,10 @@
 package dk.alexandra.fresco.suite.tinytables.ot.extension;
 
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCorrelationRobustHash;
 import dk.alexandra.fresco.framework.util.BinaryMatrix;
 import dk.alexandra.fresco.framework.util.BitSetUtils;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import dk.alexandra.fresco.suite.tinytables.ot.OTSender;
 import dk.alexandra.fresco.suite.tinytables.ot.datatypes.OTInput;
 import dk.alexandra.fresco.suite.tinytables.ot.datatypes.OTSigma;
@@ -27,15 +29,23 @@ public class SemiHonestOTExtensionReceiver implements
   private int securityParameter;
   private dk.alexandra.fresco.suite.tinytables.ot.OTFactory baseOT;
   private Random random;
+  private CorrelationRobustHash hash;
 
   public SemiHonestOTExtensionReceiver(Network network, int myId,
       int securityParameter, dk.alexandra.fresco.suite.tinytables.ot.OTFactory baseOT,
       Random random) {
+    this(network, myId, securityParameter, baseOT, random, new AesCorrelationRobustHash());
+  }
+
+  public SemiHonestOTExtensionReceiver(Network network, int myId,
+      int securityParameter, dk.alexandra.fresco.suite.tinytables.ot.OTFactory baseOT,
+      Random random, CorrelationRobustHash hash) {
     this.network = network;
     this.myId = myId;
     this.securityParameter = securityParameter;
     this.baseOT = baseOT;
     this.random = random;
+    this.hash = hash;
   }
 
   @Override
@@ -77,6 +87,11 @@ public class SemiHonestOTExtensionReceiver implements
 		 * Y has two columns per sigma. Now for each sigma, the output is z =
 		 * Y_sigma + H(j,t).
 		 */
+    List<BitSet> rows = new ArrayList<>(sigmas.size());
+    for (int j = 0; j < sigmas.size(); j++) {
+      rows.add(t.getRow(j));
+    }
+    List<BitSet> hashes = Util.hash(rows, securityParameter, expectedLength, hash);
     List<BitSet> output = new ArrayList<>();
     for (int j = 0; j < sigmas.size(); j++) {
       boolean sigma = r.get(j);
@@ -86,7 +101,7 @@ public class SemiHonestOTExtensionReceiver implements
 			 * Otherwise we take the second.
 			 */
       BitSet z = y.getColumn(2 * j + (sigma ? 1 : 0));
-      z.xor(Util.hash(j, t.getRow(j), expectedLength));
+      z.xor(hashes.get(j));
       output.add(z);
     }
     return output;
@@ -1,13 +1,16 @@
 package dk.alexandra.fresco.suite.tinytables.ot.extension;
 
 import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCorrelationRobustHash;
 import dk.alexandra.fresco.framework.util.BinaryMatrix;
 import dk.alexandra.fresco.framework.util.BitSetUtils;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import dk.alexandra.fresco.suite.tinytables.ot.OTFactory;
 import dk.alexandra.fresco.suite.tinytables.ot.OTReceiver;
 import dk.alexandra.fresco.suite.tinytables.ot.OTSender;
 import dk.alexandra.fresco.suite.tinytables.ot.datatypes.OTSigma;
 import dk.alexandra.fresco.suite.tinytables.util.Util;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Random;
@@ -26,14 +29,21 @@ public class SemiHonestOTExtensionSender implements OTSender {
   private int securityParameter;
   private OTFactory baseOT;
   private Random random;
+  private CorrelationRobustHash hash;
 
   public SemiHonestOTExtensionSender(Network network, int myId, int securityParameter,
       OTFactory baseOT, Random random) {
+    this(network, myId, securityParameter, baseOT, random, new AesCorrelationRobustHash());
+  }
+
+  public SemiHonestOTExtensionSender(Network network, int myId, int securityParameter,
+      OTFactory baseOT, Random random, CorrelationRobustHash hash) {
     this.network = network;
     this.myId = myId;
     this.securityParameter = securityParameter;
     this.baseOT = baseOT;
     this.random = random;
+    this.hash = hash;
   }
 
   @Override
@@ -56,6 +66,19 @@ public class SemiHonestOTExtensionSender implements OTSender {
     List<BitSet> otOutput = receiver.receive(sigmas, inputs.size());
     BinaryMatrix q = BinaryMatrix.fromColumns(otOutput, inputs.size());
 
+		/*
+		 * Hash the rows q_i and q_i + s of Q in bulk.
+		 */
+    List<BitSet> rows = new ArrayList<>(inputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      rows.add(q.getRow(i));
+    }
+    List<BitSet> hashZero = Util.hash(rows, securityParameter, stringLength, hash);
+    for (BitSet row : rows) {
+      row.xor(s);
+    }
+    List<BitSet> hashOne = Util.hash(rows, securityParameter, stringLength, hash);
+
 		/*
 		 * We build a matrix Y with two columns for each OTInput:
 		 */
@@ -66,16 +89,14 @@ public class SemiHonestOTExtensionSender implements OTSender {
 			 * First column for an input i is x0 + H(i, q_i)...
 			 */
       BitSet x0 = inputs.get(i).getX0();
-      BitSet row = q.getRow(i);
-      x0.xor(Util.hash(i, row, stringLength));
+      x0.xor(hashZero.get(i));
       y.setColumn(2 * i, x0);
 
 			/*
-			 * ...and the second column is x1 + H(i, q_i) + s.
+			 * ...and the second column is x1 + H(i, q_i + s).
 			 */
       BitSet x1 = inputs.get(i).getX1();
-      row.xor(s);
-      x1.xor(Util.hash(i, row, stringLength));
+      x1.xor(hashOne.get(i));
       y.setColumn(2 * i + 1, x1);
     }
 
@@ -19,15 +19,13 @@ import dk.alexandra.fresco.suite.tinytables.ot.extension.SemiHonestOTExtensionFa
 import dk.alexandra.fresco.suite.tinytables.prepro.protocols.TinyTablesPreproANDProtocol;
 import dk.alexandra.fresco.suite.tinytables.prepro.protocols.TinyTablesPreproProtocol;
 import dk.alexandra.fresco.suite.tinytables.storage.BatchTinyTablesTripleProvider;
+import dk.alexandra.fresco.suite.tinytables.storage.PackedTinyTablesStorage;
 import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorage;
-import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesStorageImpl;
 import dk.alexandra.fresco.suite.tinytables.storage.TinyTablesTripleProvider;
 import dk.alexandra.fresco.suite.tinytables.util.TinyTablesTripleGenerator;
 import dk.alexandra.fresco.suite.tinytables.util.Util;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.ArrayList;
@@ -52,8 +50,10 @@ import org.slf4j.LoggerFactory;
  * wire of a protocol. Furthermore, for each AND protocol each of the two players must also
  * calculate a so-called <i>TinyTable</i> which is used in the online phase (see
  * {@link TinyTablesProtocolSuite}). This is done using oblivious transfer. To enhance performance,
- * all oblivious transfers are done at the end of the preprocessing (see
- * {@link #createRoundSynchronization()).
+ * the AND gates are collected and their TinyTables computed in chunks of {@link #CHUNK_SIZE} gates
+ * as batches finish, and the remaining gates at the end of the preprocessing (see
+ * {@link #createRoundSynchronization()}). This keeps the memory used independent of the size of
+ * the circuit, except for the storage itself.
  * </p>
  *
  * <p>
@@ -72,7 +72,13 @@ public class TinyTablesPreproProtocolSuite
 
   private final static Logger logger = LoggerFactory.getLogger(TinyTablesPreproProtocolSuite.class);
 
-  private TinyTablesStorage storage;
+  /**
+   * The maximum number of AND gates processed together. Triples are also generated in batches of
+   * this size, so each chunk requires at most one run of the triple generation.
+   */
+  public static final int CHUNK_SIZE = 1024;
+
+  private PackedTinyTablesStorage storage;
   private File tinyTablesFile;
   private TinyTablesTripleProvider tinyTablesTripleProvider;
   private List<TinyTablesPreproANDProtocol> unprocessedAndGates;
@@ -86,7 +92,7 @@ public class TinyTablesPreproProtocolSuite
 
   public TinyTablesPreproProtocolSuite(int id, File tinyTablesFile) {
     this.secRand = new SecureRandom();
-    this.storage = TinyTablesStorageImpl.getInstance(id);
+    this.storage = new PackedTinyTablesStorage();
     this.tinyTablesFile = tinyTablesFile;
     instances.put(id, this);
   }
@@ -105,7 +111,7 @@ public class TinyTablesPreproProtocolSuite
 
     this.tinyTablesTripleProvider =
         new BatchTinyTablesTripleProvider(new TinyTablesTripleGenerator(resourcePool.getMyId(),
-            secRand, otFactory), 1500);
+            secRand, otFactory), CHUNK_SIZE);
 
     this.unprocessedAndGates =
         Collections.synchronizedList(new ArrayList<TinyTablesPreproANDProtocol>());
@@ -128,16 +134,19 @@ public class TinyTablesPreproProtocolSuite
       public void finishedBatch(int gatesEvaluated, ResourcePoolImpl resourcePool,
           Network network) {
         /*
-         * When 1000 AND gates needs to be processed, we do it.
+         * Process the AND gates collected so far in full chunks, keeping the rest for later.
          */
-        if (TinyTablesPreproProtocolSuite.this.unprocessedAndGates.size() > 1000) {
-          calculateTinyTablesForUnprocessedANDGates(resourcePool, network);
+        while (unprocessedAndGates.size() >= CHUNK_SIZE) {
+          calculateTinyTablesForUnprocessedANDGates(resourcePool, network, CHUNK_SIZE);
         }
       }
 
       @Override
       public void finishedEval(ResourcePoolImpl resourcePool, Network network) {
-        calculateTinyTablesForUnprocessedANDGates(resourcePool, network);
+        while (!unprocessedAndGates.isEmpty()) {
+          calculateTinyTablesForUnprocessedANDGates(resourcePool, network,
+              Math.min(CHUNK_SIZE, unprocessedAndGates.size()));
+        }
         tinyTablesTripleProvider.close();
         /*
          * Store the TinyTables to a file.
@@ -154,27 +163,33 @@ public class TinyTablesPreproProtocolSuite
     };
   }
 
+  /**
+   * Computes the TinyTables for the unprocessed AND gates with the smallest ids.
+   *
+   * @param resourcePool the resource pool
+   * @param network the network
+   * @param chunkSize the number of gates to process
+   */
   private void calculateTinyTablesForUnprocessedANDGates(
-      ResourcePool resourcePool, Network network) {
-    int unprocessedGates = this.unprocessedAndGates.size();
-
-      /*
-       * Sort the unprocessed gates to make sure that the players process them in the same order.
-       */
+      ResourcePool resourcePool, Network network, int chunkSize) {
+    /*
+     * Sort the unprocessed gates to make sure that the players process them in the same order.
+     */
     this.unprocessedAndGates.sort(Comparator.comparingInt(TinyTablesPreproProtocol::getId));
+    List<TinyTablesPreproANDProtocol> chunk = this.unprocessedAndGates.subList(0, chunkSize);
 
     // Two bits per gate
-    TinyTablesElementVector shares = new TinyTablesElementVector(unprocessedGates * 2);
-    List<TinyTablesTriple> usedTriples = new ArrayList<>();
-    for (int i = 0; i < unprocessedGates; i++) {
-      TinyTablesPreproANDProtocol gate = this.unprocessedAndGates.get(i);
+    TinyTablesElementVector shares = new TinyTablesElementVector(chunkSize * 2);
+    List<TinyTablesTriple> usedTriples = new ArrayList<>(chunkSize);
+    for (int i = 0; i < chunkSize; i++) {
+      TinyTablesPreproANDProtocol gate = chunk.get(i);
       TinyTablesTriple triple = this.tinyTablesTripleProvider.getNextTriple();
       usedTriples.add(triple);
 
-        /*
-         * Calculate temp values e, d for multiplication. These should be opened before calling
-         * finalize.
-         */
+      /*
+       * Calculate temp values e, d for multiplication. These should be opened before calling
+       * finalize.
+       */
       Pair<TinyTablesElement, TinyTablesElement> msg =
           gate.getInRight().getValue().multiply(gate.getInLeft().getValue(), triple);
 
@@ -182,23 +197,27 @@ public class TinyTablesPreproProtocolSuite
       shares.setShare(2 * i + 1, msg.getSecond().getShare());
     }
 
-    byte[] size = ByteBuffer.allocate(2).putShort((short) shares.getSize()).array();
-    // send
-    network.send(Util.otherPlayerId(resourcePool.getMyId()), size);
-    network.send(Util.otherPlayerId(resourcePool.getMyId()),
-        shares.payload());
+    // send the number of shares followed by the shares
+    byte[] payload = shares.payload();
+    int otherId = Util.otherPlayerId(resourcePool.getMyId());
+    network.send(otherId, ByteBuffer.allocate(Integer.BYTES + payload.length)
+        .putInt(shares.getSize()).put(payload).array());
 
     // receive
-    size = network.receive(Util.otherPlayerId(resourcePool.getMyId()));
-    short length = ByteBuffer.wrap(size).getShort();
-    byte[] data =
-        network.receive(Util.otherPlayerId(resourcePool.getMyId()));
+    ByteBuffer received = ByteBuffer.wrap(network.receive(otherId));
+    int length = received.getInt();
+    if (length != shares.getSize()) {
+      throw new IllegalStateException(
+          "Expected " + shares.getSize() + " shares but received " + length);
+    }
+    byte[] data = new byte[received.remaining()];
+    received.get(data);
     TinyTablesElementVector otherShares = new TinyTablesElementVector(data, length);
 
     RegularBitVector open = TinyTablesElementVector.open(shares, otherShares);
 
-    for (int i = 0; i < unprocessedGates; i++) {
-      TinyTablesPreproANDProtocol gate = this.unprocessedAndGates.get(i);
+    for (int i = 0; i < chunkSize; i++) {
+      TinyTablesPreproANDProtocol gate = chunk.get(i);
       boolean e = open.getBit(2 * i);
       boolean d = open.getBit(2 * i + 1);
 
@@ -210,15 +229,12 @@ public class TinyTablesPreproProtocolSuite
       this.storage.storeTinyTable(gate.getId(), tinyTable);
     }
 
-    this.unprocessedAndGates.clear();
+    chunk.clear();
   }
 
-  private void storeTinyTables(TinyTablesStorage tinyTablesStorage, File file) throws IOException {
-    file.createNewFile();
-    FileOutputStream fout = new FileOutputStream(file);
-    ObjectOutputStream oos = new ObjectOutputStream(fout);
-    oos.writeObject(tinyTablesStorage);
-    oos.close();
+  private void storeTinyTables(PackedTinyTablesStorage tinyTablesStorage, File file)
+      throws IOException {
+    tinyTablesStorage.write(file);
   }
 
 }
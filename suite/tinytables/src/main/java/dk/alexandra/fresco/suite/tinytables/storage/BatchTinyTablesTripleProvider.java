@@ -11,8 +11,9 @@ import org.slf4j.LoggerFactory;
 /**
  * This class implements a simple TinyTablesTripleProvider where triples are
  * generated in batches, and when a batch is used up a new batch is generated
- * using the provided generator. The triples are kept in memory and discarded
- * when the program is closed.
+ * using the provided generator. The first batch is generated when the first
+ * triple is requested, so no triples are generated if none are needed. The
+ * triples are kept in memory and discarded when the program is closed.
  * 
  * @author Jonas Lindstrøm (jonas.lindstrom@alexandra.dk)
  *
@@ -27,7 +28,6 @@ public class BatchTinyTablesTripleProvider implements TinyTablesTripleProvider {
 	public BatchTinyTablesTripleProvider(TinyTablesTripleGenerator generator, int batchSize) {
 		this.generator = generator;
 		this.batchSize = batchSize;
-		generateNewTriples();
 	}
 	
 	@Override
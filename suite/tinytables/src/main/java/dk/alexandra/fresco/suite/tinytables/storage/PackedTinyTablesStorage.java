@@ -0,0 +1,212 @@
+package dk.alexandra.fresco.suite.tinytables.storage;
+
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTable;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A {@link TinyTablesStorage} which packs the data of each gate into a few bits of a
+ * <code>long[]</code> indexed by the id of the gate.
+ * </p>
+ *
+ * <p>
+ * Since the ids of the protocols are dense, this uses a few bits per gate where
+ * {@link TinyTablesStorageImpl} uses a map entry and five objects per AND gate. The four entries
+ * of a TinyTable are stored in four bits, where entry <i>(c,d)</i> is bit <i>2c + d</i>, and the
+ * shares of masks in a single bit. A presence bit for each is kept in separate arrays, so missing
+ * values can be told apart from values which are zero. The arrays grow in chunks as larger ids are
+ * stored.
+ * </p>
+ *
+ * <p>
+ * The storage can be written to and read from a file using {@link #write(File)} and
+ * {@link #read(File)}. The file contains the packed arrays and is written and read through a
+ * memory mapping, so loading tables for large circuits amounts to copying the arrays.
+ * </p>
+ */
+public class PackedTinyTablesStorage implements TinyTablesStorage {
+
+  private static final long serialVersionUID = 4675287101624213937L;
+  private static final int MAGIC = 0x54544231;
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+  private final PackedArray tables;
+  private final PackedArray tablesPresent;
+  private final PackedArray maskShares;
+  private final PackedArray maskSharesPresent;
+
+  public PackedTinyTablesStorage() {
+    this(new PackedArray(4), new PackedArray(1), new PackedArray(1), new PackedArray(1));
+  }
+
+  private PackedTinyTablesStorage(PackedArray tables, PackedArray tablesPresent,
+      PackedArray maskShares, PackedArray maskSharesPresent) {
+    this.tables = tables;
+    this.tablesPresent = tablesPresent;
+    this.maskShares = maskShares;
+    this.maskSharesPresent = maskSharesPresent;
+  }
+
+  @Override
+  public synchronized void storeTinyTable(int id, TinyTable table) {
+    int entries = 0;
+    for (int c = 0; c < 2; c++) {
+      for (int d = 0; d < 2; d++) {
+        if (table.getValue(new TinyTablesElement(c == 1), new TinyTablesElement(d == 1))
+            .getShare()) {
+          entries |= 1 << (2 * c + d);
+        }
+      }
+    }
+    tables.set(id, entries);
+    tablesPresent.set(id, 1);
+  }
+
+  @Override
+  public synchronized TinyTable getTinyTable(int id) {
+    if (tablesPresent.get(id) == 0) {
+      return null;
+    }
+    int entries = tables.get(id);
+    TinyTablesElement[] values = new TinyTablesElement[4];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new TinyTablesElement(((entries >>> i) & 1) == 1);
+    }
+    return new TinyTable(values);
+  }
+
+  @Override
+  public synchronized boolean lookup(int id, boolean eu, boolean ev) {
+    if (tablesPresent.get(id) == 0) {
+      throw new IllegalStateException("Unable to find TinyTable for gate with id " + id);
+    }
+    int bit = (eu ? 2 : 0) + (ev ? 1 : 0);
+    return ((tables.get(id) >>> bit) & 1) == 1;
+  }
+
+  @Override
+  public synchronized void storeMaskShare(int id, TinyTablesElement r) {
+    maskShares.set(id, r.getShare() ? 1 : 0);
+    maskSharesPresent.set(id, 1);
+  }
+
+  @Override
+  public synchronized TinyTablesElement getMaskShare(int id) {
+    if (maskSharesPresent.get(id) == 0) {
+      return null;
+    }
+    return new TinyTablesElement(maskShares.get(id) == 1);
+  }
+
+  /**
+   * Writes this storage to a file, replacing the content of the file.
+   *
+   * @param file the file to write to
+   * @throws IOException if the file could not be written
+   */
+  public synchronized void write(File file) throws IOException {
+    PackedArray[] arrays = {tables, tablesPresent, maskShares, maskSharesPresent};
+    long length = HEADER_BYTES;
+    for (PackedArray array : arrays) {
+      length += Integer.BYTES + (long) array.words.length * Long.BYTES;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, length);
+      buffer.putInt(MAGIC);
+      buffer.putInt(arrays.length);
+      for (PackedArray array : arrays) {
+        buffer.putInt(array.words.length);
+        LongBuffer words = buffer.asLongBuffer();
+        words.put(array.words);
+        buffer.position(buffer.position() + array.words.length * Long.BYTES);
+      }
+      buffer.force();
+    }
+  }
+
+  /**
+   * Reads a storage from a file written using {@link #write(File)}.
+   *
+   * @param file the file to read from
+   * @return the storage
+   * @throws IOException if the file could not be read or is not a packed storage
+   */
+  public static PackedTinyTablesStorage read(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC
+          || buffer.getInt() != 4) {
+        throw new IOException("Not a packed TinyTables storage: " + file);
+      }
+      PackedArray[] arrays = {new PackedArray(4), new PackedArray(1), new PackedArray(1),
+          new PackedArray(1)};
+      for (PackedArray array : arrays) {
+        int wordCount = buffer.getInt();
+        if (wordCount < 0 || (long) wordCount * Long.BYTES > buffer.remaining()) {
+          throw new IOException("Truncated packed TinyTables storage: " + file);
+        }
+        array.words = new long[wordCount];
+        buffer.asLongBuffer().get(array.words);
+        buffer.position(buffer.position() + wordCount * Long.BYTES);
+      }
+      return new PackedTinyTablesStorage(arrays[0], arrays[1], arrays[2], arrays[3]);
+    }
+  }
+
+  /**
+   * An array of fixed width entries packed into longs. The width must divide 64.
+   */
+  private static class PackedArray implements Serializable {
+
+    private static final long serialVersionUID = -2815374212893581730L;
+    private static final int CHUNK_WORDS = 1024;
+
+    private final int width;
+    private final int entriesPerWord;
+    private long[] words = new long[0];
+
+    PackedArray(int width) {
+      this.width = width;
+      this.entriesPerWord = Long.SIZE / width;
+    }
+
+    int get(int index) {
+      int word = index / entriesPerWord;
+      if (index < 0 || word >= words.length) {
+        return 0;
+      }
+      int shift = (index % entriesPerWord) * width;
+      return (int) ((words[word] >>> shift) & ((1L << width) - 1));
+    }
+
+    void set(int index, int value) {
+      if (index < 0) {
+        throw new IllegalArgumentException("Negative id " + index);
+      }
+      int word = index / entriesPerWord;
+      if (word >= words.length) {
+        grow(word + 1);
+      }
+      int shift = (index % entriesPerWord) * width;
+      long mask = ((1L << width) - 1) << shift;
+      words[word] = (words[word] & ~mask) | (((long) value << shift) & mask);
+    }
+
+    private void grow(int required) {
+      long length = Math.max(required, words.length + (words.length >> 1));
+      length = (length + CHUNK_WORDS - 1) / CHUNK_WORDS * CHUNK_WORDS;
+      words = Arrays.copyOf(words, (int) Math.min(length, Integer.MAX_VALUE - 8));
+    }
+  }
+}
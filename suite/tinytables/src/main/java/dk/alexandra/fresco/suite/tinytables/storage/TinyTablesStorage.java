@@ -24,6 +24,25 @@ public interface TinyTablesStorage extends Serializable {
 
 	public TinyTable getTinyTable(int id);
 
+	/**
+	 * Look up the entry of the {@link TinyTable} for the protocol with the
+	 * given <code>id</code> corresponding to the given masked inputs.
+	 * Implementations may override this to avoid creating the table.
+	 * 
+	 * @param id
+	 * @param eu
+	 * @param ev
+	 * @return
+	 */
+	public default boolean lookup(int id, boolean eu, boolean ev) {
+		TinyTable tinyTable = getTinyTable(id);
+		if (tinyTable == null) {
+			throw new IllegalStateException("Unable to find TinyTable for gate with id " + id);
+		}
+		return tinyTable.getValue(new TinyTablesElement(eu), new TinyTablesElement(ev))
+				.getShare();
+	}
+
 	/**
 	 * Store a boolean for the protocol with the given ID. Can be used by a
 	 * player to store a mask that he has picked during preprocessing.
@@ -1,8 +1,10 @@
 package dk.alexandra.fresco.suite.tinytables.util;
 
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 import java.util.SortedMap;
@@ -49,6 +51,35 @@ public class Util {
 		return BitSet.valueOf(binary).get(0, l);
 	}
 	
+	/**
+	 * Hashes a list of rows of the given length to bit strings of length l
+	 * using a correlation robust hash function. The j'th row is tweaked by j,
+	 * and all rows are hashed in a single call to the hash function.
+	 * 
+	 * @param rows
+	 * @param rowLength
+	 * @param l
+	 * @param hash
+	 * @return
+	 */
+	public static List<BitSet> hash(List<BitSet> rows, int rowLength, int l,
+			CorrelationRobustHash hash) {
+		int inputLength = (rowLength + Byte.SIZE - 1) / Byte.SIZE;
+		int outputLength = (l + Byte.SIZE - 1) / Byte.SIZE;
+		byte[] inputs = new byte[rows.size() * inputLength];
+		for (int j = 0; j < rows.size(); j++) {
+			byte[] row = Arrays.copyOf(rows.get(j).toByteArray(), inputLength);
+			System.arraycopy(row, 0, inputs, j * inputLength, inputLength);
+		}
+		byte[] outputs = hash.hash(inputs, inputLength, outputLength);
+		List<BitSet> result = new ArrayList<>(rows.size());
+		for (int j = 0; j < rows.size(); j++) {
+			result.add(BitSet.valueOf(Arrays.copyOfRange(outputs, j * outputLength,
+					(j + 1) * outputLength)).get(0, l));
+		}
+		return result;
+	}
+
 	public static int otherPlayerId(int myId) {
 		return myId == 1 ? 2 : 1;
 	}
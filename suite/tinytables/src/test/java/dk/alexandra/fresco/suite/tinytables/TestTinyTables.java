@@ -182,6 +182,14 @@ public class TestTinyTables {
         EvaluationStrategy.SEQUENTIAL, false, "testBasicProtocols");
   }
 
+  @Test
+  public void testBasicProtocolsBatched() {
+    runTest(new BasicBooleanTests.TestBasicProtocols<>(false),
+        EvaluationStrategy.SEQUENTIAL_BATCHED, true, "testBasicProtocolsBatched");
+    runTest(new BasicBooleanTests.TestBasicProtocols<>(true),
+        EvaluationStrategy.SEQUENTIAL_BATCHED, false, "testBasicProtocolsBatched");
+  }
+
   /* Bristol tests */
 
   @Category(IntegrationTest.class)
@@ -202,6 +210,24 @@ public class TestTinyTables {
         false, "testAES");
   }
 
+  @Test
+  public void testAESBatched() {
+    runTest(new BristolCryptoTests.AesTest<>(false), EvaluationStrategy.SEQUENTIAL_BATCHED,
+        true, "testAESBatched");
+    runTest(new BristolCryptoTests.AesTest<>(true), EvaluationStrategy.SEQUENTIAL_BATCHED,
+        false, "testAESBatched");
+  }
+
+  @Test
+  public void testAESParallelBatched() {
+    // The preprocessing suite collects AND gates in evaluation order, so only the online phase
+    // can be evaluated concurrently
+    runTest(new BristolCryptoTests.AesTest<>(false), EvaluationStrategy.SEQUENTIAL_BATCHED,
+        true, "testAESParallelBatched");
+    runTest(new BristolCryptoTests.AesTest<>(true), EvaluationStrategy.PARALLEL_BATCHED,
+        false, "testAESParallelBatched");
+  }
+
   @Category(IntegrationTest.class)
   @Test
   public void test_DES() {
@@ -0,0 +1,99 @@
+package dk.alexandra.fresco.suite.tinytables.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTable;
+import dk.alexandra.fresco.suite.tinytables.datatypes.TinyTablesElement;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestPackedTinyTablesStorage {
+
+  private static final int GATES = 100000;
+
+  @Test
+  public void testStoreAndGet() {
+    PackedTinyTablesStorage storage = new PackedTinyTablesStorage();
+    fill(storage, new Random(42));
+    assertContent(storage, new Random(42));
+  }
+
+  @Test
+  public void testMissingValues() {
+    PackedTinyTablesStorage storage = new PackedTinyTablesStorage();
+    storage.storeTinyTable(3, table(0));
+    storage.storeMaskShare(5, new TinyTablesElement(false));
+    assertNull(storage.getTinyTable(2));
+    assertNull(storage.getTinyTable(1 << 20));
+    assertNull(storage.getMaskShare(4));
+    assertEquals(false, storage.getMaskShare(5).getShare());
+    assertEquals(false, storage.lookup(3, true, true));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testLookupMissingTable() {
+    new PackedTinyTablesStorage().lookup(7, false, false);
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    PackedTinyTablesStorage storage = new PackedTinyTablesStorage();
+    fill(storage, new Random(7));
+    File file = File.createTempFile("tinytables", ".bin");
+    try {
+      storage.write(file);
+      assertContent(PackedTinyTablesStorage.read(file), new Random(7));
+    } finally {
+      Files.delete(file.toPath());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadInvalidFile() throws IOException {
+    File file = File.createTempFile("tinytables", ".bin");
+    try {
+      Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+      PackedTinyTablesStorage.read(file);
+    } finally {
+      Files.delete(file.toPath());
+    }
+  }
+
+  private static void fill(PackedTinyTablesStorage storage, Random random) {
+    // AND gates on even ids and masks on odd ids, as ids are shared by all protocols
+    for (int id = 0; id < GATES; id += 2) {
+      storage.storeTinyTable(id, table(random.nextInt(16)));
+      storage.storeMaskShare(id + 1, new TinyTablesElement(random.nextBoolean()));
+    }
+  }
+
+  private static void assertContent(PackedTinyTablesStorage storage, Random random) {
+    for (int id = 0; id < GATES; id += 2) {
+      int entries = random.nextInt(16);
+      TinyTable table = storage.getTinyTable(id);
+      for (int c = 0; c < 2; c++) {
+        for (int d = 0; d < 2; d++) {
+          boolean expected = ((entries >>> (2 * c + d)) & 1) == 1;
+          assertEquals(expected, table.getValue(new TinyTablesElement(c == 1),
+              new TinyTablesElement(d == 1)).getShare());
+          assertEquals(expected, storage.lookup(id, c == 1, d == 1));
+        }
+      }
+      assertNull(storage.getMaskShare(id));
+      assertEquals(random.nextBoolean(), storage.getMaskShare(id + 1).getShare());
+      assertNull(storage.getTinyTable(id + 1));
+    }
+  }
+
+  private static TinyTable table(int entries) {
+    TinyTablesElement[] values = new TinyTablesElement[4];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new TinyTablesElement(((entries >>> i) & 1) == 1);
+    }
+    return new TinyTable(values);
+  }
+}
@@ -14,6 +14,7 @@ import dk.alexandra.fresco.tools.mascot.online.OnlinePhase;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrgImpl;
 import dk.alexandra.fresco.tools.mascot.triple.TripleGeneration;
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -24,7 +25,7 @@ import java.util.stream.IntStream;
  * which can be used for the SPDZ pre-processing phase. <br> Supports generation of multiplication
  * triples, random authenticated elements, and random authenticated bits.
  */
-public class Mascot {
+public class Mascot implements Closeable {
 
   private final TripleGeneration tripleGeneration;
   private final ElementGeneration elementGeneration;
@@ -134,4 +135,13 @@ public class Mascot {
     return bitConverter.convertToBits(getRandomElements(numBits));
   }
 
+  /**
+   * Closes the resource pool of this instance, shutting down the executor of the sessions with the
+   * other parties.
+   */
+  @Override
+  public void close() {
+    resourcePool.close();
+  }
+
 }
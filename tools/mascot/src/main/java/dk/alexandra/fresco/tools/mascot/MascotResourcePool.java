@@ -12,9 +12,17 @@ import dk.alexandra.fresco.tools.mascot.field.FieldElement;
 import dk.alexandra.fresco.tools.mascot.field.FieldElementSerializer;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
 import dk.alexandra.fresco.tools.ot.base.RotBatch;
+import java.io.Closeable;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 
-public interface MascotResourcePool extends NumericResourcePool {
+public interface MascotResourcePool extends NumericResourcePool, Closeable {
 
   /**
    * Returns the instance ID which is unique for this particular resource pool object, but only in
@@ -104,4 +112,62 @@ public interface MascotResourcePool extends NumericResourcePool {
    */
   Drbg getRandomGenerator();
 
+  /**
+   * Gets the executor used to run the two-party sessions with the other parties concurrently. The
+   * executor is owned by this resource pool and is shut down when the pool is closed.
+   *
+   * @return the executor
+   */
+  ExecutorService getExecutorService();
+
+  /**
+   * Shuts down the executor of the sessions with the other parties. No sessions can be run once
+   * the resource pool has been closed.
+   */
+  @Override
+  void close();
+
+  /**
+   * Runs a two-party session with each of the other parties. <p>The sessions with different parties
+   * are run concurrently on {@link #getExecutorService()}, so the time taken is governed by the
+   * slowest party rather than the sum over all parties. Each session must only communicate with its
+   * own party, and the network must support concurrent communication with distinct parties.</p>
+   *
+   * @param session runs the session with the party of the given id
+   * @param <T> the type of the results of the sessions
+   * @return the results of the sessions ordered by party id
+   */
+  default <T> List<T> runWithOtherParties(IntFunction<T> session) {
+    List<Integer> otherIds = new ArrayList<>(getNoOfParties() - 1);
+    for (int partyId = 1; partyId <= getNoOfParties(); partyId++) {
+      if (partyId != getMyId()) {
+        otherIds.add(partyId);
+      }
+    }
+    if (otherIds.size() == 1) {
+      return Collections.singletonList(session.apply(otherIds.get(0)));
+    }
+    List<Future<T>> futures = new ArrayList<>(otherIds.size());
+    for (int otherId : otherIds) {
+      futures.add(getExecutorService().submit(() -> session.apply(otherId)));
+    }
+    List<T> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      // the remaining sessions may wait for messages that will never arrive
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Session with other party failed", cause);
+    }
+    return results;
+  }
+
 }
@@ -6,10 +6,12 @@ import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
 import dk.alexandra.fresco.framework.util.Drbg;
 import dk.alexandra.fresco.framework.util.ExceptionConverter;
 import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
 import dk.alexandra.fresco.tools.cointossing.CoinTossing;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrgImpl;
+import dk.alexandra.fresco.tools.ot.base.Ot;
 import dk.alexandra.fresco.tools.ot.base.RotBatch;
 import dk.alexandra.fresco.tools.ot.otextension.BristolRotBatch;
 import dk.alexandra.fresco.tools.ot.otextension.OtExtensionResourcePool;
@@ -18,7 +20,11 @@ import dk.alexandra.fresco.tools.ot.otextension.RotFactory;
 import dk.alexandra.fresco.tools.ot.otextension.RotList;
 import java.math.BigInteger;
 import java.security.MessageDigest;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 public class MascotResourcePoolImpl extends ResourcePoolImpl implements MascotResourcePool {
 
@@ -29,6 +35,7 @@ public class MascotResourcePoolImpl extends ResourcePoolImpl implements MascotRe
   private final MessageDigest messageDigest;
   private final MascotSecurityParameters mascotSecurityParameters;
   private final Drbg drbg;
+  private final ExecutorService executorService;
 
   /**
    * Creates new {@link MascotResourcePoolImpl}.
@@ -53,6 +60,45 @@ public class MascotResourcePoolImpl extends ResourcePoolImpl implements MascotRe
         new StrictBitVector(mascotSecurityParameters.getPrgSeedLength(), drbg));
     this.messageDigest = ExceptionConverter.safe(() -> MessageDigest.getInstance("SHA-256"),
         "Configuration error, SHA-256 is needed for Mascot");
+    this.executorService = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "MASCOT-session-" + instanceId);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Creates new {@link MascotResourcePoolImpl}, where the base OTs are first constructed with each
+   * of the other parties. Using a base OT which does all OTs of a batch in a constant number of
+   * rounds, such as {@link dk.alexandra.fresco.tools.ot.base.ChouOrlandiOt}, makes this much faster
+   * than using {@link dk.alexandra.fresco.tools.ot.base.NaorPinkasOt}.
+   *
+   * @param myId this party's id
+   * @param noOfParties number of parties
+   * @param instanceId the instance ID which is unique for this particular resource pool object, but
+   * only in the given execution.
+   * @param drbg source of randomness
+   * @param baseOts creates the base OT to use with the party of a given id
+   * @param mascotSecurityParameters mascot security parameters ({@link MascotSecurityParameters})
+   */
+  public MascotResourcePoolImpl(int myId, int noOfParties, int instanceId, Drbg drbg,
+      Function<Integer, Ot> baseOts, MascotSecurityParameters mascotSecurityParameters) {
+    this(myId, noOfParties, instanceId, drbg,
+        createSeedOts(myId, noOfParties, drbg, baseOts,
+            mascotSecurityParameters.getPrgSeedLength()),
+        mascotSecurityParameters);
+  }
+
+  private static Map<Integer, RotList> createSeedOts(int myId, int noOfParties, Drbg drbg,
+      Function<Integer, Ot> baseOts, int amount) {
+    Map<Integer, RotList> seedOts = new HashMap<>();
+    for (int otherId = 1; otherId <= noOfParties; otherId++) {
+      if (myId != otherId) {
+        seedOts.put(otherId,
+            RotList.createSeedOts(drbg, amount, myId, otherId, baseOts.apply(otherId)));
+      }
+    }
+    return seedOts;
   }
 
   @Override
@@ -92,9 +138,13 @@ public class MascotResourcePoolImpl extends ResourcePoolImpl implements MascotRe
     }
     CoinTossing ct = new CoinTossing(getMyId(), otherId, getRandomGenerator());
     ct.initialize(network);
+    // the OT extension draws randomness while running, and the sessions with different parties
+    // run concurrently, so each gets its own generator
+    byte[] seed = new byte[getPrgSeedLength() / Byte.SIZE];
+    getRandomGenerator().nextBytes(seed);
     OtExtensionResourcePool otResources = new OtExtensionResourcePoolImpl(getMyId(), otherId,
         getPrgSeedLength(), getLambdaSecurityParam(), getInstanceId(),
-        getRandomGenerator(), ct, seedOts.get(otherId));
+        new PaddingAesCtrDrbg(seed), ct, seedOts.get(otherId));
     return new BristolRotBatch(new RotFactory(otResources, network),
         getPrgSeedLength(), getLambdaSecurityParam());
   }
@@ -119,4 +169,14 @@ public class MascotResourcePoolImpl extends ResourcePoolImpl implements MascotRe
     return mascotSecurityParameters.getPrgSeedLength();
   }
 
+  @Override
+  public ExecutorService getExecutorService() {
+    return executorService;
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdownNow();
+  }
+
 }
@@ -14,7 +14,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
  * Actively-secure implementation of the inputter party's side of the Correlated Oblivious Product
@@ -73,25 +72,24 @@ public class CopeInputter {
   }
 
   private List<Pair<FieldElement, FieldElement>> generateMaskPairs(int numInputs) {
-    // for each input pair, we use our prf to get the next set of masks
-    List<Pair<FieldElement, FieldElement>> maskPairs = new ArrayList<>();
+    BigInteger modulus = resourcePool.getModulus();
+    // each prg generates its masks for all inputs at once
+    List<Pair<List<FieldElement>, List<FieldElement>>> masksPerPrg =
+        IntStream.range(0, leftPrgs.size()).parallel().mapToObj(idx -> new Pair<>(
+            leftPrgs.get(idx).getNext(modulus, numInputs),
+            rightPrgs.get(idx).getNext(modulus, numInputs)))
+            .collect(Collectors.toList());
+    // order mask pairs by input, i.e., the mask pairs for a single input are consecutive
+    List<Pair<FieldElement, FieldElement>> maskPairs =
+        new ArrayList<>(numInputs * leftPrgs.size());
     for (int i = 0; i < numInputs; i++) {
-      // generate masks for single input
-      maskPairs.addAll(generateMaskPairs(resourcePool.getModulus()));
+      for (Pair<List<FieldElement>, List<FieldElement>> prgMasks : masksPerPrg) {
+        maskPairs.add(new Pair<>(prgMasks.getFirst().get(i), prgMasks.getSecond().get(i)));
+      }
     }
     return maskPairs;
   }
 
-  private List<Pair<FieldElement, FieldElement>> generateMaskPairs(BigInteger modulus) {
-    Stream<Pair<FieldElement, FieldElement>> maskStream =
-        IntStream.range(0, leftPrgs.size()).parallel().mapToObj(idx -> {
-          FieldElement t0 = this.leftPrgs.get(idx).getNext(modulus);
-          FieldElement t1 = this.rightPrgs.get(idx).getNext(modulus);
-          return new Pair<>(t0, t1);
-        });
-    return maskStream.collect(Collectors.toList());
-  }
-
   private void seedPrgs(List<Pair<StrictBitVector, StrictBitVector>> seeds) {
     for (Pair<StrictBitVector, StrictBitVector> seedPair : seeds) {
       this.leftPrgs.add(new FieldElementPrgImpl(seedPair.getFirst()));
@@ -75,15 +75,16 @@ public class CopeSigner {
   }
 
   private List<FieldElement> generateMasks(int numInputs, BigInteger modulus, int modBitLength) {
-    // for each input pair, we use our prgs to get the next set of masks
-    List<FieldElement> masks = new ArrayList<>();
-    // generate mask for each input
+    // each prg generates its masks for all inputs at once
+    List<List<FieldElement>> masksPerPrg = prgs.parallelStream()
+        .map(prg -> prg.getNext(modulus, numInputs))
+        .collect(Collectors.toList());
+    // order masks by input, i.e., the masks for a single input are consecutive
+    List<FieldElement> masks = new ArrayList<>(numInputs * prgs.size());
     for (int i = 0; i < numInputs; i++) {
-      // generate masks for single input
-      List<FieldElement> singleInputMasks = prgs.parallelStream()
-          .map(prg -> prg.getNext(modulus))
-          .collect(Collectors.toList());
-      masks.addAll(singleInputMasks);
+      for (List<FieldElement> prgMasks : masksPerPrg) {
+        masks.add(prgMasks.get(i));
+      }
     }
     return masks;
   }
@@ -3,7 +3,6 @@ package dk.alexandra.fresco.tools.mascot.elgen;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.util.SecretSharer;
 import dk.alexandra.fresco.tools.mascot.MascotResourcePool;
-import dk.alexandra.fresco.tools.mascot.arithm.Addable;
 import dk.alexandra.fresco.framework.util.TransposeUtils;
 import dk.alexandra.fresco.tools.mascot.cope.CopeInputter;
 import dk.alexandra.fresco.tools.mascot.cope.CopeSigner;
@@ -171,7 +170,7 @@ public class ElementGeneration {
         .map(resourcePool.getFieldElementSerializer()::deserializeList)
         .collect(Collectors.toList());
     // recombine (step 2)
-    return Addable.sumRows(shares);
+    return fieldElementUtils.sumRows(shares);
   }
 
   /**
@@ -183,7 +182,7 @@ public class ElementGeneration {
     List<FieldElement> selfMacced = selfMac(values);
     List<List<FieldElement>> maccedByAll = otherPartiesMac(values);
     maccedByAll.add(selfMacced);
-    return Addable.sumRows(maccedByAll);
+    return fieldElementUtils.sumRows(maccedByAll);
   }
 
   /**
@@ -191,12 +190,9 @@ public class ElementGeneration {
    * party's) mac key share and get a share of the result.
    */
   private List<List<FieldElement>> otherPartiesMac(List<FieldElement> values) {
-    List<List<FieldElement>> perPartySignatures = new ArrayList<>();
-    // note that the order in which this is run does not matter so it's fine to use values().
-    for (CopeInputter copeInputter : copeInputters.values()) {
-      perPartySignatures.add(copeInputter.extend(values));
-    }
-    return perPartySignatures;
+    // the sessions with the other parties are independent, so they are run concurrently
+    return new ArrayList<>(
+        resourcePool.runWithOtherParties(partyId -> copeInputters.get(partyId).extend(values)));
   }
 
   /**
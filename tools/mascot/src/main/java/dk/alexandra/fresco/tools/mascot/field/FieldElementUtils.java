@@ -16,6 +16,7 @@ public class FieldElementUtils {
   private final BigInteger modulus;
   private final int modBitLength;
   private final List<FieldElement> generators;
+  private final boolean vectorized;
 
   /**
    * Creates new {@link FieldElementUtils}.
@@ -27,6 +28,7 @@ public class FieldElementUtils {
     this.modulus = modulus;
     this.modBitLength = modulus.bitLength();
     this.generators = precomputeGenerators();
+    this.vectorized = FieldElementVector.isSupported(modulus);
   }
 
   private List<FieldElement> precomputeGenerators() {
@@ -40,6 +42,14 @@ public class FieldElementUtils {
     return generators;
   }
 
+  /**
+   * Checks if the bulk operations of this class use {@link FieldElementVector}. If not, they fall
+   * back to the operations of {@link FieldElement}.
+   */
+  public boolean isVectorized() {
+    return vectorized;
+  }
+
   /**
    * Multiplies two lists of field elements, pair-wise.
    *
@@ -52,6 +62,10 @@ public class FieldElementUtils {
     if (leftFactors.size() != rightFactors.size()) {
       throw new IllegalArgumentException("Lists must be same size");
     }
+    if (vectorized) {
+      return new FieldElementVector(leftFactors, modulus)
+          .multiply(new FieldElementVector(rightFactors, modulus)).toList();
+    }
     return pairWiseMultiplyStream(leftFactors, rightFactors).collect(Collectors.toList());
   }
 
@@ -82,6 +96,10 @@ public class FieldElementUtils {
     if (left.size() != right.size()) {
       throw new IllegalArgumentException("Lists must have same size");
     }
+    if (vectorized) {
+      return new FieldElementVector(left, modulus)
+          .innerProduct(new FieldElementVector(right, modulus));
+    }
     return Addable.sum(pairWiseMultiplyStream(left, right));
   }
 
@@ -93,9 +111,29 @@ public class FieldElementUtils {
    * @return list of products
    */
   public List<FieldElement> scalarMultiply(List<FieldElement> values, FieldElement scalar) {
+    if (vectorized) {
+      return new FieldElementVector(values, modulus).multiply(scalar).toList();
+    }
     return values.stream().map(value -> value.multiply(scalar)).collect(Collectors.toList());
   }
 
+  /**
+   * Adds up elements in each column.
+   *
+   * @param rows rows of same size to be added up
+   * @return sum of rows
+   */
+  public List<FieldElement> sumRows(List<List<FieldElement>> rows) {
+    if (vectorized && !rows.isEmpty()) {
+      List<FieldElementVector> vectors = new ArrayList<>(rows.size());
+      for (List<FieldElement> row : rows) {
+        vectors.add(new FieldElementVector(row, modulus));
+      }
+      return FieldElementVector.sumRows(vectors).toList();
+    }
+    return Addable.sumRows(rows);
+  }
+
   /**
    * Computes inner product of elements and powers of twos.<br> e0 * 2**0 + e1 * 2**1 + ... + e(n -
    * 1) * 2**(n - 1) Elements must have same modulus, otherwise we get undefined behaviour.
@@ -111,6 +149,9 @@ public class FieldElementUtils {
     if (!elementModulus.equals(modulus)) {
       throw new IllegalArgumentException("Wrong modulus " + elementModulus);
     }
+    if (vectorized) {
+      return new FieldElementVector(elements, modulus).recombine(elements.size()).get(0);
+    }
     return innerProduct(elements, generators.subList(0, elements.size()));
   }
 
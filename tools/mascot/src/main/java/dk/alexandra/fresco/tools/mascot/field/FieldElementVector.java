@@ -0,0 +1,355 @@
+package dk.alexandra.fresco.tools.mascot.field;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable vector of field elements packed in a single <code>long</code> array.
+ * <p>
+ * Bulk operations work directly on the packed limbs using {@link MontgomeryField}, so they do not
+ * allocate a {@link BigInteger} and a {@link FieldElement} per element as the corresponding
+ * operations on lists of {@link FieldElement} do. Only odd moduli of at most 256 bits are supported
+ * (see {@link #isSupported(BigInteger)}); for other moduli the {@link FieldElement} operations must
+ * be used.
+ * </p>
+ * <p>
+ * A vector holds its entries either in canonical form or in Montgomery form (see
+ * {@link #toMontgomery()}). Multiplying with a vector in Montgomery form takes a single Montgomery
+ * multiplication per entry, whereas multiplying two vectors in canonical form takes two. Hence an
+ * operand used in several products should be converted once. Additive operations require both
+ * vectors to be in the same form and keep it.
+ * </p>
+ */
+public final class FieldElementVector {
+
+  private final MontgomeryField field;
+  private final long[] limbs;
+  private final int size;
+  private final boolean montgomery;
+
+  private FieldElementVector(MontgomeryField field, long[] limbs, int size, boolean montgomery) {
+    this.field = field;
+    this.limbs = limbs;
+    this.size = size;
+    this.montgomery = montgomery;
+  }
+
+  /**
+   * Creates a vector of zeroes.
+   *
+   * @param size the number of elements
+   * @param modulus the modulus of the elements
+   */
+  public FieldElementVector(int size, BigInteger modulus) {
+    this(MontgomeryField.forModulus(modulus), size);
+  }
+
+  private FieldElementVector(MontgomeryField field, int size) {
+    this(field, new long[size * field.getLimbs()], size, false);
+  }
+
+  /**
+   * Creates a vector holding the given elements.
+   *
+   * @param elements the elements
+   * @param modulus the modulus of the elements
+   */
+  public FieldElementVector(List<FieldElement> elements, BigInteger modulus) {
+    this(MontgomeryField.forModulus(modulus), elements.size());
+    int width = field.getLimbs();
+    for (int i = 0; i < size; i++) {
+      FieldElement element = elements.get(i);
+      if (!element.getModulus().equals(modulus)) {
+        throw new IllegalArgumentException("Wrong modulus " + element.getModulus());
+      }
+      field.toLimbs(element.toBigInteger(), limbs, i * width);
+    }
+  }
+
+  /**
+   * Checks if vectors are supported for the given modulus, i.e. if it is odd and of at most 256
+   * bits.
+   */
+  public static boolean isSupported(BigInteger modulus) {
+    return MontgomeryField.isSupported(modulus);
+  }
+
+  /**
+   * Adds up the vectors entry wise.
+   *
+   * @param rows the vectors to add up, all of the same size
+   * @return the sum
+   */
+  public static FieldElementVector sumRows(List<FieldElementVector> rows) {
+    FieldElementVector first = rows.get(0);
+    long[] result = first.limbs.clone();
+    for (int i = 1; i < rows.size(); i++) {
+      FieldElementVector row = rows.get(i);
+      first.checkCompatible(row);
+      for (int offset = 0; offset < result.length; offset += first.field.getLimbs()) {
+        first.field.add(result, offset, row.limbs, offset, result, offset);
+      }
+    }
+    return new FieldElementVector(first.field, result, first.size, first.montgomery);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public BigInteger getModulus() {
+    return field.getModulus();
+  }
+
+  /**
+   * Checks if the entries are held in Montgomery form.
+   */
+  public boolean isMontgomery() {
+    return montgomery;
+  }
+
+  /**
+   * Gets the element at an index.
+   */
+  public FieldElement get(int index) {
+    return get(index, new long[field.getLimbs()], field.scratch());
+  }
+
+  private FieldElement get(int index, long[] value, long[] scratch) {
+    int offset = index * field.getLimbs();
+    if (!montgomery) {
+      return new FieldElement(field.toBigInteger(limbs, offset), field.getModulus());
+    }
+    field.fromMontgomery(limbs, offset, value, 0, scratch);
+    return new FieldElement(field.toBigInteger(value, 0), field.getModulus());
+  }
+
+  /**
+   * Converts the vector into a list of field elements.
+   */
+  public List<FieldElement> toList() {
+    List<FieldElement> elements = new ArrayList<>(size);
+    long[] value = new long[field.getLimbs()];
+    long[] scratch = field.scratch();
+    for (int i = 0; i < size; i++) {
+      elements.add(get(i, value, scratch));
+    }
+    return elements;
+  }
+
+  /**
+   * Converts the entries into Montgomery form.
+   *
+   * @return this vector if it already is in Montgomery form, otherwise a converted copy
+   */
+  public FieldElementVector toMontgomery() {
+    if (montgomery) {
+      return this;
+    }
+    long[] result = new long[limbs.length];
+    long[] scratch = field.scratch();
+    for (int offset = 0; offset < limbs.length; offset += field.getLimbs()) {
+      field.toMontgomery(limbs, offset, result, offset, scratch);
+    }
+    return new FieldElementVector(field, result, size, true);
+  }
+
+  /**
+   * Repeats each entry a number of times, e.g., stretching <i>[e0, e1]</i> by two gives
+   * <i>[e0, e0, e1, e1]</i>.
+   *
+   * @param stretchBy the number of times to repeat each entry
+   * @return the stretched vector
+   */
+  public FieldElementVector stretch(int stretchBy) {
+    int width = field.getLimbs();
+    long[] result = new long[limbs.length * stretchBy];
+    for (int i = 0; i < size; i++) {
+      for (int c = 0; c < stretchBy; c++) {
+        System.arraycopy(limbs, i * width, result, (i * stretchBy + c) * width, width);
+      }
+    }
+    return new FieldElementVector(field, result, size * stretchBy, montgomery);
+  }
+
+  /**
+   * Adds the vectors entry wise.
+   */
+  public FieldElementVector add(FieldElementVector other) {
+    checkCompatible(other);
+    long[] result = new long[limbs.length];
+    for (int offset = 0; offset < limbs.length; offset += field.getLimbs()) {
+      field.add(limbs, offset, other.limbs, offset, result, offset);
+    }
+    return new FieldElementVector(field, result, size, montgomery);
+  }
+
+  /**
+   * Adds the entries of the other vector for which the selection is true.
+   *
+   * @param other the vector to add entries of
+   * @param selection indicates for each index whether to add the entry of the other vector
+   * @return the sum
+   */
+  public FieldElementVector addSelected(FieldElementVector other, boolean[] selection) {
+    checkCompatible(other);
+    if (selection.length != size) {
+      throw new IllegalArgumentException("Selection must have same size as vectors");
+    }
+    long[] result = limbs.clone();
+    int width = field.getLimbs();
+    for (int i = 0; i < size; i++) {
+      if (selection[i]) {
+        field.add(result, i * width, other.limbs, i * width, result, i * width);
+      }
+    }
+    return new FieldElementVector(field, result, size, montgomery);
+  }
+
+  /**
+   * Subtracts the vectors entry wise.
+   */
+  public FieldElementVector subtract(FieldElementVector other) {
+    checkCompatible(other);
+    long[] result = new long[limbs.length];
+    for (int offset = 0; offset < limbs.length; offset += field.getLimbs()) {
+      field.subtract(limbs, offset, other.limbs, offset, result, offset);
+    }
+    return new FieldElementVector(field, result, size, montgomery);
+  }
+
+  /**
+   * Negates each entry.
+   */
+  public FieldElementVector negate() {
+    return new FieldElementVector(field, new long[limbs.length], size, montgomery).subtract(this);
+  }
+
+  /**
+   * Multiplies the vectors entry wise. The product is in Montgomery form if both vectors are.
+   */
+  public FieldElementVector multiply(FieldElementVector other) {
+    checkSize(other);
+    long[] result = new long[limbs.length];
+    long[] scratch = field.scratch();
+    boolean single = montgomery || other.montgomery;
+    for (int offset = 0; offset < limbs.length; offset += field.getLimbs()) {
+      if (single) {
+        field.montgomeryMultiply(limbs, offset, other.limbs, offset, result, offset, scratch);
+      } else {
+        field.multiply(limbs, offset, other.limbs, offset, result, offset, scratch);
+      }
+    }
+    return new FieldElementVector(field, result, size, montgomery && other.montgomery);
+  }
+
+  /**
+   * Multiplies each entry by a scalar.
+   */
+  public FieldElementVector multiply(FieldElement scalar) {
+    long[] scaled = montgomeryScalar(scalar);
+    long[] result = new long[limbs.length];
+    long[] scratch = field.scratch();
+    for (int offset = 0; offset < limbs.length; offset += field.getLimbs()) {
+      field.montgomeryMultiply(limbs, offset, scaled, 0, result, offset, scratch);
+    }
+    return new FieldElementVector(field, result, size, montgomery);
+  }
+
+  /**
+   * Computes the inner product of the vectors.
+   */
+  public FieldElement innerProduct(FieldElementVector other) {
+    checkSize(other);
+    return innerProducts(other, size).get(0);
+  }
+
+  /**
+   * Computes the inner product of each consecutive group of entries of the vectors, i.e. entry
+   * <i>i</i> of the result is the inner product of the entries <i>i * groupSize</i> to
+   * <i>(i + 1) * groupSize - 1</i>.
+   *
+   * @param other the other vector
+   * @param groupSize the number of entries in each group
+   * @return the vector of the inner products, in canonical form
+   */
+  public FieldElementVector innerProducts(FieldElementVector other, int groupSize) {
+    checkSize(other);
+    if (groupSize <= 0 || size % groupSize != 0) {
+      throw new IllegalArgumentException("Size " + size + " not divisible by " + groupSize);
+    }
+    int width = field.getLimbs();
+    int groups = size / groupSize;
+    long[] result = new long[groups * width];
+    long[] product = new long[width];
+    long[] scratch = field.scratch();
+    for (int group = 0; group < groups; group++) {
+      int resultOffset = group * width;
+      for (int i = group * groupSize; i < (group + 1) * groupSize; i++) {
+        field.montgomeryMultiply(limbs, i * width, other.limbs, i * width, product, 0, scratch);
+        field.add(result, resultOffset, product, 0, result, resultOffset);
+      }
+      // the products are off by a factor R^-1 per operand in canonical form, which is corrected
+      // once for the sum of each group
+      if (!montgomery && !other.montgomery) {
+        field.toMontgomery(result, resultOffset, result, resultOffset, scratch);
+      } else if (montgomery && other.montgomery) {
+        field.fromMontgomery(result, resultOffset, result, resultOffset, scratch);
+      }
+    }
+    return new FieldElementVector(field, result, groups, false);
+  }
+
+  /**
+   * Recombines each consecutive group of elements <i>e<sub>0</sub>, ..., e<sub>n - 1</sub></i>
+   * into <i>e<sub>0</sub> * 2<sup>0</sup> + ... + e<sub>n - 1</sub> * 2<sup>n - 1</sup></i>.
+   *
+   * @param groupSize the number of elements in each group
+   * @return the vector of the recombined groups
+   */
+  public FieldElementVector recombine(int groupSize) {
+    if (groupSize <= 0 || size % groupSize != 0) {
+      throw new IllegalArgumentException("Size " + size + " not divisible by " + groupSize);
+    }
+    int width = field.getLimbs();
+    int groups = size / groupSize;
+    long[] result = new long[groups * width];
+    for (int group = 0; group < groups; group++) {
+      int resultOffset = group * width;
+      // Horner's rule, so only additions are needed
+      for (int i = groupSize - 1; i >= 0; i--) {
+        field.add(result, resultOffset, result, resultOffset, result, resultOffset);
+        field.add(result, resultOffset, limbs, (group * groupSize + i) * width, result,
+            resultOffset);
+      }
+    }
+    return new FieldElementVector(field, result, groups, montgomery);
+  }
+
+  private long[] montgomeryScalar(FieldElement scalar) {
+    if (!scalar.getModulus().equals(field.getModulus())) {
+      throw new IllegalArgumentException("Wrong modulus " + scalar.getModulus());
+    }
+    long[] scaled = new long[field.getLimbs()];
+    field.toLimbs(scalar.toBigInteger(), scaled, 0);
+    field.toMontgomery(scaled, 0, scaled, 0, field.scratch());
+    return scaled;
+  }
+
+  private void checkCompatible(FieldElementVector other) {
+    checkSize(other);
+    if (other.montgomery != montgomery) {
+      throw new IllegalArgumentException("Vectors must be in same form");
+    }
+  }
+
+  private void checkSize(FieldElementVector other) {
+    if (other.field != field) {
+      throw new IllegalArgumentException("Vectors must have same modulus");
+    }
+    if (other.size != size) {
+      throw new IllegalArgumentException("Vectors must have same size");
+    }
+  }
+}
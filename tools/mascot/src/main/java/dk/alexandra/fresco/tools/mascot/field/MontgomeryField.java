@@ -0,0 +1,286 @@
+package dk.alexandra.fresco.tools.mascot.field;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-width arithmetic modulo an odd modulus of at most {@link #MAX_BIT_LENGTH} bits.
+ * <p>
+ * Elements are represented by {@link #getLimbs()} 64-bit limbs in little-endian order, stored at
+ * an offset in a <code>long</code> array so that vectors of elements can be packed in a single
+ * array. Multiplication uses Montgomery reduction (the CIOS method), which avoids the divisions
+ * of {@link BigInteger#mod(BigInteger)}. Values are in the range <i>[0, modulus)</i>, either in
+ * canonical form <i>a</i> or in Montgomery form <i>a * R</i>, where
+ * <i>R = 2<sup>64 * limbs</sup></i>. A Montgomery multiplication of a value in Montgomery form
+ * with a value in canonical form gives the canonical product, so operands used in many products
+ * should be converted once with {@link #toMontgomery(long[], int, long[], int, long[])}.
+ * </p>
+ * <p>
+ * Instances are shared between threads. Multiplications need a scratch buffer of
+ * {@link #getLimbs()} + 2 limbs; the methods without a scratch parameter use a buffer per thread,
+ * and loops should get it once with {@link #scratch()}.
+ * </p>
+ */
+final class MontgomeryField {
+
+  static final int MAX_BIT_LENGTH = 256;
+  private static final long LOWER_MASK = 0xFFFFFFFFL;
+  private static final Map<BigInteger, MontgomeryField> FIELDS = new ConcurrentHashMap<>();
+
+  private final BigInteger modulus;
+  private final int limbs;
+  private final long[] mod;
+  private final long inverse;
+  private final long[] rSquared;
+  private final long[] one;
+  private final ThreadLocal<long[]> scratch;
+
+  private MontgomeryField(BigInteger modulus) {
+    this.modulus = modulus;
+    this.limbs = (modulus.bitLength() + Long.SIZE - 1) / Long.SIZE;
+    this.mod = new long[limbs];
+    toLimbs(modulus, mod, 0);
+    // Newton iteration doubles the number of correct low bits, starting from three
+    long inv = mod[0];
+    for (int i = 0; i < 5; i++) {
+      inv *= 2 - mod[0] * inv;
+    }
+    this.inverse = -inv;
+    this.rSquared = new long[limbs];
+    toLimbs(BigInteger.ONE.shiftLeft(2 * Long.SIZE * limbs).mod(modulus), rSquared, 0);
+    this.one = new long[limbs];
+    one[0] = 1;
+    this.scratch = ThreadLocal.withInitial(() -> new long[limbs + 2]);
+  }
+
+  /**
+   * Checks if the modulus is supported, i.e. odd, greater than one and of at most
+   * {@link #MAX_BIT_LENGTH} bits.
+   */
+  static boolean isSupported(BigInteger modulus) {
+    return modulus.testBit(0) && modulus.compareTo(BigInteger.ONE) > 0
+        && modulus.bitLength() <= MAX_BIT_LENGTH;
+  }
+
+  /**
+   * Gets the (shared) instance for a modulus.
+   */
+  static MontgomeryField forModulus(BigInteger modulus) {
+    if (!isSupported(modulus)) {
+      throw new IllegalArgumentException("Unsupported modulus " + modulus);
+    }
+    return FIELDS.computeIfAbsent(modulus, MontgomeryField::new);
+  }
+
+  BigInteger getModulus() {
+    return modulus;
+  }
+
+  int getLimbs() {
+    return limbs;
+  }
+
+  /**
+   * Gets the scratch buffer of the current thread.
+   */
+  long[] scratch() {
+    return scratch.get();
+  }
+
+  /**
+   * Writes the limbs of a value in <i>[0, modulus)</i>.
+   */
+  void toLimbs(BigInteger value, long[] dest, int offset) {
+    byte[] bytes = value.toByteArray();
+    for (int i = 0; i < limbs; i++) {
+      long limb = 0;
+      for (int k = 0; k < Long.BYTES; k++) {
+        int index = bytes.length - 1 - i * Long.BYTES - k;
+        if (index >= 0) {
+          limb |= (bytes[index] & 0xFFL) << (Byte.SIZE * k);
+        }
+      }
+      dest[offset + i] = limb;
+    }
+  }
+
+  /**
+   * Reads the value stored in the limbs at the offset.
+   */
+  BigInteger toBigInteger(long[] src, int offset) {
+    byte[] bytes = new byte[limbs * Long.BYTES];
+    for (int i = 0; i < limbs; i++) {
+      long limb = src[offset + i];
+      for (int k = 0; k < Long.BYTES; k++) {
+        bytes[bytes.length - 1 - i * Long.BYTES - k] = (byte) (limb >>> (Byte.SIZE * k));
+      }
+    }
+    return new BigInteger(1, bytes);
+  }
+
+  /**
+   * Computes <i>a + b</i> into <i>r</i>. The result may alias either operand.
+   */
+  void add(long[] a, int ao, long[] b, int bo, long[] r, int ro) {
+    long carry = 0;
+    for (int i = 0; i < limbs; i++) {
+      long ai = a[ao + i];
+      long sum = ai + b[bo + i];
+      long carryOut = Long.compareUnsigned(sum, ai) < 0 ? 1 : 0;
+      long withCarry = sum + carry;
+      carryOut += Long.compareUnsigned(withCarry, sum) < 0 ? 1 : 0;
+      r[ro + i] = withCarry;
+      carry = carryOut;
+    }
+    if (carry != 0 || compareToModulus(r, ro) >= 0) {
+      subtractModulus(r, ro);
+    }
+  }
+
+  /**
+   * Computes <i>a - b</i> into <i>r</i>. The result may alias either operand.
+   */
+  void subtract(long[] a, int ao, long[] b, int bo, long[] r, int ro) {
+    long borrow = 0;
+    for (int i = 0; i < limbs; i++) {
+      long ai = a[ao + i];
+      long bi = b[bo + i];
+      long diff = ai - bi;
+      long borrowOut = Long.compareUnsigned(ai, bi) < 0 ? 1 : 0;
+      borrowOut += Long.compareUnsigned(diff, borrow) < 0 ? 1 : 0;
+      r[ro + i] = diff - borrow;
+      borrow = borrowOut;
+    }
+    if (borrow != 0) {
+      long carry = 0;
+      for (int i = 0; i < limbs; i++) {
+        long ri = r[ro + i];
+        long sum = ri + mod[i];
+        long carryOut = Long.compareUnsigned(sum, ri) < 0 ? 1 : 0;
+        long withCarry = sum + carry;
+        carryOut += Long.compareUnsigned(withCarry, sum) < 0 ? 1 : 0;
+        r[ro + i] = withCarry;
+        carry = carryOut;
+      }
+    }
+  }
+
+  /**
+   * Computes <i>a * b</i> into <i>r</i> for values in canonical form. The result may alias either
+   * operand.
+   */
+  void multiply(long[] a, int ao, long[] b, int bo, long[] r, int ro, long[] t) {
+    montgomeryMultiply(a, ao, b, bo, r, ro, t);
+    montgomeryMultiply(r, ro, rSquared, 0, r, ro, t);
+  }
+
+  void multiply(long[] a, int ao, long[] b, int bo, long[] r, int ro) {
+    multiply(a, ao, b, bo, r, ro, scratch());
+  }
+
+  /**
+   * Computes <i>a * b * R<sup>-1</sup></i> into <i>r</i> where <i>R = 2<sup>64 * limbs</sup></i>,
+   * using <i>t</i> as scratch buffer. The result may alias either operand.
+   */
+  void montgomeryMultiply(long[] a, int ao, long[] b, int bo, long[] r, int ro, long[] t) {
+    Arrays.fill(t, 0);
+    for (int i = 0; i < limbs; i++) {
+      // t += a * b[i]
+      long bi = b[bo + i];
+      long carry = 0;
+      for (int j = 0; j < limbs; j++) {
+        long aj = a[ao + j];
+        long low = aj * bi;
+        long high = multiplyHighUnsigned(aj, bi);
+        long sum = t[j] + low;
+        high += Long.compareUnsigned(sum, low) < 0 ? 1 : 0;
+        long withCarry = sum + carry;
+        high += Long.compareUnsigned(withCarry, carry) < 0 ? 1 : 0;
+        t[j] = withCarry;
+        carry = high;
+      }
+      long top = t[limbs] + carry;
+      t[limbs + 1] = Long.compareUnsigned(top, carry) < 0 ? 1 : 0;
+      t[limbs] = top;
+      // t = (t + q * modulus) / 2^64, where q is chosen such that the division is exact
+      long q = t[0] * inverse;
+      long low = q * mod[0];
+      long sum = t[0] + low;
+      carry = multiplyHighUnsigned(q, mod[0]) + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+      for (int j = 1; j < limbs; j++) {
+        low = q * mod[j];
+        long high = multiplyHighUnsigned(q, mod[j]);
+        sum = t[j] + low;
+        high += Long.compareUnsigned(sum, low) < 0 ? 1 : 0;
+        long withCarry = sum + carry;
+        high += Long.compareUnsigned(withCarry, carry) < 0 ? 1 : 0;
+        t[j - 1] = withCarry;
+        carry = high;
+      }
+      top = t[limbs] + carry;
+      t[limbs - 1] = top;
+      t[limbs] = t[limbs + 1] + (Long.compareUnsigned(top, carry) < 0 ? 1 : 0);
+    }
+    // t < 2 * modulus
+    if (t[limbs] != 0 || compareToModulus(t, 0) >= 0) {
+      subtractModulus(t, 0);
+    }
+    System.arraycopy(t, 0, r, ro, limbs);
+  }
+
+  void montgomeryMultiply(long[] a, int ao, long[] b, int bo, long[] r, int ro) {
+    montgomeryMultiply(a, ao, b, bo, r, ro, scratch());
+  }
+
+  /**
+   * Converts a value into Montgomery form, i.e. computes <i>a * R</i>.
+   */
+  void toMontgomery(long[] a, int ao, long[] r, int ro, long[] t) {
+    montgomeryMultiply(a, ao, rSquared, 0, r, ro, t);
+  }
+
+  /**
+   * Converts a value out of Montgomery form, i.e. computes <i>a * R<sup>-1</sup></i>.
+   */
+  void fromMontgomery(long[] a, int ao, long[] r, int ro, long[] t) {
+    montgomeryMultiply(a, ao, one, 0, r, ro, t);
+  }
+
+  /**
+   * Computes the high 64 bits of the unsigned 128-bit product of two longs.
+   */
+  static long multiplyHighUnsigned(long x, long y) {
+    long x0 = x & LOWER_MASK;
+    long x1 = x >>> 32;
+    long y0 = y & LOWER_MASK;
+    long y1 = y >>> 32;
+    long p01 = x0 * y1;
+    long p10 = x1 * y0;
+    long middle = ((x0 * y0) >>> 32) + (p01 & LOWER_MASK) + (p10 & LOWER_MASK);
+    return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+  }
+
+  private int compareToModulus(long[] a, int ao) {
+    for (int i = limbs - 1; i >= 0; i--) {
+      int comparison = Long.compareUnsigned(a[ao + i], mod[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  private void subtractModulus(long[] a, int ao) {
+    long borrow = 0;
+    for (int i = 0; i < limbs; i++) {
+      long ai = a[ao + i];
+      long diff = ai - mod[i];
+      long borrowOut = Long.compareUnsigned(ai, mod[i]) < 0 ? 1 : 0;
+      borrowOut += Long.compareUnsigned(diff, borrow) < 0 ? 1 : 0;
+      a[ao + i] = diff - borrow;
+      borrow = borrowOut;
+    }
+  }
+}
@@ -5,7 +5,9 @@ import dk.alexandra.fresco.framework.util.StrictBitVector;
 import dk.alexandra.fresco.tools.mascot.MascotResourcePool;
 import dk.alexandra.fresco.tools.mascot.field.FieldElement;
 import dk.alexandra.fresco.tools.mascot.field.FieldElementUtils;
+import dk.alexandra.fresco.tools.mascot.field.FieldElementVector;
 import dk.alexandra.fresco.tools.ot.base.RotBatch;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -58,6 +60,21 @@ public class MultiplyLeftHelper {
    */
   public List<FieldElement> computeProductShares(List<FieldElement> leftFactors,
       List<FieldElement> feSeeds, List<FieldElement> diffs) {
+    if (fieldElementUtils.isVectorized()) {
+      int modBitLength = resourcePool.getModBitLength();
+      boolean[] bits = new boolean[leftFactors.size() * modBitLength];
+      for (int i = 0; i < leftFactors.size(); i++) {
+        FieldElement leftFactor = leftFactors.get(i);
+        for (int b = 0; b < modBitLength; b++) {
+          bits[i * modBitLength + b] = leftFactor.getBit(b);
+        }
+      }
+      BigInteger modulus = resourcePool.getModulus();
+      return new FieldElementVector(feSeeds, modulus)
+          .addSelected(new FieldElementVector(diffs, modulus), bits)
+          .recombine(modBitLength)
+          .toList();
+    }
     List<FieldElement> result = new ArrayList<>(leftFactors.size());
     int diffIdx = 0;
     for (FieldElement leftFactor : leftFactors) {
@@ -6,6 +6,7 @@ import dk.alexandra.fresco.framework.util.StrictBitVector;
 import dk.alexandra.fresco.tools.mascot.MascotResourcePool;
 import dk.alexandra.fresco.tools.mascot.field.FieldElement;
 import dk.alexandra.fresco.tools.mascot.field.FieldElementUtils;
+import dk.alexandra.fresco.tools.mascot.field.FieldElementVector;
 import dk.alexandra.fresco.tools.ot.base.RotBatch;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -86,6 +87,12 @@ public class MultiplyRightHelper {
    */
   public List<FieldElement> computeProductShares(List<FieldElement> feZeroSeeds,
       int numRightFactors) {
+    if (fieldElementUtils.isVectorized()) {
+      return new FieldElementVector(feZeroSeeds, resourcePool.getModulus())
+          .recombine(resourcePool.getModBitLength())
+          .negate()
+          .toList();
+    }
     List<FieldElement> productShares = new ArrayList<>(numRightFactors);
     for (int rightFactIdx = 0; rightFactIdx < numRightFactors; rightFactIdx++) {
       int from = rightFactIdx * resourcePool.getModBitLength();
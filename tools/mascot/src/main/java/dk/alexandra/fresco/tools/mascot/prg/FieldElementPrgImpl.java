@@ -1,16 +1,23 @@
 package dk.alexandra.fresco.tools.mascot.prg;
 
-import dk.alexandra.fresco.framework.util.Drng;
-import dk.alexandra.fresco.framework.util.DrngImpl;
+import dk.alexandra.fresco.framework.util.Drbg;
 import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
 import dk.alexandra.fresco.tools.mascot.field.FieldElement;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 public class FieldElementPrgImpl implements FieldElementPrg {
 
-  private final Drng drng;
+  /**
+   * Upper bound on the number of bytes drawn from the DRBG at once when sampling in bulk.
+   */
+  private static final int MAX_BLOCK_BYTES = 1 << 16;
+
+  private final Drbg drbg;
 
   /**
    * Creates new FieldElement prg.
@@ -18,12 +25,67 @@ public class FieldElementPrgImpl implements FieldElementPrg {
    * @param seed seed to the underlying DRNG.
    */
   public FieldElementPrgImpl(StrictBitVector seed) {
-    this.drng = new DrngImpl(new PaddingAesCtrDrbg(seed.toByteArray()));
+    this.drbg = new PaddingAesCtrDrbg(seed.toByteArray());
   }
 
   @Override
   public FieldElement getNext(BigInteger modulus) {
-    return new FieldElement(drng.nextBigInteger(modulus), modulus);
+    return getNext(modulus, 1).get(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Draws the candidates for all samples from the DRBG in large blocks and rejects candidates
+   * that are not below the modulus without creating a {@link BigInteger} for them. For a single
+   * sample this draws exactly the same bytes as {@link #getNext(BigInteger)} always did.</p>
+   */
+  @Override
+  public List<FieldElement> getNext(BigInteger modulus, int numSamples) {
+    if (modulus.signum() < 1) {
+      throw new IllegalArgumentException("Modulus must be strictly positive, but is: " + modulus);
+    }
+    int bitLength = modulus.bitLength();
+    int byteLength = (bitLength + Byte.SIZE - 1) / Byte.SIZE;
+    int residue = bitLength % Byte.SIZE;
+    byte topMask = (byte) (residue == 0 ? 0xFF : (1 << residue) - 1);
+    byte[] modulusBytes = toFixedLength(modulus, byteLength);
+    int maxCandidates = Math.max(1, MAX_BLOCK_BYTES / byteLength);
+    List<FieldElement> samples = new ArrayList<>(numSamples);
+    byte[] block = new byte[0];
+    while (samples.size() < numSamples) {
+      int candidates = Math.min(numSamples - samples.size(), maxCandidates);
+      if (block.length != candidates * byteLength) {
+        block = new byte[candidates * byteLength];
+      }
+      drbg.nextBytes(block);
+      for (int offset = 0; offset < block.length; offset += byteLength) {
+        block[offset] &= topMask;
+        if (isBelow(block, offset, modulusBytes)) {
+          samples.add(new FieldElement(Arrays.copyOfRange(block, offset, offset + byteLength),
+              modulus));
+        }
+      }
+    }
+    return samples;
+  }
+
+  private static byte[] toFixedLength(BigInteger value, int byteLength) {
+    byte[] bytes = value.toByteArray();
+    byte[] fixed = new byte[byteLength];
+    int length = Math.min(bytes.length, byteLength);
+    System.arraycopy(bytes, bytes.length - length, fixed, byteLength - length, length);
+    return fixed;
+  }
+
+  private static boolean isBelow(byte[] candidate, int offset, byte[] limit) {
+    for (int i = 0; i < limit.length; i++) {
+      int comparison = Integer.compare(candidate[offset + i] & 0xFF, limit[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison < 0;
+      }
+    }
+    return false;
   }
 
 }
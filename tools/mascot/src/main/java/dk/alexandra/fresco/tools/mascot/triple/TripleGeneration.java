@@ -7,8 +7,10 @@ import dk.alexandra.fresco.tools.mascot.elgen.ElementGeneration;
 import dk.alexandra.fresco.tools.mascot.field.AuthenticatedElement;
 import dk.alexandra.fresco.tools.mascot.field.FieldElement;
 import dk.alexandra.fresco.tools.mascot.field.FieldElementUtils;
+import dk.alexandra.fresco.tools.mascot.field.FieldElementVector;
 import dk.alexandra.fresco.tools.mascot.field.MultiplicationTriple;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -126,30 +128,45 @@ public class TripleGeneration {
             .stretch(rightFactors, resourcePool.getNumCandidatesPerTriple());
 
     // step 2 of protocol
-    // for each value we will have two sub-factors for each other party
+    // for each value we will have two sub-factors for each other party, computed concurrently
     List<List<FieldElement>> subFactors = new ArrayList<>();
-    for (int partyId = 1; partyId <= resourcePool.getNoOfParties(); partyId++) {
-      if (partyId != resourcePool.getMyId()) {
-        MultiplyLeft leftMult = leftMultipliers.get(partyId);
-        MultiplyRight rightMult = rightMultipliers.get(partyId);
-        if (resourcePool.getMyId() < partyId) {
-          subFactors.add(rightMult.multiply(stretched));
-          subFactors.add(leftMult.multiply(leftFactorGroups));
-        } else {
-          subFactors.add(leftMult.multiply(leftFactorGroups));
-          subFactors.add(rightMult.multiply(stretched));
-        }
+    List<List<List<FieldElement>>> perParty = resourcePool.runWithOtherParties(partyId -> {
+      MultiplyLeft leftMult = leftMultipliers.get(partyId);
+      MultiplyRight rightMult = rightMultipliers.get(partyId);
+      List<List<FieldElement>> partySubFactors = new ArrayList<>(2);
+      if (resourcePool.getMyId() < partyId) {
+        partySubFactors.add(rightMult.multiply(stretched));
+        partySubFactors.add(leftMult.multiply(leftFactorGroups));
+      } else {
+        partySubFactors.add(leftMult.multiply(leftFactorGroups));
+        partySubFactors.add(rightMult.multiply(stretched));
       }
-    }
+      return partySubFactors;
+    });
+    perParty.forEach(subFactors::addAll);
 
     // step 3 or protocol
     // own part of the product
+    if (fieldElementUtils.isVectorized()) {
+      BigInteger modulus = resourcePool.getModulus();
+      // the right factors are converted to Montgomery form before they are stretched, so each
+      // product takes a single Montgomery multiplication
+      FieldElementVector localSubFactors = new FieldElementVector(leftFactorGroups, modulus)
+          .multiply(new FieldElementVector(rightFactors, modulus).toMontgomery()
+              .stretch(resourcePool.getNumCandidatesPerTriple()));
+      List<FieldElementVector> rows = new ArrayList<>(subFactors.size() + 1);
+      for (List<FieldElement> row : subFactors) {
+        rows.add(new FieldElementVector(row, modulus));
+      }
+      rows.add(localSubFactors);
+      return FieldElementVector.sumRows(rows).toList();
+    }
     List<FieldElement> localSubFactors =
         fieldElementUtils.pairWiseMultiply(leftFactorGroups, stretched);
     subFactors.add(localSubFactors);
 
     // combine all sub-factors into product shares
-    return Addable.sumRows(subFactors);
+    return fieldElementUtils.sumRows(subFactors);
   }
 
   /**
@@ -168,6 +185,9 @@ public class TripleGeneration {
             numTriples, resourcePool.getNumCandidatesPerTriple());
 
     // step 2 of protocol
+    if (fieldElementUtils.isVectorized()) {
+      return combineVectorized(triples, masks, sacrificeMasks);
+    }
     return IntStream.range(0, numTriples)
         .mapToObj(idx -> {
           UnauthenticatedTriple triple = triples.get(idx);
@@ -178,6 +198,40 @@ public class TripleGeneration {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Computes the masked inner products of all triples at once, so each of the factors, products
+   * and masks is converted to a vector only once.
+   */
+  private List<UnauthenticatedCandidate> combineVectorized(List<UnauthenticatedTriple> triples,
+      List<List<FieldElement>> masks, List<List<FieldElement>> sacrificeMasks) {
+    BigInteger modulus = resourcePool.getModulus();
+    int groupSize = resourcePool.getNumCandidatesPerTriple();
+    List<FieldElement> leftFactors = new ArrayList<>(triples.size() * groupSize);
+    List<FieldElement> products = new ArrayList<>(triples.size() * groupSize);
+    for (UnauthenticatedTriple triple : triples) {
+      leftFactors.addAll(triple.leftFactors);
+      products.addAll(triple.product);
+    }
+    FieldElementVector leftVector = new FieldElementVector(leftFactors, modulus);
+    FieldElementVector productVector = new FieldElementVector(products, modulus);
+    FieldElementVector maskVector = new FieldElementVector(flatten(masks), modulus);
+    FieldElementVector sacrificeVector = new FieldElementVector(flatten(sacrificeMasks), modulus);
+    List<FieldElement> left = leftVector.innerProducts(maskVector, groupSize).toList();
+    List<FieldElement> prod = productVector.innerProducts(maskVector, groupSize).toList();
+    List<FieldElement> leftSac = leftVector.innerProducts(sacrificeVector, groupSize).toList();
+    List<FieldElement> prodSac = productVector.innerProducts(sacrificeVector, groupSize).toList();
+    List<UnauthenticatedCandidate> candidates = new ArrayList<>(triples.size());
+    for (int i = 0; i < triples.size(); i++) {
+      candidates.add(new UnauthenticatedCandidate(left.get(i), triples.get(i).rightFactor,
+          prod.get(i), leftSac.get(i), prodSac.get(i)));
+    }
+    return candidates;
+  }
+
+  private static List<FieldElement> flatten(List<List<FieldElement>> rows) {
+    return rows.stream().flatMap(List::stream).collect(Collectors.toList());
+  }
+
   /**
    * Implements batched version of Authenticate sub-protocol of Protocol 4.
    */
@@ -11,10 +11,7 @@ import dk.alexandra.fresco.framework.util.ExceptionConverter;
 import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.tools.mascot.field.FieldElement;
 import dk.alexandra.fresco.tools.mascot.field.MultiplicationTriple;
-import dk.alexandra.fresco.tools.ot.base.DhParameters;
-import dk.alexandra.fresco.tools.ot.base.NaorPinkasOt;
-import dk.alexandra.fresco.tools.ot.base.Ot;
-import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import dk.alexandra.fresco.tools.ot.base.ChouOrlandiOt;
 import java.io.Closeable;
 import java.security.SecureRandom;
 import java.util.HashMap;
@@ -22,8 +19,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
-import javax.crypto.spec.DHParameterSpec;
-
 public class MascotDemo {
 
   private final Mascot mascot;
@@ -71,24 +66,9 @@ public class MascotDemo {
     byte[] drbgSeed = new byte[parameters.getPrgSeedLength() / 8];
     new SecureRandom().nextBytes(drbgSeed);
     Drbg drbg = new PaddingAesCtrDrbg(drbgSeed);
-    Map<Integer, RotList> seedOts = new HashMap<>();
-    for (int otherId = 1; otherId <= noOfParties; otherId++) {
-      if (myId != otherId) {
-        DHParameterSpec dhSpec = DhParameters.getStaticDhParams();
-        Ot ot = new NaorPinkasOt(otherId, drbg, network, dhSpec);
-        RotList currentSeedOts = new RotList(drbg, parameters.getPrgSeedLength());
-        if (myId < otherId) {
-          currentSeedOts.send(ot);
-          currentSeedOts.receive(ot);
-        } else {
-          currentSeedOts.receive(ot);
-          currentSeedOts.send(ot);
-        }
-        seedOts.put(otherId, currentSeedOts);
-      }
-    }
     int instanceId = 1;
-    return new MascotResourcePoolImpl(myId, noOfParties, instanceId, drbg, seedOts, parameters);
+    return new MascotResourcePoolImpl(myId, noOfParties, instanceId, drbg,
+        otherId -> new ChouOrlandiOt(otherId, drbg, network), parameters);
   }
 
   /**
@@ -10,6 +10,7 @@ import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
 import dk.alexandra.fresco.tools.ot.base.RotBatch;
 import java.math.BigInteger;
 import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
 
 public class MascotMockSupplier {
 
@@ -100,6 +101,14 @@ public class MascotMockSupplier {
       public RotBatch createRot(int otherId, Network network) {
         return null;
       }
+
+      @Override
+      public ExecutorService getExecutorService() {
+        return null;
+      }
+
+      @Override
+      public void close() {}
     };
   }
 
@@ -1,22 +1,67 @@
 package dk.alexandra.fresco.tools.mascot;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import dk.alexandra.fresco.framework.util.AesCtrDrbg;
-import java.math.BigInteger;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 
 public class TestMascotResourcePoolImpl {
 
+  private static final Map<Integer, RotList> NO_SEED_OTS = null;
+
   @Test(expected = UnsupportedOperationException.class)
   public void testGetSerializer() {
     MascotResourcePool resourcePool = new MascotResourcePoolImpl(0, 1, 1,
-        new AesCtrDrbg(new byte[32]), null, new MascotSecurityParameters());
+        new AesCtrDrbg(new byte[32]), NO_SEED_OTS, new MascotSecurityParameters());
     resourcePool.getSerializer();
   }
 
   @Test(expected = IllegalArgumentException.class)
   public void testCreateRotForSelf() {
     MascotResourcePool resourcePool = new MascotResourcePoolImpl(1, 1, 1,
-        new AesCtrDrbg(new byte[32]), null, new MascotSecurityParameters());
+        new AesCtrDrbg(new byte[32]), NO_SEED_OTS, new MascotSecurityParameters());
     resourcePool.createRot(1, null);
   }
+
+  @Test
+  public void testRunWithOtherParties() {
+    MascotResourcePool resourcePool = new MascotResourcePoolImpl(2, 4, 1,
+        new AesCtrDrbg(new byte[32]), NO_SEED_OTS, new MascotSecurityParameters());
+    List<Integer> results = resourcePool.runWithOtherParties(partyId -> {
+      // later parties finish first, but the results are still ordered by party id
+      ExceptionConverter.safe(() -> {
+        Thread.sleep(50 * (4 - partyId));
+        return null;
+      }, "Interrupted");
+      return partyId;
+    });
+    assertEquals(Arrays.asList(1, 3, 4), results);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRunWithOtherPartiesFailure() {
+    MascotResourcePool resourcePool = new MascotResourcePoolImpl(1, 3, 1,
+        new AesCtrDrbg(new byte[32]), NO_SEED_OTS, new MascotSecurityParameters());
+    resourcePool.runWithOtherParties(partyId -> {
+      if (partyId == 3) {
+        throw new IllegalStateException("Failed");
+      }
+      return partyId;
+    });
+  }
+
+  @Test
+  public void testCloseShutsDownExecutor() {
+    MascotResourcePool resourcePool = new MascotResourcePoolImpl(1, 3, 1,
+        new AesCtrDrbg(new byte[32]), NO_SEED_OTS, new MascotSecurityParameters());
+    resourcePool.runWithOtherParties(partyId -> partyId);
+    resourcePool.close();
+    assertTrue(resourcePool.getExecutorService().isShutdown());
+  }
 }
@@ -1,8 +1,12 @@
 package dk.alexandra.fresco.tools.mascot;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.tools.ot.base.ChouOrlandiOt;
 import dk.alexandra.fresco.tools.ot.base.DummyOt;
 import dk.alexandra.fresco.tools.ot.base.Ot;
 import dk.alexandra.fresco.tools.ot.base.RotBatch;
@@ -47,4 +51,39 @@ public class TestNetworkedMascotResourcePoolImpl extends NetworkedTest {
     assertTrue(results.get(1) != null);
   }
 
+  private List<?> runRotWithBaseOts(MascotTestContext ctx, int otherId, StrictBitVector choices) {
+    AesCtrDrbg drbg = new AesCtrDrbg(new byte[32]);
+    MascotResourcePool resourcePool = new MascotResourcePoolImpl(ctx.getMyId(),
+        ctx.getNoOfParties(), 1, drbg,
+        id -> new ChouOrlandiOt(id, drbg, ctx.getNetwork()),
+        new MascotSecurityParameters(8, 8, 128, 3));
+    RotBatch rot = resourcePool.createRot(otherId, ctx.getNetwork());
+    if (ctx.getMyId() == 1) {
+      return rot.send(choices.getSize(), 64);
+    } else {
+      return rot.receive(choices, 64);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testCreateRotWithBaseOts() {
+    initContexts(2);
+    StrictBitVector choices = new StrictBitVector(16, new AesCtrDrbg(new byte[32]));
+    Callable<List<?>> partyOneTask = () -> runRotWithBaseOts(contexts.get(1), 2, choices);
+    Callable<List<?>> partyTwoTask = () -> runRotWithBaseOts(contexts.get(2), 1, choices);
+    List<List<?>> results =
+        testRuntime.runPerPartyTasks(Arrays.asList(partyOneTask, partyTwoTask));
+    List<Pair<StrictBitVector, StrictBitVector>> sent =
+        (List<Pair<StrictBitVector, StrictBitVector>>) results.get(0);
+    List<StrictBitVector> received = (List<StrictBitVector>) results.get(1);
+    assertEquals(choices.getSize(), received.size());
+    for (int i = 0; i < choices.getSize(); i++) {
+      StrictBitVector expected = choices.getBit(i, false)
+          ? sent.get(i).getSecond()
+          : sent.get(i).getFirst();
+      assertEquals(expected, received.get(i));
+    }
+  }
+
 }
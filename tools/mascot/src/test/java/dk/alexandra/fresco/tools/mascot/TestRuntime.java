@@ -33,7 +33,7 @@ public class TestRuntime {
   }
 
   /**
-   * Closes the networks on the contexts and shuts down the executor. <br> Call this after test.
+   * Closes the networks and resource pools on the contexts and shuts down the executor. <br> Call this after test.
    */
   public void shutdown() {
     if (!executorInitialized) {
@@ -45,6 +45,7 @@ public class TestRuntime {
         ((Closeable) context.getNetwork()).close();
         return null;
       }, "Closing network failed");
+      context.getResourcePool().close();
     }
     executor.shutdown();
     ExceptionConverter.safe(() -> {
@@ -0,0 +1,240 @@
+package dk.alexandra.fresco.tools.mascot.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.util.ModulusFinder;
+import dk.alexandra.fresco.tools.mascot.CustomAsserts;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestFieldElementVector {
+
+  private static final int[] BIT_LENGTHS = {8, 16, 32, 64, 72, 128, 192, 248, 256};
+  private static final int SIZE = 32;
+
+  private final Random random = new Random(42);
+
+  private List<FieldElement> randomElements(BigInteger modulus) {
+    List<FieldElement> elements = new ArrayList<>(SIZE);
+    // include the edge values
+    elements.add(new FieldElement(0, modulus));
+    elements.add(new FieldElement(modulus.subtract(BigInteger.ONE), modulus));
+    while (elements.size() < SIZE) {
+      elements.add(new FieldElement(new BigInteger(modulus.bitLength(), random).mod(modulus),
+          modulus));
+    }
+    return elements;
+  }
+
+  private List<BigInteger> moduli() {
+    List<BigInteger> moduli = new ArrayList<>();
+    for (int bitLength : BIT_LENGTHS) {
+      moduli.add(ModulusFinder.findSuitableModulus(bitLength));
+    }
+    // largest odd value of maximal width
+    moduli.add(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE));
+    return moduli;
+  }
+
+  @Test
+  public void testArithmetic() {
+    for (BigInteger modulus : moduli()) {
+      List<FieldElement> left = randomElements(modulus);
+      List<FieldElement> right = randomElements(modulus);
+      FieldElementVector leftVector = new FieldElementVector(left, modulus);
+      FieldElementVector rightVector = new FieldElementVector(right, modulus);
+      List<FieldElement> sums = new ArrayList<>();
+      List<FieldElement> differences = new ArrayList<>();
+      List<FieldElement> products = new ArrayList<>();
+      List<FieldElement> negated = new ArrayList<>();
+      FieldElement innerProduct = new FieldElement(0, modulus);
+      for (int i = 0; i < SIZE; i++) {
+        sums.add(left.get(i).add(right.get(i)));
+        differences.add(left.get(i).subtract(right.get(i)));
+        products.add(left.get(i).multiply(right.get(i)));
+        negated.add(left.get(i).negate());
+        innerProduct = innerProduct.add(left.get(i).multiply(right.get(i)));
+      }
+      CustomAsserts.assertEquals(left, leftVector.toList());
+      CustomAsserts.assertEquals(sums, leftVector.add(rightVector).toList());
+      CustomAsserts.assertEquals(differences, leftVector.subtract(rightVector).toList());
+      CustomAsserts.assertEquals(products, leftVector.multiply(rightVector).toList());
+      CustomAsserts.assertEquals(negated, leftVector.negate().toList());
+      CustomAsserts.assertEquals(innerProduct, leftVector.innerProduct(rightVector));
+    }
+  }
+
+  @Test
+  public void testMontgomeryForm() {
+    for (BigInteger modulus : moduli()) {
+      List<FieldElement> left = randomElements(modulus);
+      List<FieldElement> right = randomElements(modulus);
+      FieldElementVector leftVector = new FieldElementVector(left, modulus);
+      FieldElementVector rightVector = new FieldElementVector(right, modulus);
+      FieldElementVector leftMontgomery = leftVector.toMontgomery();
+      FieldElementVector rightMontgomery = rightVector.toMontgomery();
+      assertTrue(leftMontgomery.isMontgomery());
+      assertFalse(leftMontgomery.multiply(rightVector).isMontgomery());
+      assertTrue(leftMontgomery.multiply(rightMontgomery).isMontgomery());
+      List<FieldElement> products = leftVector.multiply(rightVector).toList();
+      FieldElement innerProduct = leftVector.innerProduct(rightVector);
+      CustomAsserts.assertEquals(left, leftMontgomery.toList());
+      CustomAsserts.assertEquals(left.get(1), leftMontgomery.get(1));
+      CustomAsserts.assertEquals(products, leftMontgomery.multiply(rightVector).toList());
+      CustomAsserts.assertEquals(products, leftVector.multiply(rightMontgomery).toList());
+      CustomAsserts.assertEquals(products, leftMontgomery.multiply(rightMontgomery).toList());
+      CustomAsserts.assertEquals(leftVector.add(rightVector).toList(),
+          leftMontgomery.add(rightMontgomery).toList());
+      CustomAsserts.assertEquals(leftVector.negate().toList(),
+          leftMontgomery.negate().toList());
+      CustomAsserts.assertEquals(innerProduct, leftMontgomery.innerProduct(rightVector));
+      CustomAsserts.assertEquals(innerProduct, leftMontgomery.innerProduct(rightMontgomery));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddDifferentForms() {
+    BigInteger modulus = ModulusFinder.findSuitableModulus(64);
+    new FieldElementVector(1, modulus).add(new FieldElementVector(1, modulus).toMontgomery());
+  }
+
+  @Test
+  public void testInnerProducts() {
+    for (BigInteger modulus : moduli()) {
+      List<FieldElement> left = randomElements(modulus);
+      List<FieldElement> right = randomElements(modulus);
+      FieldElementUtils reference = new FieldElementUtils(modulus);
+      int groupSize = 4;
+      List<FieldElement> expected = new ArrayList<>();
+      for (int i = 0; i < SIZE; i += groupSize) {
+        expected.add(reference.innerProduct(left.subList(i, i + groupSize),
+            right.subList(i, i + groupSize)));
+      }
+      FieldElementVector leftVector = new FieldElementVector(left, modulus);
+      FieldElementVector rightVector = new FieldElementVector(right, modulus);
+      CustomAsserts.assertEquals(expected,
+          leftVector.innerProducts(rightVector, groupSize).toList());
+      CustomAsserts.assertEquals(expected,
+          leftVector.innerProducts(rightVector.toMontgomery(), groupSize).toList());
+    }
+  }
+
+  @Test
+  public void testStretch() {
+    BigInteger modulus = ModulusFinder.findSuitableModulus(128);
+    List<FieldElement> values = randomElements(modulus);
+    FieldElementUtils reference = new FieldElementUtils(modulus);
+    CustomAsserts.assertEquals(reference.stretch(values, 3),
+        new FieldElementVector(values, modulus).stretch(3).toList());
+    CustomAsserts.assertEquals(reference.stretch(values, 3),
+        new FieldElementVector(values, modulus).toMontgomery().stretch(3).toList());
+  }
+
+  @Test
+  public void testScalarMultiply() {
+    for (BigInteger modulus : moduli()) {
+      List<FieldElement> values = randomElements(modulus);
+      FieldElement scalar = new FieldElement(modulus.subtract(BigInteger.valueOf(2)), modulus);
+      List<FieldElement> expected = new ArrayList<>();
+      for (FieldElement value : values) {
+        expected.add(value.multiply(scalar));
+      }
+      CustomAsserts.assertEquals(expected,
+          new FieldElementVector(values, modulus).multiply(scalar).toList());
+    }
+  }
+
+  @Test
+  public void testAddSelected() {
+    BigInteger modulus = ModulusFinder.findSuitableModulus(128);
+    List<FieldElement> left = randomElements(modulus);
+    List<FieldElement> right = randomElements(modulus);
+    boolean[] selection = new boolean[SIZE];
+    List<FieldElement> expected = new ArrayList<>();
+    for (int i = 0; i < SIZE; i++) {
+      selection[i] = random.nextBoolean();
+      expected.add(selection[i] ? left.get(i).add(right.get(i)) : left.get(i));
+    }
+    CustomAsserts.assertEquals(expected, new FieldElementVector(left, modulus)
+        .addSelected(new FieldElementVector(right, modulus), selection).toList());
+  }
+
+  @Test
+  public void testRecombine() {
+    for (BigInteger modulus : moduli()) {
+      List<FieldElement> values = randomElements(modulus);
+      FieldElementUtils reference = new FieldElementUtils(modulus);
+      int groupSize = 8;
+      List<FieldElement> expected = new ArrayList<>();
+      for (int i = 0; i < SIZE; i += groupSize) {
+        FieldElement recombined = new FieldElement(0, modulus);
+        for (int j = 0; j < groupSize; j++) {
+          recombined = recombined.add(
+              values.get(i + j).multiply(new FieldElement(BigInteger.ONE.shiftLeft(j), modulus)));
+        }
+        expected.add(recombined);
+      }
+      CustomAsserts.assertEquals(expected,
+          new FieldElementVector(values, modulus).recombine(groupSize).toList());
+      CustomAsserts.assertEquals(expected.get(0), reference.recombine(values.subList(0, 8)));
+    }
+  }
+
+  @Test
+  public void testSumRows() {
+    BigInteger modulus = ModulusFinder.findSuitableModulus(128);
+    List<List<FieldElement>> rows = Arrays.asList(randomElements(modulus),
+        randomElements(modulus), randomElements(modulus));
+    List<FieldElementVector> vectors = new ArrayList<>();
+    for (List<FieldElement> row : rows) {
+      vectors.add(new FieldElementVector(row, modulus));
+    }
+    List<FieldElement> actual = FieldElementVector.sumRows(vectors).toList();
+    for (int i = 0; i < SIZE; i++) {
+      CustomAsserts.assertEquals(
+          rows.get(0).get(i).add(rows.get(1).get(i)).add(rows.get(2).get(i)), actual.get(i));
+    }
+    CustomAsserts.assertEquals(actual, new FieldElementUtils(modulus).sumRows(rows));
+  }
+
+  @Test
+  public void testZeroes() {
+    BigInteger modulus = ModulusFinder.findSuitableModulus(64);
+    FieldElementVector zeroes = new FieldElementVector(4, modulus);
+    assertEquals(4, zeroes.size());
+    assertEquals(modulus, zeroes.getModulus());
+    CustomAsserts.assertEquals(new FieldElement(0, modulus), zeroes.get(3));
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue(FieldElementVector.isSupported(ModulusFinder.findSuitableModulus(256)));
+    assertFalse(FieldElementVector.isSupported(BigInteger.ONE.shiftLeft(63)));
+    assertFalse(
+        FieldElementVector.isSupported(BigInteger.ONE.shiftLeft(256).add(BigInteger.ONE)));
+    assertFalse(new FieldElementUtils(BigInteger.ONE.shiftLeft(63)).isVectorized());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvenModulus() {
+    new FieldElementVector(1, BigInteger.ONE.shiftLeft(63));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDifferentModuli() {
+    new FieldElementVector(1, ModulusFinder.findSuitableModulus(64))
+        .add(new FieldElementVector(1, ModulusFinder.findSuitableModulus(128)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDifferentSizes() {
+    BigInteger modulus = ModulusFinder.findSuitableModulus(64);
+    new FieldElementVector(1, modulus).add(new FieldElementVector(2, modulus));
+  }
+}
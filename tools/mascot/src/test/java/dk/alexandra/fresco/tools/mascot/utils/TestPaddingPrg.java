@@ -4,6 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 
+import dk.alexandra.fresco.framework.util.Drng;
+import dk.alexandra.fresco.framework.util.DrngImpl;
+import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
 import dk.alexandra.fresco.tools.mascot.CustomAsserts;
 import dk.alexandra.fresco.tools.mascot.field.FieldElement;
@@ -11,6 +14,7 @@ import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrg;
 import dk.alexandra.fresco.tools.mascot.prg.FieldElementPrgImpl;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import org.junit.Test;
 
@@ -84,4 +88,21 @@ public class TestPaddingPrg {
     assertNotEquals(elOne, elTwo);
   }
 
+  @Test
+  public void testBulkMatchesSingleSamples() {
+    byte[] seedBytes = new byte[32];
+    new Random().nextBytes(seedBytes);
+    // small modulus, so roughly half of the candidates are rejected
+    BigInteger smallModulus = BigInteger.valueOf(131);
+    for (BigInteger currentModulus : Arrays.asList(modulus, smallModulus)) {
+      Drng reference = new DrngImpl(new PaddingAesCtrDrbg(seedBytes));
+      List<FieldElement> bulk = new FieldElementPrgImpl(new StrictBitVector(seedBytes))
+          .getNext(currentModulus, 100);
+      assertEquals(100, bulk.size());
+      for (FieldElement element : bulk) {
+        assertEquals(reference.nextBigInteger(currentModulus), element.toBigInteger());
+      }
+    }
+  }
+
 }
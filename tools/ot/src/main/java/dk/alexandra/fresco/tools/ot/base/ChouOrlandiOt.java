@@ -0,0 +1,345 @@
+package dk.alexandra.fresco.tools.ot.base;
+
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.ExceptionConverter;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.tools.ot.otextension.PseudoOtp;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.SecureRandomSpi;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.crypto.KeyAgreement;
+
+/**
+ * Implementation of the "simplest OT" of Chou and Orlandi over the NIST P-256 curve.
+ * <p>
+ * A batch of OTs is carried out using three messages in total: The sender sends a point <i>A =
+ * aG</i>, the receiver replies with a point <i>B<sub>i</sub> = b<sub>i</sub>G + c<sub>i</sub>A</i>
+ * for each OT <i>i</i> with choice bit <i>c<sub>i</sub></i>, and the sender replies with the
+ * messages of all OTs encrypted under keys derived from <i>aB<sub>i</sub></i> and <i>a(B<sub>i</sub>
+ * - A)</i>. The receiver derives its key from <i>b<sub>i</sub>A</i>. This is much cheaper than the
+ * {@link NaorPinkasOt}, which uses a 2048 bit Diffie-Hellman group and a round trip per OT.
+ * </p>
+ * <p>
+ * The scalar multiplications are done using the EC key generation and ECDH key agreement of the
+ * installed security providers. Only point addition, which is cheap in comparison, is done here.
+ * </p>
+ */
+public class ChouOrlandiOt implements Ot {
+  private static final String CURVE_NAME = "secp256r1";
+  private static final String HASH_ALGORITHM = "SHA-256";
+  private static final int COORDINATE_BYTES = 32;
+  private static final int POINT_BYTES = 1 + 2 * COORDINATE_BYTES;
+  private static final byte UNCOMPRESSED_POINT = 0x04;
+  private final int otherId;
+  private final Network network;
+  private final MessageDigest hashDigest;
+  private final KeyPairGenerator keyPairGenerator;
+  private final KeyAgreement keyAgreement;
+  private final KeyFactory keyFactory;
+  private final ECParameterSpec curve;
+  /**
+   * The prime of the field of the curve.
+   */
+  private final BigInteger prime;
+
+  /**
+   * Constructs a Chou-Orlandi OT instance.
+   *
+   * @param otherId The ID of the other party
+   * @param randBit The calling party's secure randomness generator
+   * @param network The underlying network to use
+   */
+  public ChouOrlandiOt(int otherId, Drbg randBit, Network network) {
+    this.otherId = otherId;
+    this.network = network;
+    this.hashDigest = ExceptionConverter.safe(() -> MessageDigest.getInstance(HASH_ALGORITHM),
+        "Missing secure, hash function which is dependent in this library");
+    this.curve = ExceptionConverter.safe(() -> {
+      AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+      parameters.init(new ECGenParameterSpec(CURVE_NAME));
+      return parameters.getParameterSpec(ECParameterSpec.class);
+    }, "Missing the elliptic curve " + CURVE_NAME);
+    this.prime = ((ECFieldFp) curve.getCurve().getField()).getP();
+    this.keyPairGenerator = ExceptionConverter.safe(() -> {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(curve, new DrbgSecureRandom(randBit));
+      return generator;
+    }, "Missing elliptic curve key generation");
+    this.keyAgreement = ExceptionConverter.safe(() -> KeyAgreement.getInstance("ECDH"),
+        "Missing elliptic curve Diffie-Hellman key agreement");
+    this.keyFactory = ExceptionConverter.safe(() -> KeyFactory.getInstance("EC"),
+        "Missing elliptic curve key factory");
+  }
+
+  @Override
+  public void send(StrictBitVector messageZero, StrictBitVector messageOne) {
+    send(Collections.singletonList(new Pair<>(messageZero, messageOne)));
+  }
+
+  @Override
+  public StrictBitVector receive(boolean choiceBit) {
+    return receive(new boolean[] {choiceBit}).get(0);
+  }
+
+  @Override
+  public void send(List<Pair<StrictBitVector, StrictBitVector>> messages) {
+    KeyPair keyPair = keyPairGenerator.generateKeyPair();
+    ECPoint publicPoint = ((ECPublicKey) keyPair.getPublic()).getW();
+    byte[] encodedPublicPoint = encodePoint(publicPoint);
+    network.send(otherId, encodedPublicPoint);
+    byte[] receiverPoints = network.receive(otherId);
+    if (receiverPoints.length != messages.size() * POINT_BYTES) {
+      throw new MaliciousException("Expected " + messages.size() + " points from the receiver");
+    }
+    ECPoint negatedPublicPoint = negate(publicPoint);
+    List<byte[]> cipherTexts = new ArrayList<>(2 * messages.size());
+    int totalLength = 0;
+    for (int i = 0; i < messages.size(); i++) {
+      ECPoint receiverPoint = decodePoint(receiverPoints, i * POINT_BYTES);
+      ECPoint otherPoint = add(receiverPoint, negatedPublicPoint);
+      if (otherPoint.equals(ECPoint.POINT_INFINITY)) {
+        throw new MaliciousException("The receiver sent the public point of the sender");
+      }
+      byte[] encodedReceiverPoint = encodePoint(receiverPoint);
+      byte[] keyZero = deriveKey(i, false, keyPair.getPrivate(), receiverPoint,
+          encodedPublicPoint, encodedReceiverPoint);
+      byte[] keyOne = deriveKey(i, true, keyPair.getPrivate(), otherPoint, encodedPublicPoint,
+          encodedReceiverPoint);
+      StrictBitVector messageZero = messages.get(i).getFirst();
+      StrictBitVector messageOne = messages.get(i).getSecond();
+      int length = Math.max(messageZero.getSize(), messageOne.getSize()) / Byte.SIZE;
+      cipherTexts.add(PseudoOtp.encrypt(messageZero.toByteArray(), keyZero, length));
+      cipherTexts.add(PseudoOtp.encrypt(messageOne.toByteArray(), keyOne, length));
+      totalLength += Integer.BYTES + 2 * length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(totalLength);
+    for (int i = 0; i < cipherTexts.size(); i += 2) {
+      buffer.putInt(cipherTexts.get(i).length);
+      buffer.put(cipherTexts.get(i));
+      buffer.put(cipherTexts.get(i + 1));
+    }
+    network.send(otherId, buffer.array());
+  }
+
+  @Override
+  public List<StrictBitVector> receive(StrictBitVector choiceBits) {
+    boolean[] choices = new boolean[choiceBits.getSize()];
+    for (int i = 0; i < choices.length; i++) {
+      choices[i] = choiceBits.getBit(i, false);
+    }
+    return receive(choices);
+  }
+
+  private List<StrictBitVector> receive(boolean[] choiceBits) {
+    byte[] encodedSenderPoint = network.receive(otherId);
+    if (encodedSenderPoint.length != POINT_BYTES) {
+      throw new MaliciousException("Expected a single point from the sender");
+    }
+    ECPoint senderPoint = decodePoint(encodedSenderPoint, 0);
+    int amount = choiceBits.length;
+    List<PrivateKey> privateKeys = new ArrayList<>(amount);
+    byte[] receiverPoints = new byte[amount * POINT_BYTES];
+    for (int i = 0; i < amount; i++) {
+      ECPoint receiverPoint;
+      KeyPair keyPair;
+      do {
+        keyPair = keyPairGenerator.generateKeyPair();
+        receiverPoint = ((ECPublicKey) keyPair.getPublic()).getW();
+        if (choiceBits[i]) {
+          receiverPoint = add(receiverPoint, senderPoint);
+        }
+        // The sender rejects these points, but they only occur if the private key equals or is the
+        // negation of the sender's, which happens with negligible probability
+      } while (receiverPoint.equals(ECPoint.POINT_INFINITY) || receiverPoint.equals(senderPoint));
+      privateKeys.add(keyPair.getPrivate());
+      System.arraycopy(encodePoint(receiverPoint), 0, receiverPoints, i * POINT_BYTES,
+          POINT_BYTES);
+    }
+    network.send(otherId, receiverPoints);
+    ByteBuffer cipherTexts = ByteBuffer.wrap(network.receive(otherId));
+    List<StrictBitVector> messages = new ArrayList<>(amount);
+    for (int i = 0; i < amount; i++) {
+      if (cipherTexts.remaining() < Integer.BYTES) {
+        throw new MaliciousException("Too few messages received from the sender");
+      }
+      int length = cipherTexts.getInt();
+      if (length < 0 || cipherTexts.remaining() < 2 * length) {
+        throw new MaliciousException("Invalid length of the messages of the sender");
+      }
+      byte[] encryptedZeroMessage = new byte[length];
+      byte[] encryptedOneMessage = new byte[length];
+      cipherTexts.get(encryptedZeroMessage);
+      cipherTexts.get(encryptedOneMessage);
+      byte[] encodedReceiverPoint = new byte[POINT_BYTES];
+      System.arraycopy(receiverPoints, i * POINT_BYTES, encodedReceiverPoint, 0, POINT_BYTES);
+      byte[] key = deriveKey(i, choiceBits[i], privateKeys.get(i), senderPoint,
+          encodedSenderPoint, encodedReceiverPoint);
+      byte[] message = choiceBits[i]
+          ? PseudoOtp.decrypt(encryptedOneMessage, key)
+          : PseudoOtp.decrypt(encryptedZeroMessage, key);
+      messages.add(new StrictBitVector(message));
+    }
+    if (cipherTexts.hasRemaining()) {
+      throw new MaliciousException("Too many messages received from the sender");
+    }
+    return messages;
+  }
+
+  /**
+   * Derives the key of an OT by hashing the index of the OT, the choice the key belongs to, the
+   * points sent in the OT and the shared point computed from a private key and a point.
+   * <p>
+   * The key agreement only yields the x-coordinate of the shared point, and the x-coordinates of
+   * <i>aB</i> and <i>a(B - A)</i> coincide if a malicious receiver sends <i>B = 2<sup>-1</sup>A</i>.
+   * Hashing the choice makes sure the two keys of an OT differ even then.
+   * </p>
+   *
+   * @param index The index of the OT in the batch
+   * @param choice The choice bit of the message the key encrypts
+   * @param privateKey The private key
+   * @param point The point to multiply with the private key
+   * @param encodedSenderPoint The point sent by the sender
+   * @param encodedReceiverPoint The point sent by the receiver in this OT
+   * @return The key
+   */
+  private byte[] deriveKey(int index, boolean choice, PrivateKey privateKey, ECPoint point,
+      byte[] encodedSenderPoint, byte[] encodedReceiverPoint) {
+    PublicKey publicKey = ExceptionConverter.safe(
+        () -> keyFactory.generatePublic(new ECPublicKeySpec(point, curve)),
+        "Could not construct public key");
+    byte[] sharedSecret = ExceptionConverter.safe(() -> {
+      keyAgreement.init(privateKey);
+      keyAgreement.doPhase(publicKey, true);
+      return keyAgreement.generateSecret();
+    }, "Could not compute shared point");
+    hashDigest.update(ByteBuffer.allocate(Integer.BYTES).putInt(index).array());
+    hashDigest.update(choice ? (byte) 1 : (byte) 0);
+    hashDigest.update(encodedSenderPoint);
+    hashDigest.update(encodedReceiverPoint);
+    return hashDigest.digest(sharedSecret);
+  }
+
+  /**
+   * Decodes an uncompressed point and verifies that it is on the curve.
+   */
+  private ECPoint decodePoint(byte[] bytes, int offset) {
+    if (bytes[offset] != UNCOMPRESSED_POINT) {
+      throw new MaliciousException("Received point is not an uncompressed point");
+    }
+    byte[] coordinate = new byte[COORDINATE_BYTES];
+    System.arraycopy(bytes, offset + 1, coordinate, 0, COORDINATE_BYTES);
+    BigInteger x = new BigInteger(1, coordinate);
+    System.arraycopy(bytes, offset + 1 + COORDINATE_BYTES, coordinate, 0, COORDINATE_BYTES);
+    BigInteger y = new BigInteger(1, coordinate);
+    if (x.compareTo(prime) >= 0 || y.compareTo(prime) >= 0) {
+      throw new MaliciousException("Received point has coordinates outside the field");
+    }
+    BigInteger left = y.multiply(y).mod(prime);
+    BigInteger right = x.multiply(x).add(curve.getCurve().getA()).multiply(x)
+        .add(curve.getCurve().getB()).mod(prime);
+    if (!left.equals(right)) {
+      throw new MaliciousException("Received point is not on the curve");
+    }
+    return new ECPoint(x, y);
+  }
+
+  private static byte[] encodePoint(ECPoint point) {
+    byte[] encoded = new byte[POINT_BYTES];
+    encoded[0] = UNCOMPRESSED_POINT;
+    encodeCoordinate(point.getAffineX(), encoded, 1);
+    encodeCoordinate(point.getAffineY(), encoded, 1 + COORDINATE_BYTES);
+    return encoded;
+  }
+
+  private static void encodeCoordinate(BigInteger coordinate, byte[] encoded, int offset) {
+    byte[] bytes = coordinate.toByteArray();
+    // toByteArray includes a sign byte if the most significant bit is set
+    int length = Math.min(bytes.length, COORDINATE_BYTES);
+    System.arraycopy(bytes, bytes.length - length, encoded, offset + COORDINATE_BYTES - length,
+        length);
+  }
+
+  private ECPoint negate(ECPoint point) {
+    return new ECPoint(point.getAffineX(), prime.subtract(point.getAffineY()).mod(prime));
+  }
+
+  /**
+   * Adds two points in affine coordinates.
+   */
+  private ECPoint add(ECPoint p, ECPoint q) {
+    if (p.equals(ECPoint.POINT_INFINITY)) {
+      return q;
+    }
+    if (q.equals(ECPoint.POINT_INFINITY)) {
+      return p;
+    }
+    BigInteger x1 = p.getAffineX();
+    BigInteger y1 = p.getAffineY();
+    BigInteger x2 = q.getAffineX();
+    BigInteger y2 = q.getAffineY();
+    BigInteger lambda;
+    if (x1.equals(x2)) {
+      if (y1.add(y2).mod(prime).signum() == 0) {
+        return ECPoint.POINT_INFINITY;
+      }
+      BigInteger numerator = x1.multiply(x1).multiply(BigInteger.valueOf(3))
+          .add(curve.getCurve().getA());
+      lambda = numerator.multiply(y1.shiftLeft(1).modInverse(prime)).mod(prime);
+    } else {
+      lambda = y2.subtract(y1).multiply(x2.subtract(x1).mod(prime).modInverse(prime)).mod(prime);
+    }
+    BigInteger x3 = lambda.multiply(lambda).subtract(x1).subtract(x2).mod(prime);
+    BigInteger y3 = lambda.multiply(x1.subtract(x3)).subtract(y1).mod(prime);
+    return new ECPoint(x3, y3);
+  }
+
+  /**
+   * Lets the key generation of the security provider draw its randomness from a {@link Drbg}.
+   */
+  private static class DrbgSecureRandom extends SecureRandom {
+    private static final long serialVersionUID = -1753592419468113564L;
+
+    DrbgSecureRandom(Drbg drbg) {
+      super(new SecureRandomSpi() {
+        private static final long serialVersionUID = 2385104785402470583L;
+
+        @Override
+        protected void engineSetSeed(byte[] seed) {
+          // The randomness is fully determined by the DRBG
+        }
+
+        @Override
+        protected void engineNextBytes(byte[] bytes) {
+          drbg.nextBytes(bytes);
+        }
+
+        @Override
+        protected byte[] engineGenerateSeed(int numBytes) {
+          byte[] seed = new byte[numBytes];
+          drbg.nextBytes(seed);
+          return seed;
+        }
+      }, null);
+    }
+  }
+}
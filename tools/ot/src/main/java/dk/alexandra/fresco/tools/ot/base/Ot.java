@@ -1,6 +1,9 @@
 package dk.alexandra.fresco.tools.ot.base;
 
+import dk.alexandra.fresco.framework.util.Pair;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Oblivious Transfer interface for 1-out-of-2 oblivious transfer. That is, the sending party inputs
@@ -8,6 +11,11 @@ import dk.alexandra.fresco.framework.util.StrictBitVector;
  * first of the sending party's messages. If it is 1 it instead learns the second of the sending
  * party's messages. The sending party does not learn anything besides that the transfer was carried
  * out.
+ *
+ * <p>Batches of OTs can be carried out using {@link #send(List)} and
+ * {@link #receive(StrictBitVector)}. By default these carry out one OT at a time, but
+ * implementations may override them to carry out all OTs of a batch in a constant number of
+ * rounds.</p>
  */
 public interface Ot {
 
@@ -30,4 +38,32 @@ public interface Ot {
    * @return The message indicated by the choice bit
    */
   StrictBitVector receive(boolean choiceBit);
+
+  /**
+   * Send a batch of pairs of messages, where the recipient chooses one message from each pair.
+   *
+   * @param messages
+   *          The pairs of messages to send
+   */
+  default void send(List<Pair<StrictBitVector, StrictBitVector>> messages) {
+    for (Pair<StrictBitVector, StrictBitVector> pair : messages) {
+      send(pair.getFirst(), pair.getSecond());
+    }
+  }
+
+  /**
+   * Receive one-out-of-two messages from each pair of a batch.
+   *
+   * @param choiceBits
+   *          Bits indicating which message to receive from each pair. False means message zero
+   *          and true means message one.
+   * @return The messages indicated by the choice bits
+   */
+  default List<StrictBitVector> receive(StrictBitVector choiceBits) {
+    List<StrictBitVector> messages = new ArrayList<>(choiceBits.getSize());
+    for (int i = 0; i < choiceBits.getSize(); i++) {
+      messages.add(receive(choiceBits.getBit(i, false)));
+    }
+    return messages;
+  }
 }
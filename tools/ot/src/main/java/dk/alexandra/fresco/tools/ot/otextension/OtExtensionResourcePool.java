@@ -1,6 +1,7 @@
 package dk.alexandra.fresco.tools.ot.otextension;
 
 import dk.alexandra.fresco.framework.sce.resources.ResourcePool;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import dk.alexandra.fresco.framework.util.Drbg;
 import dk.alexandra.fresco.tools.cointossing.CoinTossing;
 
@@ -38,6 +39,13 @@ public interface OtExtensionResourcePool extends ResourcePool {
    */
   MessageDigest getDigest();
 
+  /**
+   * Gets the correlation robust hash function used to remove the correlation of the extended OTs.
+   *
+   * @return The correlation robust hash function
+   */
+  CorrelationRobustHash getCorrelationRobustHash();
+
   /**
    * Gets the instance ID of this resource pool.
    *
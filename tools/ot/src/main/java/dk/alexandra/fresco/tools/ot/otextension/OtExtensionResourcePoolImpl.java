@@ -1,9 +1,12 @@
 package dk.alexandra.fresco.tools.ot.otextension;
 
 import dk.alexandra.fresco.framework.sce.resources.ResourcePoolImpl;
+import dk.alexandra.fresco.framework.util.AesCorrelationRobustHash;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import dk.alexandra.fresco.framework.util.Drbg;
 import dk.alexandra.fresco.framework.util.ExceptionConverter;
 import dk.alexandra.fresco.tools.cointossing.CoinTossing;
+import dk.alexandra.fresco.tools.ot.base.Ot;
 
 import java.math.BigInteger;
 import java.security.MessageDigest;
@@ -43,6 +46,7 @@ public class OtExtensionResourcePoolImpl extends ResourcePoolImpl implements
   private final int lambdaSecurityParam;
   private final int instanceId;
   private final MessageDigest digest;
+  private final CorrelationRobustHash hash;
   private final RotList seedOts;
   private final CoinTossing ct;
   private final Drbg drbg;
@@ -70,6 +74,67 @@ public class OtExtensionResourcePoolImpl extends ResourcePoolImpl implements
   public OtExtensionResourcePoolImpl(int myId, int otherId,
       int computationalSecurityParam, int lambdaSecurityParam, int instanceId,
       Drbg drbg, CoinTossing ct, RotList seedOts) {
+    this(myId, otherId, computationalSecurityParam, lambdaSecurityParam, instanceId, drbg, ct,
+        seedOts, new AesCorrelationRobustHash());
+  }
+
+  /**
+   * Constructs an OT extension resource pool, where the seed OTs are first constructed with the
+   * other party using a given base OT. Using a base OT which does all OTs of a batch in a constant
+   * number of rounds, such as {@link dk.alexandra.fresco.tools.ot.base.ChouOrlandiOt}, makes this
+   * much faster than using {@link dk.alexandra.fresco.tools.ot.base.NaorPinkasOt}.
+   *
+   * @param myId
+   *          The ID of the calling party
+   * @param otherId
+   *          The ID of the other party
+   * @param computationalSecurityParam
+   *          The computational security parameter, which is also the amount of seed OTs
+   * @param lambdaSecurityParam
+   *          The statistical security parameter
+   * @param instanceId
+   *          The instance ID of this specific resource pool instance
+   * @param drbg
+   *          The randomness generator to be used by the calling party
+   * @param ct
+   *          An instance of a coin tossing protocol to be used with this specific resource pool
+   * @param baseOt
+   *          The base OT used to construct the seed OTs
+   */
+  public OtExtensionResourcePoolImpl(int myId, int otherId,
+      int computationalSecurityParam, int lambdaSecurityParam, int instanceId,
+      Drbg drbg, CoinTossing ct, Ot baseOt) {
+    this(myId, otherId, computationalSecurityParam, lambdaSecurityParam, instanceId, drbg, ct,
+        RotList.createSeedOts(drbg, computationalSecurityParam, myId, otherId, baseOt));
+  }
+
+  /**
+   * Constructs an OT extension resource pool using a specific correlation robust hash function.
+   * Both parties must use the same hash function.
+   *
+   * @param myId
+   *          The ID of the calling party
+   * @param otherId
+   *          The ID of the other party
+   * @param computationalSecurityParam
+   *          The computational security parameter
+   * @param lambdaSecurityParam
+   *          The statistical security parameter
+   * @param instanceId
+   *          The instance ID of this specific resource pool instance
+   * @param drbg
+   *          The randomness generator to be used by the calling party
+   * @param ct
+   *          An instance of a coin tossing protocol to be used with this specific resource pool
+   * @param seedOts
+   *          The seed OTs to be used as the base of the extension
+   * @param hash
+   *          The correlation robust hash function used to remove the correlation of the
+   *          extended OTs
+   */
+  public OtExtensionResourcePoolImpl(int myId, int otherId,
+      int computationalSecurityParam, int lambdaSecurityParam, int instanceId,
+      Drbg drbg, CoinTossing ct, RotList seedOts, CorrelationRobustHash hash) {
     super(myId, 2);
     if (computationalSecurityParam < 1 || lambdaSecurityParam < 1
         || lambdaSecurityParam % 8 != 0 || computationalSecurityParam
@@ -87,6 +152,7 @@ public class OtExtensionResourcePoolImpl extends ResourcePoolImpl implements
         "Configuration error, SHA-256 is needed for OT extension");
     this.ct = ct;
     this.seedOts = seedOts;
+    this.hash = hash;
   }
 
   @Override
@@ -115,6 +181,11 @@ public class OtExtensionResourcePoolImpl extends ResourcePoolImpl implements
     return digest;
   }
 
+  @Override
+  public CorrelationRobustHash getCorrelationRobustHash() {
+    return hash;
+  }
+
   @Override
   public int getInstanceId() {
     return instanceId;
@@ -48,9 +48,38 @@ public class RotList {
     choices = new StrictBitVector(amount, rand);
   }
 
+  /**
+   * Constructs a list of random seed OTs in both directions between the calling party and another
+   * party, using {@code ot} as the underlying OT functionality. The party with the smaller ID sends
+   * first.
+   *
+   * @param rand
+   *          The randomness generator to use
+   * @param amount
+   *          The amount of OTs to construct in each direction
+   * @param myId
+   *          The ID of the calling party
+   * @param otherId
+   *          The ID of the other party
+   * @param ot
+   *          The OT functionality to use
+   * @return The seed OTs, which have been both sent and received
+   */
+  public static RotList createSeedOts(Drbg rand, int amount, int myId, int otherId, Ot ot) {
+    RotList seedOts = new RotList(rand, amount);
+    if (myId < otherId) {
+      seedOts.send(ot);
+      seedOts.receive(ot);
+    } else {
+      seedOts.receive(ot);
+      seedOts.send(ot);
+    }
+    return seedOts;
+  }
+
   /**
    * Sends the prepared random OTs using {@code ot} as the underlying OT
-   * functionality.
+   * functionality. All OTs are given to {@code ot} as a single batch.
    * <p>
    * This method should only be called once.
    * </p>
@@ -62,15 +91,14 @@ public class RotList {
     if (sent == true) {
       throw new IllegalStateException("Seed OTs have already been sent.");
     }
-    for (Pair<StrictBitVector, StrictBitVector> pair : sendMessages) {
-      ot.send(pair.getFirst(), pair.getSecond());
-    }
+    ot.send(sendMessages);
     sent = true;
   }
 
   /**
    * Executes the receiving parts of the list of OTs using {@code ot} as the
-   * underlying OT protocol.
+   * underlying OT protocol. All OTs are received from {@code ot} as a single
+   * batch.
    * <p>
    * This method should only be called once.
    * </p>
@@ -82,10 +110,12 @@ public class RotList {
     if (received == true) {
       throw new IllegalStateException("Seed OTs have already been received.");
     }
-    for (int i = 0; i < amount; i++) {
-      StrictBitVector message = ot.receive(choices.getBit(i, false));
-      learnedMessages.add(message);
+    List<StrictBitVector> messages = ot.receive(choices);
+    if (messages.size() != amount) {
+      throw new IllegalStateException(
+          "Expected " + amount + " seed OTs, but received " + messages.size());
     }
+    learnedMessages.addAll(messages);
     received = true;
   }
 
@@ -1,10 +1,10 @@
 package dk.alexandra.fresco.tools.ot.otextension;
 
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import dk.alexandra.fresco.framework.util.StrictBitVector;
 import dk.alexandra.fresco.tools.cointossing.CoinTossing;
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -14,21 +14,25 @@ import java.util.stream.IntStream;
  * random OT extension.
  */
 public abstract class RotSharedImpl {
+  /**
+   * The number of bytes each extended OT is hashed to.
+   */
+  private static final int HASH_BYTES = 32;
   private final CoinTossing ct;
   private final int comSecParam;
-  private final MessageDigest digest;
+  private final CorrelationRobustHash hash;
 
   /**
    * Constructs a random OT extension super-class using an underlying correlated OT with errors
    * object.
    *
    * @param ct The coin tossing instance to use
-   * @param digest The hash function to use
+   * @param hash The correlation robust hash function to use
    * @param comSecParam The computational security parameter
    */
-  public RotSharedImpl(CoinTossing ct, MessageDigest digest, int comSecParam) {
+  public RotSharedImpl(CoinTossing ct, CorrelationRobustHash hash, int comSecParam) {
     this.ct = ct;
-    this.digest = digest;
+    this.hash = hash;
     this.comSecParam = comSecParam;
   }
 
@@ -97,30 +101,29 @@ public abstract class RotSharedImpl {
   }
 
   /**
-   * Compute a SHA-256 digest of elements in a list, concatenated with their index in the list. Only
-   * the first {@code size} elements of the list will be hashed.
+   * Hashes elements in a list using the correlation robust hash, tweaking each element by its index
+   * in the list. Only the first {@code size} elements of the list will be hashed, and they are all
+   * hashed in a single call to the hash function.
    *
    * @param input The list of StrictBitVector elements to hash. All elements MUST have same length
    * @param size The amount of elements of the list, to hash. Must be less than or equal to the
    *        amount of elements in the list.
-   * @return A list containing the hashed StrictBitVector as StrictBitVector objects
+   * @return A list containing the hashed StrictBitVector as StrictBitVector objects of 256 bits
    */
   protected List<StrictBitVector> hashBitVector(List<StrictBitVector> input, int size) {
     List<StrictBitVector> res = new ArrayList<>(size);
-    // Allocate a buffer to contain the index of the value to hash along with
-    // the value itself.
-    ByteBuffer indexBuffer = ByteBuffer.allocate((Integer.SIZE + input.get(0).getSize()) / 8);
-    byte[] hash;
+    if (size == 0) {
+      return res;
+    }
+    int inputLength = input.get(0).getSize() / Byte.SIZE;
+    byte[] inputs = new byte[size * inputLength];
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(input.get(i).toByteArray(), 0, inputs, i * inputLength, inputLength);
+    }
+    byte[] outputs = hash.hash(inputs, inputLength, HASH_BYTES);
     for (int i = 0; i < size; i++) {
-      indexBuffer.clear();
-      // Move the index into the buffer
-      indexBuffer.putInt(i);
-      // Move the value to hash into the buffer
-      indexBuffer.put(input.get(i).toByteArray());
-      hash = digest.digest(indexBuffer.array());
-      // Allocate the new bitvector, which contains 256 bits since SHA-256 is
-      // used
-      res.add(new StrictBitVector(hash));
+      res.add(new StrictBitVector(
+          Arrays.copyOfRange(outputs, i * HASH_BYTES, (i + 1) * HASH_BYTES)));
     }
     return res;
   }
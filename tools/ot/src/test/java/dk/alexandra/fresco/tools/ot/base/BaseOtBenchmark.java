@@ -0,0 +1,81 @@
+package dk.alexandra.fresco.tools.ot.base;
+
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.tools.helper.HelperForTests;
+import dk.alexandra.fresco.tools.helper.RuntimeForTests;
+import dk.alexandra.fresco.tools.ot.otextension.CheatingNetwork;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Benchmark comparing the time it takes to construct the seed OTs between two parties, as done
+ * when setting up MASCOT or SPDZ2k, using Naor-Pinkas OTs and using Chou-Orlandi OTs. Both parties
+ * are run in this process.
+ */
+public class BaseOtBenchmark {
+
+  private static final int WARMUP_AMOUNT = 64;
+  private static final int[] AMOUNTS = {128, 256};
+  private static final int REPETITIONS = 3;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    OtFactory naorPinkas = (otherId, rand, network) ->
+        new NaorPinkasOt(otherId, rand, network, DhParameters.getStaticDhParams());
+    OtFactory chouOrlandi = ChouOrlandiOt::new;
+    // Warm up
+    benchmark(WARMUP_AMOUNT, naorPinkas);
+    benchmark(WARMUP_AMOUNT, chouOrlandi);
+    for (int amount : AMOUNTS) {
+      System.out.println(String.format("%d seed OTs in each direction: Naor-Pinkas %d ms, "
+          + "Chou-Orlandi %d ms", amount, benchmark(amount, naorPinkas),
+          benchmark(amount, chouOrlandi)));
+    }
+  }
+
+  /**
+   * Returns the best time of a few repetitions, where the time of a repetition is the time of the
+   * slowest party.
+   */
+  private static long benchmark(int amount, OtFactory factory) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < REPETITIONS; i++) {
+      RuntimeForTests runtime = new RuntimeForTests();
+      Callable<Long> partyOne = () -> createSeedOts(1, 2, amount, factory);
+      Callable<Long> partyTwo = () -> createSeedOts(2, 1, amount, factory);
+      List<Long> times = runtime.runPerPartyTasks(Arrays.asList(partyOne, partyTwo));
+      runtime.shutdown();
+      best = Math.min(best, Math.max(times.get(0), times.get(1)));
+    }
+    return best;
+  }
+
+  private static long createSeedOts(int myId, int otherId, int amount, OtFactory factory)
+      throws IOException {
+    Network network = new CheatingNetwork(
+        RuntimeForTests.defaultNetworkConfiguration(myId, Arrays.asList(1, 2)));
+    try {
+      Drbg rand = new AesCtrDrbg(myId == 1 ? HelperForTests.seedOne : HelperForTests.seedTwo);
+      long start = System.currentTimeMillis();
+      RotList.createSeedOts(rand, amount, myId, otherId, factory.create(otherId, rand, network));
+      return System.currentTimeMillis() - start;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  private interface OtFactory {
+
+    Ot create(int otherId, Drbg rand, Network network);
+  }
+}
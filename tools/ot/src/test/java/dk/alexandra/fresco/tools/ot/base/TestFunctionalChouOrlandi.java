@@ -0,0 +1,307 @@
+package dk.alexandra.fresco.tools.ot.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import dk.alexandra.fresco.framework.MaliciousException;
+import dk.alexandra.fresco.framework.network.Network;
+import dk.alexandra.fresco.framework.util.AesCtrDrbg;
+import dk.alexandra.fresco.framework.util.Drbg;
+import dk.alexandra.fresco.framework.util.Pair;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.tools.helper.HelperForTests;
+import dk.alexandra.fresco.tools.helper.RuntimeForTests;
+import dk.alexandra.fresco.tools.ot.otextension.CheatingNetwork;
+import dk.alexandra.fresco.tools.ot.otextension.RotList;
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.AlgorithmParameters;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFunctionalChouOrlandi {
+  private RuntimeForTests testRuntime;
+  private int messageLength = 1024;
+
+  @Before
+  public void initializeRuntime() {
+    this.testRuntime = new RuntimeForTests();
+  }
+
+  @After
+  public void shutdown() {
+    testRuntime.shutdown();
+  }
+
+  private List<Pair<StrictBitVector, StrictBitVector>> otSend(int iterations) throws Exception {
+    Network network =
+        new CheatingNetwork(RuntimeForTests.defaultNetworkConfiguration(1, Arrays.asList(1, 2)));
+    try {
+      Drbg rand = new AesCtrDrbg(HelperForTests.seedOne);
+      Ot otSender = new ChouOrlandiOt(2, rand, network);
+      List<Pair<StrictBitVector, StrictBitVector>> messages = new ArrayList<>(iterations);
+      for (int i = 0; i < iterations; i++) {
+        StrictBitVector msgZero = new StrictBitVector(messageLength, rand);
+        StrictBitVector msgOne = new StrictBitVector(messageLength, rand);
+        messages.add(new Pair<>(msgZero, msgOne));
+      }
+      otSender.send(messages);
+      // Also do a single OT
+      otSender.send(messages.get(0).getFirst(), messages.get(0).getSecond());
+      return messages;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  private List<StrictBitVector> otReceive(StrictBitVector choices) throws Exception {
+    Network network =
+        new CheatingNetwork(RuntimeForTests.defaultNetworkConfiguration(2, Arrays.asList(1, 2)));
+    try {
+      Drbg rand = new AesCtrDrbg(HelperForTests.seedTwo);
+      Ot otReceiver = new ChouOrlandiOt(1, rand, network);
+      List<StrictBitVector> messages = new ArrayList<>(otReceiver.receive(choices));
+      messages.add(otReceiver.receive(choices.getBit(0, false)));
+      return messages;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  /**
+   * Verify that we can execute a batch of OTs followed by a single OT.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testChouOrlandiOt() {
+    int iterations = 24;
+    Drbg rand = new AesCtrDrbg(HelperForTests.seedThree);
+    StrictBitVector choices = new StrictBitVector(iterations, rand);
+    Callable<List<?>> partyOneOt = () -> otSend(iterations);
+    Callable<List<?>> partyTwoOt = () -> otReceive(choices);
+    List<List<?>> results = testRuntime.runPerPartyTasks(Arrays.asList(partyOneOt, partyTwoOt));
+    assertEquals(iterations, results.get(0).size());
+    assertEquals(iterations + 1, results.get(1).size());
+    StrictBitVector zeroVec = new StrictBitVector(messageLength);
+    for (int i = 0; i < iterations; i++) {
+      Pair<StrictBitVector, StrictBitVector> senderResult =
+          (Pair<StrictBitVector, StrictBitVector>) results.get(0).get(i);
+      StrictBitVector receiverResult = (StrictBitVector) results.get(1).get(i);
+      if (choices.getBit(i, false) == false) {
+        assertTrue(senderResult.getFirst().equals(receiverResult));
+      } else {
+        assertTrue(senderResult.getSecond().equals(receiverResult));
+      }
+      assertEquals(zeroVec.getSize(), receiverResult.getSize());
+      assertNotEquals(zeroVec, receiverResult);
+      assertNotEquals(senderResult.getFirst(), senderResult.getSecond());
+    }
+    // The single OT uses the first choice and the first pair of messages
+    assertEquals(results.get(1).get(0), results.get(1).get(iterations));
+    assertNotEquals(new StrictBitVector(choices.getSize()), choices);
+  }
+
+  private List<StrictBitVector> seedOts(int myId, int otherId) throws Exception {
+    Network network = new CheatingNetwork(
+        RuntimeForTests.defaultNetworkConfiguration(myId, Arrays.asList(1, 2)));
+    try {
+      Drbg rand = new AesCtrDrbg(myId == 1 ? HelperForTests.seedOne : HelperForTests.seedTwo);
+      RotList seedOts = RotList.createSeedOts(rand, 128, myId, otherId,
+          new ChouOrlandiOt(otherId, rand, network));
+      List<StrictBitVector> res = new ArrayList<>();
+      for (Pair<StrictBitVector, StrictBitVector> pair : seedOts.getSentMessages()) {
+        res.add(pair.getFirst());
+        res.add(pair.getSecond());
+      }
+      res.add(seedOts.getChoices());
+      res.addAll(seedOts.getLearnedMessages());
+      return res;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  /**
+   * Verify that seed OTs constructed in both directions are consistent.
+   */
+  @Test
+  public void testSeedOts() {
+    Callable<List<StrictBitVector>> partyOne = () -> seedOts(1, 2);
+    Callable<List<StrictBitVector>> partyTwo = () -> seedOts(2, 1);
+    List<List<StrictBitVector>> results =
+        testRuntime.runPerPartyTasks(Arrays.asList(partyOne, partyTwo));
+    for (int sender = 0; sender < 2; sender++) {
+      List<StrictBitVector> sent = results.get(sender);
+      List<StrictBitVector> received = results.get(1 - sender);
+      StrictBitVector choices = received.get(2 * 128);
+      for (int i = 0; i < 128; i++) {
+        int choice = choices.getBit(i, false) ? 1 : 0;
+        assertEquals(sent.get(2 * i + choice), received.get(2 * 128 + 1 + i));
+      }
+    }
+  }
+
+  /***** NEGATIVE TESTS. *****/
+  private Object otSendCheat() throws Exception {
+    Network network =
+        new CheatingNetwork(RuntimeForTests.defaultNetworkConfiguration(1, Arrays.asList(1, 2)));
+    try {
+      Drbg rand = new AesCtrDrbg(HelperForTests.seedOne);
+      Ot otSender = new ChouOrlandiOt(2, rand, network);
+      StrictBitVector msgZero = new StrictBitVector(messageLength, rand);
+      StrictBitVector msgOne = new StrictBitVector(messageLength, rand);
+      otSender.send(Collections.singletonList(new Pair<>(msgZero, msgOne)));
+      return null;
+    } catch (MaliciousException e) {
+      return e;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  private Object otReceiveCheat() throws Exception {
+    Network network =
+        new CheatingNetwork(RuntimeForTests.defaultNetworkConfiguration(2, Arrays.asList(1, 2)));
+    try {
+      network.receive(1);
+      // Send the uncompressed encoding of the point (0, 1), which is not on the curve
+      byte[] point = new byte[65];
+      point[0] = 0x04;
+      point[64] = 1;
+      network.send(1, point);
+      return null;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  /**
+   * Test that the sender detects a receiver sending a point which is not on the curve.
+   */
+  @Test
+  public void testCheatingInChouOrlandiOt() {
+    Callable<Object> partyOne = this::otSendCheat;
+    Callable<Object> partyTwo = this::otReceiveCheat;
+    List<Object> results = testRuntime.runPerPartyTasks(Arrays.asList(partyOne, partyTwo));
+    assertTrue(results.get(0) instanceof MaliciousException);
+    assertEquals("Received point is not on the curve",
+        ((MaliciousException) results.get(0)).getMessage());
+  }
+
+  private Object otSendHalvedPoint() throws Exception {
+    Network network =
+        new CheatingNetwork(RuntimeForTests.defaultNetworkConfiguration(1, Arrays.asList(1, 2)));
+    try {
+      Drbg rand = new AesCtrDrbg(HelperForTests.seedOne);
+      Ot otSender = new ChouOrlandiOt(2, rand, network);
+      StrictBitVector msgZero = new StrictBitVector(messageLength, rand);
+      StrictBitVector msgOne = new StrictBitVector(messageLength, rand);
+      otSender.send(Collections.singletonList(new Pair<>(msgZero, msgOne)));
+      StrictBitVector xor = new StrictBitVector(msgZero.toByteArray());
+      xor.xor(msgOne);
+      return xor;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  private Object otReceiveHalvedPoint() throws Exception {
+    Network network =
+        new CheatingNetwork(RuntimeForTests.defaultNetworkConfiguration(2, Arrays.asList(1, 2)));
+    try {
+      AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+      parameters.init(new ECGenParameterSpec("secp256r1"));
+      ECParameterSpec curve = parameters.getParameterSpec(ECParameterSpec.class);
+      BigInteger prime = ((ECFieldFp) curve.getCurve().getField()).getP();
+      byte[] senderPoint = network.receive(1);
+      BigInteger[] point = new BigInteger[] {
+          new BigInteger(1, Arrays.copyOfRange(senderPoint, 1, 33)),
+          new BigInteger(1, Arrays.copyOfRange(senderPoint, 33, 65))};
+      // Send B = 2^-1 A, for which aB and a(B - A) = -aB share their x-coordinate
+      BigInteger half = BigInteger.valueOf(2).modInverse(curve.getOrder());
+      BigInteger[] halved = multiply(point, half, curve.getCurve().getA(), prime);
+      byte[] receiverPoint = new byte[65];
+      receiverPoint[0] = 0x04;
+      toBytes(halved[0], receiverPoint, 1);
+      toBytes(halved[1], receiverPoint, 33);
+      network.send(1, receiverPoint);
+      ByteBuffer cipherTexts = ByteBuffer.wrap(network.receive(1));
+      byte[] cipherZero = new byte[cipherTexts.getInt()];
+      byte[] cipherOne = new byte[cipherZero.length];
+      cipherTexts.get(cipherZero);
+      cipherTexts.get(cipherOne);
+      StrictBitVector xor = new StrictBitVector(cipherZero);
+      xor.xor(new StrictBitVector(cipherOne));
+      return xor;
+    } finally {
+      ((Closeable) network).close();
+    }
+  }
+
+  /**
+   * Test that a receiver sending a point whose keys share the x-coordinate of the shared point
+   * does not learn the XOR of the two messages.
+   */
+  @Test
+  public void testHalvedPointInChouOrlandiOt() {
+    Callable<Object> partyOne = this::otSendHalvedPoint;
+    Callable<Object> partyTwo = this::otReceiveHalvedPoint;
+    List<Object> results = testRuntime.runPerPartyTasks(Arrays.asList(partyOne, partyTwo));
+    assertNotEquals(results.get(0), results.get(1));
+  }
+
+  private static BigInteger[] multiply(BigInteger[] point, BigInteger scalar, BigInteger a,
+      BigInteger prime) {
+    BigInteger[] result = null;
+    for (int i = scalar.bitLength() - 1; i >= 0; i--) {
+      result = add(result, result, a, prime);
+      if (scalar.testBit(i)) {
+        result = add(result, point, a, prime);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds two affine points, where null is the point at infinity.
+   */
+  private static BigInteger[] add(BigInteger[] p, BigInteger[] q, BigInteger a,
+      BigInteger prime) {
+    if (p == null) {
+      return q;
+    }
+    if (q == null) {
+      return p;
+    }
+    BigInteger lambda;
+    if (p[0].equals(q[0])) {
+      if (p[1].add(q[1]).mod(prime).signum() == 0) {
+        return null;
+      }
+      lambda = p[0].pow(2).multiply(BigInteger.valueOf(3)).add(a)
+          .multiply(p[1].shiftLeft(1).modInverse(prime)).mod(prime);
+    } else {
+      lambda = q[1].subtract(p[1]).multiply(q[0].subtract(p[0]).modInverse(prime)).mod(prime);
+    }
+    BigInteger x = lambda.pow(2).subtract(p[0]).subtract(q[0]).mod(prime);
+    BigInteger y = lambda.multiply(p[0].subtract(x)).subtract(p[1]).mod(prime);
+    return new BigInteger[] {x, y};
+  }
+
+  private static void toBytes(BigInteger coordinate, byte[] encoded, int offset) {
+    byte[] bytes = coordinate.toByteArray();
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, encoded, offset + 32 - length, length);
+  }
+}
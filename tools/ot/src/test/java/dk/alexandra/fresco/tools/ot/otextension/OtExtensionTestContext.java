@@ -3,6 +3,7 @@ package dk.alexandra.fresco.tools.ot.otextension;
 import dk.alexandra.fresco.framework.network.Network;
 import dk.alexandra.fresco.framework.util.AesCtrDrbg;
 import dk.alexandra.fresco.framework.util.ByteArrayHelper;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
 import dk.alexandra.fresco.framework.util.Drbg;
 import dk.alexandra.fresco.framework.util.PaddingAesCtrDrbg;
 import dk.alexandra.fresco.tools.cointossing.CoinTossing;
@@ -74,6 +75,24 @@ public class OtExtensionTestContext {
         lambdaSecurityParam, instanceId, rand, ct, seedOts);
   }
 
+  /**
+   * Creates a new OT extension resource pool based on a specific instance ID, using a specific
+   * correlation robust hash function.
+   *
+   * @param instanceId
+   *          The id of the instance we wish to create a resource pool for
+   * @param hash
+   *          The correlation robust hash function to use
+   * @return A new resources pool
+   */
+  public OtExtensionResourcePool createResources(int instanceId, CorrelationRobustHash hash) {
+    Drbg rand = createRand(instanceId);
+    CoinTossing ct = new CoinTossing(myId, otherId, rand);
+    ct.initialize(network);
+    return new OtExtensionResourcePoolImpl(myId, otherId, kbitLength,
+        lambdaSecurityParam, instanceId, rand, ct, seedOts, hash);
+  }
+
   /**
    * Creates a new randomness generator unique for {@code instanceId}.
    *
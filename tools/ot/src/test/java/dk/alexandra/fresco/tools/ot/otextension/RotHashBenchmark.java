@@ -0,0 +1,108 @@
+package dk.alexandra.fresco.tools.ot.otextension;
+
+import dk.alexandra.fresco.framework.util.AesCorrelationRobustHash;
+import dk.alexandra.fresco.framework.util.CorrelationRobustHash;
+import dk.alexandra.fresco.framework.util.Sha256CorrelationRobustHash;
+import dk.alexandra.fresco.framework.util.StrictBitVector;
+import dk.alexandra.fresco.tools.helper.RuntimeForTests;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark comparing the throughput of random OT extension using the fixed-key AES correlation
+ * robust hash with the throughput using SHA-256. Both parties are run in this process, and the
+ * throughput of the hash functions alone is measured as well.
+ */
+public class RotHashBenchmark {
+
+  private static final int KBIT_LENGTH = 128;
+  private static final int LAMBDA_SECURITY_PARAM = 64;
+  // the extension adds KBIT_LENGTH + LAMBDA_SECURITY_PARAM OTs, and the total must be a power of 2
+  private static final int OTS_PER_EXTENSION = (1 << 14) - KBIT_LENGTH - LAMBDA_SECURITY_PARAM;
+  private static final int WARMUP_ITERATIONS = 20;
+  private static final int ITERATIONS = 50;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    benchmarkHash("SHA-256", new Sha256CorrelationRobustHash());
+    benchmarkHash("AES", new AesCorrelationRobustHash());
+    benchmarkRot("SHA-256", Sha256CorrelationRobustHash::new);
+    benchmarkRot("AES", AesCorrelationRobustHash::new);
+  }
+
+  private static void benchmarkHash(String name, CorrelationRobustHash hash) {
+    int inputLength = KBIT_LENGTH / Byte.SIZE;
+    byte[] inputs = new byte[OTS_PER_EXTENSION * inputLength];
+    new Random(42).nextBytes(inputs);
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      hash.hash(inputs, inputLength, 32);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      hash.hash(inputs, inputLength, 32);
+    }
+    long time = System.nanoTime() - start;
+    System.out.println(String.format("%-8s hash: %,12.0f hashes/s", name,
+        (double) OTS_PER_EXTENSION * ITERATIONS / time * 1e9));
+  }
+
+  private static void benchmarkRot(String name, Supplier<CorrelationRobustHash> hash) {
+    RuntimeForTests runtime = new RuntimeForTests();
+    Callable<Object> partyOneTask = () -> runSender(hash.get());
+    Callable<Object> partyTwoTask = () -> runReceiver(hash.get());
+    List<Object> times = runtime.runPerPartyTasks(Arrays.asList(partyOneTask, partyTwoTask));
+    runtime.shutdown();
+    for (Object result : times) {
+      if (!(result instanceof Long)) {
+        throw new RuntimeException("Benchmark of " + name + " failed", (Throwable) result);
+      }
+    }
+    long time = Math.max((Long) times.get(0), (Long) times.get(1));
+    System.out.println(String.format("%-8s ROT:  %,12.0f OTs/s", name,
+        (double) OTS_PER_EXTENSION * ITERATIONS / time * 1e9));
+  }
+
+  private static long runSender(CorrelationRobustHash hash) throws IOException {
+    OtExtensionTestContext ctx = new OtExtensionTestContext(1, 2, KBIT_LENGTH,
+        LAMBDA_SECURITY_PARAM);
+    RotSender sender = new RotFactory(ctx.createResources(1, hash), ctx.getNetwork())
+        .createSender();
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      sender.extend(OTS_PER_EXTENSION);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      sender.extend(OTS_PER_EXTENSION);
+    }
+    long time = System.nanoTime() - start;
+    ((Closeable) ctx.getNetwork()).close();
+    return time;
+  }
+
+  private static long runReceiver(CorrelationRobustHash hash) throws IOException {
+    OtExtensionTestContext ctx = new OtExtensionTestContext(2, 1, KBIT_LENGTH,
+        LAMBDA_SECURITY_PARAM);
+    RotReceiver receiver = new RotFactory(ctx.createResources(1, hash), ctx.getNetwork())
+        .createReceiver();
+    StrictBitVector choices = new StrictBitVector(OTS_PER_EXTENSION, ctx.createRand(2));
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      receiver.extend(choices);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      receiver.extend(choices);
+    }
+    long time = System.nanoTime() - start;
+    ((Closeable) ctx.getNetwork()).close();
+    return time;
+  }
+}